@@ -20,10 +20,12 @@ package org.killbill.billing.account.dao;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.SortedSet;
 import java.util.UUID;
 
 import org.killbill.billing.BillingExceptionBase;
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.user.DefaultAccountChangeEvent;
@@ -44,6 +46,8 @@ import org.killbill.billing.util.entity.dao.EntityDaoBase;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.search.SearchIndex;
+import org.killbill.billing.util.search.SearchIndexSource;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
@@ -60,14 +64,22 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
     private final PersistentBus eventBus;
     private final InternalCallContextFactory internalCallContextFactory;
     private final Clock clock;
+    private final SearchIndex searchIndex;
 
     @Inject
     public DefaultAccountDao(final IDBI dbi, final PersistentBus eventBus, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher,
-                             final InternalCallContextFactory internalCallContextFactory, final NonEntityDao nonEntityDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), AccountSqlDao.class);
+                             final InternalCallContextFactory internalCallContextFactory, final NonEntityDao nonEntityDao, final SearchIndex searchIndex) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, searchIndex.getEntitySqlDaoTransactionHook()), AccountSqlDao.class);
         this.eventBus = eventBus;
         this.internalCallContextFactory = internalCallContextFactory;
         this.clock = clock;
+        this.searchIndex = searchIndex;
+        this.searchIndex.registerSource(ObjectType.ACCOUNT, new SearchIndexSource() {
+            @Override
+            public Iterator<AccountModelDao> getAll(final InternalTenantContext context) {
+                return transactionalSqlDao.onDemandForStreamingResults(AccountSqlDao.class).getAll(context);
+            }
+        });
     }
 
     @Override
@@ -110,6 +122,11 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
 
     @Override
     public Pagination<AccountModelDao> searchAccounts(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
+        final SortedSet<Long> candidateRecordIds = searchIndex.search(ObjectType.ACCOUNT, searchKey, context);
+        if (candidateRecordIds != null) {
+            return paginationHelper.getPaginationFromSearchCandidates(AccountSqlDao.class, candidateRecordIds, searchKey, offset, limit, context);
+        }
+
         return paginationHelper.getPagination(AccountSqlDao.class,
                                               new PaginationIteratorBuilder<AccountModelDao, Account, AccountSqlDao>() {
                                                   @Override
@@ -26,6 +26,7 @@ import org.joda.time.DateTimeZone;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.AccountTestSuiteWithEmbeddedDB;
+import org.killbill.billing.account.AccountTestUtils;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountData;
 import org.killbill.billing.account.api.AccountEmail;
@@ -41,13 +42,17 @@ import org.killbill.billing.util.api.TagDefinitionApiException;
 import org.killbill.billing.util.audit.AuditLog;
 import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.audit.DefaultAccountAuditLogs;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.customfield.dao.CustomFieldModelDao;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.search.DefaultSearchIndex;
+import org.killbill.billing.util.search.SearchIndex;
 import org.killbill.billing.util.tag.DescriptiveTag;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
 import org.killbill.billing.util.tag.dao.TagModelDao;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -138,6 +143,52 @@ public class TestAccountDao extends AccountTestSuiteWithEmbeddedDB {
     }
 
     // Simple test to ensure long phone numbers can be stored
+    @Test(groups = "slow", description = "Test Account DAO: search backed by the search index")
+    public void testSearchWithSearchIndex() throws Exception {
+        final SearchConfig searchConfig = Mockito.mock(SearchConfig.class);
+        Mockito.when(searchConfig.isSearchIndexEnabled()).thenReturn(true);
+        Mockito.when(searchConfig.getSearchIndexMaxCandidates()).thenReturn(1000);
+        final SearchIndex searchIndex = new DefaultSearchIndex(dbi, searchConfig, clock);
+        final AccountDao indexedAccountDao = new DefaultAccountDao(dbi, bus, clock, controllerDispatcher, internalCallContextFactory, nonEntityDao, searchIndex);
+
+        final AccountModelDao account1 = new AccountModelDao(UUID.randomUUID(), new MockAccountBuilder(AccountTestUtils.createAccountData()).name("Indexed Customer").build());
+        indexedAccountDao.create(account1, internalCallContext);
+
+        // Not indexed yet: the search falls back to the database
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "customer", internalCallContext));
+        Assert.assertEquals(indexedAccountDao.searchAccounts("Customer", 0L, 10L, internalCallContext).getTotalNbRecords(), (Long) 1L);
+
+        searchIndex.rebuild(ObjectType.ACCOUNT, internalCallContext);
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "customer", internalCallContext).size(), 1);
+
+        // New accounts are indexed as they are created
+        final AccountModelDao account2 = new AccountModelDao(UUID.randomUUID(), new MockAccountBuilder(AccountTestUtils.createAccountData()).name("Another Customer").build());
+        indexedAccountDao.create(account2, internalCallContext);
+
+        Pagination<AccountModelDao> result = indexedAccountDao.searchAccounts("Customer", 0L, 10L, internalCallContext);
+        Assert.assertEquals(result.getTotalNbRecords(), (Long) 2L);
+        Assert.assertEquals(result.getMaxNbRecords(), (Long) 2L);
+        final List<AccountModelDao> accounts = ImmutableList.<AccountModelDao>copyOf(result);
+        Assert.assertEquals(accounts.size(), 2);
+        Assert.assertEquals(accounts.get(0).getId(), account1.getId());
+        Assert.assertEquals(accounts.get(1).getId(), account2.getId());
+
+        result = indexedAccountDao.searchAccounts("Customer", 1L, 10L, internalCallContext);
+        Assert.assertEquals(ImmutableList.<AccountModelDao>copyOf(result).size(), 1);
+
+        // Updates are indexed in the same transaction
+        final AccountModelDao renamedAccount = new AccountModelDao(account1.getId(), new MockAccountBuilder(new DefaultAccount(account1)).name("Renamed").build());
+        indexedAccountDao.update(renamedAccount, internalCallContext);
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "indexed", internalCallContext).size(), 0);
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "renamed", internalCallContext).size(), 1);
+        Assert.assertEquals(indexedAccountDao.searchAccounts("Indexed", 0L, 10L, internalCallContext).getTotalNbRecords(), (Long) 0L);
+        Assert.assertEquals(indexedAccountDao.searchAccounts("Renamed", 0L, 10L, internalCallContext).getTotalNbRecords(), (Long) 1L);
+        Assert.assertEquals(indexedAccountDao.searchAccounts("Customer", 0L, 10L, internalCallContext).getTotalNbRecords(), (Long) 1L);
+
+        // Exact id match
+        Assert.assertEquals(indexedAccountDao.searchAccounts(account2.getId().toString(), 0L, 10L, internalCallContext).getTotalNbRecords(), (Long) 1L);
+    }
+
     @Test(groups = "slow", description = "Test Account DAO: long numbers")
     public void testLongPhoneNumber() throws AccountApiException {
         final AccountModelDao account = createTestAccount("123456789012345678901234");
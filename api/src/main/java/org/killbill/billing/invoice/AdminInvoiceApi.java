@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.UUID;
+
+import org.killbill.billing.security.Permission;
+import org.killbill.billing.security.RequiresPermissions;
+import org.killbill.billing.util.callcontext.CallContext;
+
+// Invoice counterpart of AdminPaymentApi, to fix invoicing data
+public interface AdminInvoiceApi {
+
+    /**
+     * Verify the materialized account balance and CBA against the invoices, and rebuild them if needed
+     *
+     * @param accountId account id
+     * @param dryRun    if true, only verify the materialized values
+     * @param context   the callcontext
+     * @return true if the materialized values were up-to-date
+     */
+    @RequiresPermissions(Permission.ADMIN_CAN_FIX_DATA)
+    public boolean rebuildAccountBalance(UUID accountId, boolean dryRun, CallContext context);
+}
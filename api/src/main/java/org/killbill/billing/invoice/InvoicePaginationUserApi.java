@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.entity.PageTokenPagination;
+
+// Keyset counterpart of InvoiceUserApi#getInvoices: deep pages cost the same as the first one
+public interface InvoicePaginationUserApi {
+
+    // Invoices are shallow (no items nor payments). A null pageToken returns the first page, and withCount=false skips the count query
+    public PageTokenPagination<Invoice> getInvoices(@Nullable String pageToken, Long limit, boolean withCount, TenantContext context);
+}
@@ -33,6 +33,16 @@ public interface InvoiceInternalApi {
 
     public Invoice getInvoiceById(UUID invoiceId, InternalTenantContext context) throws InvoiceApiException;
 
+    /**
+     * Retrieve the summary of the unpaid invoices of the account, as materialized alongside the account balance
+     *
+     * @param accountId account id
+     * @param upToDate  the date up to which invoices are considered
+     * @param context   the tenant callcontext
+     * @return the summary, or null if it isn't available and getUnpaidInvoicesByAccountId needs to be used instead
+     */
+    public UnpaidInvoicesSummary getUnpaidInvoicesSummary(UUID accountId, LocalDate upToDate, InternalTenantContext context);
+
     public Collection<Invoice> getUnpaidInvoicesByAccountId(UUID accountId, LocalDate upToDate, InternalTenantContext context);
 
     public BigDecimal getAccountBalance(UUID accountId, InternalTenantContext context);
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Aggregated view of the unpaid invoices of an account, as needed by overdue.
+ */
+public interface UnpaidInvoicesSummary {
+
+    public int getNumberOfUnpaidInvoices();
+
+    public BigDecimal getUnpaidInvoiceBalance();
+
+    @Nullable
+    public UUID getIdOfEarliestUnpaidInvoice();
+
+    @Nullable
+    public LocalDate getDateOfEarliestUnpaidInvoice();
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.payment.api.Payment;
+import org.killbill.billing.payment.api.PaymentApiException;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.entity.PageTokenPagination;
+
+// Keyset counterpart of PaymentApi#getPayments: deep pages cost the same as the first one
+public interface PaymentPaginationApi {
+
+    // Payments across all plugins. A null pageToken returns the first page, and withCount=false skips the count query
+    public PageTokenPagination<Payment> getPayments(@Nullable String pageToken, Long limit, boolean withCount, boolean withPluginInfo, boolean withAttempts,
+                                                    Iterable<PluginProperty> properties, TenantContext context) throws PaymentApiException;
+}
@@ -20,6 +20,7 @@ package org.killbill.billing.tenant.api;
 import java.util.List;
 import java.util.Locale;
 
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 
@@ -39,6 +40,10 @@ public interface TenantInternalApi {
 
     public List<String> getTenantCatalogs(InternalTenantContext tenantContext);
 
+    public String getTenantCatalogSnapshot(InternalTenantContext tenantContext);
+
+    public void updateTenantCatalogSnapshot(String snapshot, InternalCallContext context);
+
     public String getTenantOverdueConfig(InternalTenantContext tenantContext);
 
     public String getTenantConfig(InternalTenantContext tenantContext);
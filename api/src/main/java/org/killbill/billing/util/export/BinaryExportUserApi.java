@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+import org.killbill.billing.security.Permission;
+import org.killbill.billing.security.RequiresPermissions;
+import org.killbill.billing.util.callcontext.CallContext;
+
+// Compact binary counterpart of ExportUserApi (typed rows with a per-table schema header), with the matching import, e.g. to migrate
+// accounts or a tenant to a new database
+public interface BinaryExportUserApi {
+
+    public void exportBinaryDataForAccount(UUID accountId, OutputStream out, CallContext context);
+
+    // Entity tables only: queues are left out, and tenant key/values unless org.killbill.export.tenant.kvs is set
+    @RequiresPermissions(Permission.ADMIN_CAN_FIX_DATA)
+    public void exportBinaryDataForTenant(OutputStream out, CallContext context);
+
+    // Rows are inserted as-is (including record ids) and must all belong to the tenant of the context; tenant key/values go through the TenantUserApi
+    @RequiresPermissions(Permission.ADMIN_CAN_FIX_DATA)
+    public void importBinaryData(InputStream in, CallContext context);
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.security.Permission;
+import org.killbill.billing.security.RequiresPermissions;
+import org.killbill.billing.util.callcontext.CallContext;
+
+// Search index counterpart of AdminPaymentApi
+public interface AdminSearchIndexApi {
+
+    /**
+     * Schedule a rebuild of the search index of the tenant: it runs in the background, searches fall back to the database in the meantime
+     *
+     * @param objectType object type to rebuild, or null for all indexed object types
+     * @param context    the callcontext
+     * @return false if the search index is disabled, in which case nothing is scheduled
+     */
+    @RequiresPermissions(Permission.ADMIN_CAN_FIX_DATA)
+    public boolean rebuildSearchIndex(@Nullable ObjectType objectType, CallContext context);
+}
@@ -18,7 +18,13 @@
 
 package org.killbill.billing.beatrix.extbus;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -66,16 +72,24 @@ import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.BeatrixConfig;
+import org.killbill.billing.util.security.api.DefaultSecurityService;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 
@@ -85,17 +99,40 @@ public class BeatrixListener {
 
     private final PersistentBus externalBus;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final IDBI dbi;
+    private final int batchSize;
+
+    // External events waiting to be posted, in the order they were computed
+    private final Queue<PendingExternalEvent> pendingExternalEvents = new ConcurrentLinkedQueue<PendingExternalEvent>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition batchFlushed = flushLock.newCondition();
+    // Guarded by flushLock
+    private boolean flushInProgress;
 
     protected final ObjectMapper objectMapper;
 
+    private final ObjectWriter subscriptionMetadataWriter;
+    private final ObjectWriter blockingStateMetadataWriter;
+    private final ObjectWriter paymentMetadataWriter;
+    private final ObjectWriter broadcastMetadataWriter;
+
     @Inject
     public BeatrixListener(@Named(BusModule.EXTERNAL_BUS_NAMED) final PersistentBus externalBus,
-                           final InternalCallContextFactory internalCallContextFactory) {
+                           final InternalCallContextFactory internalCallContextFactory,
+                           final IDBI dbi,
+                           final BeatrixConfig beatrixConfig) {
         this.externalBus = externalBus;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.dbi = dbi;
+        this.batchSize = beatrixConfig.getExternalBusBatchSize();
         this.objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JodaModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        this.subscriptionMetadataWriter = objectMapper.writerWithType(SubscriptionMetadata.class);
+        this.blockingStateMetadataWriter = objectMapper.writerWithType(BlockingStateMetadata.class);
+        this.paymentMetadataWriter = objectMapper.writerWithType(PaymentMetadata.class);
+        this.broadcastMetadataWriter = objectMapper.writerWithType(BroadcastMetadata.class);
     }
 
     @AllowConcurrentEvents
@@ -105,7 +142,7 @@ public class BeatrixListener {
         try {
             final BusEvent externalEvent = computeExtBusEventEntryFromBusInternalEvent(event, internalContext);
             if (externalEvent != null) {
-                externalBus.post(externalEvent);
+                postExternalEvent(externalEvent);
             }
         } catch (final EventBusException e) {
             //
@@ -120,6 +157,128 @@ public class BeatrixListener {
         }
     }
 
+    @VisibleForTesting
+    void postExternalEvent(final BusEvent externalEvent) throws EventBusException {
+        if (batchSize > 1) {
+            postInBatch(externalEvent);
+        } else {
+            externalBus.post(externalEvent);
+        }
+    }
+
+    //
+    // Group commit: the first thread to find no flush in progress posts all the events queued so far (up to batchSize) in a single
+    // transaction, while the other threads wait on the batchFlushed condition until their own event has been handled (or until they
+    // can flush the next batch themselves). Because each handler only returns once its event is persisted, the internal bus retry
+    // semantics are unchanged, and events are posted in the order in which they were queued, so the relative ordering of the events
+    // of a given account is preserved.
+    //
+    private void postInBatch(final BusEvent externalEvent) throws EventBusException {
+        final PendingExternalEvent pendingExternalEvent = new PendingExternalEvent(externalEvent);
+        pendingExternalEvents.add(pendingExternalEvent);
+
+        flushLock.lock();
+        try {
+            while (!pendingExternalEvent.isPosted()) {
+                if (flushInProgress) {
+                    batchFlushed.awaitUninterruptibly();
+                    continue;
+                }
+
+                flushInProgress = true;
+                flushLock.unlock();
+                try {
+                    flushPendingExternalEvents();
+                } finally {
+                    flushLock.lock();
+                    flushInProgress = false;
+                    batchFlushed.signalAll();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+
+        if (pendingExternalEvent.getFailure() != null) {
+            throw new EventBusException("Failed to post external event " + externalEvent, pendingExternalEvent.getFailure());
+        }
+    }
+
+    private void flushPendingExternalEvents() {
+        final List<PendingExternalEvent> batch = new ArrayList<PendingExternalEvent>(batchSize);
+        PendingExternalEvent pendingExternalEvent;
+        while (batch.size() < batchSize && (pendingExternalEvent = pendingExternalEvents.poll()) != null) {
+            batch.add(pendingExternalEvent);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            dbi.inTransaction(new TransactionCallback<Void>() {
+                @Override
+                public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                    for (final PendingExternalEvent cur : batch) {
+                        externalBus.postFromTransaction(cur.getExternalEvent(), handle.getConnection());
+                    }
+                    return null;
+                }
+            });
+            for (final PendingExternalEvent cur : batch) {
+                cur.setPosted(null);
+            }
+        } catch (final RuntimeException e) {
+            // Nothing was committed: post the events one by one, so that only the failing ones are retried by the internal bus
+            log.warn("Failed to post a batch of {} external events, posting them individually", batch.size(), e);
+            for (final PendingExternalEvent cur : batch) {
+                try {
+                    externalBus.post(cur.getExternalEvent());
+                    cur.setPosted(null);
+                } catch (final EventBusException individualFailure) {
+                    cur.setPosted(individualFailure);
+                } catch (final RuntimeException individualFailure) {
+                    cur.setPosted(individualFailure);
+                }
+            }
+        } finally {
+            // These events are not queued anymore: make sure their waiters are released, even if an Error was thrown while flushing
+            for (final PendingExternalEvent cur : batch) {
+                if (!cur.isPosted()) {
+                    cur.setPosted(new EventBusException("Unexpected failure while posting a batch of external events"));
+                }
+            }
+        }
+    }
+
+    private static final class PendingExternalEvent {
+
+        private final BusEvent externalEvent;
+
+        private volatile boolean posted;
+        private volatile Exception failure;
+
+        private PendingExternalEvent(final BusEvent externalEvent) {
+            this.externalEvent = externalEvent;
+        }
+
+        public BusEvent getExternalEvent() {
+            return externalEvent;
+        }
+
+        public boolean isPosted() {
+            return posted;
+        }
+
+        public Exception getFailure() {
+            return failure;
+        }
+
+        public void setPosted(@Nullable final Exception failure) {
+            this.failure = failure;
+            this.posted = true;
+        }
+    }
+
     private BusEvent computeExtBusEventEntryFromBusInternalEvent(final BusInternalEvent event, final InternalCallContext context) throws JsonProcessingException {
         ObjectType objectType = null;
         UUID objectId = null;
@@ -163,7 +322,7 @@ public class BeatrixListener {
 
                 SubscriptionMetadata.ActionType actionType = (event instanceof EffectiveSubscriptionInternalEvent) ? ActionType.EFFECTIVE : ActionType.REQUESTED;
                 final SubscriptionMetadata subscriptionMetadataObj = new SubscriptionMetadata(actionType, realEventST.getBundleExternalKey());
-                metaData = objectMapper.writeValueAsString(subscriptionMetadataObj);
+                metaData = subscriptionMetadataWriter.writeValueAsString(subscriptionMetadataObj);
                 break;
 
             case BLOCKING_STATE:
@@ -193,7 +352,7 @@ public class BeatrixListener {
                     final BlockingStateMetadata metaDataObj = new BlockingStateMetadata(realEventBS.getBlockableId(), realEventBS.getService(), realEventBS.getStateName(), realEventBS.getBlockingType(), realEventBS.getEffectiveDate(),
                                                                                         realEventBS.isTransitionedToBlockedBilling(), realEventBS.isTransitionedToUnblockedBilling(),
                                                                                         realEventBS.isTransitionedToBlockedEntitlement(), realEventBS.isTransitionedToUnblockedEntitlement());
-                    metaData = objectMapper.writeValueAsString(metaDataObj);
+                    metaData = blockingStateMetadataWriter.writeValueAsString(metaDataObj);
                 }
                 break;
 
@@ -240,7 +399,7 @@ public class BeatrixListener {
                 objectId = realEventPay.getPaymentId();
                 eventBusType = ExtBusEventType.PAYMENT_SUCCESS;
                 final PaymentMetadata paymentInfoMetaDataObj = new PaymentMetadata(realEventPay.getPaymentTransactionId(), realEventPay.getAmount(), realEventPay.getCurrency(), realEventPay.getStatus(), realEventPay.getTransactionType(), realEventPay.getEffectiveDate());
-                metaData = objectMapper.writeValueAsString(paymentInfoMetaDataObj);
+                metaData = paymentMetadataWriter.writeValueAsString(paymentInfoMetaDataObj);
                 break;
 
             case PAYMENT_ERROR:
@@ -250,7 +409,7 @@ public class BeatrixListener {
                 eventBusType = ExtBusEventType.PAYMENT_FAILED;
                 accountId = realEventPayErr.getAccountId();
                 final PaymentMetadata paymentErrorMetaDataObj = new PaymentMetadata(realEventPayErr.getPaymentTransactionId(), realEventPayErr.getAmount(), realEventPayErr.getCurrency(), realEventPayErr.getStatus(), realEventPayErr.getTransactionType(), realEventPayErr.getEffectiveDate());
-                metaData = objectMapper.writeValueAsString(paymentErrorMetaDataObj);
+                metaData = paymentMetadataWriter.writeValueAsString(paymentErrorMetaDataObj);
                 break;
 
             case PAYMENT_PLUGIN_ERROR:
@@ -259,7 +418,7 @@ public class BeatrixListener {
                 objectId = realEventPayPluginErr.getPaymentId();
                 eventBusType = ExtBusEventType.PAYMENT_FAILED;
                 final PaymentMetadata pluginErrorMetaDataObj = new PaymentMetadata(realEventPayPluginErr.getPaymentTransactionId(), realEventPayPluginErr.getAmount(), realEventPayPluginErr.getCurrency(), realEventPayPluginErr.getStatus(), realEventPayPluginErr.getTransactionType(), realEventPayPluginErr.getEffectiveDate());
-                metaData = objectMapper.writeValueAsString(pluginErrorMetaDataObj);
+                metaData = paymentMetadataWriter.writeValueAsString(pluginErrorMetaDataObj);
                 break;
 
             case OVERDUE_CHANGE:
@@ -329,11 +488,15 @@ public class BeatrixListener {
 
             case BROADCAST_SERVICE:
                 final BroadcastInternalEvent realBroadcastEvent = (BroadcastInternalEvent) event;
+                if (DefaultSecurityService.SECURITY_SERVICE_NAME.equals(realBroadcastEvent.getServiceName())) {
+                    // Security cache invalidations carry usernames and are only meant for the Kill Bill nodes
+                    break;
+                }
                 objectType = ObjectType.SERVICE_BROADCAST;
                 objectId = null;
                 eventBusType = ExtBusEventType.BROADCAST_SERVICE;
                 final BroadcastMetadata metaDataObj = new BroadcastMetadata(realBroadcastEvent.getServiceName(), realBroadcastEvent.getType(), realBroadcastEvent.getJsonEvent());
-                metaData = objectMapper.writeValueAsString(metaDataObj);
+                metaData = broadcastMetadataWriter.writeValueAsString(metaDataObj);
                 break;
 
             default:
@@ -22,7 +22,9 @@ import org.killbill.billing.beatrix.DefaultBeatrixService;
 import org.killbill.billing.beatrix.bus.api.BeatrixService;
 import org.killbill.billing.beatrix.extbus.BeatrixListener;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.definition.BeatrixConfig;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class BeatrixModule extends KillBillModule {
 
@@ -32,9 +34,15 @@ public class BeatrixModule extends KillBillModule {
 
     @Override
     protected void configure() {
+        installConfig();
         installExternalBus();
     }
 
+    protected void installConfig() {
+        final BeatrixConfig config = new ConfigurationObjectFactory(skifeConfigSource).build(BeatrixConfig.class);
+        bind(BeatrixConfig.class).toInstance(config);
+    }
+
     protected void installExternalBus() {
         bind(BeatrixService.class).to(DefaultBeatrixService.class);
         bind(DefaultBeatrixService.class).asEagerSingleton();
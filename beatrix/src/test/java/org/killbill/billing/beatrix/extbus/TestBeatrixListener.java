@@ -0,0 +1,271 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.beatrix.extbus;
+
+import java.lang.Thread.State;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.beatrix.BeatrixTestSuiteNoDB;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.BeatrixConfig;
+import org.killbill.bus.api.BusEvent;
+import org.killbill.bus.api.PersistentBus;
+import org.killbill.bus.api.PersistentBus.EventBusException;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestBeatrixListener extends BeatrixTestSuiteNoDB {
+
+    private PersistentBus externalBus;
+    private IDBI dbi;
+    private List<BusEvent> postedEvents;
+    private List<Thread> postingThreads;
+    private ExecutorService executorService;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        postedEvents = Collections.synchronizedList(new ArrayList<BusEvent>());
+        postingThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        externalBus = Mockito.mock(PersistentBus.class);
+        final Answer<Void> recordEvent = new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                postedEvents.add((BusEvent) invocation.getArguments()[0]);
+                return null;
+            }
+        };
+        Mockito.doAnswer(recordEvent).when(externalBus).post(Mockito.<BusEvent>any());
+        Mockito.doAnswer(recordEvent).when(externalBus).postFromTransaction(Mockito.<BusEvent>any(), Mockito.<Connection>any());
+
+        dbi = Mockito.mock(IDBI.class);
+        Mockito.when(dbi.inTransaction(Mockito.<TransactionCallback<Object>>any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                return runInTransaction(invocation);
+            }
+        });
+
+        executorService = Executors.newFixedThreadPool(10);
+    }
+
+    @AfterMethod(groups = "fast")
+    public void afterMethod() throws Exception {
+        executorService.shutdownNow();
+    }
+
+    @Test(groups = "fast")
+    public void testPostWithoutBatching() throws Exception {
+        final BeatrixListener beatrixListener = createBeatrixListener(1);
+
+        final BusEvent event = Mockito.mock(BusEvent.class);
+        beatrixListener.postExternalEvent(event);
+
+        Mockito.verify(externalBus).post(event);
+        Mockito.verifyZeroInteractions(dbi);
+    }
+
+    @Test(groups = "fast")
+    public void testConcurrentPostsKeepPerThreadOrdering() throws Exception {
+        final BeatrixListener beatrixListener = createBeatrixListener(5);
+
+        final int nbEventsPerThread = 20;
+        final List<Future<List<BusEvent>>> futures = new ArrayList<Future<List<BusEvent>>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(executorService.submit(new Callable<List<BusEvent>>() {
+                @Override
+                public List<BusEvent> call() throws Exception {
+                    // Like the internal bus for a given account, each thread only posts its next event once the previous one is persisted
+                    final List<BusEvent> events = new ArrayList<BusEvent>();
+                    for (int j = 0; j < nbEventsPerThread; j++) {
+                        final BusEvent event = Mockito.mock(BusEvent.class);
+                        beatrixListener.postExternalEvent(event);
+                        events.add(event);
+                    }
+                    return events;
+                }
+            }));
+        }
+
+        int nbEvents = 0;
+        for (final Future<List<BusEvent>> future : futures) {
+            int previousIndex = -1;
+            for (final BusEvent event : future.get(30, TimeUnit.SECONDS)) {
+                final int index = postedEvents.indexOf(event);
+                Assert.assertTrue(index > previousIndex, "Event posted out of order");
+                Assert.assertEquals(postedEvents.lastIndexOf(event), index, "Event posted twice");
+                previousIndex = index;
+                nbEvents++;
+            }
+        }
+        Assert.assertEquals(postedEvents.size(), nbEvents);
+    }
+
+    @Test(groups = "fast")
+    public void testFailingEventDoesNotFailItsBatch() throws Exception {
+        final BeatrixListener beatrixListener = createBeatrixListener(5);
+
+        final BusEvent firstEvent = Mockito.mock(BusEvent.class);
+        final BusEvent failingEvent = Mockito.mock(BusEvent.class);
+        final BusEvent otherEvent = Mockito.mock(BusEvent.class);
+        Mockito.doThrow(new EventBusException("Boom")).when(externalBus).postFromTransaction(Mockito.eq(failingEvent), Mockito.<Connection>any());
+        Mockito.doThrow(new EventBusException("Boom")).when(externalBus).post(failingEvent);
+
+        // Hold the first batch until the two other events are queued, so that they end up together in the second one
+        final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        final CountDownLatch firstBatchLatch = new CountDownLatch(1);
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                firstBatchStarted.countDown();
+                firstBatchLatch.await(30, TimeUnit.SECONDS);
+                return runInTransaction(invocation);
+            }
+        }).when(dbi).inTransaction(Mockito.<TransactionCallback<Object>>any());
+
+        final Future<Void> firstFuture = postAsync(beatrixListener, firstEvent);
+        Assert.assertTrue(firstBatchStarted.await(30, TimeUnit.SECONDS));
+        final Future<Void> failingFuture = postAsync(beatrixListener, failingEvent);
+        final Future<Void> otherFuture = postAsync(beatrixListener, otherEvent);
+        // The three threads are parked: the first one in the transaction, the other ones once their event is queued
+        awaitPostingThreadsParked(3);
+        firstBatchLatch.countDown();
+
+        firstFuture.get(30, TimeUnit.SECONDS);
+        otherFuture.get(30, TimeUnit.SECONDS);
+        try {
+            failingFuture.get(30, TimeUnit.SECONDS);
+            Assert.fail("The failing event should have been reported to its handler");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof EventBusException);
+        }
+
+        Mockito.verify(dbi, Mockito.times(2)).inTransaction(Mockito.<TransactionCallback<Object>>any());
+        Assert.assertEquals(postedEvents, ImmutableList.<BusEvent>of(firstEvent, otherEvent));
+    }
+
+    @Test(groups = "fast")
+    public void testErrorWhileFlushingReleasesWaiters() throws Exception {
+        final BeatrixListener beatrixListener = createBeatrixListener(5);
+
+        final BusEvent firstEvent = Mockito.mock(BusEvent.class);
+        final BusEvent secondEvent = Mockito.mock(BusEvent.class);
+        final BusEvent thirdEvent = Mockito.mock(BusEvent.class);
+
+        // Hold the first batch until the two other events are queued, then fail the second batch with an Error
+        final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        final CountDownLatch firstBatchLatch = new CountDownLatch(1);
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                firstBatchStarted.countDown();
+                firstBatchLatch.await(30, TimeUnit.SECONDS);
+                return runInTransaction(invocation);
+            }
+        }).doThrow(new Error("Boom")).when(dbi).inTransaction(Mockito.<TransactionCallback<Object>>any());
+
+        final Future<Void> firstFuture = postAsync(beatrixListener, firstEvent);
+        Assert.assertTrue(firstBatchStarted.await(30, TimeUnit.SECONDS));
+        final Future<Void> secondFuture = postAsync(beatrixListener, secondEvent);
+        final Future<Void> thirdFuture = postAsync(beatrixListener, thirdEvent);
+        awaitPostingThreadsParked(3);
+        firstBatchLatch.countDown();
+
+        firstFuture.get(30, TimeUnit.SECONDS);
+        // The thread flushing the second batch gets the Error, the other one is released with a failure (and retried by the internal bus)
+        for (final Future<Void> future : ImmutableList.<Future<Void>>of(secondFuture, thirdFuture)) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                Assert.fail("The second batch should have failed");
+            } catch (final ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof Error || e.getCause() instanceof EventBusException);
+            }
+        }
+
+        Assert.assertEquals(postedEvents, ImmutableList.<BusEvent>of(firstEvent));
+    }
+
+    private BeatrixListener createBeatrixListener(final int batchSize) {
+        final BeatrixConfig beatrixConfig = Mockito.mock(BeatrixConfig.class);
+        Mockito.when(beatrixConfig.getExternalBusBatchSize()).thenReturn(batchSize);
+        return new BeatrixListener(externalBus, Mockito.mock(InternalCallContextFactory.class), dbi, beatrixConfig);
+    }
+
+    private Future<Void> postAsync(final BeatrixListener beatrixListener, final BusEvent event) {
+        return executorService.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                postingThreads.add(Thread.currentThread());
+                beatrixListener.postExternalEvent(event);
+                return null;
+            }
+        });
+    }
+
+    private void awaitPostingThreadsParked(final int nbThreads) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < deadline) {
+            int nbParked = 0;
+            synchronized (postingThreads) {
+                for (final Thread thread : postingThreads) {
+                    if (thread.getState() == State.WAITING || thread.getState() == State.TIMED_WAITING) {
+                        nbParked++;
+                    }
+                }
+            }
+            if (nbParked == nbThreads) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        Assert.fail("Posting threads did not block");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object runInTransaction(final InvocationOnMock invocation) throws Exception {
+        final TransactionCallback<Object> callback = (TransactionCallback<Object>) invocation.getArguments()[0];
+        final Handle handle = Mockito.mock(Handle.class);
+        Mockito.when(handle.getConnection()).thenReturn(Mockito.mock(Connection.class));
+        try {
+            return callback.inTransaction(handle, Mockito.mock(TransactionStatus.class));
+        } catch (final Exception e) {
+            // Like DBI, which wraps the callback failures in a TransactionFailedException
+            throw new RuntimeException(e);
+        }
+    }
+}
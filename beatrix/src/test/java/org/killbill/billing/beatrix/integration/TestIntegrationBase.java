@@ -976,11 +976,26 @@ public class TestIntegrationBase extends BeatrixTestSuiteWithEmbeddedDB {
             return defaultInvoiceConfig.getMaxRawUsagePreviousPeriod();
         }
 
+        @Override
+        public int getIncrementalGenerationWindowMonths() {
+            return defaultInvoiceConfig.getIncrementalGenerationWindowMonths();
+        }
+
+        @Override
+        public int getIncrementalGenerationWindowMonths(final InternalTenantContext tenantContext) {
+            return defaultInvoiceConfig.getIncrementalGenerationWindowMonths();
+        }
+
         @Override
         public int getMaxGlobalLockRetries() {
             return defaultInvoiceConfig.getMaxGlobalLockRetries();
         }
 
+        @Override
+        public int getTreeThreadNb() {
+            return defaultInvoiceConfig.getTreeThreadNb();
+        }
+
         @Override
         public boolean isEmailNotificationsEnabled() {
             return defaultInvoiceConfig.isEmailNotificationsEnabled();
@@ -17,6 +17,7 @@
 
 package org.killbill.billing.catalog;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -26,7 +27,9 @@ import org.killbill.billing.catalog.api.CatalogEntity;
 
 import com.google.common.collect.Ordering;
 
-public class CatalogEntityCollection<T extends CatalogEntity> implements Collection<T> {
+public class CatalogEntityCollection<T extends CatalogEntity> implements Collection<T>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final Map<String, T> data;
 
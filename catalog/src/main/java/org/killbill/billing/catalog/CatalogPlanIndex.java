@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PriceList;
+import org.killbill.billing.catalog.api.PriceListSet;
+
+import com.google.common.base.Objects;
+
+//
+// Immutable lookup tables over the versions of a VersionedCatalog (sorted by effective date), so that plan lookups
+// don't have to go through each version (and its price lists) and rely on CAT_NO_SUCH_PLAN to skip versions where the plan was retired.
+//
+class CatalogPlanIndex {
+
+    private final long[] effectiveDates;
+    // Indexes (ascending) of the versions defining that plan
+    private final Map<String, int[]> versionsByPlanName;
+    private final List<Map<String, Plan>> plansByName;
+    // Plans for a given product, billing period and price list, as in DefaultPriceListSet#getPlanFrom (but without the default price list fallback)
+    private final List<Map<PlanKey, List<Plan>>> plansByKey;
+    private final List<Set<String>> priceListNames;
+
+    CatalogPlanIndex(final List<StandaloneCatalog> versions) {
+        this.effectiveDates = new long[versions.size()];
+        this.plansByName = new ArrayList<Map<String, Plan>>(versions.size());
+        this.plansByKey = new ArrayList<Map<PlanKey, List<Plan>>>(versions.size());
+        this.priceListNames = new ArrayList<Set<String>>(versions.size());
+
+        final Map<String, List<Integer>> versionListsByPlanName = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < versions.size(); i++) {
+            final StandaloneCatalog version = versions.get(i);
+            effectiveDates[i] = version.getEffectiveDate().getTime();
+
+            final Map<String, Plan> versionPlansByName = new HashMap<String, Plan>();
+            final Collection<Plan> plans = version.getCurrentPlans();
+            if (plans != null) {
+                for (final Plan plan : plans) {
+                    versionPlansByName.put(plan.getName(), plan);
+                    List<Integer> planVersions = versionListsByPlanName.get(plan.getName());
+                    if (planVersions == null) {
+                        planVersions = new ArrayList<Integer>();
+                        versionListsByPlanName.put(plan.getName(), planVersions);
+                    }
+                    planVersions.add(i);
+                }
+            }
+            plansByName.add(versionPlansByName);
+
+            final Map<PlanKey, List<Plan>> versionPlansByKey = new HashMap<PlanKey, List<Plan>>();
+            final Set<String> versionPriceListNames = new HashSet<String>();
+            final DefaultPriceListSet priceLists = version.getPriceLists();
+            if (priceLists != null) {
+                for (final PriceList priceList : priceLists.getAllPriceLists()) {
+                    if (priceList == null) {
+                        continue;
+                    }
+                    versionPriceListNames.add(priceList.getName());
+                    for (final Plan plan : priceList.getPlans()) {
+                        if (plan.getProduct() == null || plan.getRecurringBillingPeriod() == null) {
+                            continue;
+                        }
+                        final PlanKey key = new PlanKey(plan.getProduct().getName(), plan.getRecurringBillingPeriod(), priceList.getName());
+                        List<Plan> keyPlans = versionPlansByKey.get(key);
+                        if (keyPlans == null) {
+                            keyPlans = new ArrayList<Plan>(1);
+                            versionPlansByKey.put(key, keyPlans);
+                        }
+                        keyPlans.add(plan);
+                    }
+                }
+            }
+            plansByKey.add(versionPlansByKey);
+            priceListNames.add(versionPriceListNames);
+        }
+
+        this.versionsByPlanName = new HashMap<String, int[]>(versionListsByPlanName.size());
+        for (final Map.Entry<String, List<Integer>> entry : versionListsByPlanName.entrySet()) {
+            final int[] planVersions = new int[entry.getValue().size()];
+            for (int j = 0; j < planVersions.length; j++) {
+                planVersions[j] = entry.getValue().get(j);
+            }
+            versionsByPlanName.put(entry.getKey(), planVersions);
+        }
+    }
+
+    // Index of the latest version effective at that date, or -1 if there is none
+    int indexOfVersionForDate(final Date date) {
+        int low = 0;
+        int high = effectiveDates.length - 1;
+        int result = -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (effectiveDates[mid] <= date.getTime()) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    // Indexes (ascending) of the versions defining that plan, empty if there is none
+    int[] getVersionsForPlan(final String planName) {
+        final int[] result = versionsByPlanName.get(planName);
+        return result != null ? result : new int[0];
+    }
+
+    // Position in getVersionsForPlan of the latest version at or before maxVersion, or -1 if there is none
+    static int lastVersionAtOrBefore(final int[] planVersions, final int maxVersion) {
+        final int position = Arrays.binarySearch(planVersions, maxVersion);
+        return position >= 0 ? position : -position - 2;
+    }
+
+    Plan findPlan(final int version, final String planName) {
+        return plansByName.get(version).get(planName);
+    }
+
+    //
+    // Returns null when DefaultPriceListSet#getPlanFrom wouldn't return a single plan (unknown price list, no plan or several matching plans):
+    // the caller is expected to go through the catalog in that case, to get the same error.
+    //
+    @Nullable
+    Plan findPlan(final int version, final String productName, final BillingPeriod billingPeriod, final String priceListName) {
+        if (!priceListNames.get(version).contains(priceListName)) {
+            return null;
+        }
+
+        final Map<PlanKey, List<Plan>> versionPlansByKey = plansByKey.get(version);
+        List<Plan> plans = versionPlansByKey.get(new PlanKey(productName, billingPeriod, priceListName));
+        if (plans == null) {
+            plans = versionPlansByKey.get(new PlanKey(productName, billingPeriod, PriceListSet.DEFAULT_PRICELIST_NAME));
+        }
+        return plans != null && plans.size() == 1 ? plans.get(0) : null;
+    }
+
+    private static final class PlanKey {
+
+        private final String productName;
+        private final BillingPeriod billingPeriod;
+        private final String priceListName;
+
+        private PlanKey(final String productName, final BillingPeriod billingPeriod, final String priceListName) {
+            this.productName = productName;
+            this.billingPeriod = billingPeriod;
+            this.priceListName = priceListName;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            final PlanKey that = (PlanKey) o;
+            return Objects.equal(productName, that.productName) &&
+                   billingPeriod == that.billingPeriod &&
+                   Objects.equal(priceListName, that.priceListName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(productName, billingPeriod, priceListName);
+        }
+    }
+}
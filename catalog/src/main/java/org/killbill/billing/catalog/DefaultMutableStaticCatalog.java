@@ -33,6 +33,8 @@ import org.killbill.billing.catalog.api.Product;
 
 public class DefaultMutableStaticCatalog extends StandaloneCatalog implements MutableStaticCatalog {
 
+    private static final long serialVersionUID = 1L;
+
     public DefaultMutableStaticCatalog() {
     }
 
@@ -26,6 +26,8 @@ import org.killbill.billing.catalog.api.TieredBlock;
 @XmlAccessorType(XmlAccessType.NONE)
 public class DefaultTieredBlock extends DefaultBlock implements TieredBlock {
 
+    private static final long serialVersionUID = 1L;
+
     @XmlElement(required = true)
     private Double max;
 
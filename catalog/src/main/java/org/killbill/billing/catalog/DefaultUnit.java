@@ -16,6 +16,7 @@
 
 package org.killbill.billing.catalog;
 
+import java.io.Serializable;
 import java.net.URI;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -28,8 +29,10 @@ import org.killbill.xmlloader.ValidatingConfig;
 import org.killbill.xmlloader.ValidationErrors;
 
 @XmlAccessorType(XmlAccessType.NONE)
-public class DefaultUnit extends ValidatingConfig<StandaloneCatalog> implements Unit {
-    
+public class DefaultUnit extends ValidatingConfig<StandaloneCatalog> implements Unit, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     @XmlAttribute(required = true)
     @XmlID
     private String name;
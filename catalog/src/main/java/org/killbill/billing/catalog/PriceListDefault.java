@@ -28,6 +28,8 @@ import org.killbill.xmlloader.ValidationErrors;
 @XmlAccessorType(XmlAccessType.NONE)
 public class PriceListDefault extends DefaultPriceList {
 
+    private static final long serialVersionUID = 1L;
+
     public PriceListDefault() {
     }
 
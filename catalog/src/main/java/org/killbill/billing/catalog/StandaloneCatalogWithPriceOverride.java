@@ -36,6 +36,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class StandaloneCatalogWithPriceOverride extends StandaloneCatalog implements StaticCatalog {
 
+    private static final long serialVersionUID = 1L;
+
     private final Long tenantRecordId;
 
     /* Since we offer endpoints that attempt to serialize catalog objects, we need to explicitly tell Jackson to ignore those fields */
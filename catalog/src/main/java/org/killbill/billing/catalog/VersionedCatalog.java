@@ -58,6 +58,7 @@ import org.killbill.billing.catalog.api.PriceListSet;
 import org.killbill.billing.catalog.api.Product;
 import org.killbill.billing.catalog.api.StaticCatalog;
 import org.killbill.billing.catalog.api.Unit;
+import org.killbill.billing.catalog.override.DefaultPriceOverride;
 import org.killbill.clock.Clock;
 import org.killbill.xmlloader.ValidatingConfig;
 import org.killbill.xmlloader.ValidationError;
@@ -79,6 +80,9 @@ public class VersionedCatalog extends ValidatingConfig<VersionedCatalog> impleme
     @XmlElement(required = true)
     private BillingMode recurringBillingMode;
 
+    // Built lazily (versions are populated either through add or by JAXB), and reset when a version is added
+    private volatile CatalogPlanIndex planIndex;
+
     // Required for JAXB deserialization
     public VersionedCatalog() {
         this.clock = null;
@@ -97,23 +101,26 @@ public class VersionedCatalog extends ValidatingConfig<VersionedCatalog> impleme
         return versions.get(indexOfVersionForDate(date.toDate()));
     }
 
-    private List<StandaloneCatalog> versionsBeforeDate(final Date date) throws CatalogApiException {
-        final List<StandaloneCatalog> result = new ArrayList<StandaloneCatalog>();
-        final int index = indexOfVersionForDate(date);
-        for (int i = 0; i <= index; i++) {
-            result.add(versions.get(i));
+    private int indexOfVersionForDate(final Date date) throws CatalogApiException {
+        final int index = getPlanIndex().indexOfVersionForDate(date);
+        if (index < 0) {
+            throw new CatalogApiException(ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE, date.toString());
         }
-        return result;
+        return index;
     }
 
-    private int indexOfVersionForDate(final Date date) throws CatalogApiException {
-        for (int i = versions.size() - 1; i >= 0; i--) {
-            final StandaloneCatalog c = versions.get(i);
-            if (c.getEffectiveDate().getTime() <= date.getTime()) {
-                return i;
+    private CatalogPlanIndex getPlanIndex() {
+        CatalogPlanIndex result = planIndex;
+        if (result == null) {
+            synchronized (this) {
+                result = planIndex;
+                if (result == null) {
+                    result = new CatalogPlanIndex(versions);
+                    planIndex = result;
+                }
             }
         }
-        throw new CatalogApiException(ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE, date.toString());
+        return result;
     }
 
     private class PlanRequestWrapper {
@@ -137,6 +144,14 @@ public class VersionedCatalog extends ValidatingConfig<VersionedCatalog> impleme
             return catalog.createOrFindCurrentPlan(spec, overrides);
         }
 
+        // Overridden plans are created or retrieved by the catalog itself, so they are not part of the index
+        public boolean canUseIndex() {
+            if (overrides != null && overrides.getOverrides() != null && !overrides.getOverrides().isEmpty()) {
+                return false;
+            }
+            return spec.getPlanName() == null || !DefaultPriceOverride.CUSTOM_PLAN_NAME_PATTERN.matcher(spec.getPlanName()).matches();
+        }
+
         public PlanSpecifier getSpec() {
             return spec;
         }
@@ -146,39 +161,56 @@ public class VersionedCatalog extends ValidatingConfig<VersionedCatalog> impleme
                                                   final DateTime requestedDate,
                                                   final DateTime subscriptionStartDate)
             throws CatalogApiException {
-        final List<StandaloneCatalog> catalogs = versionsBeforeDate(requestedDate.toDate());
-        if (catalogs.isEmpty()) {
+        final CatalogPlanIndex index = getPlanIndex();
+        final int lastVersion = index.indexOfVersionForDate(requestedDate.toDate());
+        if (lastVersion < 0) {
             throw new CatalogApiException(ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE, requestedDate.toDate().toString());
         }
 
-        for (int i = catalogs.size() - 1; i >= 0; i--) { // Working backwards to find the latest applicable plan
-            final StandaloneCatalog c = catalogs.get(i);
-            final Plan plan;
-            try {
-                plan = wrapper.findPlan(c);
-            } catch (final CatalogApiException e) {
-                if (e.getCode() != ErrorCode.CAT_NO_SUCH_PLAN.getCode()) {
-                    throw e;
-                } else {
-                    // If we can't find an entry it probably means the plan has been retired so we keep looking...
-                    continue;
+        final PlanSpecifier spec = wrapper.getSpec();
+        if (!wrapper.canUseIndex()) {
+            for (int i = lastVersion; i >= 0; i--) { // Working backwards to find the latest applicable plan
+                final StandaloneCatalog c = versions.get(i);
+                final Plan plan;
+                try {
+                    plan = wrapper.findPlan(c);
+                } catch (final CatalogApiException e) {
+                    if (e.getCode() != ErrorCode.CAT_NO_SUCH_PLAN.getCode()) {
+                        throw e;
+                    } else {
+                        // If we can't find an entry it probably means the plan has been retired so we keep looking...
+                        continue;
+                    }
+                }
+                if (isApplicable(c, plan, requestedDate, subscriptionStartDate)) {
+                    return new CatalogPlanEntry(c, plan);
                 }
             }
-
-            final DateTime catalogEffectiveDate = CatalogDateHelper.toUTCDateTime(c.getEffectiveDate());
-            if (!subscriptionStartDate.isBefore(catalogEffectiveDate)) { // Its a new subscription this plan always applies
-                return new CatalogPlanEntry(c, plan);
-            } else { //Its an existing subscription
-                if (plan.getEffectiveDateForExistingSubscriptions() != null) { //if it is null any change to this does not apply to existing subscriptions
-                    final DateTime existingSubscriptionDate = CatalogDateHelper.toUTCDateTime(plan.getEffectiveDateForExistingSubscriptions());
-                    if (requestedDate.isAfter(existingSubscriptionDate)) { // this plan is now applicable to existing subs
-                        return new CatalogPlanEntry(c, plan);
-                    }
+        } else if (spec.getPlanName() != null) {
+            // Only look at the versions where the plan exists (it may have been retired in later versions)
+            final int[] planVersions = index.getVersionsForPlan(spec.getPlanName());
+            for (int j = CatalogPlanIndex.lastVersionAtOrBefore(planVersions, lastVersion); j >= 0; j--) {
+                final StandaloneCatalog c = versions.get(planVersions[j]);
+                final Plan plan = index.findPlan(planVersions[j], spec.getPlanName());
+                if (isApplicable(c, plan, requestedDate, subscriptionStartDate)) {
+                    return new CatalogPlanEntry(c, plan);
+                }
+            }
+        } else {
+            final String priceListName = spec.getPriceListName() == null ? PriceListSet.DEFAULT_PRICELIST_NAME : spec.getPriceListName();
+            for (int i = lastVersion; i >= 0; i--) {
+                final StandaloneCatalog c = versions.get(i);
+                Plan plan = spec.getProductName() == null || spec.getBillingPeriod() == null ? null : index.findPlan(i, spec.getProductName(), spec.getBillingPeriod(), priceListName);
+                if (plan == null) {
+                    // Not a single match: let the catalog resolve it (and throw the relevant error)
+                    plan = wrapper.findPlan(c);
+                }
+                if (isApplicable(c, plan, requestedDate, subscriptionStartDate)) {
+                    return new CatalogPlanEntry(c, plan);
                 }
             }
         }
 
-        final PlanSpecifier spec = wrapper.getSpec();
         throw new CatalogApiException(ErrorCode.CAT_PLAN_NOT_FOUND,
                                       spec.getPlanName() != null ? spec.getPlanName() : "undefined",
                                       spec.getProductName() != null ? spec.getProductName() : "undefined",
@@ -186,6 +218,21 @@ public class VersionedCatalog extends ValidatingConfig<VersionedCatalog> impleme
                                       spec.getPriceListName() != null ? spec.getPriceListName() : "undefined");
     }
 
+    private static boolean isApplicable(final StandaloneCatalog c, final Plan plan, final DateTime requestedDate, final DateTime subscriptionStartDate) {
+        final DateTime catalogEffectiveDate = CatalogDateHelper.toUTCDateTime(c.getEffectiveDate());
+        if (!subscriptionStartDate.isBefore(catalogEffectiveDate)) { // Its a new subscription this plan always applies
+            return true;
+        } else { //Its an existing subscription
+            if (plan.getEffectiveDateForExistingSubscriptions() != null) { //if it is null any change to this does not apply to existing subscriptions
+                final DateTime existingSubscriptionDate = CatalogDateHelper.toUTCDateTime(plan.getEffectiveDateForExistingSubscriptions());
+                if (requestedDate.isAfter(existingSubscriptionDate)) { // this plan is now applicable to existing subs
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private static class CatalogPlanEntry {
 
         private final StaticCatalog staticCatalog;
@@ -237,6 +284,7 @@ public class VersionedCatalog extends ValidatingConfig<VersionedCatalog> impleme
                 return c1.getEffectiveDate().compareTo(c2.getEffectiveDate());
             }
         });
+        planIndex = null;
     }
 
     public Iterator<StandaloneCatalog> iterator() {
@@ -40,6 +40,7 @@ import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.cache.CacheLoaderArgument;
 import org.killbill.billing.util.cache.TenantCatalogCacheLoader.LoaderCallback;
+import org.killbill.billing.util.cache.TenantPluginCatalogCacheLoader;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.slf4j.Logger;
@@ -60,6 +61,8 @@ public class EhCacheCatalogCache implements CatalogCache {
     private final VersionedCatalogMapper versionedCatalogMapper;
     private final PriceOverride priceOverride;
     private final InternalCallContextFactory internalCallContextFactory;
+    // Mapped plugin catalogs, per tenant record id
+    private final CacheController pluginCatalogCacheController;
 
     private VersionedCatalog defaultCatalog;
 
@@ -73,6 +76,7 @@ public class EhCacheCatalogCache implements CatalogCache {
         this.pluginRegistry = pluginRegistry;
         this.versionedCatalogMapper = versionedCatalogMapper;
         this.cacheController = cacheControllerDispatcher.getCacheController(CacheType.TENANT_CATALOG);
+        this.pluginCatalogCacheController = cacheControllerDispatcher.getCacheController(CacheType.TENANT_PLUGIN_CATALOG);
         this.loader = loader;
         this.priceOverride = priceOverride;
         this.internalCallContextFactory = internalCallContextFactory;
@@ -91,7 +95,6 @@ public class EhCacheCatalogCache implements CatalogCache {
     @Override
     public VersionedCatalog getCatalog(final boolean useDefaultCatalog, final boolean filterTemplateCatalog, final InternalTenantContext tenantContext) throws CatalogApiException {
 
-        // STEPH TODO what are the possibilities for caching here ?
         final VersionedCatalog pluginVersionedCatalog = getCatalogFromPlugins(tenantContext);
         if (pluginVersionedCatalog != null) {
             return pluginVersionedCatalog;
@@ -123,23 +126,62 @@ public class EhCacheCatalogCache implements CatalogCache {
 
     @Override
     public void clearCatalog(final InternalTenantContext tenantContext) {
+        pluginCatalogCacheController.remove(tenantContext.getTenantRecordId());
         if (tenantContext.getTenantRecordId() != InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID) {
             cacheController.remove(tenantContext.getTenantRecordId());
         }
     }
 
+    //
+    // The plugin API doesn't expose any version of the catalog: the mapped catalog is kept until the tenant catalog is
+    // invalidated (tenant broadcast, admin cache invalidation) or until it expires (see timeToLiveSeconds in ehcache.xml).
+    //
     private VersionedCatalog getCatalogFromPlugins(final InternalTenantContext internalTenantContext) throws CatalogApiException {
-        final TenantContext tenantContext = internalCallContextFactory.createTenantContext(internalTenantContext);
-        for (final String service : pluginRegistry.getAllServices()) {
-            final CatalogPluginApi plugin = pluginRegistry.getServiceForName(service);
-            final VersionedPluginCatalog pluginCatalog = plugin.getVersionedPluginCatalog(ImmutableList.<PluginProperty>of(), tenantContext);
-            // First plugin that gets something (for that tenant) returns it
-            if (pluginCatalog != null) {
-                logger.info("Returning catalog from plugin {} on tenant {} ", service, internalTenantContext.getTenantRecordId());
-                return versionedCatalogMapper.toVersionedCatalog(pluginCatalog, internalTenantContext);
+        if (pluginRegistry.getAllServices().isEmpty()) {
+            return null;
+        }
+
+        final CacheLoaderArgument pluginCatalogCacheLoaderArgument = createPluginCatalogCacheLoaderArgument(internalTenantContext);
+        try {
+            PluginCatalogEntry entry = (PluginCatalogEntry) pluginCatalogCacheController.get(internalTenantContext.getTenantRecordId(), pluginCatalogCacheLoaderArgument);
+            if (entry != null && pluginRegistry.getServiceForName(entry.getService()) == null) {
+                // The plugin has been stopped since
+                pluginCatalogCacheController.remove(internalTenantContext.getTenantRecordId());
+                entry = (PluginCatalogEntry) pluginCatalogCacheController.get(internalTenantContext.getTenantRecordId(), pluginCatalogCacheLoaderArgument);
+            }
+            return entry == null ? null : entry.getCatalog();
+        } catch (final RuntimeException e) {
+            // Mapping errors are wrapped by the cache loader
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof CatalogApiException) {
+                    throw (CatalogApiException) cause;
+                }
             }
+            throw new CatalogApiException(e, ErrorCode.CAT_INVALID_FOR_TENANT, internalTenantContext.getTenantRecordId());
         }
-        return null;
+    }
+
+    private CacheLoaderArgument createPluginCatalogCacheLoaderArgument(final InternalTenantContext internalTenantContext) {
+        final TenantPluginCatalogCacheLoader.LoaderCallback loaderCallback = new TenantPluginCatalogCacheLoader.LoaderCallback() {
+            @Override
+            public Object loadPluginCatalog(final Long tenantRecordId) throws CatalogApiException {
+                final TenantContext tenantContext = internalCallContextFactory.createTenantContext(internalTenantContext);
+                for (final String service : pluginRegistry.getAllServices()) {
+                    final CatalogPluginApi plugin = pluginRegistry.getServiceForName(service);
+                    final VersionedPluginCatalog pluginCatalog = plugin.getVersionedPluginCatalog(ImmutableList.<PluginProperty>of(), tenantContext);
+                    // First plugin that gets something (for that tenant) returns it
+                    if (pluginCatalog != null) {
+                        logger.info("Returning catalog from plugin {} on tenant {} ", service, tenantRecordId);
+                        return new PluginCatalogEntry(service, versionedCatalogMapper.toVersionedCatalog(pluginCatalog, internalTenantContext));
+                    }
+                }
+                return null;
+            }
+        };
+        final Object[] args = new Object[1];
+        args[0] = loaderCallback;
+        final ObjectType irrelevant = null;
+        return new CacheLoaderArgument(irrelevant, args, internalTenantContext);
     }
 
     //
@@ -171,4 +213,23 @@ public class EhCacheCatalogCache implements CatalogCache {
             logger.error("Exception loading EmptyCatalog - should never happen!", e);
         }
     }
+
+    private static final class PluginCatalogEntry {
+
+        private final String service;
+        private final VersionedCatalog catalog;
+
+        private PluginCatalogEntry(final String service, final VersionedCatalog catalog) {
+            this.service = service;
+            this.catalog = catalog;
+        }
+
+        public String getService() {
+            return service;
+        }
+
+        public VersionedCatalog getCatalog() {
+            return catalog;
+        }
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.catalog.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.killbill.billing.catalog.StandaloneCatalog;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+
+//
+// Serialized form of the (initialized and validated) versions of a tenant catalog, stored in tenant_kvs to avoid
+// the JAXB parsing and validation when the catalog cache is cold (restart, eviction, new node).
+//
+// The snapshot is prefixed with the fingerprint of the xmls it was built from: uploading a new version changes the
+// fingerprint, so a stale snapshot is simply ignored (and overwritten by the next load).
+//
+// The snapshot is stored under a key reserved to Kill Bill (it cannot be written through the tenant user APIs) and the
+// deserialized versions are validated again before use.
+//
+public class CatalogSnapshot {
+
+    private static final char FINGERPRINT_SEPARATOR = ':';
+
+    // Only resolve the classes which make up a catalog: the model classes, the enums of the catalog api and a few JDK and Guava types
+    private static final Set<String> MODEL_PACKAGES = ImmutableSet.<String>of("org.killbill.billing.catalog",
+                                                                          "org.killbill.billing.catalog.rules");
+    private static final String API_PACKAGE = "org.killbill.billing.catalog.api";
+    private static final Set<String> ALLOWED_CLASSES = ImmutableSet.<String>of("java.lang.Double",
+                                                                               "java.lang.Enum",
+                                                                               "java.lang.Integer",
+                                                                               "java.lang.Number",
+                                                                               "java.math.BigDecimal",
+                                                                               "java.math.BigInteger",
+                                                                               "java.net.URI",
+                                                                               "java.util.ArrayList",
+                                                                               "java.util.Date",
+                                                                               "java.util.TreeMap",
+                                                                               "com.google.common.collect.NaturalOrdering",
+                                                                               "com.google.common.collect.Ordering");
+
+    private CatalogSnapshot() {}
+
+    public static String fingerprint(final Iterable<String> catalogXMLs) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        for (final String cur : catalogXMLs) {
+            hasher.putInt(cur.length());
+            hasher.putString(cur, Charsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    public static String serialize(final String fingerprint, final List<StandaloneCatalog> catalogs) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes));
+        try {
+            out.writeObject(new ArrayList<StandaloneCatalog>(catalogs));
+        } finally {
+            out.close();
+        }
+        return fingerprint + FINGERPRINT_SEPARATOR + BaseEncoding.base64().encode(bytes.toByteArray());
+    }
+
+    // Returns null if the snapshot wasn't built from the xmls matching this fingerprint
+    @SuppressWarnings("unchecked")
+    public static List<StandaloneCatalog> deserialize(final String snapshot, final String fingerprint) throws IOException, ClassNotFoundException {
+        if (!snapshot.startsWith(fingerprint + FINGERPRINT_SEPARATOR)) {
+            return null;
+        }
+
+        final byte[] bytes = BaseEncoding.base64().decode(snapshot.substring(fingerprint.length() + 1));
+        final ObjectInputStream in = new CatalogObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+        try {
+            return (List<StandaloneCatalog>) in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static final class CatalogObjectInputStream extends ObjectInputStream {
+
+        private CatalogObjectInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            // Classes are loaded but not initialized at this point
+            final Class<?> clazz = super.resolveClass(desc);
+            Class<?> elementClazz = clazz;
+            while (elementClazz.isArray()) {
+                elementClazz = elementClazz.getComponentType();
+            }
+            if (!isAllowed(elementClazz)) {
+                throw new InvalidClassException(desc.getName(), "Unexpected class in catalog snapshot");
+            }
+            return clazz;
+        }
+
+        private boolean isAllowed(final Class<?> clazz) {
+            if (clazz.isPrimitive() || ALLOWED_CLASSES.contains(clazz.getName())) {
+                return true;
+            }
+
+            final String packageName = clazz.getName().substring(0, Math.max(clazz.getName().lastIndexOf('.'), 0));
+            return (MODEL_PACKAGES.contains(packageName) && Serializable.class.isAssignableFrom(clazz)) ||
+                   (API_PACKAGE.equals(packageName) && Enum.class.isAssignableFrom(clazz));
+        }
+    }
+}
@@ -27,19 +27,34 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.transform.TransformerException;
 
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.StandaloneCatalog;
 import org.killbill.billing.catalog.StandaloneCatalogWithPriceOverride;
 import org.killbill.billing.catalog.VersionedCatalog;
 import org.killbill.billing.catalog.api.CatalogApiException;
 import org.killbill.billing.catalog.api.InvalidConfigException;
 import org.killbill.billing.catalog.override.PriceOverride;
+import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.CatalogConfig;
 import org.killbill.clock.Clock;
+import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
 import org.killbill.xmlloader.UriAccessor;
 import org.killbill.xmlloader.ValidationErrors;
 import org.killbill.xmlloader.ValidationException;
@@ -48,6 +63,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.Resources;
 import com.google.inject.Inject;
 
@@ -58,15 +75,27 @@ public class VersionedCatalogLoader implements CatalogLoader {
     private static final Object PROTOCOL_FOR_FILE = "file";
     private static final String XML_EXTENSION = ".xml";
 
+    private static final String LOADER_THREAD_PREFIX = "catalog-loader-th-";
+    private static final String LOADER_TH_GROUP_NAME = "catalog-loader-grp";
+    private static final long LOADER_KEEP_ALIVE_SEC = 60L;
+
     private final Clock clock;
     private final PriceOverride priceOverride;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final TenantInternalApi tenantInternalApi;
+    private final CatalogConfig catalogConfig;
+    // Null if disabled, in which case the versions are parsed in the calling thread
+    private final ExecutorService loaderExecutorService;
 
     @Inject
-    public VersionedCatalogLoader(final Clock clock, final PriceOverride priceOverride, final InternalCallContextFactory internalCallContextFactory) {
+    public VersionedCatalogLoader(final Clock clock, final PriceOverride priceOverride, final InternalCallContextFactory internalCallContextFactory,
+                                  final TenantInternalApi tenantInternalApi, final CatalogConfig catalogConfig) {
         this.clock = clock;
         this.priceOverride = priceOverride;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.tenantInternalApi = tenantInternalApi;
+        this.catalogConfig = catalogConfig;
+        this.loaderExecutorService = catalogConfig.getCatalogLoaderThreadsNb() > 1 ? createLoaderExecutorService(catalogConfig.getCatalogLoaderThreadsNb()) : null;
     }
 
     @Override
@@ -116,19 +145,30 @@ public class VersionedCatalogLoader implements CatalogLoader {
     }
 
     public VersionedCatalog load(final Iterable<String> catalogXMLs, final boolean filterTemplateCatalog, final Long tenantRecordId) throws CatalogApiException {
-        final VersionedCatalog result = new VersionedCatalog(clock);
+        final List<String> xmls = ImmutableList.<String>copyOf(catalogXMLs);
         final URI uri;
         try {
             uri = new URI("/tenantCatalog");
-            for (final String cur : catalogXMLs) {
-                final InputStream curCatalogStream = new ByteArrayInputStream(cur.getBytes());
-                final StandaloneCatalog catalog = XMLLoader.getObjectFromStream(uri, curCatalogStream, StandaloneCatalog.class);
-                if (!filterTemplateCatalog || !catalog.isTemplateCatalog()) {
-                    result.add(new StandaloneCatalogWithPriceOverride(catalog, priceOverride, tenantRecordId, internalCallContextFactory));
+
+            final String fingerprint = catalogConfig.isCatalogSnapshotEnabled() && tenantRecordId != null ? CatalogSnapshot.fingerprint(xmls) : null;
+            if (fingerprint != null) {
+                final List<StandaloneCatalog> snapshot = readSnapshot(fingerprint, tenantRecordId);
+                if (snapshot != null) {
+                    // Only the JAXB parsing is skipped: the deserialized versions are validated like freshly parsed ones
+                    final VersionedCatalog result = buildVersionedCatalog(snapshot, filterTemplateCatalog, tenantRecordId);
+                    XMLLoader.initializeAndValidate(uri, result);
+                    return result;
                 }
             }
+
+            final List<StandaloneCatalog> catalogs = parseCatalogs(uri, xmls);
+            final VersionedCatalog result = buildVersionedCatalog(catalogs, filterTemplateCatalog, tenantRecordId);
             // Perform initialization and validation for VersionedCatalog
             XMLLoader.initializeAndValidate(uri, result);
+
+            if (fingerprint != null) {
+                writeSnapshot(fingerprint, catalogs, tenantRecordId);
+            }
             return result;
         } catch (final ValidationException e) {
             logger.warn("Failed to load catalog for tenantRecordId='{}'",  tenantRecordId, e);
@@ -154,6 +194,120 @@ public class VersionedCatalogLoader implements CatalogLoader {
         }
     }
 
+    private VersionedCatalog buildVersionedCatalog(final Iterable<StandaloneCatalog> catalogs, final boolean filterTemplateCatalog, final Long tenantRecordId) throws CatalogApiException {
+        final VersionedCatalog result = new VersionedCatalog(clock);
+        for (final StandaloneCatalog catalog : catalogs) {
+            if (!filterTemplateCatalog || !catalog.isTemplateCatalog()) {
+                result.add(new StandaloneCatalogWithPriceOverride(catalog, priceOverride, tenantRecordId, internalCallContextFactory));
+            }
+        }
+        return result;
+    }
+
+    // Versions are independent from each other until the VersionedCatalog is validated: parse them concurrently, keeping the upload order
+    private List<StandaloneCatalog> parseCatalogs(final URI uri, final List<String> catalogXMLs) throws ValidationException, JAXBException, IOException, TransformerException, SAXException, InvalidConfigException {
+        final List<StandaloneCatalog> catalogs = new ArrayList<StandaloneCatalog>(catalogXMLs.size());
+        if (loaderExecutorService == null || catalogXMLs.size() <= 1) {
+            for (final String cur : catalogXMLs) {
+                catalogs.add(parseCatalog(uri, cur));
+            }
+            return catalogs;
+        }
+
+        final List<Future<StandaloneCatalog>> futures = new ArrayList<Future<StandaloneCatalog>>(catalogXMLs.size());
+        for (final String cur : catalogXMLs) {
+            futures.add(loaderExecutorService.submit(new Callable<StandaloneCatalog>() {
+                @Override
+                public StandaloneCatalog call() throws Exception {
+                    return parseCatalog(uri, cur);
+                }
+            }));
+        }
+
+        try {
+            for (final Future<StandaloneCatalog> future : futures) {
+                catalogs.add(future.get());
+            }
+            return catalogs;
+        } catch (final InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (final ExecutionException e) {
+            cancel(futures);
+            final Throwable cause = e.getCause();
+            Throwables.propagateIfInstanceOf(cause, ValidationException.class);
+            Throwables.propagateIfInstanceOf(cause, JAXBException.class);
+            Throwables.propagateIfInstanceOf(cause, IOException.class);
+            Throwables.propagateIfInstanceOf(cause, TransformerException.class);
+            Throwables.propagateIfInstanceOf(cause, SAXException.class);
+            Throwables.propagateIfInstanceOf(cause, InvalidConfigException.class);
+            throw Throwables.propagate(cause);
+        }
+    }
+
+    private StandaloneCatalog parseCatalog(final URI uri, final String catalogXML) throws ValidationException, JAXBException, IOException, TransformerException, SAXException, InvalidConfigException {
+        final InputStream curCatalogStream = new ByteArrayInputStream(catalogXML.getBytes());
+        return XMLLoader.getObjectFromStream(uri, curCatalogStream, StandaloneCatalog.class);
+    }
+
+    private void cancel(final Iterable<Future<StandaloneCatalog>> futures) {
+        for (final Future<StandaloneCatalog> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private List<StandaloneCatalog> readSnapshot(final String fingerprint, final Long tenantRecordId) {
+        final String snapshot = tenantInternalApi.getTenantCatalogSnapshot(new InternalTenantContext(tenantRecordId));
+        if (snapshot == null) {
+            return null;
+        }
+
+        try {
+            return CatalogSnapshot.deserialize(snapshot, fingerprint);
+        } catch (final IOException e) {
+            logger.warn("Ignoring unreadable catalog snapshot for tenantRecordId='{}'", tenantRecordId, e);
+        } catch (final ClassNotFoundException e) {
+            logger.warn("Ignoring unreadable catalog snapshot for tenantRecordId='{}'", tenantRecordId, e);
+        } catch (final RuntimeException e) {
+            logger.warn("Ignoring unreadable catalog snapshot for tenantRecordId='{}'", tenantRecordId, e);
+        }
+        return null;
+    }
+
+    // Best effort: the catalog is usable regardless, the next cold load would simply parse the xmls again
+    private void writeSnapshot(final String fingerprint, final List<StandaloneCatalog> catalogs, final Long tenantRecordId) {
+        try {
+            final InternalCallContext callContext = internalCallContextFactory.createInternalCallContext(tenantRecordId, null, "CatalogSnapshot", CallOrigin.INTERNAL, UserType.SYSTEM, null);
+            tenantInternalApi.updateTenantCatalogSnapshot(CatalogSnapshot.serialize(fingerprint, catalogs), callContext);
+        } catch (final IOException e) {
+            logger.warn("Failed to write catalog snapshot for tenantRecordId='{}'", tenantRecordId, e);
+        } catch (final RuntimeException e) {
+            logger.warn("Failed to write catalog snapshot for tenantRecordId='{}'", tenantRecordId, e);
+        }
+    }
+
+    // Core threads time out so that the (daemon) pool doesn't need to be shutdown
+    private ExecutorService createLoaderExecutorService(final int nbThreads) {
+        final ThreadPoolExecutor executor = new WithProfilingThreadPoolExecutor(nbThreads,
+                                                                               nbThreads,
+                                                                               LOADER_KEEP_ALIVE_SEC,
+                                                                               TimeUnit.SECONDS,
+                                                                               new LinkedBlockingQueue<Runnable>(),
+                                                                               new ThreadFactory() {
+
+                                                                                   @Override
+                                                                                   public Thread newThread(final Runnable r) {
+                                                                                       final Thread th = new Thread(new ThreadGroup(LOADER_TH_GROUP_NAME), r);
+                                                                                       th.setName(LOADER_THREAD_PREFIX + th.getId());
+                                                                                       th.setDaemon(true);
+                                                                                       return th;
+                                                                                   }
+                                                                               });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     protected List<URI> findXmlReferences(final String directoryContents, final URL url) throws URISyntaxException {
         if (url.getProtocol().equals(PROTOCOL_FOR_FILE)) {
             return findXmlFileReferences(directoryContents, url);
@@ -24,6 +24,8 @@ import org.killbill.billing.catalog.api.rules.CaseBillingAlignment;
 
 public class DefaultCaseBillingAlignment extends DefaultCasePhase<BillingAlignment> implements CaseBillingAlignment {
 
+    private static final long serialVersionUID = 1L;
+
     @XmlElement(required = true)
     private BillingAlignment alignment;
 
@@ -27,6 +27,8 @@ import org.killbill.xmlloader.ValidationErrors;
 
 public class DefaultCaseCancelPolicy extends DefaultCasePhase<BillingActionPolicy> implements CaseCancelPolicy {
 
+    private static final long serialVersionUID = 1L;
+
     @XmlElement(required = true)
     private BillingActionPolicy policy;
 
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.catalog.rules;
 
+import java.io.Serializable;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -52,7 +53,9 @@ import org.killbill.xmlloader.ValidationErrors;
 import com.google.common.collect.ImmutableList;
 
 @XmlAccessorType(XmlAccessType.NONE)
-public class DefaultPlanRules extends ValidatingConfig<StandaloneCatalog> implements PlanRules {
+public class DefaultPlanRules extends ValidatingConfig<StandaloneCatalog> implements PlanRules, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     @XmlElementWrapper(name = "changePolicy")
     @XmlElement(name = "changePolicyCase", required = false)
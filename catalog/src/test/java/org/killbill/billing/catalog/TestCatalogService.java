@@ -34,6 +34,15 @@ public class TestCatalogService extends CatalogTestSuiteNoDB {
                 return "versionedCatalog";
             }
 
+            @Override
+            public int getCatalogLoaderThreadsNb() {
+                return 1;
+            }
+
+            @Override
+            public boolean isCatalogSnapshotEnabled() {
+                return false;
+            }
         }, tenantInternalApi, catalogCache, cacheInvalidationCallback);
         service.loadCatalog();
         Assert.assertNotNull(service.getFullCatalog(true, true, internalCallContext));
@@ -48,6 +57,15 @@ public class TestCatalogService extends CatalogTestSuiteNoDB {
                 return "WeaponsHire.xml";
             }
 
+            @Override
+            public int getCatalogLoaderThreadsNb() {
+                return 1;
+            }
+
+            @Override
+            public boolean isCatalogSnapshotEnabled() {
+                return false;
+            }
         },  tenantInternalApi, catalogCache, cacheInvalidationCallback);
         service.loadCatalog();
         Assert.assertNotNull(service.getFullCatalog(true, true, internalCallContext));
@@ -27,10 +27,13 @@ import javax.xml.transform.TransformerException;
 
 import org.joda.time.DateTime;
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.catalog.api.BillingPeriod;
 import org.killbill.billing.catalog.api.CatalogApiException;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.catalog.api.InvalidConfigException;
 import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanSpecifier;
+import org.killbill.billing.catalog.api.PriceListSet;
 import org.killbill.billing.platform.api.KillbillService.ServiceException;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -87,6 +90,35 @@ public class TestVersionedCatalog extends CatalogTestSuiteNoDB {
 
     }
 
+    @Test(groups = "fast")
+    public void testFindPlanBySpecifierWithDates() throws Exception {
+        final DateTime dt1 = new DateTime("2011-01-01T00:01:00+00:00");
+        final DateTime dt2 = new DateTime("2011-02-02T00:01:00+00:00");
+        final DateTime dt214 = new DateTime("2011-02-14T00:01:00+00:00");
+        final DateTime dt3 = new DateTime("2011-03-03T00:01:00+00:00");
+        final PlanSpecifier spec = new PlanSpecifier("Pistol", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+
+        // Same plans as when looking up by name, for new and existing subscriptions
+        Assert.assertSame(vc.createOrFindPlan(spec, null, dt1, dt1), vc.findPlan("pistol-monthly", dt1, dt1));
+        Assert.assertSame(vc.createOrFindPlan(spec, null, dt3, dt3), vc.findPlan("pistol-monthly", dt3, dt3));
+        Assert.assertSame(vc.createOrFindPlan(spec, null, dt2, dt1), vc.findPlan("pistol-monthly", dt2, dt1));
+        Assert.assertSame(vc.createOrFindPlan(spec, null, dt214, dt1), vc.findPlan("pistol-monthly", dt214, dt1));
+        Assert.assertSame(vc.createOrFindPlan(spec, null, dt3, dt1), vc.findPlan("pistol-monthly", dt3, dt1));
+
+        try {
+            vc.findPlan("unknown-monthly", dt3, dt1);
+            Assert.fail("Plan doesn't exist");
+        } catch (final CatalogApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.CAT_PLAN_NOT_FOUND.getCode());
+        }
+        try {
+            vc.createOrFindPlan(new PlanSpecifier("Pistol", BillingPeriod.MONTHLY, "unknown-pricelist"), null, dt3, dt1);
+            Assert.fail("Price list doesn't exist");
+        } catch (final CatalogApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.CAT_PRICE_LIST_NOT_FOUND.getCode());
+        }
+    }
+
     @Test(groups = "fast")
     public void testErrorOnDateTooEarly() {
         final DateTime dt0 = new DateTime("1977-01-01T00:00:00+00:00");
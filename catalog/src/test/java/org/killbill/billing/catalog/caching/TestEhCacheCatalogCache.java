@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.killbill.billing.ErrorCode;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.CatalogTestSuiteNoDB;
@@ -34,7 +35,15 @@ import org.killbill.billing.catalog.StandaloneCatalog;
 import org.killbill.billing.catalog.StandaloneCatalogWithPriceOverride;
 import org.killbill.billing.catalog.VersionedCatalog;
 import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.Plan;
 import org.killbill.billing.catalog.api.Product;
+import org.killbill.billing.catalog.plugin.VersionedCatalogMapper;
+import org.killbill.billing.catalog.plugin.api.CatalogPluginApi;
+import org.killbill.billing.catalog.plugin.api.StandalonePluginCatalog;
+import org.killbill.billing.catalog.plugin.api.VersionedPluginCatalog;
+import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.xmlloader.UriAccessor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
@@ -44,6 +53,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.CharStreams;
 import com.google.common.io.Resources;
 
@@ -181,4 +191,84 @@ public class TestEhCacheCatalogCache extends CatalogTestSuiteNoDB {
         // Verify the lookup with the other tenant
         Assert.assertEquals(catalogCache.getCatalog(true, true, otherMultiTenantContext), otherResult);
     }
+
+    //
+    // Verify plugin catalogs are only retrieved and mapped again when the cache is invalidated
+    //
+    @Test(groups = "fast")
+    public void testPluginCatalogCaching() throws CatalogApiException {
+        final StandalonePluginCatalog standalonePluginCatalog = Mockito.mock(StandalonePluginCatalog.class);
+        Mockito.when(standalonePluginCatalog.getEffectiveDate()).thenReturn(clock.getUTCNow());
+        Mockito.when(standalonePluginCatalog.getPlans()).thenReturn(ImmutableList.<Plan>of());
+        final VersionedPluginCatalog pluginCatalog = Mockito.mock(VersionedPluginCatalog.class);
+        Mockito.when(pluginCatalog.getCatalogName()).thenReturn("PluginCatalog");
+        Mockito.when(pluginCatalog.getStandalonePluginCatalogs()).thenReturn(ImmutableList.<StandalonePluginCatalog>of(standalonePluginCatalog));
+
+        final CatalogPluginApi catalogPluginApi = Mockito.mock(CatalogPluginApi.class);
+        Mockito.when(catalogPluginApi.getVersionedPluginCatalog(Mockito.<Iterable<PluginProperty>>any(), Mockito.<TenantContext>any())).thenReturn(pluginCatalog);
+        final OSGIServiceRegistration<CatalogPluginApi> pluginRegistry = Mockito.mock(OSGIServiceRegistration.class);
+        Mockito.when(pluginRegistry.getAllServices()).thenReturn(ImmutableSet.<String>of("catalog-plugin"));
+        Mockito.when(pluginRegistry.getServiceForName("catalog-plugin")).thenReturn(catalogPluginApi);
+
+        final VersionedCatalogMapper versionedCatalogMapper = Mockito.mock(VersionedCatalogMapper.class);
+        Mockito.when(versionedCatalogMapper.toVersionedCatalog(Mockito.<VersionedPluginCatalog>any(), Mockito.<InternalTenantContext>any())).thenAnswer(new Answer<VersionedCatalog>() {
+            @Override
+            public VersionedCatalog answer(final InvocationOnMock invocation) throws Throwable {
+                return new VersionedCatalog(clock);
+            }
+        });
+
+        final CatalogCache pluginCatalogCache = new EhCacheCatalogCache(pluginRegistry, versionedCatalogMapper, cacheControllerDispatcher, loader, priceOverride, internalCallContextFactory);
+
+        final VersionedCatalog firstCatalog = pluginCatalogCache.getCatalog(true, true, multiTenantContext);
+        Assert.assertSame(pluginCatalogCache.getCatalog(true, true, multiTenantContext), firstCatalog);
+        Mockito.verify(versionedCatalogMapper, Mockito.times(1)).toVersionedCatalog(Mockito.<VersionedPluginCatalog>any(), Mockito.<InternalTenantContext>any());
+
+        // Each tenant has its own catalog
+        Assert.assertNotSame(pluginCatalogCache.getCatalog(true, true, otherMultiTenantContext), firstCatalog);
+        Mockito.verify(versionedCatalogMapper, Mockito.times(2)).toVersionedCatalog(Mockito.<VersionedPluginCatalog>any(), Mockito.<InternalTenantContext>any());
+
+        // Changes made by the plugin are only picked up once the tenant catalog is invalidated: the plugin isn't even called
+        Mockito.when(standalonePluginCatalog.getEffectiveDate()).thenReturn(clock.getUTCNow().plusDays(1));
+        Assert.assertSame(pluginCatalogCache.getCatalog(true, true, multiTenantContext), firstCatalog);
+        Mockito.verify(catalogPluginApi, Mockito.times(2)).getVersionedPluginCatalog(Mockito.<Iterable<PluginProperty>>any(), Mockito.<TenantContext>any());
+
+        // Invalidation (tenant broadcast)
+        pluginCatalogCache.clearCatalog(multiTenantContext);
+        final VersionedCatalog secondCatalog = pluginCatalogCache.getCatalog(true, true, multiTenantContext);
+        Assert.assertNotSame(secondCatalog, firstCatalog);
+        Assert.assertSame(pluginCatalogCache.getCatalog(true, true, multiTenantContext), secondCatalog);
+        Mockito.verify(versionedCatalogMapper, Mockito.times(3)).toVersionedCatalog(Mockito.<VersionedPluginCatalog>any(), Mockito.<InternalTenantContext>any());
+
+        // Plugin stopped
+        Mockito.when(pluginRegistry.getServiceForName("catalog-plugin")).thenReturn(null);
+        Mockito.when(pluginRegistry.getAllServices()).thenReturn(ImmutableSet.<String>of());
+        Mockito.doReturn(ImmutableList.<String>of()).when(tenantInternalApi).getTenantCatalogs(Mockito.any(InternalTenantContext.class));
+        Assert.assertNotSame(pluginCatalogCache.getCatalog(true, true, multiTenantContext), secondCatalog);
+        Mockito.verify(versionedCatalogMapper, Mockito.times(3)).toVersionedCatalog(Mockito.<VersionedPluginCatalog>any(), Mockito.<InternalTenantContext>any());
+    }
+
+    @Test(groups = "fast")
+    public void testPluginCatalogMappingFailure() throws CatalogApiException {
+        final VersionedPluginCatalog pluginCatalog = Mockito.mock(VersionedPluginCatalog.class);
+        Mockito.when(pluginCatalog.getCatalogName()).thenReturn("PluginCatalog");
+        Mockito.when(pluginCatalog.getStandalonePluginCatalogs()).thenReturn(ImmutableList.<StandalonePluginCatalog>of());
+
+        final CatalogPluginApi catalogPluginApi = Mockito.mock(CatalogPluginApi.class);
+        Mockito.when(catalogPluginApi.getVersionedPluginCatalog(Mockito.<Iterable<PluginProperty>>any(), Mockito.<TenantContext>any())).thenReturn(pluginCatalog);
+        final OSGIServiceRegistration<CatalogPluginApi> pluginRegistry = Mockito.mock(OSGIServiceRegistration.class);
+        Mockito.when(pluginRegistry.getAllServices()).thenReturn(ImmutableSet.<String>of("catalog-plugin"));
+        Mockito.when(pluginRegistry.getServiceForName("catalog-plugin")).thenReturn(catalogPluginApi);
+
+        final VersionedCatalogMapper versionedCatalogMapper = Mockito.mock(VersionedCatalogMapper.class);
+        Mockito.when(versionedCatalogMapper.toVersionedCatalog(Mockito.<VersionedPluginCatalog>any(), Mockito.<InternalTenantContext>any())).thenThrow(new CatalogApiException(ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE, "now"));
+
+        final CatalogCache pluginCatalogCache = new EhCacheCatalogCache(pluginRegistry, versionedCatalogMapper, cacheControllerDispatcher, loader, priceOverride, internalCallContextFactory);
+        try {
+            pluginCatalogCache.getCatalog(true, true, multiTenantContext);
+            Assert.fail();
+        } catch (final CatalogApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE.getCode());
+        }
+    }
 }
@@ -18,29 +18,43 @@
 
 package org.killbill.billing.catalog.io;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.transform.TransformerException;
 
 import org.joda.time.DateTime;
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.CatalogTestSuiteNoDB;
 import org.killbill.billing.catalog.StandaloneCatalog;
 import org.killbill.billing.catalog.StandaloneCatalogWithPriceOverride;
 import org.killbill.billing.catalog.VersionedCatalog;
 import org.killbill.billing.catalog.api.CatalogApiException;
 import org.killbill.billing.catalog.api.InvalidConfigException;
+import org.killbill.billing.catalog.api.Plan;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.xml.sax.SAXException;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 
@@ -167,4 +181,62 @@ public class TestVersionedCatalogLoader extends CatalogTestSuiteNoDB {
         final VersionedCatalog c = loader.loadDefaultCatalog(destinationFile.toURI().toString());
         Assert.assertEquals(c.getCatalogName(), "SpyCarBasic");
     }
+
+    @Test(groups = "fast")
+    public void testLoadTenantCatalogFromSnapshot() throws Exception {
+        final List<String> catalogXMLs = ImmutableList.<String>of(Resources.toString(Resources.getResource("versionedCatalog/WeaponsHireSmall-1.xml"), Charsets.UTF_8),
+                                                                  Resources.toString(Resources.getResource("versionedCatalog/WeaponsHireSmall-2.xml"), Charsets.UTF_8),
+                                                                  Resources.toString(Resources.getResource("versionedCatalog/WeaponsHireSmall-3.xml"), Charsets.UTF_8));
+        final ArgumentCaptor<String> snapshotCaptor = ArgumentCaptor.forClass(String.class);
+
+        // Cold load: the xmls are parsed and the snapshot is written
+        Mockito.when(tenantInternalApi.getTenantCatalogSnapshot(Mockito.any(InternalTenantContext.class))).thenReturn(null);
+        final VersionedCatalog parsed = loader.load(catalogXMLs, false, 12L);
+        Mockito.verify(tenantInternalApi, Mockito.times(1)).updateTenantCatalogSnapshot(snapshotCaptor.capture(), Mockito.any(InternalCallContext.class));
+        Assert.assertTrue(snapshotCaptor.getValue().startsWith(CatalogSnapshot.fingerprint(catalogXMLs)));
+
+        // Warm load: the xmls aren't parsed, the snapshot is validated and used instead (and not re-written)
+        Mockito.when(tenantInternalApi.getTenantCatalogSnapshot(Mockito.any(InternalTenantContext.class))).thenReturn(snapshotCaptor.getValue());
+        final VersionedCatalog fromSnapshot = loader.load(catalogXMLs, false, 12L);
+        Mockito.verify(tenantInternalApi, Mockito.times(1)).updateTenantCatalogSnapshot(Mockito.anyString(), Mockito.any(InternalCallContext.class));
+        Assert.assertEquals(fromSnapshot.getCatalogName(), parsed.getCatalogName());
+        Assert.assertEquals(fromSnapshot.size(), parsed.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            final StandaloneCatalog expected = parsed.getVersions().get(i);
+            final StandaloneCatalog actual = fromSnapshot.getVersions().get(i);
+            Assert.assertEquals(actual.getEffectiveDate(), expected.getEffectiveDate());
+            Assert.assertEquals(actual.getCurrentPlans().size(), expected.getCurrentPlans().size());
+            for (final Plan plan : expected.getCurrentPlans()) {
+                final Plan actualPlan = actual.findCurrentPlan(plan.getName());
+                Assert.assertEquals(actualPlan.getAllPhases().length, plan.getAllPhases().length);
+                Assert.assertEquals(actualPlan.getPriceListName(), plan.getPriceListName());
+            }
+        }
+
+        // A new version was uploaded: the stale snapshot is ignored and replaced
+        final VersionedCatalog reloaded = loader.load(catalogXMLs.subList(0, 2), false, 12L);
+        Assert.assertEquals(reloaded.size(), 2);
+        Mockito.verify(tenantInternalApi, Mockito.times(2)).updateTenantCatalogSnapshot(Mockito.anyString(), Mockito.any(InternalCallContext.class));
+    }
+
+    @Test(groups = "fast", expectedExceptions = InvalidClassException.class)
+    public void testSnapshotOnlyResolvesCatalogClasses() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes));
+        out.writeObject(new HashMap<String, String>());
+        out.close();
+
+        CatalogSnapshot.deserialize("fingerprint:" + BaseEncoding.base64().encode(bytes.toByteArray()), "fingerprint");
+    }
+
+    @Test(groups = "fast", expectedExceptions = InvalidClassException.class)
+    public void testSnapshotOnlyResolvesCatalogModelClasses() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes));
+        // Serializable, and part of the catalog api, but not a catalog model class
+        out.writeObject(new CatalogApiException(ErrorCode.CAT_NO_SUCH_PLAN, "foo"));
+        out.close();
+
+        CatalogSnapshot.deserialize("fingerprint:" + BaseEncoding.base64().encode(bytes.toByteArray()), "fingerprint");
+    }
 }
@@ -47,6 +47,7 @@ import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.customfield.ShouldntHappenException;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.clock.Clock;
@@ -209,6 +210,11 @@ public class ProxyBlockingStateDao implements BlockingStateDao {
         return delegate.get(offset, limit, context);
     }
 
+    @Override
+    public PageTokenPagination<BlockingStateModelDao> getFromPageToken(@Nullable final String pageToken, final Long limit, final boolean withCount, final InternalTenantContext context) {
+        return delegate.getFromPageToken(pageToken, limit, withCount, context);
+    }
+
     @Override
     public Long getCount(final InternalTenantContext context) {
         return delegate.getCount(context);
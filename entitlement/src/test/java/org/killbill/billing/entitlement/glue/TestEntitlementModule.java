@@ -18,6 +18,7 @@
 
 package org.killbill.billing.entitlement.glue;
 
+import org.killbill.billing.broadcast.BroadcastApi;
 import org.killbill.billing.mock.glue.MockTenantModule;
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.glue.CacheModule;
@@ -27,6 +28,7 @@ import org.killbill.billing.util.glue.KillBillShiroAopModule;
 import org.killbill.billing.util.glue.KillBillShiroModule;
 import org.killbill.billing.util.glue.SecurityModule;
 import org.killbill.billing.util.glue.TestUtilModuleNoDB.ShiroModuleNoDB;
+import org.mockito.Mockito;
 
 public class TestEntitlementModule extends DefaultEntitlementModule {
 
@@ -49,6 +51,7 @@ public class TestEntitlementModule extends DefaultEntitlementModule {
         install(new KillBillShiroAopModule());
 
         install(new SecurityModule(configSource));
+        bind(BroadcastApi.class).toInstance(Mockito.mock(BroadcastApi.class));
 
     }
 
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -89,9 +90,12 @@ import org.killbill.billing.invoice.notification.NextBillingDateNotificationKey;
 import org.killbill.billing.junction.BillingEvent;
 import org.killbill.billing.junction.BillingEventSet;
 import org.killbill.billing.junction.BillingInternalApi;
+import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
+import org.killbill.billing.subscription.api.user.SubscriptionBaseTransition;
+import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.UUIDs;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.callcontext.CallContext;
@@ -99,6 +103,9 @@ import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
 import org.killbill.billing.util.globallocker.LockerType;
+import org.killbill.billing.util.tag.ControlTagType;
+import org.killbill.billing.util.tag.Tag;
+import org.killbill.billing.util.tag.dao.SystemTags;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
@@ -146,6 +153,7 @@ public class InvoiceDispatcher {
     private final NotificationQueueService notificationQueueService;
     private final InvoiceConfig invoiceConfig;
     private final ParkedAccountsManager parkedAccountsManager;
+    private final TagInternalApi tagApi;
 
     @Inject
     public InvoiceDispatcher(final InvoiceGenerator generator,
@@ -161,7 +169,8 @@ public class InvoiceDispatcher {
                              final NotificationQueueService notificationQueueService,
                              final InvoiceConfig invoiceConfig,
                              final Clock clock,
-                             final ParkedAccountsManager parkedAccountsManager) {
+                             final ParkedAccountsManager parkedAccountsManager,
+                             final TagInternalApi tagApi) {
         this.generator = generator;
         this.billingApi = billingApi;
         this.subscriptionApi = SubscriptionApi;
@@ -176,6 +185,7 @@ public class InvoiceDispatcher {
         this.notificationQueueService = notificationQueueService;
         this.invoiceConfig = invoiceConfig;
         this.parkedAccountsManager = parkedAccountsManager;
+        this.tagApi = tagApi;
     }
 
     public void processSubscriptionForInvoiceGeneration(final EffectiveSubscriptionInternalEvent transition,
@@ -289,7 +299,7 @@ public class InvoiceDispatcher {
                                                          ImmutableList.<LocalDate>of(inputTargetDate) :
                                                          getUpcomingInvoiceCandidateDates(filteredSubscriptionIdsForDryRun, context);
             for (final LocalDate curTargetDate : candidateTargetDates) {
-                final Invoice invoice = processAccountWithLockAndInputTargetDate(accountId, curTargetDate, billingEvents, isDryRun, context);
+                final Invoice invoice = processAccountWithLockAndInputTargetDate(accountId, curTargetDate, billingEvents, isDryRun, parkedAccount, context);
                 if (invoice != null) {
                     filterInvoiceItemsForDryRun(filteredSubscriptionIdsForDryRun, invoice);
 
@@ -371,13 +381,21 @@ public class InvoiceDispatcher {
     }
 
     private Invoice processAccountWithLockAndInputTargetDate(final UUID accountId, final LocalDate targetDate,
-                                                             final BillingEventSet billingEvents, final boolean isDryRun, final InternalCallContext context) throws InvoiceApiException {
+                                                             final BillingEventSet billingEvents, final boolean isDryRun, final boolean parkedAccount,
+                                                             final InternalCallContext context) throws InvoiceApiException {
         try {
             final ImmutableAccountData account = accountApi.getImmutableAccountDataById(accountId, context);
 
-            final List<Invoice> invoices = billingEvents.isAccountAutoInvoiceOff() ?
-                                           ImmutableList.<Invoice>of() :
-                                           ImmutableList.<Invoice>copyOf(Collections2.transform(invoiceDao.getInvoicesByAccount(context),
+            final LocalDate cutoffDate = billingEvents.isAccountAutoInvoiceOff() ? null : getIncrementalGenerationCutoffDate(accountId, targetDate, billingEvents, parkedAccount, context);
+            final List<InvoiceModelDao> existingInvoices;
+            if (billingEvents.isAccountAutoInvoiceOff()) {
+                existingInvoices = ImmutableList.<InvoiceModelDao>of();
+            } else if (cutoffDate == null) {
+                existingInvoices = invoiceDao.getInvoicesByAccount(context);
+            } else {
+                existingInvoices = invoiceDao.getInvoicesByAccountOverlappingDate(cutoffDate, context);
+            }
+            final List<Invoice> invoices = ImmutableList.<Invoice>copyOf(Collections2.transform(existingInvoices,
                                                                                                 new Function<InvoiceModelDao, Invoice>() {
                                                                                                     @Override
                                                                                                     public Invoice apply(final InvoiceModelDao input) {
@@ -386,7 +404,7 @@ public class InvoiceDispatcher {
                                                                                                 }));
 
             final Currency targetCurrency = account.getCurrency();
-            final InvoiceWithMetadata invoiceWithMetadata = generator.generateInvoice(account, billingEvents, invoices, targetDate, targetCurrency, context);
+            final InvoiceWithMetadata invoiceWithMetadata = generator.generateInvoice(account, billingEvents, invoices, cutoffDate, targetDate, targetCurrency, context);
             final Invoice invoice = invoiceWithMetadata.getInvoice();
 
             // Compute future notifications
@@ -459,6 +477,68 @@ public class InvoiceDispatcher {
         }
     }
 
+    //
+    // When incremental generation is enabled, only the invoice items whose service period ends after the cutoff date are
+    // reloaded and reconciled. We fall back to a full rebuild (null cutoff date) for parked accounts (repair), for accounts
+    // unparked after the cutoff date, and when a subscription change was recorded after the cutoff date but is effective
+    // prior to it (backdated change), since it could affect periods which are not reconciled anymore.
+    //
+    // Similarly, nothing was billed while an AUTO_INVOICING_OFF tag was set on the account, a bundle or a subscription: if such
+    // a tag was removed after the cutoff date, the cutoff date is moved back to the day before the tag was added, so that
+    // the periods which were never billed are reconciled.
+    //
+    // Note that the billing events (and subscription transitions) are still computed from the full subscription history, since
+    // the BCD and blocking states depend on it: the cutoff date only bounds the invoices and items reloaded, the recurring periods
+    // generated and the raw usage retrieved.
+    //
+    private LocalDate getIncrementalGenerationCutoffDate(final UUID accountId, final LocalDate targetDate, final BillingEventSet billingEvents,
+                                                         final boolean parkedAccount, final InternalCallContext context) {
+        final int windowMonths = invoiceConfig.getIncrementalGenerationWindowMonths(context);
+        if (windowMonths <= 0 || parkedAccount) {
+            return null;
+        }
+
+        LocalDate cutoffDate = targetDate.minusMonths(windowMonths);
+        final Set<UUID> visitedSubscriptionIds = new HashSet<UUID>();
+        for (final BillingEvent billingEvent : billingEvents) {
+            final SubscriptionBase subscription = billingEvent.getSubscription();
+            if (!visitedSubscriptionIds.add(subscription.getId())) {
+                continue;
+            }
+
+            for (final SubscriptionBaseTransition transition : subscription.getAllTransitions()) {
+                if (transition.getCreatedDate() != null &&
+                    context.toLocalDate(transition.getEffectiveTransitionTime()).compareTo(cutoffDate) < 0 &&
+                    context.toLocalDate(transition.getCreatedDate()).compareTo(cutoffDate) >= 0) {
+                    log.info("Backdated change detected for accountId='{}', subscriptionId='{}', cutoffDate='{}': reloading full invoice history", accountId, subscription.getId(), cutoffDate);
+                    return null;
+                }
+            }
+        }
+
+        final LocalDate initialCutoffDate = cutoffDate;
+        for (final Tag tag : tagApi.getTagsForAccount(true, context)) {
+            // The updated date of a deleted tag is its deletion date (tags still active before the cutoff date are taken care of by the billing events)
+            if (context.toLocalDate(tag.getUpdatedDate()).compareTo(initialCutoffDate) < 0) {
+                continue;
+            }
+
+            if (SystemTags.PARK_TAG_DEFINITION_ID.equals(tag.getTagDefinitionId())) {
+                log.info("Account unparked after cutoffDate='{}' for accountId='{}': reloading full invoice history", initialCutoffDate, accountId);
+                return null;
+            } else if (ControlTagType.AUTO_INVOICING_OFF.getId().equals(tag.getTagDefinitionId())) {
+                final LocalDate tagCreatedDate = context.toLocalDate(tag.getCreatedDate()).minusDays(1);
+                if (tagCreatedDate.compareTo(cutoffDate) < 0) {
+                    cutoffDate = tagCreatedDate;
+                }
+            }
+        }
+        if (cutoffDate.compareTo(initialCutoffDate) != 0) {
+            log.info("AUTO_INVOICING_OFF removed after cutoffDate='{}' for accountId='{}': using cutoffDate='{}'", initialCutoffDate, accountId, cutoffDate);
+        }
+        return cutoffDate;
+    }
+
     private FutureAccountNotifications createNextFutureNotificationDate(final InvoiceWithMetadata invoiceWithMetadata, final InternalCallContext context) {
         final Map<UUID, List<SubscriptionNotification>> result = new HashMap<UUID, List<SubscriptionNotification>>();
 
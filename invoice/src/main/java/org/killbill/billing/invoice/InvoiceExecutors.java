@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
+
+public class InvoiceExecutors {
+
+    private static final long TIMEOUT_EXECUTOR_SEC = 3L;
+
+    private static final String TREE_THREAD_PREFIX = "invoice-tree-th-";
+    private static final String TREE_TH_GROUP_NAME = "invoice-tree-grp";
+
+    private final InvoiceConfig invoiceConfig;
+
+    private volatile ExecutorService treeExecutorService;
+
+    @Inject
+    public InvoiceExecutors(final InvoiceConfig invoiceConfig) {
+        this.invoiceConfig = invoiceConfig;
+    }
+
+    public void initialize() {
+        if (invoiceConfig.getTreeThreadNb() > 0) {
+            this.treeExecutorService = createTreeExecutorService(invoiceConfig.getTreeThreadNb());
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        if (treeExecutorService == null) {
+            return;
+        }
+        treeExecutorService.shutdownNow();
+        treeExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        treeExecutorService = null;
+    }
+
+    // Null if disabled or if the service hasn't been started, in which case the trees are built in the calling thread
+    @Nullable
+    public ExecutorService getTreeExecutorService() {
+        return treeExecutorService;
+    }
+
+    private ExecutorService createTreeExecutorService(final int nbThreads) {
+        return new WithProfilingThreadPoolExecutor(nbThreads,
+                                                   nbThreads,
+                                                   0L,
+                                                   TimeUnit.MILLISECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(),
+                                                   new ThreadFactory() {
+
+                                                       @Override
+                                                       public Thread newThread(final Runnable r) {
+                                                           final Thread th = new Thread(new ThreadGroup(TREE_TH_GROUP_NAME), r);
+                                                           th.setName(TREE_THREAD_PREFIX + th.getId());
+                                                           return th;
+                                                       }
+                                                   });
+    }
+}
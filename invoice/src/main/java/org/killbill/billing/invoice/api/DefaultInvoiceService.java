@@ -18,7 +18,9 @@
 
 package org.killbill.billing.invoice.api;
 
+import org.killbill.billing.invoice.InvoiceExecutors;
 import org.killbill.billing.invoice.notification.ParentInvoiceCommitmentNotifier;
+import org.killbill.billing.invoice.template.InvoiceTemplateCache;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.billing.invoice.InvoiceListener;
 import org.killbill.billing.invoice.InvoiceTagHandler;
@@ -38,15 +40,20 @@ public class DefaultInvoiceService implements InvoiceService {
     private final InvoiceTagHandler tagHandler;
     private final PersistentBus eventBus;
     private final ParentInvoiceCommitmentNotifier parentInvoiceNotifier;
+    private final InvoiceExecutors invoiceExecutors;
+    private final InvoiceTemplateCache invoiceTemplateCache;
 
     @Inject
     public DefaultInvoiceService(final InvoiceListener invoiceListener, final InvoiceTagHandler tagHandler, final PersistentBus eventBus,
-                                 final NextBillingDateNotifier dateNotifier, final ParentInvoiceCommitmentNotifier parentInvoiceNotifier) {
+                                 final NextBillingDateNotifier dateNotifier, final ParentInvoiceCommitmentNotifier parentInvoiceNotifier,
+                                 final InvoiceExecutors invoiceExecutors, final InvoiceTemplateCache invoiceTemplateCache) {
         this.invoiceListener = invoiceListener;
         this.tagHandler = tagHandler;
         this.eventBus = eventBus;
         this.dateNotifier = dateNotifier;
         this.parentInvoiceNotifier = parentInvoiceNotifier;
+        this.invoiceExecutors = invoiceExecutors;
+        this.invoiceTemplateCache = invoiceTemplateCache;
     }
 
     @Override
@@ -64,6 +71,8 @@ public class DefaultInvoiceService implements InvoiceService {
         }
         dateNotifier.initialize();
         parentInvoiceNotifier.initialize();
+        invoiceExecutors.initialize();
+        invoiceTemplateCache.initialize();
     }
 
     @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
@@ -82,5 +91,10 @@ public class DefaultInvoiceService implements InvoiceService {
         }
         dateNotifier.stop();
         parentInvoiceNotifier.stop();
+        try {
+            invoiceExecutors.stop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
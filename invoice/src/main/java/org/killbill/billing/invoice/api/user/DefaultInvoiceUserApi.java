@@ -40,6 +40,7 @@ import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.invoice.InvoiceDispatcher;
 import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications;
 import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications.SubscriptionNotification;
+import org.killbill.billing.invoice.InvoicePaginationUserApi;
 import org.killbill.billing.invoice.api.DryRunArguments;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
@@ -64,6 +65,8 @@ import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.entity.DefaultPagination;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationHelper.SourcePaginationBuilder;
 import org.killbill.billing.util.tag.ControlTagType;
@@ -80,11 +83,12 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationNoException;
 
-public class DefaultInvoiceUserApi implements InvoiceUserApi {
+public class DefaultInvoiceUserApi implements InvoiceUserApi, InvoicePaginationUserApi {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultInvoiceUserApi.class);
 
@@ -161,6 +165,21 @@ public class DefaultInvoiceUserApi implements InvoiceUserApi {
                                              );
     }
 
+    @Override
+    public PageTokenPagination<Invoice> getInvoices(@Nullable final String pageToken, final Long limit, final boolean withCount, final TenantContext context) {
+        // Invoices will be shallow, i.e. won't contain items nor payments
+        final PageTokenPagination<InvoiceModelDao> modelDaos = dao.getFromPageToken(pageToken, limit, withCount, internalCallContextFactory.createInternalTenantContextWithoutAccountRecordId(context));
+        return new DefaultPagination<Invoice>(modelDaos,
+                                              limit,
+                                              Iterators.<InvoiceModelDao, Invoice>transform(modelDaos.iterator(),
+                                                                                           new Function<InvoiceModelDao, Invoice>() {
+                                                                                               @Override
+                                                                                               public Invoice apply(final InvoiceModelDao invoiceModelDao) {
+                                                                                                   return new DefaultInvoice(invoiceModelDao);
+                                                                                               }
+                                                                                           }));
+    }
+
     @Override
     public Pagination<Invoice> searchInvoices(final String searchKey, final Long offset, final Long limit, final TenantContext context) {
         return getEntityPaginationNoException(limit,
@@ -26,9 +26,10 @@ import org.killbill.billing.util.config.definition.InvoiceConfig;
 import org.killbill.billing.util.config.definition.KillbillConfig;
 import org.killbill.billing.util.config.tenant.CacheConfig;
 import org.killbill.billing.util.config.tenant.MultiTenantConfigBase;
+import org.killbill.billing.util.config.tenant.PerTenantConfig;
 import org.skife.config.TimeSpan;
 
-public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements InvoiceConfig {
+public class MultiTenantInvoiceConfig extends MultiTenantConfigBase<MultiTenantInvoiceConfig.TenantOverrides> implements InvoiceConfig {
 
     private final InvoiceConfig staticConfig;
 
@@ -45,9 +46,9 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
 
     @Override
     public int getNumberOfMonthsInFuture(final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getNumberOfMonthsInFuture", tenantContext);
-        if (result != null) {
-            return Integer.parseInt(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.numberOfMonthsInFuture != null) {
+            return tenantConfig.numberOfMonthsInFuture;
         }
         return getNumberOfMonthsInFuture();
     }
@@ -59,9 +60,9 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
 
     @Override
     public boolean isSanitySafetyBoundEnabled(final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("isSanitySafetyBoundEnabled", tenantContext);
-        if (result != null) {
-            return Boolean.parseBoolean(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.sanitySafetyBoundEnabled != null) {
+            return tenantConfig.sanitySafetyBoundEnabled;
         }
         return isSanitySafetyBoundEnabled();
     }
@@ -73,9 +74,9 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
 
     @Override
     public int getMaxDailyNumberOfItemsSafetyBound(final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getMaxDailyNumberOfItemsSafetyBound", tenantContext);
-        if (result != null) {
-            return Integer.parseInt(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.maxDailyNumberOfItemsSafetyBound != null) {
+            return tenantConfig.maxDailyNumberOfItemsSafetyBound;
         }
         return getMaxDailyNumberOfItemsSafetyBound();
     }
@@ -87,9 +88,9 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
 
     @Override
     public TimeSpan getDryRunNotificationSchedule(final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getDryRunNotificationSchedule", tenantContext);
-        if (result != null) {
-            return new TimeSpan(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.dryRunNotificationSchedule != null) {
+            return tenantConfig.dryRunNotificationSchedule;
         }
         return getDryRunNotificationSchedule();
     }
@@ -101,13 +102,27 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
 
     @Override
     public int getMaxRawUsagePreviousPeriod(final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getMaxRawUsagePreviousPeriod", tenantContext);
-        if (result != null) {
-            return Integer.parseInt(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.maxRawUsagePreviousPeriod != null) {
+            return tenantConfig.maxRawUsagePreviousPeriod;
         }
         return getMaxRawUsagePreviousPeriod();
     }
 
+    @Override
+    public int getIncrementalGenerationWindowMonths() {
+        return staticConfig.getIncrementalGenerationWindowMonths();
+    }
+
+    @Override
+    public int getIncrementalGenerationWindowMonths(final InternalTenantContext tenantContext) {
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.incrementalGenerationWindowMonths != null) {
+            return tenantConfig.incrementalGenerationWindowMonths;
+        }
+        return getIncrementalGenerationWindowMonths();
+    }
+
     @Override
     public boolean isEmailNotificationsEnabled() {
         return staticConfig.isEmailNotificationsEnabled();
@@ -118,6 +133,11 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
         return staticConfig.getMaxGlobalLockRetries();
     }
 
+    @Override
+    public int getTreeThreadNb() {
+        return staticConfig.getTreeThreadNb();
+    }
+
     @Override
     public boolean isInvoicingSystemEnabled() {
         return staticConfig.isInvoicingSystemEnabled();
@@ -125,15 +145,54 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
 
     @Override
     public boolean isInvoicingSystemEnabled(final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("isInvoicingSystemEnabled", tenantContext);
-        if (result != null) {
-            return Boolean.parseBoolean(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.invoicingSystemEnabled != null) {
+            return tenantConfig.invoicingSystemEnabled;
         }
         return isInvoicingSystemEnabled();
     }
 
+    @Override
+    protected TenantOverrides compile(final PerTenantConfig perTenantConfig) {
+        return new TenantOverrides(getIntegerOverride(perTenantConfig, "getNumberOfMonthsInFuture"),
+                                   getBooleanOverride(perTenantConfig, "isSanitySafetyBoundEnabled"),
+                                   getIntegerOverride(perTenantConfig, "getMaxDailyNumberOfItemsSafetyBound"),
+                                   getTimeSpanOverride(perTenantConfig, "getDryRunNotificationSchedule"),
+                                   getIntegerOverride(perTenantConfig, "getMaxRawUsagePreviousPeriod"),
+                                   getIntegerOverride(perTenantConfig, "getIncrementalGenerationWindowMonths"),
+                                   getBooleanOverride(perTenantConfig, "isInvoicingSystemEnabled"));
+    }
+
     @Override
     protected Class<? extends KillbillConfig> getConfigClass() {
         return InvoiceConfig.class;
     }
+
+    // Null fields aren't overridden by the tenant
+    static final class TenantOverrides {
+
+        final Integer numberOfMonthsInFuture;
+        final Boolean sanitySafetyBoundEnabled;
+        final Integer maxDailyNumberOfItemsSafetyBound;
+        final TimeSpan dryRunNotificationSchedule;
+        final Integer maxRawUsagePreviousPeriod;
+        final Integer incrementalGenerationWindowMonths;
+        final Boolean invoicingSystemEnabled;
+
+        TenantOverrides(final Integer numberOfMonthsInFuture,
+                        final Boolean sanitySafetyBoundEnabled,
+                        final Integer maxDailyNumberOfItemsSafetyBound,
+                        final TimeSpan dryRunNotificationSchedule,
+                        final Integer maxRawUsagePreviousPeriod,
+                        final Integer incrementalGenerationWindowMonths,
+                        final Boolean invoicingSystemEnabled) {
+            this.numberOfMonthsInFuture = numberOfMonthsInFuture;
+            this.sanitySafetyBoundEnabled = sanitySafetyBoundEnabled;
+            this.maxDailyNumberOfItemsSafetyBound = maxDailyNumberOfItemsSafetyBound;
+            this.dryRunNotificationSchedule = dryRunNotificationSchedule;
+            this.maxRawUsagePreviousPeriod = maxRawUsagePreviousPeriod;
+            this.incrementalGenerationWindowMonths = incrementalGenerationWindowMonths;
+            this.invoicingSystemEnabled = invoicingSystemEnabled;
+        }
+    }
 }
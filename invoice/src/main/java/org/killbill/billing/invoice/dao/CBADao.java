@@ -18,22 +18,35 @@ package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import org.joda.time.LocalDate;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
+import org.killbill.billing.invoice.api.InvoiceStatus;
 import org.killbill.billing.invoice.model.CreditBalanceAdjInvoiceItem;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
+import org.killbill.billing.invoice.model.DefaultInvoice;
+import org.killbill.billing.invoice.model.DefaultUnpaidInvoicesSummary;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.entity.EntityPersistenceException;
+import org.killbill.billing.util.currency.KillBillMoney;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 
@@ -62,6 +75,252 @@ public class CBADao {
         return cba;
     }
 
+    public BigDecimal getAccountBalanceFromTransaction(final List<InvoiceModelDao> invoices) {
+        BigDecimal cba = BigDecimal.ZERO;
+        BigDecimal accountBalance = BigDecimal.ZERO;
+        for (final InvoiceModelDao cur : invoices) {
+            accountBalance = accountBalance.add((new DefaultInvoice(cur)).getBalance());
+            cba = cba.add(InvoiceModelDaoHelper.getCBAAmount(cur));
+        }
+        return accountBalance.subtract(cba);
+    }
+
+    // Return the materialized balance of the account, or null if it needs to be computed from the invoices.
+    // The materialized values are sums of amounts rounded per invoice, so rounding them is exact: it only restores the scale of the computed values.
+    public BigDecimal getMaterializedAccountBalanceFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        final AccountBalanceModelDao materializedBalance = getAccountBalanceRowFromTransaction(entitySqlDaoWrapperFactory, context);
+        if (materializedBalance == null) {
+            return null;
+        }
+
+        // The WRITTEN_OFF tags are the source of truth: the balance of written off invoices is removed here rather than when the tag is added,
+        // so the result is consistent with the tags as soon as their transaction commits
+        final InvoiceBalanceSqlDao invoiceBalanceSqlDao = entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class);
+        BigDecimal balance = materializedBalance.getBalance();
+        for (final UUID writtenOffInvoiceId : invoiceDaoHelper.getWrittenOffInvoiceIds(context)) {
+            final InvoiceBalanceModelDao invoiceBalance = invoiceBalanceSqlDao.getByInvoiceId(writtenOffInvoiceId.toString(), context);
+            if (invoiceBalance != null) {
+                balance = balance.subtract(invoiceBalance.getBalance());
+            }
+        }
+        return KillBillMoney.of(balance, materializedBalance.getCurrency());
+    }
+
+    // Return the materialized CBA of the account, or null if it needs to be computed from the invoices
+    public BigDecimal getMaterializedAccountCBAFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        final AccountBalanceModelDao materializedBalance = getAccountBalanceRowFromTransaction(entitySqlDaoWrapperFactory, context);
+        return materializedBalance == null ? null : KillBillMoney.of(materializedBalance.getCba(), materializedBalance.getCurrency());
+    }
+
+    /**
+     * Return the summary of the unpaid invoices of the account, computed from their invoice_balances rows (one indexed query, no items or payments).
+     * Like the account balance, the WRITTEN_OFF tags are read here, so the summary is consistent with them as soon as their transaction commits.
+     * It isn't kept on the account row, since it depends on upToDate and on the tags.
+     *
+     * @param upToDate                   the date up to which invoices are considered (see InvoiceDaoHelper#getUnpaidInvoicesByAccountFromTransaction)
+     * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
+     * @param context                    the tenant callcontext
+     * @return the summary, or null if it needs to be computed from the invoices
+     */
+    public UnpaidInvoicesSummary getUnpaidInvoicesSummaryFromInvoiceBalancesFromTransaction(final LocalDate upToDate, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        final AccountBalanceModelDao materializedBalance = getAccountBalanceRowFromTransaction(entitySqlDaoWrapperFactory, context);
+        if (materializedBalance == null) {
+            return null;
+        }
+
+        // Same aggregates as the ones overdue computes from InvoiceInternalApi#getUnpaidInvoicesByAccountId
+        final List<UUID> writtenOffInvoiceIds = invoiceDaoHelper.getWrittenOffInvoiceIds(context);
+        int unpaidInvoiceCount = 0;
+        BigDecimal unpaidBalance = BigDecimal.ZERO;
+        InvoiceBalanceModelDao earliestUnpaidInvoice = null;
+        for (final InvoiceBalanceModelDao unpaidInvoice : entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class).getUnpaidByAccountRecordId(context)) {
+            if (writtenOffInvoiceIds.contains(unpaidInvoice.getInvoiceId()) ||
+                (unpaidInvoice.getTargetDate() != null && unpaidInvoice.getTargetDate().isAfter(upToDate))) {
+                continue;
+            }
+            unpaidInvoiceCount++;
+            unpaidBalance = unpaidBalance.add(unpaidInvoice.getBalance());
+            // Rows are ordered by invoice date
+            if (earliestUnpaidInvoice == null) {
+                earliestUnpaidInvoice = unpaidInvoice;
+            }
+        }
+
+        return new DefaultUnpaidInvoicesSummary(unpaidInvoiceCount,
+                                                KillBillMoney.of(unpaidBalance, materializedBalance.getCurrency()),
+                                                earliestUnpaidInvoice == null ? null : earliestUnpaidInvoice.getInvoiceId(),
+                                                earliestUnpaidInvoice == null ? null : earliestUnpaidInvoice.getInvoiceDate());
+    }
+
+    public void deleteMaterializedAccountBalanceFromTransaction(final Long accountRecordId, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class).deleteByAccountRecordId(accountRecordId, context);
+        entitySqlDaoWrapperFactory.getHandle().attach(AccountBalanceSqlDao.class).deleteByAccountRecordId(accountRecordId, context);
+    }
+
+    /**
+     * Apply the changes made to the given invoices to the materialized rows of the account: only these invoices are reloaded.
+     * Needs to be called in each transaction modifying the invoices, items or payments of the account, once all the changes have been made.
+     *
+     * @param modifiedInvoiceIds         the invoices whose items or payments were modified in the transaction
+     * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
+     * @param context                    the call callcontext
+     */
+    public void refreshMaterializedAccountBalanceFromTransaction(final Iterable<UUID> modifiedInvoiceIds, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        final AccountBalanceModelDao materializedBalance = getAccountBalanceRowFromTransaction(entitySqlDaoWrapperFactory, context);
+        final InvoiceSqlDao invoiceSqlDao = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class);
+
+        final List<InvoiceModelDao> modifiedInvoices = new LinkedList<InvoiceModelDao>();
+        for (final UUID invoiceId : ImmutableSet.<UUID>copyOf(modifiedInvoiceIds)) {
+            if (invoiceSqlDao.getParentInvoiceByChildInvoiceId(invoiceId.toString(), context) != null) {
+                if (materializedBalance != null) {
+                    deleteMaterializedAccountBalanceFromTransaction(context.getAccountRecordId(), entitySqlDaoWrapperFactory, context);
+                }
+                return;
+            }
+
+            final InvoiceModelDao invoice = invoiceDaoHelper.getInvoiceWithItemsAndPaymentsFromTransaction(invoiceId, entitySqlDaoWrapperFactory, context);
+            // Shell invoices (see DefaultInvoiceDao#createInvoice) are never persisted
+            if (invoice != null) {
+                modifiedInvoices.add(invoice);
+            }
+        }
+
+        if (materializedBalance == null) {
+            // Nothing to apply the changes to (first write on the account, or rows dropped by a migration): build the rows from the whole history, once
+            rebuildMaterializedAccountBalanceFromTransaction(invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context), null, entitySqlDaoWrapperFactory, context);
+            return;
+        }
+
+        final InvoiceBalanceSqlDao invoiceBalanceSqlDao = entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class);
+        BigDecimal balance = materializedBalance.getBalance();
+        BigDecimal cba = materializedBalance.getCba();
+        for (final InvoiceModelDao invoice : modifiedInvoices) {
+            final BigDecimal invoiceBalance = getMaterializedInvoiceBalance(invoice);
+            final BigDecimal invoiceCBA = InvoiceModelDaoHelper.getCBAAmount(invoice);
+
+            final InvoiceBalanceModelDao materializedInvoiceBalance = invoiceBalanceSqlDao.getByInvoiceId(invoice.getId().toString(), context);
+            if (materializedInvoiceBalance == null) {
+                invoiceBalanceSqlDao.create(new InvoiceBalanceModelDao(invoice.getId(), invoice.getInvoiceDate(), invoice.getTargetDate(), invoiceBalance, invoiceCBA,
+                                                                       context.getCreatedDate(), context.getAccountRecordId(), context.getTenantRecordId()));
+                balance = balance.add(invoiceBalance).subtract(invoiceCBA);
+                cba = cba.add(invoiceCBA);
+            } else {
+                balance = balance.add(invoiceBalance.subtract(materializedInvoiceBalance.getBalance()))
+                                 .subtract(invoiceCBA.subtract(materializedInvoiceBalance.getCba()));
+                cba = cba.add(invoiceCBA.subtract(materializedInvoiceBalance.getCba()));
+
+                materializedInvoiceBalance.setBalance(invoiceBalance);
+                materializedInvoiceBalance.setCba(invoiceCBA);
+                materializedInvoiceBalance.setUpdatedDate(context.getCreatedDate());
+                invoiceBalanceSqlDao.update(materializedInvoiceBalance);
+            }
+        }
+
+        materializedBalance.setBalance(balance);
+        materializedBalance.setCba(cba);
+        materializedBalance.setUpdatedDate(context.getCreatedDate());
+        entitySqlDaoWrapperFactory.getHandle().attach(AccountBalanceSqlDao.class).update(materializedBalance);
+    }
+
+    /**
+     * Compare the materialized rows with the ones computed from the invoices of the account.
+     *
+     * @param rebuild                    whether to overwrite the materialized values if they don't match
+     * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
+     * @param context                    the call callcontext
+     * @return true if the materialized values were up-to-date
+     */
+    public boolean verifyMaterializedAccountBalanceFromTransaction(final boolean rebuild, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
+        final AccountBalanceModelDao materializedBalance = getAccountBalanceRowFromTransaction(entitySqlDaoWrapperFactory, context);
+        final List<InvoiceBalanceModelDao> materializedInvoiceBalances = entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class).getByAccountRecordId(context);
+
+        final boolean upToDate;
+        if (!shouldMaterializeAccountBalance(invoices)) {
+            upToDate = materializedBalance == null && materializedInvoiceBalances.isEmpty();
+        } else {
+            BigDecimal balance = BigDecimal.ZERO;
+            for (final InvoiceModelDao invoice : invoices) {
+                balance = balance.add(getMaterializedInvoiceBalance(invoice));
+            }
+            final BigDecimal cba = getAccountCBAFromTransaction(invoices);
+            upToDate = materializedBalance != null &&
+                       materializedBalance.getBalance().compareTo(balance.subtract(cba)) == 0 &&
+                       materializedBalance.getCba().compareTo(cba) == 0 &&
+                       hasSameInvoiceBalances(materializedInvoiceBalances, invoices);
+        }
+
+        if (!upToDate && rebuild) {
+            rebuildMaterializedAccountBalanceFromTransaction(invoices, materializedBalance, entitySqlDaoWrapperFactory, context);
+        }
+        return upToDate;
+    }
+
+    private AccountBalanceModelDao getAccountBalanceRowFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        return entitySqlDaoWrapperFactory.getHandle().attach(AccountBalanceSqlDao.class).getByAccountRecordId(context);
+    }
+
+    private void rebuildMaterializedAccountBalanceFromTransaction(final List<InvoiceModelDao> invoices, @Nullable final AccountBalanceModelDao materializedBalance,
+                                                                  final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        deleteMaterializedAccountBalanceFromTransaction(context.getAccountRecordId(), entitySqlDaoWrapperFactory, context);
+        if (!shouldMaterializeAccountBalance(invoices)) {
+            return;
+        }
+
+        final InvoiceBalanceSqlDao invoiceBalanceSqlDao = entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class);
+        BigDecimal balance = BigDecimal.ZERO;
+        BigDecimal cba = BigDecimal.ZERO;
+        for (final InvoiceModelDao invoice : invoices) {
+            final BigDecimal invoiceBalance = getMaterializedInvoiceBalance(invoice);
+            final BigDecimal invoiceCBA = InvoiceModelDaoHelper.getCBAAmount(invoice);
+            invoiceBalanceSqlDao.create(new InvoiceBalanceModelDao(invoice.getId(), invoice.getInvoiceDate(), invoice.getTargetDate(), invoiceBalance, invoiceCBA,
+                                                                   context.getCreatedDate(), context.getAccountRecordId(), context.getTenantRecordId()));
+            balance = balance.add(invoiceBalance).subtract(invoiceCBA);
+            cba = cba.add(invoiceCBA);
+        }
+
+        final AccountBalanceModelDao accountBalance = new AccountBalanceModelDao(invoices.get(0).getAccountId(), balance, cba, invoices.get(0).getCurrency(), context.getCreatedDate(), context.getAccountRecordId(), context.getTenantRecordId());
+        if (materializedBalance != null) {
+            accountBalance.setCreatedDate(materializedBalance.getCreatedDate());
+        }
+        entitySqlDaoWrapperFactory.getHandle().attach(AccountBalanceSqlDao.class).create(accountBalance);
+    }
+
+    // Same balance as DefaultInvoice#getBalance (accounts with child invoices aren't materialized), except for the WRITTEN_OFF tag
+    private BigDecimal getMaterializedInvoiceBalance(final InvoiceModelDao invoice) {
+        return InvoiceStatus.DRAFT.equals(invoice.getStatus()) ? BigDecimal.ZERO : InvoiceModelDaoHelper.getBalanceIgnoringWriteOff(invoice);
+    }
+
+    private boolean hasSameInvoiceBalances(final List<InvoiceBalanceModelDao> materializedInvoiceBalances, final List<InvoiceModelDao> invoices) {
+        if (materializedInvoiceBalances.size() != invoices.size()) {
+            return false;
+        }
+
+        final Map<UUID, InvoiceBalanceModelDao> materializedInvoiceBalancesById = new HashMap<UUID, InvoiceBalanceModelDao>();
+        for (final InvoiceBalanceModelDao materializedInvoiceBalance : materializedInvoiceBalances) {
+            materializedInvoiceBalancesById.put(materializedInvoiceBalance.getInvoiceId(), materializedInvoiceBalance);
+        }
+        for (final InvoiceModelDao invoice : invoices) {
+            final InvoiceBalanceModelDao materializedInvoiceBalance = materializedInvoiceBalancesById.get(invoice.getId());
+            if (materializedInvoiceBalance == null ||
+                materializedInvoiceBalance.getBalance().compareTo(getMaterializedInvoiceBalance(invoice)) != 0 ||
+                materializedInvoiceBalance.getCba().compareTo(InvoiceModelDaoHelper.getCBAAmount(invoice)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The balance of a child invoice depends on the one of its parent invoice, which can change without any write on the child account
+    private boolean shouldMaterializeAccountBalance(final List<InvoiceModelDao> invoices) {
+        return !invoices.isEmpty() && !Iterables.any(invoices, new Predicate<InvoiceModelDao>() {
+            @Override
+            public boolean apply(final InvoiceModelDao invoice) {
+                return invoice.getParentInvoice() != null;
+            }
+        });
+    }
+
     // We expect a clean up to date invoice, with all the items except the cba, that we will compute in that method
     public InvoiceItemModelDao computeCBAComplexity(final InvoiceModelDao invoice, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
 
@@ -123,23 +382,35 @@ public class CBADao {
 
     // We expect a clean up to date invoice, with all the items except the CBA, that we will compute in that method
     public void addCBAComplexityFromTransaction(final InvoiceModelDao invoice, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
+        // The items of a shell invoice belong to other (existing) invoices
+        final Set<UUID> modifiedInvoiceIds = new HashSet<UUID>();
+        modifiedInvoiceIds.add(invoice.getId());
+        for (final InvoiceItemModelDao invoiceItem : invoice.getInvoiceItems()) {
+            modifiedInvoiceIds.add(invoiceItem.getInvoiceId());
+        }
+
         final InvoiceItemModelDao cbaItem = computeCBAComplexity(invoice, entitySqlDaoWrapperFactory, context);
         if (cbaItem != null) {
             final InvoiceItemSqlDao transInvoiceItemDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
             transInvoiceItemDao.create(cbaItem, context);
         }
         List<InvoiceModelDao> invoiceItemModelDaos = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-        useExistingCBAFromTransaction(invoiceItemModelDaos, entitySqlDaoWrapperFactory, context);
+        modifiedInvoiceIds.addAll(useExistingCBAFromTransaction(invoiceItemModelDaos, entitySqlDaoWrapperFactory, context));
+        refreshMaterializedAccountBalanceFromTransaction(modifiedInvoiceIds, entitySqlDaoWrapperFactory, context);
     }
 
     public void addCBAComplexityFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
 
+        final Set<UUID> modifiedInvoiceIds = new HashSet<UUID>();
         List<InvoiceModelDao> invoiceItemModelDaos = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
         for (InvoiceModelDao cur : invoiceItemModelDaos) {
-            addCBAIfNeeded(entitySqlDaoWrapperFactory, cur, context);
+            if (addCBAIfNeeded(entitySqlDaoWrapperFactory, cur, context)) {
+                modifiedInvoiceIds.add(cur.getId());
+            }
         }
         invoiceItemModelDaos = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-        useExistingCBAFromTransaction(invoiceItemModelDaos, entitySqlDaoWrapperFactory, context);
+        modifiedInvoiceIds.addAll(useExistingCBAFromTransaction(invoiceItemModelDaos, entitySqlDaoWrapperFactory, context));
+        refreshMaterializedAccountBalanceFromTransaction(modifiedInvoiceIds, entitySqlDaoWrapperFactory, context);
     }
 
     /**
@@ -148,8 +419,9 @@ public class CBADao {
      * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
      * @param invoice                    the invoice to adjust
      * @param context                    the call callcontext
+     * @return true if a CBA item was added
      */
-    private void addCBAIfNeeded(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+    private boolean addCBAIfNeeded(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
                                 final InvoiceModelDao invoice,
                                 final InternalCallContext context) throws EntityPersistenceException {
 
@@ -159,15 +431,18 @@ public class CBADao {
             final InvoiceItemSqlDao transInvoiceItemDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
             final InvoiceItemModelDao cbaAdjItem = new InvoiceItemModelDao(new CreditBalanceAdjInvoiceItem(invoice.getId(), invoice.getAccountId(), context.getCreatedDate().toLocalDate(), balance.negate(), invoice.getCurrency()));
             transInvoiceItemDao.create(cbaAdjItem, context);
+            return true;
         }
+        return false;
     }
 
 
-    private void useExistingCBAFromTransaction(final List<InvoiceModelDao> invoices, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws InvoiceApiException, EntityPersistenceException {
+    // Return the invoices the existing CBA was applied to
+    private List<UUID> useExistingCBAFromTransaction(final List<InvoiceModelDao> invoices, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws InvoiceApiException, EntityPersistenceException {
 
         final BigDecimal accountCBA = getAccountCBAFromTransaction(invoices);
         if (accountCBA.compareTo(BigDecimal.ZERO) <= 0) {
-            return;
+            return ImmutableList.<UUID>of();
         }
 
         final List<InvoiceModelDao> unpaidInvoices = invoiceDaoHelper.getUnpaidInvoicesByAccountFromTransaction(invoices, null);
@@ -179,6 +454,7 @@ public class CBADao {
             }
         }).immutableSortedCopy(unpaidInvoices);
 
+        final List<UUID> modifiedInvoiceIds = new LinkedList<UUID>();
         BigDecimal remainingAccountCBA = accountCBA;
         for (InvoiceModelDao cur : orderedUnpaidInvoices) {
             final BigDecimal curInvoiceBalance = InvoiceModelDaoHelper.getBalance(cur);
@@ -189,11 +465,13 @@ public class CBADao {
 
             final InvoiceItemSqlDao transInvoiceItemDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
             transInvoiceItemDao.create(cbaAdjItem, context);
+            modifiedInvoiceIds.add(cur.getId());
 
             if (remainingAccountCBA.compareTo(BigDecimal.ZERO) <= 0) {
                 break;
             }
         }
+        return modifiedInvoiceIds;
     }
 
 }
@@ -20,6 +20,7 @@ package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -47,6 +48,7 @@ import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
 import org.killbill.billing.invoice.api.InvoiceStatus;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceAdjustmentEvent;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceCreationEvent;
 import org.killbill.billing.invoice.model.CreditAdjInvoiceItem;
@@ -70,6 +72,8 @@ import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
+import org.killbill.commons.jdbi.mapper.LowerToCamelBeanMapperFactory;
+import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.IDBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -136,6 +140,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.nonEntityDao = nonEntityDao;
         this.parentInvoiceCommitmentPoster = parentInvoiceCommitmentPoster;
+        ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(AccountBalanceModelDao.class));
+        ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(InvoiceBalanceModelDao.class));
     }
 
     @Override
@@ -188,6 +194,22 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         });
     }
 
+    @Override
+    public List<InvoiceModelDao> getInvoicesByAccountOverlappingDate(final LocalDate cutoffDate, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<InvoiceModelDao>>() {
+            @Override
+            public List<InvoiceModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final InvoiceSqlDao invoiceSqlDao = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class);
+                final List<InvoiceModelDao> invoices = INVOICE_MODEL_DAO_ORDERING.sortedCopy(invoiceSqlDao.getInvoicesByAccountOverlappingDate(cutoffDate.toDate(), context));
+
+                final InvoiceItemSqlDao invoiceItemSqlDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
+                invoiceDaoHelper.populateInvoiceItems(invoices, invoiceItemSqlDao.getInvoiceItemsByAccountOverlappingDate(cutoffDate.toDate(), context));
+
+                return invoices;
+            }
+        });
+    }
+
     private List<InvoiceModelDao> getAllNonMigratedInvoicesByAccountAfterDate(final InvoiceSqlDao invoiceSqlDao, final LocalDate fromDate, final InternalTenantContext context) {
         return ImmutableList.<InvoiceModelDao>copyOf(INVOICE_MODEL_DAO_ORDERING.sortedCopy(Iterables.<InvoiceModelDao>filter(invoiceSqlDao.getByAccountRecordId(context),
                                                                                                                              new Predicate<InvoiceModelDao>() {
@@ -274,9 +296,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
                     // Create the invoice items
                     final InvoiceItemSqlDao transInvoiceItemSqlDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
-                    for (final InvoiceItemModelDao invoiceItemModelDao : invoiceItems) {
-                        createInvoiceItemFromTransaction(transInvoiceItemSqlDao, invoiceItemModelDao, context);
-                    }
+                    createInvoiceItemsFromTransaction(transInvoiceItemSqlDao, invoiceItems, context);
                     cbaDao.addCBAComplexityFromTransaction(invoice, entitySqlDaoWrapperFactory, context);
                     if (InvoiceStatus.COMMITTED.equals(invoice.getStatus())) {
                         notifyOfFutureBillingEvents(entitySqlDaoWrapperFactory, invoice.getAccountId(), callbackDateTimePerSubscriptions, context);
@@ -311,12 +331,20 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     }
 
                     // Create the invoice items if needed
+                    final Map<UUID, InvoiceItemModelDao> existingInvoiceItems = getInvoiceItemsFromTransaction(transInvoiceItemSqlDao, invoiceModelDao.getInvoiceItems(), context);
+                    final List<InvoiceItemModelDao> invoiceItemsToCreate = new LinkedList<InvoiceItemModelDao>();
                     for (final InvoiceItemModelDao invoiceItemModelDao : invoiceModelDao.getInvoiceItems()) {
-                        if (transInvoiceItemSqlDao.getById(invoiceItemModelDao.getId().toString(), context) == null) {
-                            createInvoiceItemFromTransaction(transInvoiceItemSqlDao, invoiceItemModelDao, context);
-                            createdInvoiceItems.add(transInvoiceItemSqlDao.getById(invoiceItemModelDao.getId().toString(), context));
-                            madeChanges = true;
+                        if (existingInvoiceItems.get(invoiceItemModelDao.getId()) == null) {
+                            invoiceItemsToCreate.add(invoiceItemModelDao);
+                        }
+                    }
+                    if (!invoiceItemsToCreate.isEmpty()) {
+                        createInvoiceItemsFromTransaction(transInvoiceItemSqlDao, invoiceItemsToCreate, context);
+                        final Map<UUID, InvoiceItemModelDao> createdInvoiceItemsById = getInvoiceItemsFromTransaction(transInvoiceItemSqlDao, invoiceItemsToCreate, context);
+                        for (final InvoiceItemModelDao invoiceItemModelDao : invoiceItemsToCreate) {
+                            createdInvoiceItems.add(createdInvoiceItemsById.get(invoiceItemModelDao.getId()));
                         }
+                        madeChanges = true;
                     }
 
                     if (madeChanges) {
@@ -392,15 +420,13 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<BigDecimal>() {
             @Override
             public BigDecimal inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
-                BigDecimal cba = BigDecimal.ZERO;
+                final BigDecimal materializedBalance = cbaDao.getMaterializedAccountBalanceFromTransaction(entitySqlDaoWrapperFactory, context);
+                if (materializedBalance != null) {
+                    return materializedBalance;
+                }
 
-                BigDecimal accountBalance = BigDecimal.ZERO;
                 final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-                for (final InvoiceModelDao cur : invoices) {
-                    accountBalance = accountBalance.add((new DefaultInvoice(cur)).getBalance());
-                    cba = cba.add(InvoiceModelDaoHelper.getCBAAmount(cur));
-                }
-                return accountBalance.subtract(cba);
+                return cbaDao.getAccountBalanceFromTransaction(invoices);
             }
         });
     }
@@ -410,11 +436,25 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<BigDecimal>() {
             @Override
             public BigDecimal inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final BigDecimal materializedCBA = cbaDao.getMaterializedAccountCBAFromTransaction(entitySqlDaoWrapperFactory, context);
+                if (materializedCBA != null) {
+                    return materializedCBA;
+                }
                 return cbaDao.getAccountCBAFromTransaction(accountId, entitySqlDaoWrapperFactory, context);
             }
         });
     }
 
+    @Override
+    public boolean rebuildAccountBalance(final boolean dryRun, final InternalCallContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Boolean>() {
+            @Override
+            public Boolean inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return cbaDao.verifyMaterializedAccountBalanceFromTransaction(!dryRun, entitySqlDaoWrapperFactory, context);
+            }
+        });
+    }
+
     @Override
     public List<InvoiceModelDao> getUnpaidInvoicesByAccountId(final UUID accountId, @Nullable final LocalDate upToDate, final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<InvoiceModelDao>>() {
@@ -425,6 +465,16 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         });
     }
 
+    @Override
+    public UnpaidInvoicesSummary getUnpaidInvoicesSummary(final LocalDate upToDate, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<UnpaidInvoicesSummary>() {
+            @Override
+            public UnpaidInvoicesSummary inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return cbaDao.getUnpaidInvoicesSummaryFromInvoiceBalancesFromTransaction(upToDate, entitySqlDaoWrapperFactory, context);
+            }
+        });
+    }
+
     @Override
     public UUID getInvoiceIdByPaymentId(final UUID paymentId, final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<UUID>() {
@@ -775,6 +825,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                     invoicePayment.getSuccess(),
                                                     context);
                     }
+                    cbaDao.refreshMaterializedAccountBalanceFromTransaction(ImmutableList.<UUID>of(invoicePayment.getInvoiceId()), entitySqlDaoWrapperFactory, context);
                 }
 
                 if (completion) {
@@ -826,6 +877,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                null, null, null, null, null, null, context.getCreatedDate().toLocalDate(),
                                                                                null, cbaItem.getAmount().negate(), null, cbaItem.getCurrency(), cbaItem.getId());
                 createInvoiceItemFromTransaction(invoiceItemSqlDao, cbaAdjItem, context);
+                final List<UUID> modifiedInvoiceIds = new LinkedList<UUID>();
+                modifiedInvoiceIds.add(invoice.getId());
 
                 // Verify the final invoice balance is not negative
                 invoiceDaoHelper.populateChildren(invoice, entitySqlDaoWrapperFactory, context);
@@ -883,12 +936,14 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                            context.getCreatedDate().toLocalDate(), null,
                                                                                            positiveCBAAdjItemAmount, null, cbaItem.getCurrency(), cbaItem.getId());
                         createInvoiceItemFromTransaction(invoiceItemSqlDao, nextCBAAdjItem, context);
+                        modifiedInvoiceIds.add(invoiceFollowing.getId());
                         if (positiveRemainderToAdjust.compareTo(BigDecimal.ZERO) == 0) {
                             break;
                         }
                     }
                 }
 
+                cbaDao.refreshMaterializedAccountBalanceFromTransaction(modifiedInvoiceIds, entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
@@ -985,6 +1040,41 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         invoiceItemSqlDao.create(invoiceItemModelDao, context);
     }
 
+    private void createInvoiceItemsFromTransaction(final InvoiceItemSqlDao invoiceItemSqlDao, final List<InvoiceItemModelDao> invoiceItemModelDaos, final InternalCallContext context) throws InvoiceApiException {
+        if (invoiceItemModelDaos.isEmpty()) {
+            return;
+        }
+
+        invoiceItemSqlDao.batchCreate(invoiceItemModelDaos, context);
+
+        // Item adjustments can point to items from the same batch, so they are validated once the whole batch has been inserted
+        // (a failed validation rolls back the transaction)
+        for (final InvoiceItemModelDao invoiceItemModelDao : invoiceItemModelDaos) {
+            if (InvoiceItemType.ITEM_ADJ.equals(invoiceItemModelDao.getType())) {
+                validateInvoiceItemToBeAdjusted(invoiceItemSqlDao, invoiceItemModelDao, context);
+            }
+        }
+    }
+
+    private Map<UUID, InvoiceItemModelDao> getInvoiceItemsFromTransaction(final InvoiceItemSqlDao invoiceItemSqlDao, final Iterable<InvoiceItemModelDao> invoiceItemModelDaos, final InternalTenantContext context) {
+        final List<String> invoiceItemIds = ImmutableList.<String>copyOf(Iterables.<InvoiceItemModelDao, String>transform(invoiceItemModelDaos,
+                                                                                                                        new Function<InvoiceItemModelDao, String>() {
+                                                                                                                            @Override
+                                                                                                                            public String apply(final InvoiceItemModelDao input) {
+                                                                                                                                return input.getId().toString();
+                                                                                                                            }
+                                                                                                                        }));
+        final Map<UUID, InvoiceItemModelDao> invoiceItemsById = new HashMap<UUID, InvoiceItemModelDao>();
+        if (invoiceItemIds.isEmpty()) {
+            return invoiceItemsById;
+        }
+
+        for (final InvoiceItemModelDao invoiceItemModelDao : invoiceItemSqlDao.getByIds(invoiceItemIds, context)) {
+            invoiceItemsById.put(invoiceItemModelDao.getId(), invoiceItemModelDao);
+        }
+        return invoiceItemsById;
+    }
+
     private void validateInvoiceItemToBeAdjusted(final InvoiceItemSqlDao invoiceItemSqlDao, final InvoiceItemModelDao invoiceItemModelDao, final InternalCallContext context) throws InvoiceApiException {
         Preconditions.checkNotNull(invoiceItemModelDao.getLinkedItemId(), "LinkedItemId cannot be null for ITEM_ADJ item: " + invoiceItemModelDao);
         // Note: this assumes the linked item has already been created in or prior to the transaction, which should almost always be the case
@@ -1015,6 +1105,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 }
 
                 transactional.updateStatus(invoiceId.toString(), newStatus.toString(), context);
+                cbaDao.refreshMaterializedAccountBalanceFromTransaction(ImmutableList.<UUID>of(invoiceId), entitySqlDaoWrapperFactory, context);
 
                 if (InvoiceStatus.COMMITTED.equals(newStatus)) {
                     // notify invoice creation event
@@ -1052,6 +1143,12 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
             public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
                 final InvoiceParentChildrenSqlDao transactional = entitySqlDaoWrapperFactory.become(InvoiceParentChildrenSqlDao.class);
                 transactional.create(invoiceRelation, context);
+
+                // The balance of the child account now depends on the parent invoice, so it can't be materialized anymore
+                final InvoiceModelDao childInvoice = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class).getById(invoiceRelation.getChildInvoiceId().toString(), context);
+                if (childInvoice != null) {
+                    cbaDao.deleteMaterializedAccountBalanceFromTransaction(childInvoice.getAccountRecordId(), entitySqlDaoWrapperFactory, context);
+                }
                 return null;
             }
         });
@@ -1098,6 +1195,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 }
 
                 transactional.updateAmount(invoiceItemId.toString(), amount, context);
+                cbaDao.refreshMaterializedAccountBalanceFromTransaction(ImmutableList.<UUID>of(invoiceItem.getInvoiceId()), entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
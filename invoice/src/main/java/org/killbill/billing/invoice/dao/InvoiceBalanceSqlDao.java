@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.invoice.dao;
+
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
+import org.killbill.commons.jdbi.binder.SmartBindBean;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+
+@EntitySqlDaoStringTemplate
+public interface InvoiceBalanceSqlDao {
+
+    @SqlQuery
+    public InvoiceBalanceModelDao getByInvoiceId(@Bind("invoiceId") final String invoiceId,
+                                                 @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<InvoiceBalanceModelDao> getByAccountRecordId(@BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<InvoiceBalanceModelDao> getUnpaidByAccountRecordId(@BindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public void create(@SmartBindBean final InvoiceBalanceModelDao invoiceBalance);
+
+    @SqlUpdate
+    public void update(@SmartBindBean final InvoiceBalanceModelDao invoiceBalance);
+
+    @SqlUpdate
+    public void deleteByAccountRecordId(@Bind("targetAccountRecordId") final Long accountRecordId,
+                                        @BindBean final InternalTenantContext context);
+}
@@ -34,6 +34,7 @@ import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceStatus;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.EntityDao;
 
@@ -56,6 +57,16 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
 
     List<InvoiceModelDao> getInvoicesBySubscription(UUID subscriptionId, InternalTenantContext context);
 
+    /**
+     * Retrieve the non migrated invoices of the account which have a target date on or after the cutoff date, or which contain items
+     * whose service period ends after it. Only those items (and the adjustments linked to them) are populated, payments are not.
+     *
+     * @param cutoffDate the date prior to which the invoice history is ignored
+     * @param context    the tenant context
+     * @return the partially populated invoices, used for incremental invoice generation
+     */
+    List<InvoiceModelDao> getInvoicesByAccountOverlappingDate(LocalDate cutoffDate, InternalTenantContext context);
+
     Pagination<InvoiceModelDao> searchInvoices(String searchKey, Long offset, Long limit, InternalTenantContext context);
 
     UUID getInvoiceIdByPaymentId(UUID paymentId, InternalTenantContext context);
@@ -68,8 +79,26 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
 
     BigDecimal getAccountCBA(UUID accountId, InternalTenantContext context);
 
+    /**
+     * Verify the materialized balance and CBA of the account against its invoices, and rebuild them if needed.
+     *
+     * @param dryRun  if true, only verify the materialized values
+     * @param context the call context
+     * @return true if the materialized values were up-to-date
+     */
+    boolean rebuildAccountBalance(boolean dryRun, InternalCallContext context);
+
     List<InvoiceModelDao> getUnpaidInvoicesByAccountId(UUID accountId, @Nullable LocalDate upToDate, InternalTenantContext context);
 
+    /**
+     * Retrieve the materialized summary of the unpaid invoices of the account.
+     *
+     * @param upToDate the date up to which invoices are considered
+     * @param context  the tenant context
+     * @return the summary, or null if it isn't materialized and the unpaid invoices need to be retrieved instead
+     */
+    UnpaidInvoicesSummary getUnpaidInvoicesSummary(LocalDate upToDate, InternalTenantContext context);
+
     // Include migrated invoices
     List<InvoiceModelDao> getAllInvoicesByAccount(InternalTenantContext context);
 
@@ -47,6 +47,7 @@ import org.killbill.billing.util.tag.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
@@ -243,6 +244,35 @@ public class InvoiceDaoHelper {
         return invoices;
     }
 
+    // Only the items and payments of that invoice are loaded: neither its WRITTEN_OFF tag nor its parent invoice are looked up
+    public InvoiceModelDao getInvoiceWithItemsAndPaymentsFromTransaction(final UUID invoiceId, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        final InvoiceModelDao invoice = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class).getById(invoiceId.toString(), context);
+        if (invoice == null) {
+            return null;
+        }
+
+        invoice.addInvoiceItems(entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class).getInvoiceItemsByInvoice(invoiceId.toString(), context));
+        // Same payments as the ones retrieved for the whole account (see InvoicePaymentSqlDao#getByAccountRecordId)
+        final List<InvoicePaymentModelDao> invoicePayments = entitySqlDaoWrapperFactory.become(InvoicePaymentSqlDao.class).getAllPaymentsForInvoiceIncludedInit(invoiceId.toString(), context);
+        invoice.addPayments(ImmutableList.<InvoicePaymentModelDao>copyOf(Iterables.filter(invoicePayments, new Predicate<InvoicePaymentModelDao>() {
+            @Override
+            public boolean apply(final InvoicePaymentModelDao input) {
+                return input.getPaymentId() != null;
+            }
+        })));
+        return invoice;
+    }
+
+    public List<UUID> getWrittenOffInvoiceIds(final InternalTenantContext context) {
+        final List<Tag> tags = tagInternalApi.getTagsForAccountType(ObjectType.INVOICE, false, context);
+        return ImmutableList.<UUID>copyOf(Iterables.transform(filterForWrittenOff(tags), new Function<Tag, UUID>() {
+            @Override
+            public UUID apply(final Tag input) {
+                return input.getObjectId();
+            }
+        }));
+    }
+
     public BigDecimal getRemainingAmountPaidFromTransaction(final UUID invoicePaymentId, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
         final BigDecimal amount = entitySqlDaoWrapperFactory.become(InvoicePaymentSqlDao.class).getRemainingAmountPaid(invoicePaymentId.toString(), context);
         return amount == null ? BigDecimal.ZERO : amount;
@@ -251,7 +281,10 @@ public class InvoiceDaoHelper {
     private void getInvoiceItemsWithinTransaction(final Iterable<InvoiceModelDao> invoices, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
         final InvoiceItemSqlDao invoiceItemSqlDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
         final List<InvoiceItemModelDao> invoiceItemsForAccount = invoiceItemSqlDao.getByAccountRecordId(context);
+        populateInvoiceItems(invoices, invoiceItemsForAccount);
+    }
 
+    public void populateInvoiceItems(final Iterable<InvoiceModelDao> invoices, final Iterable<InvoiceItemModelDao> invoiceItemsForAccount) {
         final Map<UUID, List<InvoiceItemModelDao>> invoiceItemsPerInvoiceId = new HashMap<UUID, List<InvoiceItemModelDao>>();
         for (final InvoiceItemModelDao item : invoiceItemsForAccount) {
             if (invoiceItemsPerInvoiceId.get(item.getInvoiceId()) == null) {
@@ -17,6 +17,7 @@
 package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -44,6 +45,10 @@ public interface InvoiceItemSqlDao extends EntitySqlDao<InvoiceItemModelDao, Inv
                                                             @BindBean final InternalTenantContext context);
 
 
+    @SqlQuery
+    List<InvoiceItemModelDao> getInvoiceItemsByAccountOverlappingDate(@Bind("cutoffDate") final Date cutoffDate,
+                                                                      @BindBean final InternalTenantContext context);
+
     @SqlQuery
     List<InvoiceItemModelDao> getAdjustedOrRepairedInvoiceItemsByLinkedId(@Bind("linkedItemId") final String linkedItemId,
                                                             @BindBean final InternalTenantContext context);
@@ -34,6 +34,15 @@ public class InvoiceModelDaoHelper {
     private InvoiceModelDaoHelper() {}
 
     public static BigDecimal getBalance(final InvoiceModelDao invoiceModelDao) {
+        return getBalance(invoiceModelDao, invoiceModelDao.isWrittenOff());
+    }
+
+    // Balance the invoice would have without its WRITTEN_OFF tag, if any
+    public static BigDecimal getBalanceIgnoringWriteOff(final InvoiceModelDao invoiceModelDao) {
+        return getBalance(invoiceModelDao, false);
+    }
+
+    private static BigDecimal getBalance(final InvoiceModelDao invoiceModelDao, final boolean isWrittenOff) {
         return InvoiceCalculatorUtils.computeInvoiceBalance(invoiceModelDao.getCurrency(),
                                                             Iterables.transform(invoiceModelDao.getInvoiceItems(), new Function<InvoiceItemModelDao, InvoiceItem>() {
                                                                 @Override
@@ -48,7 +57,7 @@ public class InvoiceModelDaoHelper {
                                                                     return new DefaultInvoicePayment(input);
                                                                 }
                                                             }),
-                                                            invoiceModelDao.isMigrated() || invoiceModelDao.isWrittenOff());
+                                                            invoiceModelDao.isMigrated() || isWrittenOff);
     }
 
     public static BigDecimal getCBAAmount(final InvoiceModelDao invoiceModelDao) {
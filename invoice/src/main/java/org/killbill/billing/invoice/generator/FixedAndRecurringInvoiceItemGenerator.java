@@ -21,9 +21,11 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -38,6 +40,7 @@ import org.killbill.billing.catalog.api.BillingPeriod;
 import org.killbill.billing.catalog.api.CatalogApiException;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.catalog.api.PhaseType;
+import org.killbill.billing.invoice.InvoiceExecutors;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItem;
@@ -59,6 +62,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Range;
@@ -76,22 +80,32 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
 
     private final Clock clock;
 
+    private final InvoiceExecutors invoiceExecutors;
+
     @Inject
-    public FixedAndRecurringInvoiceItemGenerator(final InvoiceConfig config, final Clock clock) {
+    public FixedAndRecurringInvoiceItemGenerator(final InvoiceConfig config, final Clock clock, final InvoiceExecutors invoiceExecutors) {
         this.config = config;
         this.clock = clock;
+        this.invoiceExecutors = invoiceExecutors;
     }
 
+    @Override
     public List<InvoiceItem> generateItems(final ImmutableAccountData account, final UUID invoiceId, final BillingEventSet eventSet,
-                                           @Nullable final List<Invoice> existingInvoices, final LocalDate targetDate,
+                                           @Nullable final List<Invoice> existingInvoices, @Nullable final LocalDate cutoffDate, final LocalDate targetDate,
                                            final Currency targetCurrency, final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
                                            final InternalCallContext internalCallContext) throws InvoiceApiException {
         final Multimap<UUID, LocalDate> createdItemsPerDayPerSubscription = LinkedListMultimap.<UUID, LocalDate>create();
 
-        final AccountItemTree accountItemTree = new AccountItemTree(account.getId(), invoiceId);
+        final AccountItemTree accountItemTree = new AccountItemTree(account.getId(), invoiceId, invoiceExecutors.getTreeExecutorService());
         if (existingInvoices != null) {
+            final Set<UUID> itemIdsOutsideGenerationWindow = getItemIdsOutsideGenerationWindow(existingInvoices, cutoffDate);
             for (final Invoice invoice : existingInvoices) {
                 for (final InvoiceItem item : invoice.getInvoiceItems()) {
+                    if (itemIdsOutsideGenerationWindow.contains(item.getId()) ||
+                        (item.getLinkedItemId() != null && itemIdsOutsideGenerationWindow.contains(item.getLinkedItemId()))) {
+                        continue;
+                    }
+
                     if (item.getSubscriptionId() == null || // Always include migration invoices, credits, external charges etc.
                         !eventSet.getSubscriptionIdsWithAutoInvoiceOff()
                                  .contains(item.getSubscriptionId())) { //don't add items with auto_invoice_off tag
@@ -103,10 +117,20 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
             }
         }
 
-        // Generate list of proposed invoice items based on billing events from junction-- proposed items are ALL items since beginning of time
+        // Generate list of proposed invoice items based on billing events from junction-- proposed items are ALL items since beginning of time (or since the cutoff date)
         final List<InvoiceItem> proposedItems = new ArrayList<InvoiceItem>();
-        processRecurringBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, perSubscriptionFutureNotificationDate, existingInvoices, internalCallContext);
+        processRecurringBillingEvents(invoiceId, account.getId(), eventSet, cutoffDate, targetDate, targetCurrency, proposedItems, perSubscriptionFutureNotificationDate, existingInvoices, internalCallContext);
         processFixedBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, internalCallContext);
+        if (cutoffDate != null) {
+            // Existing items prior to the cutoff date have been ignored, so should the matching proposed items (fixed items and
+            // recurring items of the periods overlapping the cutoff date)
+            final Iterator<InvoiceItem> proposedItemsIterator = proposedItems.iterator();
+            while (proposedItemsIterator.hasNext()) {
+                if (!isItemWithinGenerationWindow(proposedItemsIterator.next(), cutoffDate)) {
+                    proposedItemsIterator.remove();
+                }
+            }
+        }
 
         try {
             accountItemTree.mergeWithProposedItems(proposedItems);
@@ -121,8 +145,27 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
         return resultingItems;
     }
 
+    private Set<UUID> getItemIdsOutsideGenerationWindow(final Iterable<Invoice> existingInvoices, @Nullable final LocalDate cutoffDate) {
+        if (cutoffDate == null) {
+            return ImmutableSet.<UUID>of();
+        }
+
+        final Set<UUID> result = new HashSet<UUID>();
+        for (final Invoice invoice : existingInvoices) {
+            for (final InvoiceItem item : invoice.getInvoiceItems()) {
+                // Adjustments follow the item they are linked to
+                if (item.getInvoiceItemType() != InvoiceItemType.ITEM_ADJ &&
+                    item.getInvoiceItemType() != InvoiceItemType.REPAIR_ADJ &&
+                    !isItemWithinGenerationWindow(item, cutoffDate)) {
+                    result.add(item.getId());
+                }
+            }
+        }
+        return result;
+    }
+
     private void processRecurringBillingEvents(final UUID invoiceId, final UUID accountId, final BillingEventSet events,
-                                               final LocalDate targetDate, final Currency currency, final List<InvoiceItem> proposedItems,
+                                               @Nullable final LocalDate cutoffDate, final LocalDate targetDate, final Currency currency, final List<InvoiceItem> proposedItems,
                                                final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
                                                @Nullable final List<Invoice> existingInvoices,
                                                final InternalCallContext internalCallContext) throws InvoiceApiException {
@@ -141,6 +184,12 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
             if (!events.getSubscriptionIdsWithAutoInvoiceOff().
                     contains(thisEvent.getSubscription().getId())) { // don't consider events for subscriptions that have auto_invoice_off
                 final BillingEvent adjustedNextEvent = (thisEvent.getSubscription().getId() == nextEvent.getSubscription().getId()) ? nextEvent : null;
+                // In incremental mode, don't generate the items of the periods ending prior to the cutoff date: they would be ignored anyway
+                if (cutoffDate != null &&
+                    adjustedNextEvent != null &&
+                    internalCallContext.toLocalDate(adjustedNextEvent.getEffectiveDate()).compareTo(cutoffDate) <= 0) {
+                    continue;
+                }
                 final List<InvoiceItem> newProposedItems = processRecurringEvent(invoiceId, accountId, thisEvent, adjustedNextEvent, targetDate, currency, invoiceItemGeneratorLogger, events.getRecurringBillingMode(), perSubscriptionFutureNotificationDate, internalCallContext);
                 proposedItems.addAll(newProposedItems);
             }
@@ -37,11 +37,34 @@ import org.slf4j.Logger;
 
 public abstract class InvoiceItemGenerator {
 
+    public List<InvoiceItem> generateItems(final ImmutableAccountData account, final UUID invoiceId, final BillingEventSet eventSet,
+                                           @Nullable final List<Invoice> existingInvoices, final LocalDate targetDate,
+                                           final Currency targetCurrency, final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
+                                           final InternalCallContext context) throws InvoiceApiException {
+        return generateItems(account, invoiceId, eventSet, existingInvoices, null, targetDate, targetCurrency, perSubscriptionFutureNotificationDate, context);
+    }
+
     public abstract List<InvoiceItem> generateItems(final ImmutableAccountData account, final UUID invoiceId, final BillingEventSet eventSet,
-                                                    @Nullable final List<Invoice> existingInvoices, final LocalDate targetDate,
+                                                    @Nullable final List<Invoice> existingInvoices, @Nullable final LocalDate cutoffDate, final LocalDate targetDate,
                                                     final Currency targetCurrency, Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
                                                     final InternalCallContext context) throws InvoiceApiException;
 
+    /**
+     * In incremental mode, only the items whose service period ends after the cutoff date (or which start after it
+     * when there is no end date) are reconciled, both for the existing and the proposed items.
+     *
+     * @param item       the invoice item
+     * @param cutoffDate the cutoff date, if any
+     * @return true if the item should be considered during generation
+     */
+    public static boolean isItemWithinGenerationWindow(final InvoiceItem item, @Nullable final LocalDate cutoffDate) {
+        if (cutoffDate == null) {
+            return true;
+        }
+        final LocalDate itemDate = item.getEndDate() != null ? item.getEndDate() : item.getStartDate();
+        return itemDate != null && itemDate.compareTo(cutoffDate) > 0;
+    }
+
     public static class InvoiceItemGeneratorLogger {
 
         private final UUID invoiceId;
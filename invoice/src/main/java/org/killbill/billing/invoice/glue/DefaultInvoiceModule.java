@@ -19,8 +19,11 @@
 package org.killbill.billing.invoice.glue;
 
 import org.killbill.billing.glue.InvoiceModule;
+import org.killbill.billing.invoice.AdminInvoiceApi;
 import org.killbill.billing.invoice.InvoiceDispatcher;
+import org.killbill.billing.invoice.InvoiceExecutors;
 import org.killbill.billing.invoice.InvoiceListener;
+import org.killbill.billing.invoice.InvoicePaginationUserApi;
 import org.killbill.billing.invoice.InvoiceTagHandler;
 import org.killbill.billing.invoice.ParkedAccountsManager;
 import org.killbill.billing.invoice.api.DefaultInvoiceService;
@@ -34,6 +37,7 @@ import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory;
 import org.killbill.billing.invoice.api.invoice.DefaultInvoicePaymentApi;
 import org.killbill.billing.invoice.api.svcs.DefaultInvoiceInternalApi;
+import org.killbill.billing.invoice.api.user.DefaultAdminInvoiceApi;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceUserApi;
 import org.killbill.billing.invoice.config.MultiTenantInvoiceConfig;
 import org.killbill.billing.invoice.dao.CBADao;
@@ -51,6 +55,7 @@ import org.killbill.billing.invoice.notification.NextBillingDateNotifier;
 import org.killbill.billing.invoice.notification.NextBillingDatePoster;
 import org.killbill.billing.invoice.notification.NullInvoiceNotifier;
 import org.killbill.billing.invoice.plugin.api.InvoicePluginApi;
+import org.killbill.billing.invoice.template.InvoiceTemplateCache;
 import org.killbill.billing.invoice.template.bundles.DefaultResourceBundleFactory;
 import org.killbill.billing.invoice.usage.RawUsageOptimizer;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
@@ -80,6 +85,8 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
     @Override
     public void installInvoiceUserApi() {
         bind(InvoiceUserApi.class).to(DefaultInvoiceUserApi.class).asEagerSingleton();
+        bind(InvoicePaginationUserApi.class).to(DefaultInvoiceUserApi.class).asEagerSingleton();
+        bind(AdminInvoiceApi.class).to(DefaultAdminInvoiceApi.class).asEagerSingleton();
     }
 
     @Override
@@ -169,5 +176,7 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
         bind(RawUsageOptimizer.class).asEagerSingleton();
         bind(InvoiceApiHelper.class).asEagerSingleton();
         bind(ParkedAccountsManager.class).asEagerSingleton();
+        bind(InvoiceExecutors.class).asEagerSingleton();
+        bind(InvoiceTemplateCache.class).asEagerSingleton();
     }
 }
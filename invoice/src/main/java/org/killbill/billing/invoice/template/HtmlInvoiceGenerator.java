@@ -34,11 +34,13 @@ import org.killbill.billing.invoice.api.formatters.InvoiceFormatter;
 import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory.ResourceBundleType;
+import org.killbill.billing.invoice.template.InvoiceTemplateCache.TenantTemplates;
 import org.killbill.billing.invoice.template.translator.DefaultInvoiceTranslator;
 import org.killbill.billing.tenant.api.TenantInternalApi;
 import org.killbill.billing.util.LocaleUtils;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.email.templates.TemplateEngine;
+import org.killbill.billing.util.email.templates.TemplateEngine.CompiledTemplate;
 import org.killbill.billing.util.io.IOUtils;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 import org.killbill.xmlloader.UriAccessor;
@@ -54,6 +56,7 @@ public class HtmlInvoiceGenerator {
     private final TemplateEngine templateEngine;
     private final TenantInternalApi tenantApi;
     private final ResourceBundleFactory bundleFactory;
+    private final InvoiceTemplateCache invoiceTemplateCache;
 
     @Inject
     public HtmlInvoiceGenerator(final InvoiceFormatterFactory factory,
@@ -61,13 +64,15 @@ public class HtmlInvoiceGenerator {
                                 final TranslatorConfig config,
                                 final CurrencyConversionApi currencyConversionApi,
                                 final ResourceBundleFactory bundleFactory,
-                                final TenantInternalApi tenantInternalApi) {
+                                final TenantInternalApi tenantInternalApi,
+                                final InvoiceTemplateCache invoiceTemplateCache) {
         this.factory = factory;
         this.config = config;
         this.currencyConversionApi = currencyConversionApi;
         this.templateEngine = templateEngine;
         this.bundleFactory = bundleFactory;
         this.tenantApi = tenantInternalApi;
+        this.invoiceTemplateCache = invoiceTemplateCache;
     }
 
     public HtmlInvoice generateInvoice(final Account account, @Nullable final Invoice invoice, final boolean manualPay, final InternalTenantContext context) throws IOException {
@@ -94,11 +99,21 @@ public class HtmlInvoiceGenerator {
         data.put("invoice", formattedInvoice);
 
         invoiceData.setSubject(invoiceTranslator.getInvoiceEmailSubject());
-        final String templateText = getTemplateText(locale, manualPay, context);
-        invoiceData.setBody(templateEngine.executeTemplateText(templateText, data));
+        invoiceData.setBody(getTemplate(locale, manualPay, context).execute(data));
         return invoiceData;
     }
 
+    private CompiledTemplate getTemplate(final Locale locale, final boolean manualPay, final InternalTenantContext context) throws IOException {
+        final TenantTemplates tenantTemplates = invoiceTemplateCache.getTenantTemplates(context);
+        final String cacheKey = (manualPay ? "manualPay/" : "default/") + locale;
+        CompiledTemplate template = tenantTemplates.getTemplate(cacheKey);
+        if (template == null) {
+            template = templateEngine.compileTemplateText(getTemplateText(locale, manualPay, context));
+            tenantTemplates.putTemplate(cacheKey, template);
+        }
+        return template;
+    }
+
     private String getTemplateText(final Locale locale, final boolean manualPay, final InternalTenantContext context) throws IOException {
 
         if (context.getTenantRecordId() == InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID) {
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.invoice.template;
+
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
+import org.killbill.billing.tenant.api.TenantKV.TenantKey;
+import org.killbill.billing.util.email.templates.TemplateEngine.CompiledTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+//
+// Compiled invoice templates and parsed translation bundles, per tenant. Entries are keyed by the caller (template kind, locale, ...)
+// and the whole tenant entry is dropped when any template or translation is uploaded for that tenant (see TenantCacheInvalidation).
+//
+public class InvoiceTemplateCache implements CacheInvalidationCallback {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceTemplateCache.class);
+
+    private final TenantInternalApi tenantInternalApi;
+    private final ConcurrentMap<Long, TenantTemplates> tenantTemplates;
+
+    @Inject
+    public InvoiceTemplateCache(final TenantInternalApi tenantInternalApi) {
+        this.tenantInternalApi = tenantInternalApi;
+        this.tenantTemplates = new ConcurrentHashMap<Long, TenantTemplates>();
+    }
+
+    public void initialize() {
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_TEMPLATE, this);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_MP_TEMPLATE, this);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_TRANSLATION_, this);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.CATALOG_TRANSLATION_, this);
+    }
+
+    //
+    // Callers must grab the TenantTemplates before reading the tenant values: if an invalidation happens while they load,
+    // they will populate a detached instance and the next lookup will reload (instead of caching a stale value).
+    //
+    public TenantTemplates getTenantTemplates(final InternalTenantContext tenantContext) {
+        final Long tenantRecordId = tenantContext.getTenantRecordId();
+        final TenantTemplates existing = tenantTemplates.get(tenantRecordId);
+        if (existing != null) {
+            return existing;
+        }
+        final TenantTemplates created = new TenantTemplates();
+        final TenantTemplates raced = tenantTemplates.putIfAbsent(tenantRecordId, created);
+        return raced != null ? raced : created;
+    }
+
+    @Override
+    public void invalidateCache(final TenantKey key, final Object cookie, final InternalTenantContext tenantContext) {
+        logger.info("Invalidate invoice templates for tenant {} (key {}, cookie {})", tenantContext.getTenantRecordId(), key, cookie);
+        tenantTemplates.remove(tenantContext.getTenantRecordId());
+    }
+
+    public static final class TenantTemplates {
+
+        private final ConcurrentMap<String, CompiledTemplate> templates = new ConcurrentHashMap<String, CompiledTemplate>();
+        private final ConcurrentMap<String, ResourceBundle> bundles = new ConcurrentHashMap<String, ResourceBundle>();
+
+        public CompiledTemplate getTemplate(final String key) {
+            return templates.get(key);
+        }
+
+        public void putTemplate(final String key, final CompiledTemplate template) {
+            templates.put(key, template);
+        }
+
+        public ResourceBundle getBundle(final String key) {
+            return bundles.get(key);
+        }
+
+        // Missing bundles (null) aren't cached
+        public void putBundle(final String key, final ResourceBundle bundle) {
+            if (bundle != null) {
+                bundles.put(key, bundle);
+            }
+        }
+    }
+}
@@ -30,6 +30,8 @@ import javax.inject.Inject;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory;
+import org.killbill.billing.invoice.template.InvoiceTemplateCache;
+import org.killbill.billing.invoice.template.InvoiceTemplateCache.TenantTemplates;
 import org.killbill.billing.tenant.api.TenantInternalApi;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.xmlloader.UriAccessor;
@@ -43,14 +45,27 @@ public class DefaultResourceBundleFactory implements ResourceBundleFactory {
     private static final Logger logger = LoggerFactory.getLogger(DefaultResourceBundleFactory.class);
 
     private final TenantInternalApi tenantApi;
+    private final InvoiceTemplateCache invoiceTemplateCache;
 
     @Inject
-    public DefaultResourceBundleFactory(final TenantInternalApi tenantApi) {
+    public DefaultResourceBundleFactory(final TenantInternalApi tenantApi, final InvoiceTemplateCache invoiceTemplateCache) {
         this.tenantApi = tenantApi;
+        this.invoiceTemplateCache = invoiceTemplateCache;
     }
 
     @Override
     public ResourceBundle createBundle(final Locale locale, final String bundlePath, final ResourceBundleType type, final InternalTenantContext tenantContext) {
+        final TenantTemplates tenantTemplates = invoiceTemplateCache.getTenantTemplates(tenantContext);
+        final String cacheKey = type + "/" + locale + "/" + bundlePath;
+        ResourceBundle bundle = tenantTemplates.getBundle(cacheKey);
+        if (bundle == null) {
+            bundle = loadBundle(locale, bundlePath, type, tenantContext);
+            tenantTemplates.putBundle(cacheKey, bundle);
+        }
+        return bundle;
+    }
+
+    private ResourceBundle loadBundle(final Locale locale, final String bundlePath, final ResourceBundleType type, final InternalTenantContext tenantContext) {
         if (tenantContext.getTenantRecordId() == InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID) {
             return getGlobalBundle(locale, bundlePath);
         }
@@ -19,18 +19,27 @@
 package org.killbill.billing.invoice.tree;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
 
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
+import com.google.common.base.Throwables;
 
 /**
  * Tree of invoice items for a given account.
@@ -39,7 +48,8 @@ import com.google.common.collect.Iterables;
  * associated to a given subscription. That also means that invoice item adjustment which cross subscriptions
  * can't be correctly handled when they compete with other forms of adjustments.
  * <p/>
- * <p>The class is not thread safe, there is no such use case today, and there is a lifecyle to respect:
+ * <p>The class is not thread safe (the independent <tt>SubscriptionItemTree</tt> can however be built on the optional executor),
+ * and there is a lifecyle to respect:
  * <ul>
  * <li>Add existing invoice items
  * <li>Build the tree,
@@ -51,19 +61,26 @@ public class AccountItemTree {
 
     private final UUID accountId;
     private final UUID targetInvoiceId;
+    private final ExecutorService executor;
     private final Map<UUID, SubscriptionItemTree> subscriptionItemTree;
-    private final List<InvoiceItem> allExistingItems;
-    private List<InvoiceItem> pendingItemAdj;
+    // Only used to retrieve the original item for linked items
+    private final Map<UUID, InvoiceItem> allExistingItemsById;
+    private final Map<UUID, InvoiceItem> pendingItemAdjById;
 
     private boolean isBuilt;
 
     public AccountItemTree(final UUID accountId, final UUID targetInvoiceId) {
+        this(accountId, targetInvoiceId, null);
+    }
+
+    public AccountItemTree(final UUID accountId, final UUID targetInvoiceId, @Nullable final ExecutorService executor) {
         this.accountId = accountId;
         this.targetInvoiceId = targetInvoiceId;
+        this.executor = executor;
         this.subscriptionItemTree = new HashMap<UUID, SubscriptionItemTree>();
         this.isBuilt = false;
-        this.allExistingItems = new LinkedList<InvoiceItem>();
-        this.pendingItemAdj = new LinkedList<InvoiceItem>();
+        this.allExistingItemsById = new HashMap<UUID, InvoiceItem>();
+        this.pendingItemAdjById = new LinkedHashMap<UUID, InvoiceItem>();
     }
 
     /**
@@ -72,15 +89,18 @@ public class AccountItemTree {
     public void build() {
         Preconditions.checkState(!isBuilt);
 
-        if (pendingItemAdj.size() > 0) {
-            for (InvoiceItem item : pendingItemAdj) {
+        if (pendingItemAdjById.size() > 0) {
+            for (InvoiceItem item : pendingItemAdjById.values()) {
                 addExistingItem(item, true);
             }
-            pendingItemAdj.clear();
-        }
-        for (SubscriptionItemTree tree : subscriptionItemTree.values()) {
-            tree.build();
+            pendingItemAdjById.clear();
         }
+        forEach(subscriptionItemTree.values(), new Callback<SubscriptionItemTree>() {
+            @Override
+            public void doWith(final SubscriptionItemTree tree) {
+                tree.build();
+            }
+        });
         isBuilt = true;
     }
 
@@ -96,8 +116,10 @@ public class AccountItemTree {
     private void addExistingItem(final InvoiceItem existingItem, final boolean failOnMissingSubscription) {
         Preconditions.checkState(!isBuilt);
 
-        // Only used to retrieve the original item for linked items
-        allExistingItems.add(existingItem);
+        // First item wins, like a scan of all existing items would (pending items are added a second time when building the tree)
+        if (!allExistingItemsById.containsKey(existingItem.getId())) {
+            allExistingItemsById.put(existingItem.getId(), existingItem);
+        }
 
         switch (existingItem.getInvoiceItemType()) {
             case EXTERNAL_CHARGE:
@@ -121,7 +143,7 @@ public class AccountItemTree {
         }
 
         if (existingItem.getInvoiceItemType() == InvoiceItemType.ITEM_ADJ) {
-            final InvoiceItem linkedInvoiceItem = getLinkedInvoiceItem(existingItem, allExistingItems);
+            final InvoiceItem linkedInvoiceItem = getLinkedInvoiceItem(existingItem, allExistingItemsById);
             if (linkedInvoiceItem != null &&
                 linkedInvoiceItem.getInvoiceItemType() != InvoiceItemType.RECURRING &&
                 linkedInvoiceItem.getInvoiceItemType() != InvoiceItemType.FIXED) {
@@ -131,11 +153,11 @@ public class AccountItemTree {
             }
         }
 
-        final UUID subscriptionId = getSubscriptionId(existingItem, allExistingItems);
+        final UUID subscriptionId = getSubscriptionId(existingItem, allExistingItemsById);
         Preconditions.checkState(subscriptionId != null || !failOnMissingSubscription, "Missing subscription id");
 
         if (subscriptionId == null && existingItem.getInvoiceItemType() == InvoiceItemType.ITEM_ADJ) {
-            pendingItemAdj.add(existingItem);
+            pendingItemAdjById.put(existingItem.getId(), existingItem);
             return;
         }
 
@@ -154,23 +176,36 @@ public class AccountItemTree {
     public void mergeWithProposedItems(final List<InvoiceItem> proposedItems) {
 
         build();
-        for (SubscriptionItemTree tree : subscriptionItemTree.values()) {
-            tree.flatten(true);
-        }
 
+        // Trees are independent: group the proposed items per subscription so that each tree can be flattened, merged and rebuilt on its own
+        final Set<UUID> subscriptionIdsWithExistingTree = new HashSet<UUID>(subscriptionItemTree.keySet());
+        final Map<UUID, List<InvoiceItem>> proposedItemsPerSubscription = new LinkedHashMap<UUID, List<InvoiceItem>>();
+        for (final UUID subscriptionId : subscriptionItemTree.keySet()) {
+            proposedItemsPerSubscription.put(subscriptionId, new LinkedList<InvoiceItem>());
+        }
         for (InvoiceItem item : proposedItems) {
             final UUID subscriptionId = getSubscriptionId(item, null);
-            SubscriptionItemTree tree = subscriptionItemTree.get(subscriptionId);
-            if (tree == null) {
-                tree = new SubscriptionItemTree(subscriptionId, targetInvoiceId);
-                subscriptionItemTree.put(subscriptionId, tree);
+            if (!subscriptionItemTree.containsKey(subscriptionId)) {
+                subscriptionItemTree.put(subscriptionId, new SubscriptionItemTree(subscriptionId, targetInvoiceId));
+                proposedItemsPerSubscription.put(subscriptionId, new LinkedList<InvoiceItem>());
             }
-            tree.mergeProposedItem(item);
+            proposedItemsPerSubscription.get(subscriptionId).add(item);
         }
 
-        for (SubscriptionItemTree tree : subscriptionItemTree.values()) {
-            tree.buildForMerge();
-        }
+        forEach(proposedItemsPerSubscription.keySet(), new Callback<UUID>() {
+            @Override
+            public void doWith(final UUID subscriptionId) {
+                final SubscriptionItemTree tree = subscriptionItemTree.get(subscriptionId);
+                // Only the trees built from existing items need to be flattened
+                if (subscriptionIdsWithExistingTree.contains(subscriptionId)) {
+                    tree.flatten(true);
+                }
+                for (final InvoiceItem item : proposedItemsPerSubscription.get(subscriptionId)) {
+                    tree.mergeProposedItem(item);
+                }
+                tree.buildForMerge();
+            }
+        });
     }
 
     /**
@@ -191,7 +226,7 @@ public class AccountItemTree {
         return accountId;
     }
 
-    private UUID getSubscriptionId(final InvoiceItem item, final List<InvoiceItem> allItems) {
+    private UUID getSubscriptionId(final InvoiceItem item, final Map<UUID, InvoiceItem> allItems) {
         if (item.getInvoiceItemType() == InvoiceItemType.RECURRING ||
             item.getInvoiceItemType() == InvoiceItemType.FIXED) {
             return item.getSubscriptionId();
@@ -201,13 +236,50 @@ public class AccountItemTree {
         }
     }
 
-    private InvoiceItem getLinkedInvoiceItem(final InvoiceItem item, final Iterable<InvoiceItem> allItems) {
-        return Iterables.tryFind(allItems, new Predicate<InvoiceItem>() {
-            @Override
-            public boolean apply(final InvoiceItem input) {
-                return input.getId().equals(item.getLinkedItemId());
+    private InvoiceItem getLinkedInvoiceItem(final InvoiceItem item, final Map<UUID, InvoiceItem> allItems) {
+        return item.getLinkedItemId() == null ? null : allItems.get(item.getLinkedItemId());
+    }
+
+    private interface Callback<T> {
+
+        void doWith(T input);
+    }
+
+    // The callback must only touch the state of a single subscription tree
+    private <T> void forEach(final Collection<T> inputs, final Callback<T> callback) {
+        if (executor == null || inputs.size() <= 1) {
+            for (final T input : inputs) {
+                callback.doWith(input);
+            }
+            return;
+        }
+
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(inputs.size());
+        for (final T input : inputs) {
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    callback.doWith(input);
+                    return null;
+                }
+            }));
+        }
+
+        try {
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the subscription trees", e);
+        } catch (final ExecutionException e) {
+            // Preserve the original exception (e.g. IllegalStateException for an invalid invoicing state)
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            for (final Future<Void> future : futures) {
+                future.cancel(true);
             }
-        }).orNull();
+        }
     }
 
     @Override
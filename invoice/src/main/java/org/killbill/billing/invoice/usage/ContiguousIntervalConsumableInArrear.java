@@ -19,6 +19,7 @@ package org.killbill.billing.invoice.usage;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -248,7 +249,7 @@ public class ContiguousIntervalConsumableInArrear {
         }
 
         // Optimize path where all raw usage items are outside or our transitionTimes range
-        if (prevRawUsage.getDate().compareTo(transitionTimes.get(transitionTimes.size() - 1)) >= 0) {
+        if (prevRawUsage == null || prevRawUsage.getDate().compareTo(transitionTimes.get(transitionTimes.size() - 1)) >= 0) {
             return ImmutableList.of();
         }
 
@@ -257,20 +258,18 @@ public class ContiguousIntervalConsumableInArrear {
         // to create one RolledUpUsage per interval. If an interval does not have any rawSubscriptionUsage element, there will be no
         // matching RolledUpUsage for that interval, and we'll detect that in the 'computeMissingItems' logic
         //
+        final PerUnitTypeAmounts perRangeUnitToAmount = new PerUnitTypeAmounts();
         LocalDate prevDate = null;
         for (final LocalDate curDate : transitionTimes) {
 
             if (prevDate != null) {
 
-                // Allocate new perRangeUnitToAmount for this interval and populate with rawSubscriptionUsage items
-                final Map<String, Long> perRangeUnitToAmount = new HashMap<String, Long>();
+                // perRangeUnitToAmount is empty at this point, populate it with rawSubscriptionUsage items for this interval
 
                 // Start consuming prevRawUsage element if it exists and falls into the range
                 if (prevRawUsage != null) {
                     if (prevRawUsage.getDate().compareTo(prevDate) >= 0 && prevRawUsage.getDate().compareTo(curDate) < 0) {
-                        final Long currentAmount = perRangeUnitToAmount.get(prevRawUsage.getUnitType());
-                        final Long updatedAmount = (currentAmount != null) ? currentAmount + prevRawUsage.getAmount() : prevRawUsage.getAmount();
-                        perRangeUnitToAmount.put(prevRawUsage.getUnitType(), updatedAmount);
+                        perRangeUnitToAmount.add(prevRawUsage.getUnitType(), prevRawUsage.getAmount());
                         prevRawUsage = null;
                     }
                 }
@@ -289,19 +288,13 @@ public class ContiguousIntervalConsumableInArrear {
                             break;
                         }
 
-                        final Long currentAmount = perRangeUnitToAmount.get(curRawUsage.getUnitType());
-                        final Long updatedAmount = (currentAmount != null) ? currentAmount + curRawUsage.getAmount() : curRawUsage.getAmount();
-                        perRangeUnitToAmount.put(curRawUsage.getUnitType(), updatedAmount);
+                        perRangeUnitToAmount.add(curRawUsage.getUnitType(), curRawUsage.getAmount());
                     }
                 }
 
                 // If we did find some usage for that date range, let's populate the result
                 if (!perRangeUnitToAmount.isEmpty()) {
-                    final List<RolledUpUnit> rolledUpUnits = new ArrayList<RolledUpUnit>(perRangeUnitToAmount.size());
-                    for (final String unitType : perRangeUnitToAmount.keySet()) {
-                        rolledUpUnits.add(new DefaultRolledUpUnit(unitType, perRangeUnitToAmount.get(unitType)));
-                    }
-                    result.add(new DefaultRolledUpUsage(getSubscriptionId(), prevDate, curDate, rolledUpUnits));
+                    result.add(new DefaultRolledUpUsage(getSubscriptionId(), prevDate, curDate, perRangeUnitToAmount.toRolledUpUnitsAndReset()));
                 }
             }
             prevDate = curDate;
@@ -442,4 +435,50 @@ public class ContiguousIntervalConsumableInArrear {
             return nextNotificationDate;
         }
     }
+
+    // Per unit type usage amounts, accumulated without boxing: each unit type gets a slot (in order of appearance) in primitive arrays
+    private static final class PerUnitTypeAmounts {
+
+        private final Map<String, Integer> slots = new HashMap<String, Integer>();
+        private final List<String> unitTypes = new ArrayList<String>();
+        private long[] amounts = new long[4];
+        private boolean[] hasAmount = new boolean[4];
+        private int nbUnitTypesWithAmount = 0;
+
+        public void add(final String unitType, final long amount) {
+            Integer slot = slots.get(unitType);
+            if (slot == null) {
+                slot = unitTypes.size();
+                slots.put(unitType, slot);
+                unitTypes.add(unitType);
+                if (slot == amounts.length) {
+                    amounts = Arrays.copyOf(amounts, 2 * slot);
+                    hasAmount = Arrays.copyOf(hasAmount, 2 * slot);
+                }
+            }
+
+            if (!hasAmount[slot]) {
+                hasAmount[slot] = true;
+                nbUnitTypesWithAmount++;
+            }
+            amounts[slot] += amount;
+        }
+
+        public boolean isEmpty() {
+            return nbUnitTypesWithAmount == 0;
+        }
+
+        public List<RolledUpUnit> toRolledUpUnitsAndReset() {
+            final List<RolledUpUnit> rolledUpUnits = new ArrayList<RolledUpUnit>(nbUnitTypesWithAmount);
+            for (int slot = 0; slot < unitTypes.size(); slot++) {
+                if (hasAmount[slot]) {
+                    rolledUpUnits.add(new DefaultRolledUpUnit(unitTypes.get(slot), amounts[slot]));
+                    hasAmount[slot] = false;
+                    amounts[slot] = 0;
+                }
+            }
+            nbUnitTypesWithAmount = 0;
+            return rolledUpUnits;
+        }
+    }
 }
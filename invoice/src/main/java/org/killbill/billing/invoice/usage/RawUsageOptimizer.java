@@ -17,10 +17,15 @@
 
 package org.killbill.billing.invoice.usage;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -41,12 +46,30 @@ import org.slf4j.LoggerFactory;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 
 public class RawUsageOptimizer {
 
+    private static final Comparator<RawUsage> RAW_USAGE_DATE_COMPARATOR = new Comparator<RawUsage>() {
+        @Override
+        public int compare(final RawUsage o1, final RawUsage o2) {
+            int compared = o1.getDate().compareTo(o2.getDate());
+            if (compared != 0) {
+                return compared;
+            } else {
+                compared = o1.getUnitType().compareTo(o2.getUnitType());
+                if (compared != 0) {
+                    return compared;
+                } else {
+                    return o1.hashCode() != o2.hashCode() ? o1.hashCode() - o2.hashCode() : 0;
+                }
+            }
+        }
+    };
+
     private static final Ordering<InvoiceItem> USAGE_ITEM_ORDERING = Ordering.natural()
                                                                              .onResultOf(new Function<InvoiceItem, Comparable>() {
                                                                                  @Override
@@ -153,10 +176,12 @@ public class RawUsageOptimizer {
 
         private final LocalDate rawUsageStartDate;
         private final List<RawUsage> rawUsage;
+        private final Map<UUID, List<RawUsage>> perSubscriptionRawUsage;
 
         public RawUsageOptimizerResult(final LocalDate rawUsageStartDate, final List<RawUsage> rawUsage) {
             this.rawUsageStartDate = rawUsageStartDate;
             this.rawUsage = rawUsage;
+            this.perSubscriptionRawUsage = partitionAndSortBySubscription(rawUsage);
         }
 
         public LocalDate getRawUsageStartDate() {
@@ -166,5 +191,28 @@ public class RawUsageOptimizer {
         public List<RawUsage> getRawUsage() {
             return rawUsage;
         }
+
+        // Raw usage for that subscription, sorted by date (see SubscriptionConsumableInArrear)
+        public List<RawUsage> getRawUsageForSubscription(final UUID subscriptionId) {
+            final List<RawUsage> rawSubscriptionUsage = perSubscriptionRawUsage.get(subscriptionId);
+            return rawSubscriptionUsage != null ? rawSubscriptionUsage : ImmutableList.<RawUsage>of();
+        }
+
+        // Single pass over the account raw usage, instead of one filter and sort per subscription
+        private static Map<UUID, List<RawUsage>> partitionAndSortBySubscription(final Iterable<RawUsage> rawUsage) {
+            final Map<UUID, List<RawUsage>> result = new HashMap<UUID, List<RawUsage>>();
+            for (final RawUsage cur : rawUsage) {
+                List<RawUsage> rawSubscriptionUsage = result.get(cur.getSubscriptionId());
+                if (rawSubscriptionUsage == null) {
+                    rawSubscriptionUsage = new ArrayList<RawUsage>();
+                    result.put(cur.getSubscriptionId(), rawSubscriptionUsage);
+                }
+                rawSubscriptionUsage.add(cur);
+            }
+            for (final List<RawUsage> rawSubscriptionUsage : result.values()) {
+                Collections.sort(rawSubscriptionUsage, RAW_USAGE_DATE_COMPARATOR);
+            }
+            return result;
+        }
     }
 }
@@ -30,6 +30,7 @@ import org.killbill.billing.invoice.dao.InvoiceDaoHelper;
 import org.killbill.billing.invoice.generator.FixedAndRecurringInvoiceItemGenerator;
 import org.killbill.billing.invoice.generator.InvoiceGenerator;
 import org.killbill.billing.invoice.glue.TestInvoiceModuleNoDB;
+import org.killbill.billing.invoice.template.InvoiceTemplateCache;
 import org.killbill.billing.invoice.usage.RawUsageOptimizer;
 import org.killbill.billing.junction.BillingInternalApi;
 import org.killbill.billing.lifecycle.api.BusService;
@@ -95,6 +96,8 @@ public abstract class InvoiceTestSuiteNoDB extends GuicyKillbillTestSuiteNoDB {
     @Inject
     protected ResourceBundleFactory resourceBundleFactory;
     @Inject
+    protected InvoiceTemplateCache invoiceTemplateCache;
+    @Inject
     protected RawUsageOptimizer rawUsageOptimizer;
     @Inject
     protected InvoiceDaoHelper invoiceDaoHelper;
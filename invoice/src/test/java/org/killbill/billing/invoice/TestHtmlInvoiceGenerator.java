@@ -27,13 +27,18 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
 import org.killbill.billing.account.api.Account;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
 import org.killbill.billing.invoice.template.HtmlInvoice;
 import org.killbill.billing.invoice.template.HtmlInvoiceGenerator;
+import org.killbill.billing.invoice.template.InvoiceTemplateCache;
+import org.killbill.billing.invoice.template.bundles.DefaultResourceBundleFactory;
 import org.killbill.billing.invoice.template.formatters.DefaultInvoiceFormatterFactory;
+import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 import org.killbill.billing.util.email.templates.MustacheTemplateEngine;
 import org.killbill.billing.util.email.templates.TemplateEngine;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
@@ -45,16 +50,17 @@ import org.testng.annotations.Test;
 
 public class TestHtmlInvoiceGenerator extends InvoiceTestSuiteNoDB {
 
+    private TranslatorConfig config;
     private HtmlInvoiceGenerator g;
 
     @Override
     @BeforeClass(groups = "fast")
     public void beforeClass() throws Exception {
         super.beforeClass();
-        final TranslatorConfig config = new ConfigurationObjectFactory(skifeConfigSource).build(TranslatorConfig.class);
+        config = new ConfigurationObjectFactory(skifeConfigSource).build(TranslatorConfig.class);
         final TemplateEngine templateEngine = new MustacheTemplateEngine();
         final InvoiceFormatterFactory factory = new DefaultInvoiceFormatterFactory();
-        g = new HtmlInvoiceGenerator(factory, templateEngine, config, null, resourceBundleFactory, null);
+        g = new HtmlInvoiceGenerator(factory, templateEngine, config, null, resourceBundleFactory, null, invoiceTemplateCache);
     }
 
     @Test(groups = "fast")
@@ -80,6 +86,28 @@ public class TestHtmlInvoiceGenerator extends InvoiceTestSuiteNoDB {
         Assert.assertNull(output);
     }
 
+    @Test(groups = "fast")
+    public void testTenantTemplateIsCompiledOnceUntilInvalidated() throws Exception {
+        final InternalTenantContext tenantContext = new InternalTenantContext(123L);
+        final TenantInternalApi tenantInternalApi = Mockito.mock(TenantInternalApi.class);
+        Mockito.when(tenantInternalApi.getInvoiceTemplate(Locale.US, tenantContext)).thenReturn("Hello {{account.name}}", "Bye {{account.name}}");
+
+        final InvoiceTemplateCache templateCache = new InvoiceTemplateCache(tenantInternalApi);
+        final HtmlInvoiceGenerator generator = new HtmlInvoiceGenerator(new DefaultInvoiceFormatterFactory(), new MustacheTemplateEngine(), config, null,
+                                                                        new DefaultResourceBundleFactory(tenantInternalApi, templateCache), tenantInternalApi, templateCache);
+
+        Assert.assertEquals(generator.generateInvoice(createAccount(), createInvoice(), false, tenantContext).getBody(), "Hello Jim Smith");
+        Assert.assertEquals(generator.generateInvoice(createAccount(), createInvoice(), false, tenantContext).getBody(), "Hello Jim Smith");
+        Mockito.verify(tenantInternalApi, Mockito.times(1)).getInvoiceTemplate(Locale.US, tenantContext);
+        // Both the account and the default locale bundles were looked up once
+        Mockito.verify(tenantInternalApi, Mockito.atMost(2)).getInvoiceTranslation(Mockito.<Locale>any(), Mockito.eq(tenantContext));
+
+        templateCache.invalidateCache(TenantKey.INVOICE_TEMPLATE, null, tenantContext);
+
+        Assert.assertEquals(generator.generateInvoice(createAccount(), createInvoice(), false, tenantContext).getBody(), "Bye Jim Smith");
+        Mockito.verify(tenantInternalApi, Mockito.times(2)).getInvoiceTemplate(Locale.US, tenantContext);
+    }
+
     private Account createAccount() {
         final Account account = Mockito.mock(Account.class);
         Mockito.when(account.getExternalKey()).thenReturn("1234abcd");
@@ -25,9 +25,11 @@ import java.util.UUID;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.MockPlan;
 import org.killbill.billing.catalog.MockPlanPhase;
 import org.killbill.billing.catalog.api.BillingMode;
@@ -54,8 +56,11 @@ import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
 import org.killbill.billing.util.api.TagDefinitionApiException;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.SystemTags;
+import org.mockito.AdditionalAnswers;
 import org.mockito.Mockito;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.tweak.HandleCallback;
@@ -102,7 +107,7 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(generator, accountApi, billingApi, subscriptionApi, invoiceDao,
                                                                    internalCallContextFactory, invoiceNotifier, invoicePluginDispatcher, locker, busService.getBus(),
-                                                                   null, invoiceConfig, clock, parkedAccountsManager);
+                                                                   null, invoiceConfig, clock, parkedAccountsManager, tagInternalApi);
 
         Invoice invoice = dispatcher.processAccountFromNotificationOrBusEvent(accountId, target, new DryRunFutureDateArguments(), context);
         Assert.assertNotNull(invoice);
@@ -146,7 +151,7 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(generator, accountApi, billingApi, subscriptionApi, invoiceDao,
                                                                    internalCallContextFactory, invoiceNotifier, invoicePluginDispatcher, locker, busService.getBus(),
-                                                                   null, invoiceConfig, clock, parkedAccountsManager);
+                                                                   null, invoiceConfig, clock, parkedAccountsManager, tagInternalApi);
 
         // Verify initial tags state for account
         Assert.assertTrue(tagUserApi.getTagsForAccount(accountId, true, callContext).isEmpty());
@@ -295,7 +300,7 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(generator, accountApi, billingApi, subscriptionApi, invoiceDao,
                                                                    internalCallContextFactory, invoiceNotifier, invoicePluginDispatcher, locker, busService.getBus(),
-                                                                   null, invoiceConfig, clock, parkedAccountsManager);
+                                                                   null, invoiceConfig, clock, parkedAccountsManager, tagInternalApi);
 
         final Invoice invoice = dispatcher.processAccountFromNotificationOrBusEvent(account.getId(), new LocalDate("2012-07-30"), null, context);
         Assert.assertNotNull(invoice);
@@ -336,4 +341,77 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
             Assert.assertEquals(item.getSubscriptionId(), subscription.getId());
         }
     }
+
+    @Test(groups = "slow")
+    public void testIncrementalGenerationAfterAutoInvoicingOffRemoval() throws Exception {
+        final InvoiceDispatcher dispatcher = createIncrementalDispatcherAndInvoiceFirstPeriod();
+
+        // Invoicing is suspended for the subscription for a couple of periods
+        clock.setDay(new LocalDate("2012-05-15"));
+        refreshCallContext(account.getId());
+        tagInternalApi.addTag(subscription.getId(), ObjectType.SUBSCRIPTION, ControlTagType.AUTO_INVOICING_OFF.getId(), internalCallContext);
+
+        clock.setDay(new LocalDate("2012-08-01"));
+        refreshCallContext(account.getId());
+        tagInternalApi.removeTag(subscription.getId(), ObjectType.SUBSCRIPTION, ControlTagType.AUTO_INVOICING_OFF.getId(), internalCallContext);
+
+        // The cutoff date (2012-07-01) is moved back, so that the periods never billed are picked up
+        checkIncrementalGenerationCatchUp(dispatcher);
+    }
+
+    @Test(groups = "slow")
+    public void testIncrementalGenerationAfterAccountUnparked() throws Exception {
+        final InvoiceDispatcher dispatcher = createIncrementalDispatcherAndInvoiceFirstPeriod();
+
+        clock.setDay(new LocalDate("2012-05-15"));
+        refreshCallContext(account.getId());
+        parkedAccountsManager.parkAccount(account.getId(), internalCallContext);
+
+        // Account released by removing the tag, not by a successful invoice run
+        clock.setDay(new LocalDate("2012-08-01"));
+        refreshCallContext(account.getId());
+        parkedAccountsManager.unparkAccount(account.getId(), internalCallContext);
+
+        // The full invoice history is reloaded
+        checkIncrementalGenerationCatchUp(dispatcher);
+    }
+
+    private InvoiceDispatcher createIncrementalDispatcherAndInvoiceFirstPeriod() throws Exception {
+        final BillingEventSet events = new MockBillingEventSet();
+        final Plan plan = MockPlan.createBicycleNoTrialEvergreen1USD();
+        final PlanPhase planPhase = MockPlanPhase.create1USDMonthlyEvergreen();
+        events.add(invoiceUtil.createMockBillingEvent(account, subscription, new DateTime("2012-05-01T00:03:42.000Z"), plan, planPhase,
+                                                      null, BigDecimal.ONE, Currency.USD, BillingPeriod.MONTHLY, 1,
+                                                      BillingMode.IN_ADVANCE, "", 1L, SubscriptionBaseTransitionType.CREATE));
+        Mockito.when(billingApi.getBillingEventsForAccountAndUpdateAccountBCD(Mockito.<UUID>any(), Mockito.<DryRunArguments>any(), Mockito.<InternalCallContext>any())).thenReturn(events);
+
+        // Only reconcile the last month of invoice items
+        final InvoiceConfig incrementalInvoiceConfig = Mockito.mock(InvoiceConfig.class, AdditionalAnswers.delegatesTo(invoiceConfig));
+        Mockito.doReturn(1).when(incrementalInvoiceConfig).getIncrementalGenerationWindowMonths(Mockito.<InternalTenantContext>any());
+
+        final InvoiceDispatcher dispatcher = new InvoiceDispatcher(generator, accountApi, billingApi, subscriptionApi, invoiceDao,
+                                                                   internalCallContextFactory, new NullInvoiceNotifier(), invoicePluginDispatcher, locker, busService.getBus(),
+                                                                   null, incrementalInvoiceConfig, clock, parkedAccountsManager, tagInternalApi);
+
+        final Invoice invoice = dispatcher.processAccountFromNotificationOrBusEvent(account.getId(), new LocalDate("2012-05-01"), null, context);
+        Assert.assertNotNull(invoice);
+        Assert.assertEquals(invoice.getInvoiceItems().size(), 1);
+        Assert.assertEquals(invoice.getInvoiceItems().get(0).getStartDate(), new LocalDate("2012-05-01"));
+        return dispatcher;
+    }
+
+    private void checkIncrementalGenerationCatchUp(final InvoiceDispatcher dispatcher) throws InvoiceApiException {
+        final Invoice invoice = dispatcher.processAccountFromNotificationOrBusEvent(account.getId(), new LocalDate("2012-08-01"), null, context);
+        Assert.assertNotNull(invoice);
+
+        final List<InvoiceItem> invoiceItems = invoice.getInvoiceItems();
+        Assert.assertEquals(invoiceItems.size(), 3);
+        Assert.assertEquals(invoiceItems.get(0).getStartDate(), new LocalDate("2012-06-01"));
+        Assert.assertEquals(invoiceItems.get(1).getStartDate(), new LocalDate("2012-07-01"));
+        Assert.assertEquals(invoiceItems.get(2).getStartDate(), new LocalDate("2012-08-01"));
+        for (final InvoiceItem item : invoiceItems) {
+            Assert.assertEquals(item.getInvoiceItemType(), InvoiceItemType.RECURRING);
+        }
+        Assert.assertEquals(invoiceDao.getInvoicesByAccount(context).size(), 2);
+    }
 }
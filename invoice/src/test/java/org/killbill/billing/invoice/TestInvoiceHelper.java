@@ -79,6 +79,7 @@ import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
+import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
@@ -162,6 +163,7 @@ public class TestInvoiceHelper {
     private final Clock clock;
     private final NonEntityDao nonEntityDao;
     private final ParkedAccountsManager parkedAccountsManager;
+    private final TagInternalApi tagInternalApi;
     private final MutableInternalCallContext internalCallContext;
     private final InternalCallContextFactory internalCallContextFactory;
     private final InvoiceConfig invoiceConfig;
@@ -174,7 +176,7 @@ public class TestInvoiceHelper {
     public TestInvoiceHelper(final InvoiceGenerator generator, final IDBI dbi,
                              final BillingInternalApi billingApi, final AccountInternalApi accountApi, final ImmutableAccountInternalApi immutableAccountApi, final InvoicePluginDispatcher invoicePluginDispatcher, final AccountUserApi accountUserApi, final SubscriptionBaseInternalApi subscriptionApi, final BusService busService,
                              final InvoiceDao invoiceDao, final GlobalLocker locker, final Clock clock, final NonEntityDao nonEntityDao, final CacheControllerDispatcher cacheControllerDispatcher, final MutableInternalCallContext internalCallContext, final InvoiceConfig invoiceConfig,
-                             final ParkedAccountsManager parkedAccountsManager, final InternalCallContextFactory internalCallContextFactory) {
+                             final ParkedAccountsManager parkedAccountsManager, final TagInternalApi tagInternalApi, final InternalCallContextFactory internalCallContextFactory) {
         this.generator = generator;
         this.billingApi = billingApi;
         this.accountApi = accountApi;
@@ -188,6 +190,7 @@ public class TestInvoiceHelper {
         this.clock = clock;
         this.nonEntityDao = nonEntityDao;
         this.parkedAccountsManager = parkedAccountsManager;
+        this.tagInternalApi = tagInternalApi;
         this.internalCallContext = internalCallContext;
         this.internalCallContextFactory = internalCallContextFactory;
         this.invoiceItemSqlDao = dbi.onDemand(InvoiceItemSqlDao.class);
@@ -214,7 +217,7 @@ public class TestInvoiceHelper {
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(generator, accountApi, billingApi, subscriptionApi,
                                                                    invoiceDao, internalCallContextFactory, invoiceNotifier, invoicePluginDispatcher, locker, busService.getBus(),
-                                                                   null, invoiceConfig, clock, parkedAccountsManager);
+                                                                   null, invoiceConfig, clock, parkedAccountsManager, tagInternalApi);
 
         Invoice invoice = dispatcher.processAccountFromNotificationOrBusEvent(account.getId(), targetDate, new DryRunFutureDateArguments(), internalCallContext);
         Assert.assertNotNull(invoice);
@@ -272,6 +275,8 @@ public class TestInvoiceHelper {
 
     public void createInvoiceItem(final InvoiceItem invoiceItem, final InternalCallContext internalCallContext) throws EntityPersistenceException {
         invoiceItemSqlDao.create(new InvoiceItemModelDao(invoiceItem), internalCallContext);
+        // Bypasses the InvoiceDao, so make sure the materialized account balance stays up-to-date
+        invoiceDao.rebuildAccountBalance(false, internalCallContext);
     }
 
     public InvoiceItemModelDao getInvoiceItemById(final UUID invoiceItemId, final InternalCallContext internalCallContext) {
@@ -315,6 +320,7 @@ public class TestInvoiceHelper {
     public void createPayment(final InvoicePayment invoicePayment, final InternalCallContext internalCallContext) {
         try {
             invoicePaymentSqlDao.create(new InvoicePaymentModelDao(invoicePayment), internalCallContext);
+            invoiceDao.rebuildAccountBalance(false, internalCallContext);
         } catch (final EntityPersistenceException e) {
             Assert.fail(e.getMessage());
         }
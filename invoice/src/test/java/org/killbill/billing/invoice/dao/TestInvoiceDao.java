@@ -31,6 +31,7 @@ import javax.annotation.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.catalog.DefaultPrice;
@@ -56,6 +57,7 @@ import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoicePayment;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
 import org.killbill.billing.invoice.api.InvoiceStatus;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata;
 import org.killbill.billing.invoice.model.CreditAdjInvoiceItem;
 import org.killbill.billing.invoice.model.CreditBalanceAdjInvoiceItem;
@@ -71,7 +73,9 @@ import org.killbill.billing.junction.BillingEvent;
 import org.killbill.billing.junction.BillingEventSet;
 import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
+import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.currency.KillBillMoney;
+import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.clock.ClockMock;
 import org.mockito.Mockito;
 import org.skife.jdbi.v2.exceptions.TransactionFailedException;
@@ -87,6 +91,7 @@ import static org.killbill.billing.invoice.TestInvoiceHelper.TEN;
 import static org.killbill.billing.invoice.TestInvoiceHelper.TWENTY;
 import static org.killbill.billing.invoice.TestInvoiceHelper.ZERO;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -503,6 +508,50 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         assertEquals(invoices.size(), 0);
     }
 
+    @Test(groups = "slow")
+    public void testGetInvoicesForAccountOverlappingDate() throws EntityPersistenceException {
+        final UUID accountId = account.getId();
+        final UUID bundleId = UUID.randomUUID();
+        final UUID subscriptionId = UUID.randomUUID();
+
+        final LocalDate targetDate1 = new LocalDate(2011, 10, 6);
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), targetDate1, Currency.USD);
+        invoiceUtil.createInvoice(invoice1, true, context);
+        final RecurringInvoiceItem item1 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, subscriptionId, "test plan", "test phase A", targetDate1, targetDate1.plusMonths(1),
+                                                                    BigDecimal.TEN, BigDecimal.TEN, Currency.USD);
+        invoiceUtil.createInvoiceItem(item1, context);
+        final RepairAdjInvoiceItem repairItem1 = new RepairAdjInvoiceItem(invoice1.getId(), accountId, new LocalDate(2011, 10, 20), targetDate1.plusMonths(1),
+                                                                          new BigDecimal("-5.00"), Currency.USD, item1.getId());
+        invoiceUtil.createInvoiceItem(repairItem1, context);
+
+        final LocalDate targetDate2 = new LocalDate(2011, 12, 6);
+        final Invoice invoice2 = new DefaultInvoice(accountId, clock.getUTCToday(), targetDate2, Currency.USD);
+        invoiceUtil.createInvoice(invoice2, true, context);
+        final RecurringInvoiceItem item2 = new RecurringInvoiceItem(invoice2.getId(), accountId, bundleId, subscriptionId, "test plan", "test phase A", targetDate2, targetDate2.plusMonths(1),
+                                                                    BigDecimal.TEN, BigDecimal.TEN, Currency.USD);
+        invoiceUtil.createInvoiceItem(item2, context);
+        // Recent adjustment of the old item
+        final ItemAdjInvoiceItem itemAdj1 = new ItemAdjInvoiceItem(UUID.randomUUID(), null, invoice2.getId(), accountId, targetDate2, null, BigDecimal.ONE.negate(), Currency.USD, item1.getId());
+        invoiceUtil.createInvoiceItem(itemAdj1, context);
+
+        List<InvoiceModelDao> invoices = invoiceDao.getInvoicesByAccountOverlappingDate(new LocalDate(2011, 11, 1), context);
+        assertEquals(invoices.size(), 2);
+        assertEquals(invoices.get(0).getId(), invoice1.getId());
+        assertEquals(invoices.get(0).getInvoiceItems().size(), 2);
+        assertEquals(invoices.get(1).getId(), invoice2.getId());
+        assertEquals(invoices.get(1).getInvoiceItems().size(), 2);
+
+        // The old item, as well as all its adjustments, are now prior to the cutoff date
+        invoices = invoiceDao.getInvoicesByAccountOverlappingDate(new LocalDate(2011, 11, 6), context);
+        assertEquals(invoices.size(), 1);
+        assertEquals(invoices.get(0).getId(), invoice2.getId());
+        assertEquals(invoices.get(0).getInvoiceItems().size(), 1);
+        assertEquals(invoices.get(0).getInvoiceItems().get(0).getId(), item2.getId());
+
+        invoices = invoiceDao.getInvoicesByAccountOverlappingDate(new LocalDate(2012, 1, 6), context);
+        assertEquals(invoices.size(), 0);
+    }
+
     @Test(groups = "slow")
     public void testAccountBalance() throws EntityPersistenceException {
         final UUID accountId = account.getId();
@@ -533,6 +582,173 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         assertEquals(balance.compareTo(rate1.add(rate2).subtract(payment1)), 0);
     }
 
+    @Test(groups = "slow")
+    public void testMaterializedAccountBalance() throws InvoiceApiException, EntityPersistenceException {
+        final UUID accountId = account.getId();
+        assertTrue(invoiceDao.rebuildAccountBalance(true, context));
+
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 10, 6), Currency.USD);
+        final BigDecimal rate1 = new BigDecimal("20.0");
+        invoice1.addInvoiceItem(new RecurringInvoiceItem(invoice1.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase A",
+                                                         new LocalDate(2011, 3, 1), new LocalDate(2011, 4, 1), rate1, rate1, Currency.USD));
+        invoiceUtil.createInvoice(invoice1, true, context);
+        assertTrue(invoiceDao.rebuildAccountBalance(true, context));
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(rate1), 0);
+
+        // Over-pay the invoice and refund part of it, without adjustment
+        final UUID paymentId = UUID.randomUUID();
+        invoiceDao.notifyOfPaymentCompletion(new InvoicePaymentModelDao(new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, paymentId, invoice1.getId(), clock.getUTCNow(), new BigDecimal("25.0"),
+                                                                                                  Currency.USD, Currency.USD, paymentId.toString(), true)), context);
+        assertTrue(invoiceDao.rebuildAccountBalance(true, context));
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("-5.0")), 0);
+
+        invoiceDao.createRefund(paymentId, new BigDecimal("7.0"), false, ImmutableMap.<UUID, BigDecimal>of(), UUID.randomUUID().toString(), context);
+        assertTrue(invoiceDao.rebuildAccountBalance(true, context));
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("2.0")), 0);
+
+        // Write behind the back of the DAO: the materialized balance is now out of date, until rebuilt
+        dbi.onDemand(InvoiceItemSqlDao.class).create(new InvoiceItemModelDao(new CreditAdjInvoiceItem(invoice1.getId(), accountId, clock.getUTCToday(), null, new BigDecimal("-2.0"), Currency.USD)), context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("2.0")), 0);
+        assertFalse(invoiceDao.rebuildAccountBalance(true, context));
+        assertFalse(invoiceDao.rebuildAccountBalance(false, context));
+        assertTrue(invoiceDao.rebuildAccountBalance(true, context));
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(BigDecimal.ZERO), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(BigDecimal.ZERO), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testMaterializedAccountBalanceOnlyReloadsModifiedInvoices() throws InvoiceApiException, EntityPersistenceException {
+        final UUID accountId = account.getId();
+
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 10, 6), Currency.USD);
+        final BigDecimal rate1 = new BigDecimal("20.0");
+        invoice1.addInvoiceItem(new RecurringInvoiceItem(invoice1.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase A",
+                                                         new LocalDate(2011, 3, 1), new LocalDate(2011, 4, 1), rate1, rate1, Currency.USD));
+        invoiceUtil.createInvoice(invoice1, true, context);
+
+        final Invoice invoice2 = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 10, 6), Currency.USD);
+        final BigDecimal rate2 = new BigDecimal("30.0");
+        invoice2.addInvoiceItem(new RecurringInvoiceItem(invoice2.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase B",
+                                                         new LocalDate(2011, 4, 1), new LocalDate(2011, 5, 1), rate2, rate2, Currency.USD));
+        invoiceUtil.createInvoice(invoice2, true, context);
+        assertTrue(invoiceDao.rebuildAccountBalance(true, context));
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(rate1.add(rate2)), 0);
+
+        // Write behind the back of the DAO on the first invoice, then pay the second one
+        dbi.onDemand(InvoiceItemSqlDao.class).create(new InvoiceItemModelDao(new CreditAdjInvoiceItem(invoice1.getId(), accountId, clock.getUTCToday(), null, new BigDecimal("-2.0"), Currency.USD)), context);
+        final UUID paymentId = UUID.randomUUID();
+        invoiceDao.notifyOfPaymentCompletion(new InvoicePaymentModelDao(new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, paymentId, invoice2.getId(), clock.getUTCNow(), rate2,
+                                                                                                  Currency.USD, Currency.USD, paymentId.toString(), true)), context);
+
+        // Only the paid invoice was reloaded
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(rate1), 0);
+        assertFalse(invoiceDao.rebuildAccountBalance(false, context));
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("18.0")), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testMaterializedAccountBalanceWithWrittenOffInvoice() throws InvoiceApiException, EntityPersistenceException, TagApiException {
+        final UUID accountId = account.getId();
+
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 10, 6), Currency.USD);
+        final BigDecimal rate1 = new BigDecimal("20.0");
+        invoice1.addInvoiceItem(new RecurringInvoiceItem(invoice1.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase A",
+                                                         new LocalDate(2011, 3, 1), new LocalDate(2011, 4, 1), rate1, rate1, Currency.USD));
+        invoiceUtil.createInvoice(invoice1, true, context);
+
+        final Invoice invoice2 = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 10, 6), Currency.USD);
+        final BigDecimal rate2 = new BigDecimal("30.0");
+        invoice2.addInvoiceItem(new RecurringInvoiceItem(invoice2.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase B",
+                                                         new LocalDate(2011, 4, 1), new LocalDate(2011, 5, 1), rate2, rate2, Currency.USD));
+        invoiceUtil.createInvoice(invoice2, true, context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(rate1.add(rate2)), 0);
+
+        // The balance follows the tag as soon as it is added or removed, without any write on the invoices
+        tagInternalApi.addTag(invoice1.getId(), ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(rate2), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(BigDecimal.ZERO), 0);
+
+        tagInternalApi.removeTag(invoice1.getId(), ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(rate1.add(rate2)), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testUnpaidInvoicesSummaryFromInvoiceBalances() throws InvoiceApiException, EntityPersistenceException {
+        final UUID accountId = account.getId();
+        final LocalDate upToDate = new LocalDate(2012, 1, 1);
+        assertNull(invoiceDao.getUnpaidInvoicesSummary(upToDate, context));
+
+        final Invoice invoice1 = new DefaultInvoice(accountId, new LocalDate(2011, 3, 1), new LocalDate(2011, 3, 1), Currency.USD);
+        final BigDecimal rate1 = new BigDecimal("20.0");
+        invoice1.addInvoiceItem(new RecurringInvoiceItem(invoice1.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase A",
+                                                         new LocalDate(2011, 3, 1), new LocalDate(2011, 4, 1), rate1, rate1, Currency.USD));
+        invoiceUtil.createInvoice(invoice1, true, context);
+
+        final Invoice invoice2 = new DefaultInvoice(accountId, new LocalDate(2011, 4, 1), new LocalDate(2011, 10, 6), Currency.USD);
+        final BigDecimal rate2 = new BigDecimal("30.0");
+        invoice2.addInvoiceItem(new RecurringInvoiceItem(invoice2.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase B",
+                                                         new LocalDate(2011, 4, 1), new LocalDate(2011, 5, 1), rate2, rate2, Currency.USD));
+        invoiceUtil.createInvoice(invoice2, true, context);
+
+        UnpaidInvoicesSummary summary = invoiceDao.getUnpaidInvoicesSummary(upToDate, context);
+        assertEquals(summary.getNumberOfUnpaidInvoices(), 2);
+        assertEquals(summary.getUnpaidInvoiceBalance().compareTo(rate1.add(rate2)), 0);
+        assertEquals(summary.getIdOfEarliestUnpaidInvoice(), invoice1.getId());
+        assertEquals(summary.getDateOfEarliestUnpaidInvoice(), new LocalDate(2011, 3, 1));
+        assertEquals(summary.getNumberOfUnpaidInvoices(), invoiceDao.getUnpaidInvoicesByAccountId(accountId, upToDate, context).size());
+
+        // The second invoice is filtered out by its target date
+        summary = invoiceDao.getUnpaidInvoicesSummary(new LocalDate(2011, 6, 1), context);
+        assertEquals(summary.getNumberOfUnpaidInvoices(), 1);
+        assertEquals(summary.getUnpaidInvoiceBalance().compareTo(rate1), 0);
+        assertEquals(summary.getIdOfEarliestUnpaidInvoice(), invoice1.getId());
+        assertEquals(summary.getNumberOfUnpaidInvoices(), invoiceDao.getUnpaidInvoicesByAccountId(accountId, new LocalDate(2011, 6, 1), context).size());
+
+        final UUID paymentId = UUID.randomUUID();
+        invoiceDao.notifyOfPaymentCompletion(new InvoicePaymentModelDao(new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, paymentId, invoice1.getId(), clock.getUTCNow(), rate1,
+                                                                                                  Currency.USD, Currency.USD, paymentId.toString(), true)), context);
+        assertTrue(invoiceDao.rebuildAccountBalance(true, context));
+
+        summary = invoiceDao.getUnpaidInvoicesSummary(upToDate, context);
+        assertEquals(summary.getNumberOfUnpaidInvoices(), 1);
+        assertEquals(summary.getUnpaidInvoiceBalance().compareTo(rate2), 0);
+        assertEquals(summary.getIdOfEarliestUnpaidInvoice(), invoice2.getId());
+        assertEquals(summary.getDateOfEarliestUnpaidInvoice(), new LocalDate(2011, 4, 1));
+    }
+
+    @Test(groups = "slow")
+    public void testUnpaidInvoicesSummaryFromInvoiceBalancesWithWrittenOffInvoice() throws InvoiceApiException, EntityPersistenceException, TagApiException {
+        final UUID accountId = account.getId();
+        final LocalDate upToDate = new LocalDate(2012, 1, 1);
+
+        final Invoice invoice1 = new DefaultInvoice(accountId, new LocalDate(2011, 3, 1), new LocalDate(2011, 3, 1), Currency.USD);
+        final BigDecimal rate1 = new BigDecimal("20.0");
+        invoice1.addInvoiceItem(new RecurringInvoiceItem(invoice1.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase A",
+                                                         new LocalDate(2011, 3, 1), new LocalDate(2011, 4, 1), rate1, rate1, Currency.USD));
+        invoiceUtil.createInvoice(invoice1, true, context);
+
+        final Invoice invoice2 = new DefaultInvoice(accountId, new LocalDate(2011, 4, 1), new LocalDate(2011, 4, 1), Currency.USD);
+        final BigDecimal rate2 = new BigDecimal("30.0");
+        invoice2.addInvoiceItem(new RecurringInvoiceItem(invoice2.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase B",
+                                                         new LocalDate(2011, 4, 1), new LocalDate(2011, 5, 1), rate2, rate2, Currency.USD));
+        invoiceUtil.createInvoice(invoice2, true, context);
+
+        // The summary follows the tag as soon as it is added or removed, without waiting for any bus event
+        tagInternalApi.addTag(invoice1.getId(), ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), context);
+        UnpaidInvoicesSummary summary = invoiceDao.getUnpaidInvoicesSummary(upToDate, context);
+        assertEquals(summary.getNumberOfUnpaidInvoices(), 1);
+        assertEquals(summary.getUnpaidInvoiceBalance().compareTo(rate2), 0);
+        assertEquals(summary.getIdOfEarliestUnpaidInvoice(), invoice2.getId());
+        assertEquals(summary.getDateOfEarliestUnpaidInvoice(), new LocalDate(2011, 4, 1));
+        assertEquals(summary.getNumberOfUnpaidInvoices(), invoiceDao.getUnpaidInvoicesByAccountId(accountId, upToDate, context).size());
+
+        tagInternalApi.removeTag(invoice1.getId(), ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), context);
+        summary = invoiceDao.getUnpaidInvoicesSummary(upToDate, context);
+        assertEquals(summary.getNumberOfUnpaidInvoices(), 2);
+        assertEquals(summary.getUnpaidInvoiceBalance().compareTo(rate1.add(rate2)), 0);
+        assertEquals(summary.getIdOfEarliestUnpaidInvoice(), invoice1.getId());
+    }
+
     @Test(groups = "slow")
     public void testAccountBalanceWithCredit() throws EntityPersistenceException {
         final UUID accountId = account.getId();
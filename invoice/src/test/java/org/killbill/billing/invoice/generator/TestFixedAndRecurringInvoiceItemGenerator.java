@@ -1351,4 +1351,169 @@ public class TestFixedAndRecurringInvoiceItemGenerator extends InvoiceTestSuiteN
             assertEquals(e.getCode(), ErrorCode.UNEXPECTED_ERROR.getCode());
         }
     }
+
+    @Test(groups = "fast")
+    public void testIncrementalGenerationIgnoresItemsPriorToCutoffDate() throws InvoiceApiException {
+        final LocalDate startDate = new LocalDate("2016-01-01");
+
+        final BillingEventSet events = new MockBillingEventSet();
+        final BigDecimal amount = BigDecimal.TEN;
+        final MockInternationalPrice price = new MockInternationalPrice(new DefaultPrice(amount, account.getCurrency()));
+        final Plan plan = new MockPlan("my-plan");
+        final PlanPhase planPhase = new MockPlanPhase(price, null, BillingPeriod.MONTHLY, PhaseType.EVERGREEN);
+        final BillingEvent event = invoiceUtil.createMockBillingEvent(account,
+                                                                      subscription,
+                                                                      startDate.toDateTimeAtStartOfDay(),
+                                                                      plan,
+                                                                      planPhase,
+                                                                      null,
+                                                                      amount,
+                                                                      account.getCurrency(),
+                                                                      planPhase.getRecurring().getBillingPeriod(),
+                                                                      1,
+                                                                      BillingMode.IN_ADVANCE,
+                                                                      "Billing Event Desc",
+                                                                      1L,
+                                                                      SubscriptionBaseTransitionType.CREATE);
+        events.add(event);
+
+        // One year of history, with an old period billed incorrectly
+        final List<Invoice> existingInvoices = new LinkedList<Invoice>();
+        for (int i = 0; i < 12; i++) {
+            final BigDecimal billedAmount = i == 2 ? amount.add(amount) : amount;
+            final Invoice invoice = new DefaultInvoice(account.getId(), clock.getUTCToday(), startDate.plusMonths(i), account.getCurrency());
+            invoice.addInvoiceItem(new RecurringInvoiceItem(UUID.randomUUID(),
+                                                            startDate.plusMonths(i).toDateTimeAtStartOfDay(),
+                                                            invoice.getId(),
+                                                            account.getId(),
+                                                            subscription.getBundleId(),
+                                                            subscription.getId(),
+                                                            event.getPlan().getName(),
+                                                            event.getPlanPhase().getName(),
+                                                            startDate.plusMonths(i),
+                                                            startDate.plusMonths(1 + i),
+                                                            billedAmount,
+                                                            billedAmount,
+                                                            account.getCurrency()));
+            existingInvoices.add(invoice);
+        }
+
+        final LocalDate targetDate = startDate.plusMonths(12);
+
+        // Full rebuild: the old period is repaired
+        final List<InvoiceItem> fullRebuildItems = fixedAndRecurringInvoiceItemGenerator.generateItems(account,
+                                                                                                       UUID.randomUUID(),
+                                                                                                       events,
+                                                                                                       existingInvoices,
+                                                                                                       targetDate,
+                                                                                                       account.getCurrency(),
+                                                                                                       new HashMap<UUID, SubscriptionFutureNotificationDates>(),
+                                                                                                       internalCallContext);
+        assertTrue(fullRebuildItems.size() > 1);
+
+        // Incremental generation: only the new period is billed
+        final List<InvoiceItem> incrementalItems = fixedAndRecurringInvoiceItemGenerator.generateItems(account,
+                                                                                                       UUID.randomUUID(),
+                                                                                                       events,
+                                                                                                       existingInvoices,
+                                                                                                       targetDate.minusMonths(3),
+                                                                                                       targetDate,
+                                                                                                       account.getCurrency(),
+                                                                                                       new HashMap<UUID, SubscriptionFutureNotificationDates>(),
+                                                                                                       internalCallContext);
+        assertEquals(incrementalItems.size(), 1);
+        assertEquals(incrementalItems.get(0).getInvoiceItemType(), InvoiceItemType.RECURRING);
+        assertEquals(incrementalItems.get(0).getStartDate(), targetDate);
+        assertEquals(incrementalItems.get(0).getEndDate(), targetDate.plusMonths(1));
+    }
+
+    @Test(groups = "fast")
+    public void testIncrementalGenerationWithChangePriorToCutoffDate() throws InvoiceApiException {
+        final LocalDate startDate = new LocalDate("2016-01-01");
+        final LocalDate changeDate = startDate.plusMonths(5);
+
+        final BillingEventSet events = new MockBillingEventSet();
+        final BigDecimal oldAmount = BigDecimal.TEN;
+        final MockInternationalPrice oldPrice = new MockInternationalPrice(new DefaultPrice(oldAmount, account.getCurrency()));
+        final Plan oldPlan = new MockPlan("old-plan");
+        final PlanPhase oldPlanPhase = new MockPlanPhase(oldPrice, null, BillingPeriod.MONTHLY, PhaseType.EVERGREEN);
+        final BillingEvent oldEvent = invoiceUtil.createMockBillingEvent(account,
+                                                                         subscription,
+                                                                         startDate.toDateTimeAtStartOfDay(),
+                                                                         oldPlan,
+                                                                         oldPlanPhase,
+                                                                         null,
+                                                                         oldAmount,
+                                                                         account.getCurrency(),
+                                                                         oldPlanPhase.getRecurring().getBillingPeriod(),
+                                                                         1,
+                                                                         BillingMode.IN_ADVANCE,
+                                                                         "Billing Event Desc",
+                                                                         1L,
+                                                                         SubscriptionBaseTransitionType.CREATE);
+        events.add(oldEvent);
+
+        final BigDecimal newAmount = BigDecimal.ONE;
+        final MockInternationalPrice newPrice = new MockInternationalPrice(new DefaultPrice(newAmount, account.getCurrency()));
+        final Plan newPlan = new MockPlan("new-plan");
+        final PlanPhase newPlanPhase = new MockPlanPhase(newPrice, null, BillingPeriod.MONTHLY, PhaseType.EVERGREEN);
+        final BillingEvent newEvent = invoiceUtil.createMockBillingEvent(account,
+                                                                         subscription,
+                                                                         changeDate.toDateTimeAtStartOfDay(),
+                                                                         newPlan,
+                                                                         newPlanPhase,
+                                                                         null,
+                                                                         newAmount,
+                                                                         account.getCurrency(),
+                                                                         newPlanPhase.getRecurring().getBillingPeriod(),
+                                                                         1,
+                                                                         BillingMode.IN_ADVANCE,
+                                                                         "Billing Event Desc",
+                                                                         2L,
+                                                                         SubscriptionBaseTransitionType.CHANGE);
+        events.add(newEvent);
+
+        // One year of history, with a period of the old plan billed incorrectly
+        final List<Invoice> existingInvoices = new LinkedList<Invoice>();
+        for (int i = 0; i < 12; i++) {
+            final LocalDate periodStartDate = startDate.plusMonths(i);
+            final BillingEvent event = periodStartDate.compareTo(changeDate) < 0 ? oldEvent : newEvent;
+            final BigDecimal amount = event == oldEvent ? oldAmount : newAmount;
+            final BigDecimal billedAmount = i == 2 ? amount.add(amount) : amount;
+            final Invoice invoice = new DefaultInvoice(account.getId(), clock.getUTCToday(), periodStartDate, account.getCurrency());
+            invoice.addInvoiceItem(new RecurringInvoiceItem(UUID.randomUUID(),
+                                                            periodStartDate.toDateTimeAtStartOfDay(),
+                                                            invoice.getId(),
+                                                            account.getId(),
+                                                            subscription.getBundleId(),
+                                                            subscription.getId(),
+                                                            event.getPlan().getName(),
+                                                            event.getPlanPhase().getName(),
+                                                            periodStartDate,
+                                                            periodStartDate.plusMonths(1),
+                                                            billedAmount,
+                                                            billedAmount,
+                                                            account.getCurrency()));
+            existingInvoices.add(invoice);
+        }
+
+        final LocalDate targetDate = startDate.plusMonths(12);
+
+        // The periods of the old plan end prior to the cutoff date: they are neither generated nor repaired
+        final List<InvoiceItem> incrementalItems = fixedAndRecurringInvoiceItemGenerator.generateItems(account,
+                                                                                                       UUID.randomUUID(),
+                                                                                                       events,
+                                                                                                       existingInvoices,
+                                                                                                       targetDate.minusMonths(3),
+                                                                                                       targetDate,
+                                                                                                       account.getCurrency(),
+                                                                                                       new HashMap<UUID, SubscriptionFutureNotificationDates>(),
+                                                                                                       internalCallContext);
+        assertEquals(incrementalItems.size(), 1);
+        assertEquals(incrementalItems.get(0).getInvoiceItemType(), InvoiceItemType.RECURRING);
+        assertEquals(incrementalItems.get(0).getPlanName(), newPlan.getName());
+        assertEquals(incrementalItems.get(0).getStartDate(), targetDate);
+        assertEquals(incrementalItems.get(0).getEndDate(), targetDate.plusMonths(1));
+        assertEquals(incrementalItems.get(0).getAmount().compareTo(newAmount), 0);
+    }
 }
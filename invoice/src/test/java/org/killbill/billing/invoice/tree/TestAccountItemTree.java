@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.tree;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.invoice.InvoiceTestSuiteNoDB;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.model.ItemAdjInvoiceItem;
+import org.killbill.billing.invoice.model.RecurringInvoiceItem;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestAccountItemTree extends InvoiceTestSuiteNoDB {
+
+    private final UUID invoiceId = UUID.randomUUID();
+    private final UUID accountId = UUID.randomUUID();
+    private final String planName = "my-plan";
+    private final String phaseName = "my-phase";
+    private final Currency currency = Currency.USD;
+    private final LocalDate startDate = new LocalDate(2010, 1, 1);
+
+    private ExecutorService executor;
+
+    @BeforeClass(groups = "fast")
+    protected void beforeClass() throws Exception {
+        super.beforeClass();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass(groups = "fast")
+    protected void afterClass() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test(groups = "fast")
+    public void testSequentialAndParallelMergeAreIdentical() {
+        final List<UUID> subscriptionIds = createSubscriptionIds(20);
+        final List<InvoiceItem> existingItems = createExistingItems(subscriptionIds, 24);
+        final List<InvoiceItem> proposedItems = createProposedItems(subscriptionIds, 25);
+
+        final List<String> sequentialResult = mergeAndDescribe(null, existingItems, proposedItems);
+        final List<String> parallelResult = mergeAndDescribe(executor, existingItems, proposedItems);
+        assertEquals(parallelResult, sequentialResult);
+        // Only the additional month is generated for each subscription
+        assertEquals(sequentialResult.size(), subscriptionIds.size());
+    }
+
+    @Test(groups = "fast", description = "Accounts with tens of thousands of items (the linked item lookups used to be quadratic)")
+    public void testLargeInvoiceHistory() {
+        final List<UUID> subscriptionIds = createSubscriptionIds(200);
+        final List<InvoiceItem> existingItems = createExistingItems(subscriptionIds, 120);
+        final List<InvoiceItem> proposedItems = createProposedItems(subscriptionIds, 121);
+        // 120 recurring items and 40 adjustments per subscription
+        assertEquals(existingItems.size(), 200 * 160);
+
+        final List<String> result = mergeAndDescribe(executor, existingItems, proposedItems);
+        assertEquals(result.size(), subscriptionIds.size());
+    }
+
+    private List<String> mergeAndDescribe(final ExecutorService executor, final Iterable<InvoiceItem> existingItems, final List<InvoiceItem> proposedItems) {
+        final AccountItemTree tree = new AccountItemTree(accountId, invoiceId, executor);
+        for (final InvoiceItem existingItem : existingItems) {
+            tree.addExistingItem(existingItem);
+        }
+        tree.mergeWithProposedItems(proposedItems);
+
+        // Item ids of generated items are random, compare the relevant fields instead
+        final List<String> result = new ArrayList<String>();
+        for (final InvoiceItem item : tree.getResultingItemList()) {
+            result.add(String.format("%s/%s/%s/%s/%s", item.getInvoiceItemType(), item.getSubscriptionId(), item.getStartDate(), item.getEndDate(), item.getAmount()));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private List<UUID> createSubscriptionIds(final int nbSubscriptions) {
+        final List<UUID> subscriptionIds = new ArrayList<UUID>(nbSubscriptions);
+        for (int i = 0; i < nbSubscriptions; i++) {
+            subscriptionIds.add(UUID.randomUUID());
+        }
+        return subscriptionIds;
+    }
+
+    // Monthly recurring items, with a partial item adjustment every 3 months. The first adjustment of each
+    // subscription is seen before the item it adjusts, to also go through the pending adjustments.
+    private List<InvoiceItem> createExistingItems(final List<UUID> subscriptionIds, final int nbMonths) {
+        final List<InvoiceItem> items = new ArrayList<InvoiceItem>();
+        for (final UUID subscriptionId : subscriptionIds) {
+            for (int i = 0; i < nbMonths; i++) {
+                final InvoiceItem recurring = createRecurringItem(subscriptionId, i);
+                if (i % 3 != 0) {
+                    items.add(recurring);
+                    continue;
+                }
+
+                final InvoiceItem itemAdj = new ItemAdjInvoiceItem(recurring, recurring.getStartDate(), BigDecimal.ONE.negate(), currency);
+                if (i == 0) {
+                    items.add(itemAdj);
+                    items.add(recurring);
+                } else {
+                    items.add(recurring);
+                    items.add(itemAdj);
+                }
+            }
+        }
+        return items;
+    }
+
+    private List<InvoiceItem> createProposedItems(final List<UUID> subscriptionIds, final int nbMonths) {
+        final List<InvoiceItem> items = new ArrayList<InvoiceItem>();
+        for (final UUID subscriptionId : subscriptionIds) {
+            for (int i = 0; i < nbMonths; i++) {
+                items.add(createRecurringItem(subscriptionId, i));
+            }
+        }
+        return items;
+    }
+
+    private InvoiceItem createRecurringItem(final UUID subscriptionId, final int month) {
+        return new RecurringInvoiceItem(invoiceId, accountId, subscriptionId, subscriptionId, planName, phaseName,
+                                        startDate.plusMonths(month), startDate.plusMonths(month + 1), BigDecimal.TEN, BigDecimal.TEN, currency);
+    }
+}
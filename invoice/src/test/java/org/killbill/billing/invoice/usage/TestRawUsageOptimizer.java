@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.joda.time.LocalDate;
 import org.killbill.billing.catalog.DefaultTier;
@@ -32,9 +33,14 @@ import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.catalog.api.Usage;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.model.UsageInvoiceItem;
+import org.killbill.billing.invoice.usage.RawUsageOptimizer.RawUsageOptimizerResult;
+import org.killbill.billing.usage.RawUsage;
+import org.killbill.billing.usage.api.svcs.DefaultRawUsage;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+
 public class TestRawUsageOptimizer extends TestUsageInArrearBase {
 
     @Test(groups = "fast")
@@ -125,6 +131,22 @@ public class TestRawUsageOptimizer extends TestUsageInArrearBase {
         Assert.assertEquals(result.compareTo(new LocalDate(2014, 06, 15)), 0, "142 got " + result);
     }
 
+    @Test(groups = "fast")
+    public void testRawUsagePartitionedPerSubscription() {
+        final UUID otherSubscriptionId = UUID.randomUUID();
+        final RawUsage raw1 = new DefaultRawUsage(subscriptionId, new LocalDate(2014, 03, 20), "unit", 130L);
+        final RawUsage raw2 = new DefaultRawUsage(otherSubscriptionId, new LocalDate(2014, 03, 18), "unit", 12L);
+        final RawUsage raw3 = new DefaultRawUsage(subscriptionId, new LocalDate(2014, 03, 16), "unit2", 27L);
+        final RawUsage raw4 = new DefaultRawUsage(subscriptionId, new LocalDate(2014, 03, 16), "unit", 3L);
+        final RawUsage raw5 = new DefaultRawUsage(otherSubscriptionId, new LocalDate(2014, 03, 15), "unit", 8L);
+
+        final RawUsageOptimizerResult result = new RawUsageOptimizerResult(new LocalDate(2014, 03, 15), ImmutableList.<RawUsage>of(raw1, raw2, raw3, raw4, raw5));
+        Assert.assertEquals(result.getRawUsage().size(), 5);
+        Assert.assertEquals(result.getRawUsageForSubscription(subscriptionId), ImmutableList.<RawUsage>of(raw4, raw3, raw1));
+        Assert.assertEquals(result.getRawUsageForSubscription(otherSubscriptionId), ImmutableList.<RawUsage>of(raw5, raw2));
+        Assert.assertTrue(result.getRawUsageForSubscription(UUID.randomUUID()).isEmpty());
+    }
+
     private InvoiceItem createUsageItem(final LocalDate startDate) {
         return new UsageInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, planName, phaseName, usageName, startDate, startDate.plusMonths(1), BigDecimal.TEN, Currency.USD);
     }
@@ -18,6 +18,7 @@
 package org.killbill.billing.jaxrs.resources;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.Collection;
@@ -50,6 +51,7 @@ import org.joda.time.DateTimeZone;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.AccountUserApi;
+import org.killbill.billing.invoice.AdminInvoiceApi;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceUserApi;
 import org.killbill.billing.jaxrs.json.AdminPaymentJson;
@@ -71,8 +73,11 @@ import org.killbill.billing.util.api.RecordIdApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.export.BinaryExportUserApi;
+import org.killbill.billing.util.search.AdminSearchIndexApi;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.SystemTags;
 import org.killbill.bus.api.BusEvent;
@@ -100,6 +105,7 @@ import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
 
 @Singleton
 @Path(JaxrsResource.ADMIN_PATH)
@@ -110,11 +116,15 @@ public class AdminResource extends JaxRsResourceBase {
 
     private final AdminPaymentApi adminPaymentApi;
     private final InvoiceUserApi invoiceUserApi;
+    private final AdminInvoiceApi adminInvoiceApi;
+    private final InternalCallContextFactory internalCallContextFactory;
     private final TenantUserApi tenantApi;
     private final CacheManager cacheManager;
     private final RecordIdApi recordIdApi;
     private final PersistentBus persistentBus;
     private final NotificationQueueService notificationQueueService;
+    private final AdminSearchIndexApi adminSearchIndexApi;
+    private final BinaryExportUserApi binaryExportUserApi;
 
     @Inject
     public AdminResource(final JaxrsUriBuilder uriBuilder,
@@ -125,21 +135,29 @@ public class AdminResource extends JaxRsResourceBase {
                          final PaymentApi paymentApi,
                          final AdminPaymentApi adminPaymentApi,
                          final InvoiceUserApi invoiceUserApi,
+                         final AdminInvoiceApi adminInvoiceApi,
+                         final InternalCallContextFactory internalCallContextFactory,
                          final CacheManager cacheManager,
                          final TenantUserApi tenantApi,
                          final RecordIdApi recordIdApi,
                          final PersistentBus persistentBus,
                          final NotificationQueueService notificationQueueService,
+                         final AdminSearchIndexApi adminSearchIndexApi,
+                         final BinaryExportUserApi binaryExportUserApi,
                          final Clock clock,
                          final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, null, clock, context);
         this.adminPaymentApi = adminPaymentApi;
         this.invoiceUserApi = invoiceUserApi;
+        this.adminInvoiceApi = adminInvoiceApi;
+        this.internalCallContextFactory = internalCallContextFactory;
         this.tenantApi = tenantApi;
         this.recordIdApi = recordIdApi;
         this.cacheManager = cacheManager;
         this.persistentBus = persistentBus;
         this.notificationQueueService = notificationQueueService;
+        this.adminSearchIndexApi = adminSearchIndexApi;
+        this.binaryExportUserApi = binaryExportUserApi;
     }
 
     @GET
@@ -285,6 +303,56 @@ public class AdminResource extends JaxRsResourceBase {
                        .build();
     }
 
+    @PUT
+    @Path("/" + ACCOUNTS + "/{accountId:" + UUID_PATTERN + "}/" + BALANCE)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Verify the materialized account balance and CBA, and rebuild them if needed")
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid account id supplied")})
+    public Response rebuildAccountBalance(@PathParam("accountId") final String accountIdStr,
+                                          @QueryParam(QUERY_BALANCE_DRY_RUN) @DefaultValue("false") final Boolean dryRun,
+                                          @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                          @HeaderParam(HDR_REASON) final String reason,
+                                          @HeaderParam(HDR_COMMENT) final String comment,
+                                          @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        final UUID accountId = UUID.fromString(accountIdStr);
+
+        final boolean upToDate = adminInvoiceApi.rebuildAccountBalance(accountId, dryRun, callContext);
+        return Response.status(Status.OK).entity(ImmutableMap.<String, Boolean>of("upToDate", upToDate)).build();
+    }
+
+    @PUT
+    @Path("/" + SEARCH_INDEX)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Schedule a rebuild of the search index of the tenant for the given object type if specified, otherwise for all indexed object types")
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid object type supplied")})
+    public Response rebuildSearchIndex(@QueryParam(QUERY_OBJECT_TYPE) final String objectTypeStr,
+                                       @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                       @HeaderParam(HDR_REASON) final String reason,
+                                       @HeaderParam(HDR_COMMENT) final String comment,
+                                       @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        final ObjectType objectType = objectTypeStr != null ? ObjectType.valueOf(objectTypeStr) : null;
+
+        final boolean enabled = adminSearchIndexApi.rebuildSearchIndex(objectType, callContext);
+        return Response.status(Status.OK).entity(ImmutableMap.<String, Boolean>of("enabled", enabled)).build();
+    }
+
+    @POST
+    @Path("/" + IMPORT)
+    @Consumes(APPLICATION_OCTET_STREAM)
+    @ApiOperation(value = "Import data of the tenant previously exported in binary format")
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid data supplied")})
+    public Response importBinaryData(final InputStream data,
+                                     @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                     @HeaderParam(HDR_REASON) final String reason,
+                                     @HeaderParam(HDR_COMMENT) final String comment,
+                                     @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        binaryExportUserApi.importBinaryData(data, callContext);
+        return Response.status(Status.OK).build();
+    }
+
     @DELETE
     @Path("/" + CACHE)
     @Produces(APPLICATION_JSON)
@@ -375,6 +443,10 @@ public class AdminResource extends JaxRsResourceBase {
         final Ehcache tenantCatalogCache = cacheManager.getEhcache(CacheType.TENANT_CATALOG.getCacheName());
         tenantCatalogCache.remove(tenantRecordId);
 
+        // clear tenant-plugin-catalog cache by tenantRecordId
+        final Ehcache tenantPluginCatalogCache = cacheManager.getEhcache(CacheType.TENANT_PLUGIN_CATALOG.getCacheName());
+        tenantPluginCatalogCache.remove(tenantRecordId);
+
         return Response.status(Status.OK).build();
     }
 
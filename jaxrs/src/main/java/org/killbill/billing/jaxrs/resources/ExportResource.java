@@ -30,24 +30,32 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.StreamingOutput;
 
+import org.apache.shiro.authz.AuthorizationException;
 import org.killbill.billing.account.api.AccountUserApi;
 import org.killbill.billing.jaxrs.util.Context;
 import org.killbill.billing.jaxrs.util.JaxrsUriBuilder;
 import org.killbill.billing.payment.api.PaymentApi;
+import org.killbill.billing.security.Logical;
+import org.killbill.billing.security.Permission;
+import org.killbill.billing.security.SecurityApiException;
+import org.killbill.billing.security.api.SecurityApi;
 import org.killbill.billing.util.api.AuditUserApi;
 import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.api.ExportUserApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.export.BinaryExportUserApi;
 import org.killbill.clock.Clock;
 import org.killbill.commons.metrics.TimedResource;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Singleton;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 
 @Singleton
@@ -56,9 +64,13 @@ import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 public class ExportResource extends JaxRsResourceBase {
 
     private final ExportUserApi exportUserApi;
+    private final BinaryExportUserApi binaryExportUserApi;
+    private final SecurityApi securityApi;
 
     @Inject
     public ExportResource(final ExportUserApi exportUserApi,
+                          final BinaryExportUserApi binaryExportUserApi,
+                          final SecurityApi securityApi,
                           final JaxrsUriBuilder uriBuilder,
                           final TagUserApi tagUserApi,
                           final CustomFieldUserApi customFieldUserApi,
@@ -69,6 +81,8 @@ public class ExportResource extends JaxRsResourceBase {
                           final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, null, clock, context);
         this.exportUserApi = exportUserApi;
+        this.binaryExportUserApi = binaryExportUserApi;
+        this.securityApi = securityApi;
     }
 
     @TimedResource
@@ -92,4 +106,54 @@ public class ExportResource extends JaxRsResourceBase {
             }
         };
     }
+
+    @TimedResource
+    @GET
+    @Path("/{accountId:" + UUID_PATTERN + "}/" + BINARY)
+    @Produces(APPLICATION_OCTET_STREAM)
+    @ApiOperation(value = "Export account data in binary format")
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid account id supplied"),
+                           @ApiResponse(code = 404, message = "Account not found")})
+    public StreamingOutput exportBinaryDataForAccount(@PathParam("accountId") final String accountId,
+                                                      @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                                      @HeaderParam(HDR_REASON) final String reason,
+                                                      @HeaderParam(HDR_COMMENT) final String comment,
+                                                      @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                binaryExportUserApi.exportBinaryDataForAccount(UUID.fromString(accountId), output, callContext);
+            }
+        };
+    }
+
+    @TimedResource
+    @GET
+    @Path("/" + BINARY)
+    @Produces(APPLICATION_OCTET_STREAM)
+    @ApiOperation(value = "Export tenant data in binary format")
+    @ApiResponses(value = {@ApiResponse(code = 403, message = "Insufficient permissions")})
+    public StreamingOutput exportBinaryDataForTenant(@HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                                     @HeaderParam(HDR_REASON) final String reason,
+                                                     @HeaderParam(HDR_COMMENT) final String comment,
+                                                     @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        // The API is only invoked once the response has been committed: check the permission upfront so that a 403 can still be returned
+        try {
+            securityApi.checkCurrentUserPermissions(ImmutableList.<Permission>of(Permission.ADMIN_CAN_FIX_DATA), Logical.AND, callContext);
+        } catch (final SecurityApiException e) {
+            if (e.getCause() != null && e.getCause() instanceof AuthorizationException) {
+                throw (AuthorizationException) e.getCause();
+            } else {
+                throw new AuthorizationException(e);
+            }
+        }
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                binaryExportUserApi.exportBinaryDataForTenant(output, callContext);
+            }
+        };
+    }
 }
@@ -91,6 +91,7 @@ import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.customfield.CustomField;
 import org.killbill.billing.util.customfield.StringCustomField;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.jackson.ObjectMapper;
 import org.killbill.billing.util.tag.Tag;
@@ -336,6 +337,7 @@ public abstract class JaxRsResourceBase implements JaxrsResource {
                        .header(HDR_PAGINATION_TOTAL_NB_RECORDS, entities.getTotalNbRecords())
                        .header(HDR_PAGINATION_MAX_NB_RECORDS, entities.getMaxNbRecords())
                        .header(HDR_PAGINATION_NEXT_PAGE_URI, nextPageUri)
+                       .header(HDR_PAGINATION_NEXT_PAGE_TOKEN, entities instanceof PageTokenPagination ? ((PageTokenPagination) entities).getNextPageToken() : null)
                        .build();
     }
 
@@ -53,6 +53,7 @@ public interface JaxrsResource {
     public static String HDR_PAGINATION_TOTAL_NB_RECORDS = "X-Killbill-Pagination-TotalNbRecords";
     public static String HDR_PAGINATION_MAX_NB_RECORDS = "X-Killbill-Pagination-MaxNbRecords";
     public static String HDR_PAGINATION_NEXT_PAGE_URI = "X-Killbill-Pagination-NextPageUri";
+    public static String HDR_PAGINATION_NEXT_PAGE_TOKEN = "X-Killbill-Pagination-NextPageToken";
 
     /*
      * Patterns
@@ -84,12 +85,16 @@ public interface JaxrsResource {
     public static final String QUERY_ENTITLEMENT_POLICY = "entitlementPolicy";
     public static final String QUERY_SEARCH_OFFSET = "offset";
     public static final String QUERY_SEARCH_LIMIT = "limit";
+    public static final String QUERY_SEARCH_PAGE_TOKEN = "pageToken";
+    public static final String QUERY_SEARCH_WITH_COUNT = "withCount";
     public static final String QUERY_ENTITLEMENT_EFFECTIVE_FROM_DT = "effectiveFromDate";
     public static final String QUERY_FORCE_NEW_BCD_WITH_PAST_EFFECTIVE_DATE = "forceNewBcdWithPastEffectiveDate";
 
     public static final String QUERY_ACCOUNT_WITH_BALANCE = "accountWithBalance";
     public static final String QUERY_ACCOUNT_WITH_BALANCE_AND_CBA = "accountWithBalanceAndCBA";
 
+    public static final String QUERY_BALANCE_DRY_RUN = "dryRun";
+
     public static final String QUERY_ACCOUNT_ID = "accountId";
 
     public static final String QUERY_BLOCKING_STATE_TYPES = "blockingStateTypes";
@@ -230,6 +235,7 @@ public interface JaxrsResource {
 
     public static final String USAGES = "usages";
     public static final String USAGES_PATH = PREFIX + "/" + USAGES;
+    public static final String BULK = "bulk";
 
     public static final String EXPORT = "export";
     public static final String EXPORT_PATH = PREFIX + "/" + EXPORT;
@@ -248,6 +254,7 @@ public interface JaxrsResource {
     public static final String TEST_PATH = PREFIX + "/" + TEST;
 
     public static final String CBA_REBALANCING = "cbaRebalancing";
+    public static final String BALANCE = "balance";
 
     public static final String PAUSE = "pause";
     public static final String RESUME = "resume";
@@ -277,6 +284,10 @@ public interface JaxrsResource {
     public static final String TRANSFER_CREDIT = "transferCredit";
 
     public static final String CACHE = "cache";
+    public static final String SEARCH_INDEX = "searchIndex";
+    public static final String IMPORT = "import";
+
+    public static final String BINARY = "binary";
 
     public static final String QUERY_INCLUDED_DELETED = "includedDeleted";
 
@@ -55,6 +55,7 @@ import org.killbill.billing.jaxrs.json.PaymentTransactionJson;
 import org.killbill.billing.jaxrs.json.TagJson;
 import org.killbill.billing.jaxrs.util.Context;
 import org.killbill.billing.jaxrs.util.JaxrsUriBuilder;
+import org.killbill.billing.payment.PaymentPaginationApi;
 import org.killbill.billing.payment.api.Payment;
 import org.killbill.billing.payment.api.PaymentApi;
 import org.killbill.billing.payment.api.PaymentApiException;
@@ -72,6 +73,7 @@ import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.audit.AccountAuditLogs;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.clock.Clock;
 import org.killbill.commons.metrics.MetricTag;
@@ -95,6 +97,8 @@ public class PaymentResource extends ComboPaymentResource {
 
     private static final String ID_PARAM_NAME = "paymentId";
 
+    private final PaymentPaginationApi paymentPaginationApi;
+
     @Inject
     public PaymentResource(final JaxrsUriBuilder uriBuilder,
                            final TagUserApi tagUserApi,
@@ -102,9 +106,11 @@ public class PaymentResource extends ComboPaymentResource {
                            final AuditUserApi auditUserApi,
                            final AccountUserApi accountUserApi,
                            final PaymentApi paymentApi,
+                           final PaymentPaginationApi paymentPaginationApi,
                            final Clock clock,
                            final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, clock, context);
+        this.paymentPaginationApi = paymentPaginationApi;
     }
 
     @TimedResource(name = "getPayment")
@@ -157,6 +163,8 @@ public class PaymentResource extends ComboPaymentResource {
     @ApiResponses(value = {})
     public Response getPayments(@QueryParam(QUERY_SEARCH_OFFSET) @DefaultValue("0") final Long offset,
                                 @QueryParam(QUERY_SEARCH_LIMIT) @DefaultValue("100") final Long limit,
+                                @QueryParam(QUERY_SEARCH_PAGE_TOKEN) final String pageToken,
+                                @QueryParam(QUERY_SEARCH_WITH_COUNT) @DefaultValue("true") final Boolean withCount,
                                 @QueryParam(QUERY_PAYMENT_PLUGIN_NAME) final String pluginName,
                                 @QueryParam(QUERY_PLUGIN_PROPERTY) final List<String> pluginPropertiesString,
                                 @QueryParam(QUERY_AUDIT) @DefaultValue("NONE") final AuditMode auditMode,
@@ -166,15 +174,28 @@ public class PaymentResource extends ComboPaymentResource {
         final Iterable<PluginProperty> pluginProperties = extractPluginProperties(pluginPropertiesString);
         final TenantContext tenantContext = context.createContext(request);
 
+        // Plugin properties aren't carried forward, as they may hold credentials
+        final Map<String, String> nextPageParams = ImmutableMap.<String, String>of(QUERY_PAYMENT_PLUGIN_NAME, Strings.nullToEmpty(pluginName),
+                                                                                   QUERY_AUDIT, auditMode.getLevel().toString(),
+                                                                                   QUERY_WITH_PLUGIN_INFO, withPluginInfo.toString(),
+                                                                                   QUERY_WITH_ATTEMPTS, withAttempts.toString());
+
         final Pagination<Payment> payments;
-        if (Strings.isNullOrEmpty(pluginName)) {
-            payments = paymentApi.getPayments(offset, limit, withPluginInfo, withAttempts, pluginProperties, tenantContext);
+        final URI nextPageUri;
+        if (Strings.isNullOrEmpty(pluginName) && (pageToken != null || !withCount)) {
+            // Keyset pagination across all plugins (an empty token starts from the first page)
+            final PageTokenPagination<Payment> paymentsPage = paymentPaginationApi.getPayments(pageToken, limit, withCount, withPluginInfo, withAttempts, pluginProperties, tenantContext);
+            payments = paymentsPage;
+            nextPageUri = uriBuilder.nextPageFromToken(PaymentResource.class, "getPayments", paymentsPage.getNextPageToken(), limit, withCount, nextPageParams);
         } else {
-            payments = paymentApi.getPayments(offset, limit, pluginName, withPluginInfo, withAttempts, pluginProperties, tenantContext);
+            if (Strings.isNullOrEmpty(pluginName)) {
+                payments = paymentApi.getPayments(offset, limit, withPluginInfo, withAttempts, pluginProperties, tenantContext);
+            } else {
+                payments = paymentApi.getPayments(offset, limit, pluginName, withPluginInfo, withAttempts, pluginProperties, tenantContext);
+            }
+            nextPageUri = uriBuilder.nextPage(PaymentResource.class, "getPayments", payments.getNextOffset(), limit, nextPageParams);
         }
 
-        final URI nextPageUri = uriBuilder.nextPage(PaymentResource.class, "getPayments", payments.getNextOffset(), limit, ImmutableMap.<String, String>of(QUERY_PAYMENT_METHOD_PLUGIN_NAME, Strings.nullToEmpty(pluginName),
-                                                                                                                                                           QUERY_AUDIT, auditMode.getLevel().toString()));
         final AtomicReference<Map<UUID, AccountAuditLogs>> accountsAuditLogs = new AtomicReference<Map<UUID, AccountAuditLogs>>(new HashMap<UUID, AccountAuditLogs>());
 
         return buildStreamingPaginationResponse(payments,
@@ -63,6 +63,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class DefaultInternalBillingApi implements BillingInternalApi {
@@ -105,8 +106,10 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
             final List<SubscriptionBaseBundle> bundles = subscriptionApi.getBundlesForAccount(accountId, context);
 
             final ImmutableAccountData account = accountApi.getImmutableAccountDataById(accountId, context);
+            // Resolved once for the whole run, as it is the same for all subscriptions
+            final Catalog catalog = catalogService.getFullCatalog(true, true, context);
             result = new DefaultBillingEventSet(false, currentCatalog.getRecurringBillingMode());
-            addBillingEventsForBundles(bundles, account, dryRunArguments, context, result, skippedSubscriptions);
+            addBillingEventsForBundles(bundles, account, catalog, dryRunArguments, context, result, skippedSubscriptions);
         }
 
         if (result.isEmpty()) {
@@ -114,14 +117,18 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
             return result;
         }
 
-        // Pretty-print the events, before and after the blocking calculator does its magic
-        final StringBuilder logStringBuilder = new StringBuilder("Computed billing events for accountId='").append(accountId).append("'");
-        eventsToString(logStringBuilder, result);
-        if (blockCalculator.insertBlockingEvents(result, skippedSubscriptions, context)) {
+        // Pretty-print the events, before and after the blocking calculator does its magic (the output can be large, so only when it will be logged)
+        final StringBuilder logStringBuilder = log.isInfoEnabled() ? new StringBuilder("Computed billing events for accountId='").append(accountId).append("'") : null;
+        if (logStringBuilder != null) {
+            eventsToString(logStringBuilder, result);
+        }
+        if (blockCalculator.insertBlockingEvents(result, skippedSubscriptions, context) && logStringBuilder != null) {
             logStringBuilder.append("\nBilling Events After Blocking");
             eventsToString(logStringBuilder, result);
         }
-        log.info(logStringBuilder.toString());
+        if (logStringBuilder != null) {
+            log.info(logStringBuilder.toString());
+        }
 
         return result;
     }
@@ -132,11 +139,17 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
         }
     }
 
-    private void addBillingEventsForBundles(final List<SubscriptionBaseBundle> bundles, final ImmutableAccountData account, final DryRunArguments dryRunArguments, final InternalCallContext context,
+    private void addBillingEventsForBundles(final List<SubscriptionBaseBundle> bundles, final ImmutableAccountData account, final Catalog catalog, final DryRunArguments dryRunArguments, final InternalCallContext context,
                                             final DefaultBillingEventSet result, final Set<UUID> skipSubscriptionsSet) throws AccountApiException, CatalogApiException, SubscriptionBaseApiException {
 
         final boolean dryRunMode = dryRunArguments != null;
 
+        // Load the subscriptions (with their events) and the bundle tags for the whole account at once, instead of a few queries per bundle
+        final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount = subscriptionApi.getSubscriptionsForAccount(context);
+        final Set<UUID> bundleIdsWithAutoInvoicingOff = getBundleIdsWith_AUTO_INVOICING_OFF(context);
+
+        int currentAccountBCD = accountApi.getBCD(account.getId(), context);
+
         // In dryRun mode, when we care about invoice generated for new BASE subscription, no such bundle exists yet; we still
         // want to tap into subscriptionBase logic, so we make up a bundleId
         if (dryRunArguments != null &&
@@ -145,7 +158,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
             final UUID fakeBundleId = UUIDs.randomUUID();
             final List<SubscriptionBase> subscriptions = subscriptionApi.getSubscriptionsForBundle(fakeBundleId, dryRunArguments, context);
 
-            addBillingEventsForSubscription(account, subscriptions, null, dryRunMode, context, result, skipSubscriptionsSet);
+            currentAccountBCD = addBillingEventsForSubscription(account, catalog, currentAccountBCD, subscriptions, null, dryRunMode, context, result, skipSubscriptionsSet);
 
         }
 
@@ -154,37 +167,54 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
                                                               dryRunArguments.getBundleId() != null &&
                                                               dryRunArguments.getBundleId().equals(bundle.getId())) ?
                                                              dryRunArguments : null;
-            final List<SubscriptionBase> subscriptions = subscriptionApi.getSubscriptionsForBundle(bundle.getId(), dryRunArgumentsForBundle, context);
+            final List<SubscriptionBase> subscriptions;
+            if (dryRunArgumentsForBundle != null) {
+                // The dry-run events need to be merged, for that bundle only
+                subscriptions = subscriptionApi.getSubscriptionsForBundle(bundle.getId(), dryRunArgumentsForBundle, context);
+            } else {
+                final List<SubscriptionBase> subscriptionsForBundle = subscriptionsForAccount.get(bundle.getId());
+                subscriptions = subscriptionsForBundle != null ? subscriptionsForBundle : ImmutableList.<SubscriptionBase>of();
+            }
 
             //Check if billing is off for the bundle
-            final List<Tag> bundleTags = tagApi.getTags(bundle.getId(), ObjectType.BUNDLE, context);
-            boolean found_AUTO_INVOICING_OFF = is_AUTO_INVOICING_OFF(bundleTags);
-            if (found_AUTO_INVOICING_OFF) {
+            if (bundleIdsWithAutoInvoicingOff.contains(bundle.getId())) {
                 for (final SubscriptionBase subscription : subscriptions) { // billing is off so list sub ids in set to be excluded
                     result.getSubscriptionIdsWithAutoInvoiceOff().add(subscription.getId());
                 }
             } else { // billing is not off
                 final SubscriptionBase baseSubscription = !subscriptions.isEmpty() ? subscriptions.get(0) : null;
-                addBillingEventsForSubscription(account, subscriptions, baseSubscription, dryRunMode, context, result, skipSubscriptionsSet);
+                currentAccountBCD = addBillingEventsForSubscription(account, catalog, currentAccountBCD, subscriptions, baseSubscription, dryRunMode, context, result, skipSubscriptionsSet);
             }
         }
     }
 
+    private Set<UUID> getBundleIdsWith_AUTO_INVOICING_OFF(final InternalCallContext context) {
+        final Set<UUID> result = new HashSet<UUID>();
+        for (final Tag tag : tagApi.getTagsForAccountType(ObjectType.BUNDLE, false, context)) {
+            if (ControlTagType.AUTO_INVOICING_OFF.getId().equals(tag.getTagDefinitionId())) {
+                result.add(tag.getObjectId());
+            }
+        }
+        return result;
+    }
 
-    private void addBillingEventsForSubscription(final ImmutableAccountData account,
-                                                 final List<SubscriptionBase> subscriptions,
-                                                 final SubscriptionBase baseSubscription,
-                                                 final boolean dryRunMode,
-                                                 final InternalCallContext context,
-                                                 final DefaultBillingEventSet result,
-                                                 final Set<UUID> skipSubscriptionsSet) throws AccountApiException, CatalogApiException, SubscriptionBaseApiException {
+    // Returns the account BCD, which may have been set while processing these subscriptions
+    private int addBillingEventsForSubscription(final ImmutableAccountData account,
+                                                final Catalog catalog,
+                                                final int accountBCD,
+                                                final List<SubscriptionBase> subscriptions,
+                                                final SubscriptionBase baseSubscription,
+                                                final boolean dryRunMode,
+                                                final InternalCallContext context,
+                                                final DefaultBillingEventSet result,
+                                                final Set<UUID> skipSubscriptionsSet) throws AccountApiException, CatalogApiException, SubscriptionBaseApiException {
 
         // If dryRun is specified, we don't want to to update the account BCD value, so we initialize the flag updatedAccountBCD to true
         boolean updatedAccountBCD = dryRunMode;
 
         final Map<UUID, Integer> bcdCache = new HashMap<UUID, Integer>();
 
-        int currentAccountBCD = accountApi.getBCD(account.getId(), context);
+        int currentAccountBCD = accountBCD;
 
         for (final SubscriptionBase subscription : subscriptions) {
 
@@ -200,11 +230,9 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
                  billingTransitions.get(0).getTransitionType() != SubscriptionBaseTransitionType.TRANSFER)) {
                 log.warn("Skipping billing events for subscription " + subscription.getId() + ": Does not start with a valid CREATE transition");
                 skipSubscriptionsSet.add(subscription.getId());
-                return;
+                return currentAccountBCD;
             }
 
-            final Catalog catalog = catalogService.getFullCatalog(true, true, context);
-
             Integer overridenBCD = null;
             for (final EffectiveSubscriptionInternalEvent transition : billingTransitions) {
                 //
@@ -220,6 +248,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
                 if (currentAccountBCD == 0 && !updatedAccountBCD) {
                     log.info("Setting account BCD='{}', accountId='{}'", bcdLocal, account.getId());
                     accountApi.updateBCD(account.getExternalKey(), bcdLocal, context);
+                    currentAccountBCD = bcdLocal;
                     updatedAccountBCD = true;
                 }
 
@@ -227,6 +256,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
                 result.add(event);
             }
         }
+        return currentAccountBCD;
     }
 
     private int calculateBcdForTransition(final Catalog catalog, final Map<UUID, Integer> bcdCache, final SubscriptionBase baseSubscription, final SubscriptionBase subscription, final ImmutableAccountData account, final int accountBillCycleDayLocal, final EffectiveSubscriptionInternalEvent transition)
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.junction.glue;
 
+import org.killbill.billing.broadcast.BroadcastApi;
 import org.killbill.billing.entitlement.api.svcs.DefaultInternalBlockingApi;
 import org.killbill.billing.entitlement.block.BlockingChecker;
 import org.killbill.billing.entitlement.block.MockBlockingChecker;
@@ -33,6 +34,7 @@ import org.killbill.billing.util.glue.ConfigModule;
 import org.killbill.billing.util.glue.KillBillShiroAopModule;
 import org.killbill.billing.util.glue.KillBillShiroModule;
 import org.killbill.billing.util.glue.SecurityModule;
+import org.mockito.Mockito;
 
 public class TestJunctionModule extends DefaultJunctionModule {
 
@@ -51,6 +53,7 @@ public class TestJunctionModule extends DefaultJunctionModule {
         // Needed because Entitlement depends on Security
         install(new KillBillShiroModuleOnlyIniRealm(configSource));
         install(new SecurityModule(configSource));
+        bind(BroadcastApi.class).toInstance(Mockito.mock(BroadcastApi.class));
     }
 
     public class MockEntitlementModuleForJunction extends MockEntitlementModule {
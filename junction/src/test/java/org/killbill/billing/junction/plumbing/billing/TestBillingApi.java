@@ -66,6 +66,7 @@ import org.testng.annotations.Test;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
@@ -99,6 +100,7 @@ public class TestBillingApi extends JunctionTestSuiteNoDB {
 
         Mockito.when(subscriptionInternalApi.getBundlesForAccount(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(bundles);
         Mockito.when(subscriptionInternalApi.getSubscriptionsForBundle(Mockito.<UUID>any(), Mockito.<DryRunArguments>any(), Mockito.<InternalTenantContext>any())).thenReturn(subscriptions);
+        Mockito.when(subscriptionInternalApi.getSubscriptionsForAccount(Mockito.<InternalTenantContext>any())).thenReturn(ImmutableMap.<UUID, List<SubscriptionBase>>of(bunId, subscriptions));
         Mockito.when(subscriptionInternalApi.getSubscriptionFromId(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(subscription);
         Mockito.when(subscriptionInternalApi.getBundleFromId(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(bundle);
         Mockito.when(subscriptionInternalApi.getBaseSubscription(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(subscription);
@@ -234,6 +236,51 @@ public class TestBillingApi extends JunctionTestSuiteNoDB {
         assertEquals(events.size(), 0);
     }
 
+    @Test(groups = "fast")
+    public void testBillingEventsAutoInvoicingOffSomeBundles() throws CatalogApiException, AccountApiException, TagApiException, SubscriptionBaseApiException {
+        final Plan nextPlan = catalog.findPlan("3-PickupTrialEvergreen10USD", clock.getUTCNow());
+        final PlanPhase nextPhase = nextPlan.getAllPhases()[1];
+        createSubscriptionCreationEvent(nextPlan, nextPhase);
+
+        final Account account = createAccount(32);
+
+        // Three bundles, each with its own subscription
+        final List<SubscriptionBaseBundle> bundles = new LinkedList<SubscriptionBaseBundle>();
+        final ImmutableMap.Builder<UUID, List<SubscriptionBase>> subscriptionsForAccount = ImmutableMap.<UUID, List<SubscriptionBase>>builder();
+        final List<UUID> subscriptionIds = new LinkedList<UUID>();
+        for (int i = 0; i < 3; i++) {
+            final UUID bundleId = UUID.randomUUID();
+            final SubscriptionBaseBundle bundle = Mockito.mock(SubscriptionBaseBundle.class);
+            Mockito.when(bundle.getId()).thenReturn(bundleId);
+            bundles.add(bundle);
+
+            final UUID subscriptionId = UUID.randomUUID();
+            subscriptionIds.add(subscriptionId);
+            subscriptionsForAccount.put(bundleId, ImmutableList.<SubscriptionBase>of(new MockSubscription(subscriptionId, bundleId, null, subscription.getStartDate(), subscription.getStartDate())));
+        }
+        Mockito.when(subscriptionInternalApi.getBundlesForAccount(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(bundles);
+        Mockito.when(subscriptionInternalApi.getSubscriptionsForAccount(Mockito.<InternalTenantContext>any())).thenReturn(subscriptionsForAccount.build());
+
+        // First bundle is AUTO_INVOICING_OFF, second one only has an unrelated control tag
+        tagInternalApi.addTag(bundles.get(0).getId(), ObjectType.BUNDLE, ControlTagType.AUTO_INVOICING_OFF.getId(), internalCallContext);
+        tagInternalApi.addTag(bundles.get(1).getId(), ObjectType.BUNDLE, ControlTagType.AUTO_PAY_OFF.getId(), internalCallContext);
+        // Tag recorded against another account: it must not be picked up by the account-wide tag lookup
+        final Long accountRecordId = internalCallContext.getAccountRecordId();
+        internalCallContext.setAccountRecordId(accountRecordId + 1);
+        tagInternalApi.addTag(bundles.get(2).getId(), ObjectType.BUNDLE, ControlTagType.AUTO_INVOICING_OFF.getId(), internalCallContext);
+        internalCallContext.setAccountRecordId(accountRecordId);
+
+        final BillingEventSet events = billingInternalApi.getBillingEventsForAccountAndUpdateAccountBCD(account.getId(), null, internalCallContext);
+
+        assertEquals(events.isAccountAutoInvoiceOff(), false);
+        assertEquals(events.getSubscriptionIdsWithAutoInvoiceOff(), ImmutableList.<UUID>of(subscriptionIds.get(0)));
+        assertEquals(events.size(), 2);
+        final Iterator<BillingEvent> it = events.iterator();
+        final UUID firstBilledSubscriptionId = it.next().getSubscription().getId();
+        final UUID secondBilledSubscriptionId = it.next().getSubscription().getId();
+        assertEquals(ImmutableSet.<UUID>of(firstBilledSubscriptionId, secondBilledSubscriptionId), ImmutableSet.<UUID>of(subscriptionIds.get(1), subscriptionIds.get(2)));
+    }
+
     private void checkFirstEvent(final SortedSet<BillingEvent> events, final Plan nextPlan,
                                  final int BCD, final UUID id, final DateTime time, final PlanPhase nextPhase, final String desc) throws CatalogApiException {
         Assert.assertEquals(events.size(), 1);
@@ -19,6 +19,7 @@ package org.killbill.billing.overdue;
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 import org.killbill.billing.util.config.definition.KillbillConfig;
 
@@ -28,4 +29,9 @@ public interface OverdueProperties extends KillbillConfig {
     @Default("NoOverdueConfig.xml")
     @Description("Overdue configuration location. Either in the classpath or in the filesystem")
     public String getConfigURI();
+
+    @Config("org.killbill.overdue.refreshDebounceDelay")
+    @Default("0s")
+    @Description("Delay applied to overdue refreshes triggered by invoice, payment or tag events, so that bursts of events for the same account result in a single refresh")
+    public TimeSpan getRefreshDebounceDelay();
 }
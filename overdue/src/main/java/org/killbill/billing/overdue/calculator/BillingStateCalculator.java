@@ -32,6 +32,7 @@ import org.killbill.billing.account.api.ImmutableAccountData;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceInternalApi;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.overdue.config.api.BillingState;
 import org.killbill.billing.overdue.config.api.OverdueException;
 import org.killbill.billing.payment.api.PaymentResponse;
@@ -68,17 +69,29 @@ public class BillingStateCalculator {
     }
 
     public BillingState calculateBillingState(final ImmutableAccountData account, final InternalTenantContext context) throws OverdueException {
-        final SortedSet<Invoice> unpaidInvoices = unpaidInvoicesForAccount(account.getId(), account.getTimeZone(), context);
-
-        final int numberOfUnpaidInvoices = unpaidInvoices.size();
-        final BigDecimal unpaidInvoiceBalance = sumBalance(unpaidInvoices);
+        final int numberOfUnpaidInvoices;
+        final BigDecimal unpaidInvoiceBalance;
         LocalDate dateOfEarliestUnpaidInvoice = null;
         UUID idOfEarliestUnpaidInvoice = null;
-        final Invoice invoice = earliest(unpaidInvoices);
-        if (invoice != null) {
-            dateOfEarliestUnpaidInvoice = invoice.getInvoiceDate();
-            idOfEarliestUnpaidInvoice = invoice.getId();
+
+        // Use the summary maintained by invoice when available, to avoid loading all the invoices of the account
+        final UnpaidInvoicesSummary unpaidInvoicesSummary = invoiceApi.getUnpaidInvoicesSummary(account.getId(), clock.getToday(account.getTimeZone()), context);
+        if (unpaidInvoicesSummary != null) {
+            numberOfUnpaidInvoices = unpaidInvoicesSummary.getNumberOfUnpaidInvoices();
+            unpaidInvoiceBalance = unpaidInvoicesSummary.getUnpaidInvoiceBalance();
+            dateOfEarliestUnpaidInvoice = unpaidInvoicesSummary.getDateOfEarliestUnpaidInvoice();
+            idOfEarliestUnpaidInvoice = unpaidInvoicesSummary.getIdOfEarliestUnpaidInvoice();
+        } else {
+            final SortedSet<Invoice> unpaidInvoices = unpaidInvoicesForAccount(account.getId(), account.getTimeZone(), context);
+            numberOfUnpaidInvoices = unpaidInvoices.size();
+            unpaidInvoiceBalance = sumBalance(unpaidInvoices);
+            final Invoice invoice = earliest(unpaidInvoices);
+            if (invoice != null) {
+                dateOfEarliestUnpaidInvoice = invoice.getInvoiceDate();
+                idOfEarliestUnpaidInvoice = invoice.getId();
+            }
         }
+
         final PaymentResponse responseForLastFailedPayment = PaymentResponse.INSUFFICIENT_FUNDS; //TODO MDW
         final List<Tag> accountTags = tagApi.getTags(account.getId(), ObjectType.ACCOUNT, context);
         final Tag[] tags = accountTags.toArray(new Tag[accountTags.size()]);
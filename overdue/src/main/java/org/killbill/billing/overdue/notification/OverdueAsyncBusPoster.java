@@ -47,9 +47,15 @@ public class OverdueAsyncBusPoster extends DefaultOverduePosterBase {
                                                                                                         final Collection<NotificationEventWithMetadata<T>> futureNotifications,
                                                                                                         final DateTime futureNotificationTime,
                                                                                                         final NotificationQueue overdueQueue) {
-        // If we already have notification for that account we don't insert the new one
+        // If we already have a pending notification for that account which will fire at or before the new one, we don't insert the new one:
+        // the overdue state is recomputed from scratch when the notification is processed, so a single refresh covers all the events received in between.
         // Note that this is slightly incorrect because we could for instance already have a REFRESH and insert a CLEAR, but if that were the case,
         // if means overdue state would change very rapidly and the behavior would anyway be non deterministic
-        return futureNotifications.isEmpty();
+        for (final NotificationEventWithMetadata<T> notification : futureNotifications) {
+            if (notification.getEffectiveDate().compareTo(futureNotificationTime) <= 0) {
+                return false;
+            }
+        }
+        return true;
     }
 }
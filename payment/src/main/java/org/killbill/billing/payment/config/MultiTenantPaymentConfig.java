@@ -28,10 +28,11 @@ import org.killbill.billing.util.config.definition.KillbillConfig;
 import org.killbill.billing.util.config.definition.PaymentConfig;
 import org.killbill.billing.util.config.tenant.CacheConfig;
 import org.killbill.billing.util.config.tenant.MultiTenantConfigBase;
+import org.killbill.billing.util.config.tenant.PerTenantConfig;
 import org.skife.config.Param;
 import org.skife.config.TimeSpan;
 
-public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements PaymentConfig {
+public class MultiTenantPaymentConfig extends MultiTenantConfigBase<MultiTenantPaymentConfig.TenantOverrides> implements PaymentConfig {
 
     private final PaymentConfig staticConfig;
 
@@ -48,9 +49,9 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
 
     @Override
     public List<Integer> getPaymentFailureRetryDays(@Param("dummy") final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getPaymentFailureRetryDays", tenantContext);
-        if (result != null) {
-            return convertToListInteger(result, "getPaymentFailureRetryDays");
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.paymentFailureRetryDays != null) {
+            return tenantConfig.paymentFailureRetryDays;
         }
         return getPaymentFailureRetryDays();
     }
@@ -62,9 +63,9 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
 
     @Override
     public int getPluginFailureInitialRetryInSec(@Param("dummy") final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getPluginFailureInitialRetryInSec", tenantContext);
-        if (result != null) {
-            return Integer.parseInt(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.pluginFailureInitialRetryInSec != null) {
+            return tenantConfig.pluginFailureInitialRetryInSec;
         }
         return getPluginFailureInitialRetryInSec();
     }
@@ -76,9 +77,9 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
 
     @Override
     public int getPluginFailureRetryMultiplier(@Param("dummy") final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getPluginFailureRetryMultiplier", tenantContext);
-        if (result != null) {
-            return Integer.parseInt(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.pluginFailureRetryMultiplier != null) {
+            return tenantConfig.pluginFailureRetryMultiplier;
         }
         return getPluginFailureRetryMultiplier();
     }
@@ -90,9 +91,9 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
 
     @Override
     public List<TimeSpan> getIncompleteTransactionsRetries(@Param("dummy") final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getIncompleteTransactionsRetries", tenantContext);
-        if (result != null) {
-            return convertToListTimeSpan(result, "getIncompleteTransactionsRetries");
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.incompleteTransactionsRetries != null) {
+            return tenantConfig.incompleteTransactionsRetries;
         }
         return getIncompleteTransactionsRetries();
     }
@@ -104,9 +105,9 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
 
     @Override
     public int getPluginFailureRetryMaxAttempts(@Param("dummy") final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getPluginFailureRetryMaxAttempts", tenantContext);
-        if (result != null) {
-            return Integer.parseInt(result);
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.pluginFailureRetryMaxAttempts != null) {
+            return tenantConfig.pluginFailureRetryMaxAttempts;
         }
         return getPluginFailureRetryMaxAttempts();
     }
@@ -118,9 +119,9 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
 
     @Override
     public List<String> getPaymentControlPluginNames(@Param("dummy") final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getPaymentControlPluginNames", tenantContext);
-        if (result != null) {
-            return convertToListString(result, "getPaymentControlPluginNames");
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.paymentControlPluginNames != null) {
+            return tenantConfig.paymentControlPluginNames;
         }
         return getPaymentControlPluginNames();
     }
@@ -130,11 +131,26 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
         return staticConfig.getJanitorRunningRate();
     }
 
+    @Override
+    public int getJanitorShardsNb() {
+        return staticConfig.getJanitorShardsNb();
+    }
+
+    @Override
+    public int getJanitorThreadsNb() {
+        return staticConfig.getJanitorThreadsNb();
+    }
+
     @Override
     public TimeSpan getIncompleteAttemptsTimeSpanDelay() {
         return staticConfig.getIncompleteAttemptsTimeSpanDelay();
     }
 
+    @Override
+    public TimeSpan getIncompleteTransactionsTimeSpanDelay() {
+        return staticConfig.getIncompleteTransactionsTimeSpanDelay();
+    }
+
     @Override
     public String getDefaultPaymentProvider() {
         return staticConfig.getDefaultPaymentProvider();
@@ -150,13 +166,67 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
         return staticConfig.getPaymentPluginThreadNb();
     }
 
+    @Override
+    public boolean isPaymentPluginBulkheadEnabled() {
+        return staticConfig.isPaymentPluginBulkheadEnabled();
+    }
+
+    @Override
+    public int getPaymentPluginBulkheadThreadNb() {
+        return staticConfig.getPaymentPluginBulkheadThreadNb();
+    }
+
+    @Override
+    public int getPaymentPluginBulkheadQueueSize() {
+        return staticConfig.getPaymentPluginBulkheadQueueSize();
+    }
+
+    @Override
+    public boolean isPaymentPluginBulkheadVirtualThreadsEnabled() {
+        return staticConfig.isPaymentPluginBulkheadVirtualThreadsEnabled();
+    }
+
     @Override
     public int getMaxGlobalLockRetries() {
         return staticConfig.getMaxGlobalLockRetries();
     }
 
+    @Override
+    protected TenantOverrides compile(final PerTenantConfig perTenantConfig) {
+        return new TenantOverrides(getListIntegerOverride(perTenantConfig, "getPaymentFailureRetryDays"),
+                                   getIntegerOverride(perTenantConfig, "getPluginFailureInitialRetryInSec"),
+                                   getIntegerOverride(perTenantConfig, "getPluginFailureRetryMultiplier"),
+                                   getListTimeSpanOverride(perTenantConfig, "getIncompleteTransactionsRetries"),
+                                   getIntegerOverride(perTenantConfig, "getPluginFailureRetryMaxAttempts"),
+                                   getListStringOverride(perTenantConfig, "getPaymentControlPluginNames"));
+    }
+
     @Override
     protected Class<? extends KillbillConfig> getConfigClass() {
         return PaymentConfig.class;
     }
+
+    static final class TenantOverrides {
+
+        final List<Integer> paymentFailureRetryDays;
+        final Integer pluginFailureInitialRetryInSec;
+        final Integer pluginFailureRetryMultiplier;
+        final List<TimeSpan> incompleteTransactionsRetries;
+        final Integer pluginFailureRetryMaxAttempts;
+        final List<String> paymentControlPluginNames;
+
+        TenantOverrides(final List<Integer> paymentFailureRetryDays,
+                        final Integer pluginFailureInitialRetryInSec,
+                        final Integer pluginFailureRetryMultiplier,
+                        final List<TimeSpan> incompleteTransactionsRetries,
+                        final Integer pluginFailureRetryMaxAttempts,
+                        final List<String> paymentControlPluginNames) {
+            this.paymentFailureRetryDays = paymentFailureRetryDays;
+            this.pluginFailureInitialRetryInSec = pluginFailureInitialRetryInSec;
+            this.pluginFailureRetryMultiplier = pluginFailureRetryMultiplier;
+            this.incompleteTransactionsRetries = incompleteTransactionsRetries;
+            this.pluginFailureRetryMaxAttempts = pluginFailureRetryMaxAttempts;
+            this.paymentControlPluginNames = paymentControlPluginNames;
+        }
+    }
 }
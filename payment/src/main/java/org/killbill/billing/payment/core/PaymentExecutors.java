@@ -17,6 +17,9 @@
 
 package org.killbill.billing.payment.core;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
@@ -24,14 +27,25 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
 import org.killbill.billing.util.config.definition.PaymentConfig;
 import org.killbill.commons.concurrent.Executors;
 import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
 
 public class PaymentExecutors {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentExecutors.class);
+
     private static final long TIMEOUT_EXECUTOR_SEC = 3L;
 
     private static final int DEFAULT_MIN_PLUGIN_THREADS = 5;
@@ -42,43 +56,105 @@ public class PaymentExecutors {
     public static final String JANITOR_EXECUTOR_NAMED = "JanitorExecutor";
     public static final String PLUGIN_EXECUTOR_NAMED = "PluginExecutor";
 
+    private static final String PLUGIN_BULKHEAD_METRICS_PREFIX = "killbill.payment.plugin";
+
     private final PaymentConfig paymentConfig;
+    private final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry;
+    private final MetricRegistry metricRegistry;
+
+    // Per payment plugin executors, created on the first call to that plugin
+    private final ConcurrentMap<String, ThreadPoolExecutor> pluginBulkheadExecutorServices = new ConcurrentHashMap<String, ThreadPoolExecutor>();
 
     private volatile ThreadPoolExecutor pluginExecutorService;
     private volatile ScheduledExecutorService janitorExecutorService;
+    private volatile ExecutorService janitorWorkerExecutorService;
 
     @Inject
-    public PaymentExecutors(PaymentConfig paymentConfig) {
+    public PaymentExecutors(final PaymentConfig paymentConfig, final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry, final MetricRegistry metricRegistry) {
         this.paymentConfig = paymentConfig;
-
+        this.pluginRegistry = pluginRegistry;
+        this.metricRegistry = metricRegistry;
     }
 
     public void initialize() {
         this.pluginExecutorService = createPluginExecutorService();
         this.pluginExecutorService.prestartAllCoreThreads();
         this.janitorExecutorService = createJanitorExecutorService();
+        this.janitorWorkerExecutorService = createJanitorWorkerExecutorService();
     }
 
 
     public void stop() throws InterruptedException {
         pluginExecutorService.shutdownNow();
         janitorExecutorService.shutdownNow();
+        janitorWorkerExecutorService.shutdownNow();
+        for (final ThreadPoolExecutor pluginBulkheadExecutorService : pluginBulkheadExecutorServices.values()) {
+            pluginBulkheadExecutorService.shutdownNow();
+        }
 
         pluginExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
         pluginExecutorService = null;
 
         janitorExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
         janitorExecutorService = null;
+
+        janitorWorkerExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        janitorWorkerExecutorService = null;
+
+        for (final ThreadPoolExecutor pluginBulkheadExecutorService : pluginBulkheadExecutorServices.values()) {
+            pluginBulkheadExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        }
+        pluginBulkheadExecutorServices.clear();
+        metricRegistry.removeMatching(new MetricFilter() {
+            @Override
+            public boolean matches(final String name, final Metric metric) {
+                return name.startsWith(PLUGIN_BULKHEAD_METRICS_PREFIX + ".");
+            }
+        });
     }
 
     public ExecutorService getPluginExecutorService() {
         return pluginExecutorService;
     }
 
+    //
+    // Executor for calls to that payment plugin. Only registered payment plugins get their own executor (names can come from the API,
+    // and control plugins are dispatched under their names), other calls use the shared plugin executor.
+    //
+    public ExecutorService getPluginExecutorService(@Nullable final String pluginName) {
+        if (pluginName == null || !paymentConfig.isPaymentPluginBulkheadEnabled()) {
+            return pluginExecutorService;
+        }
+
+        final ThreadPoolExecutor existingExecutorService = pluginBulkheadExecutorServices.get(pluginName);
+        if (existingExecutorService != null) {
+            return existingExecutorService;
+        }
+
+        if (pluginRegistry.getServiceForName(pluginName) == null) {
+            return pluginExecutorService;
+        }
+
+        synchronized (pluginBulkheadExecutorServices) {
+            // Metrics are registered when the executor is created, so only create it once
+            ThreadPoolExecutor executorService = pluginBulkheadExecutorServices.get(pluginName);
+            if (executorService == null) {
+                executorService = createPluginBulkheadExecutorService(pluginName);
+                pluginBulkheadExecutorServices.put(pluginName, executorService);
+            }
+            return executorService;
+        }
+    }
+
     public ScheduledExecutorService getJanitorExecutorService() {
         return janitorExecutorService;
     }
 
+    // Executor processing the janitor shards, see CompletionTaskBase
+    public ExecutorService getJanitorWorkerExecutorService() {
+        return janitorWorkerExecutorService;
+    }
+
     private ThreadPoolExecutor createPluginExecutorService() {
         final int minThreadNb = DEFAULT_MIN_PLUGIN_THREADS < paymentConfig.getPaymentPluginThreadNb() ? DEFAULT_MIN_PLUGIN_THREADS : paymentConfig.getPaymentPluginThreadNb();
         return new WithProfilingThreadPoolExecutor(minThreadNb,
@@ -98,7 +174,57 @@ public class PaymentExecutors {
 
     }
 
+    private ThreadPoolExecutor createPluginBulkheadExecutorService(final String pluginName) {
+        final String threadPrefix = "Plugin-" + pluginName + "-th-";
+        ThreadFactory threadFactory = null;
+        if (paymentConfig.isPaymentPluginBulkheadVirtualThreadsEnabled()) {
+            threadFactory = createVirtualThreadFactory(threadPrefix);
+            if (threadFactory == null) {
+                log.warn("Virtual threads aren't supported by this JVM, plugin='{}' will use platform threads", pluginName);
+            }
+        }
+        if (threadFactory == null) {
+            threadFactory = new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread th = new Thread(new ThreadGroup(PAYMENT_PLUGIN_TH_GROUP_NAME), r);
+                    th.setName(threadPrefix + th.getId());
+                    return th;
+                }
+            };
+        }
+
+        return new PluginBulkheadExecutor(pluginName,
+                                          paymentConfig.getPaymentPluginBulkheadThreadNb(),
+                                          paymentConfig.getPaymentPluginBulkheadQueueSize(),
+                                          threadFactory,
+                                          metricRegistry,
+                                          MetricRegistry.name(PLUGIN_BULKHEAD_METRICS_PREFIX, pluginName));
+    }
+
+    // Thread.ofVirtual().name(prefix, 0).factory(), through reflection as the code base targets older JVMs
+    @Nullable
+    private static ThreadFactory createVirtualThreadFactory(final String threadPrefix) {
+        try {
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object builder = builderClass.getMethod("name", String.class, long.class).invoke(ofVirtual.invoke(null), threadPrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        } catch (final ClassNotFoundException e) {
+            return null;
+        } catch (final Exception e) {
+            log.warn("Unable to create virtual thread factory", e);
+            return null;
+        }
+    }
+
     private ScheduledExecutorService createJanitorExecutorService() {
         return Executors.newSingleThreadScheduledExecutor("PaymentJanitor");
     }
+
+    private ExecutorService createJanitorWorkerExecutorService() {
+        return Executors.newFixedThreadPool(paymentConfig.getJanitorThreadsNb(), "PaymentJanitorWorker");
+    }
 }
@@ -73,6 +73,7 @@ import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.entity.DefaultPagination;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationHelper.EntityPaginationBuilder;
 import org.killbill.billing.util.entity.dao.DefaultPaginationHelper.SourcePaginationBuilder;
@@ -92,7 +93,9 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Ordering;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPagination;
@@ -192,29 +195,12 @@ public class PaymentProcessor extends ProcessorBase {
         final List<PaymentModelDao> paymentsModelDao = paymentDao.getPaymentsForAccount(accountId, tenantContext);
         final List<PaymentTransactionModelDao> transactionsModelDao = paymentDao.getTransactionsForAccount(accountId, tenantContext);
 
-        final Map<UUID, PaymentPluginApi> paymentPluginByPaymentMethodId = new HashMap<UUID, PaymentPluginApi>();
-        final Collection<UUID> absentPlugins = new HashSet<UUID>();
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = withPluginInfo ? getPaymentTransactionInfoPluginsByPlugin(paymentsModelDao, context, tenantContext) : null;
         final List<Payment> transformedPayments = Lists.<PaymentModelDao, Payment>transform(paymentsModelDao,
                                                                                             new Function<PaymentModelDao, Payment>() {
                                                                                                 @Override
                                                                                                 public Payment apply(final PaymentModelDao paymentModelDao) {
-                                                                                                    List<PaymentTransactionInfoPlugin> pluginInfo = null;
-
-                                                                                                    if (withPluginInfo) {
-                                                                                                        PaymentPluginApi pluginApi = paymentPluginByPaymentMethodId.get(paymentModelDao.getPaymentMethodId());
-                                                                                                        if (pluginApi == null && !absentPlugins.contains(paymentModelDao.getPaymentMethodId())) {
-                                                                                                            try {
-                                                                                                                pluginApi = getPaymentProviderPlugin(paymentModelDao.getPaymentMethodId(), tenantContext);
-                                                                                                                paymentPluginByPaymentMethodId.put(paymentModelDao.getPaymentMethodId(), pluginApi);
-                                                                                                            } catch (final PaymentApiException e) {
-                                                                                                                log.warn("Unable to retrieve pluginApi for payment method " + paymentModelDao.getPaymentMethodId());
-                                                                                                                absentPlugins.add(paymentModelDao.getPaymentMethodId());
-                                                                                                            }
-                                                                                                        }
-
-                                                                                                        pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, context);
-                                                                                                    }
-
+                                                                                                    final List<PaymentTransactionInfoPlugin> pluginInfo = pluginInfoByPaymentId != null ? pluginInfoByPaymentId.get(paymentModelDao.getId()) : null;
                                                                                                     return toPayment(paymentModelDao, transactionsModelDao, pluginInfo, withAttempts, tenantContext);
                                                                                                 }
                                                                                             });
@@ -257,22 +243,23 @@ public class PaymentProcessor extends ProcessorBase {
     public Pagination<Payment> getPayments(final Long offset, final Long limit, final String pluginName, final boolean withPluginInfo, final boolean withAttempts, final Iterable<PluginProperty> properties, final TenantContext tenantContext, final InternalTenantContext internalTenantContext) throws PaymentApiException {
         final PaymentPluginApi pluginApi = withPluginInfo ? getPaymentPluginApi(pluginName) : null;
 
-        return getEntityPagination(limit,
-                                   new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
-                                       @Override
-                                       public Pagination<PaymentModelDao> build() {
-                                           // Find all payments for all accounts
-                                           return paymentDao.getPayments(pluginName, offset, limit, internalTenantContext);
-                                       }
-                                   },
-                                   new Function<PaymentModelDao, Payment>() {
-                                       @Override
-                                       public Payment apply(final PaymentModelDao paymentModelDao) {
-                                           final List<PaymentTransactionInfoPlugin> pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, tenantContext);
-                                           return toPayment(paymentModelDao.getId(), pluginInfo, withAttempts, internalTenantContext);
-                                       }
-                                   }
-                                  );
+        // Find all payments for all accounts
+        final Pagination<PaymentModelDao> paymentModelDaos = paymentDao.getPayments(pluginName, offset, limit, internalTenantContext);
+        final List<PaymentModelDao> paymentModelDaosList = ImmutableList.<PaymentModelDao>copyOf(paymentModelDaos);
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = pluginApi != null ? getPaymentTransactionInfoPlugins(pluginApi, paymentModelDaosList, tenantContext) : null;
+        final List<Payment> payments = toPayments(paymentModelDaosList, pluginInfoByPaymentId, withAttempts, internalTenantContext);
+        return new DefaultPagination<Payment>(paymentModelDaos, limit, payments.iterator());
+    }
+
+    // Keyset pagination across all plugins: payments of a page may belong to different plugins, so plugin info is retrieved plugin by plugin
+    public PageTokenPagination<Payment> getPayments(@Nullable final String pageToken, final Long limit, final boolean withCount, final boolean withPluginInfo, final boolean withAttempts,
+                                                    final Iterable<PluginProperty> properties, final TenantContext tenantContext, final InternalTenantContext internalTenantContext) throws PaymentApiException {
+        final PageTokenPagination<PaymentModelDao> paymentModelDaos = paymentDao.getPaymentsFromPageToken(pageToken, limit, withCount, internalTenantContext);
+        final List<PaymentModelDao> paymentModelDaosList = ImmutableList.<PaymentModelDao>copyOf(paymentModelDaos);
+
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = withPluginInfo ? getPaymentTransactionInfoPluginsByPlugin(paymentModelDaosList, tenantContext, internalTenantContext) : null;
+        final List<Payment> payments = toPayments(paymentModelDaosList, pluginInfoByPaymentId, withAttempts, internalTenantContext);
+        return new DefaultPagination<Payment>(paymentModelDaos, limit, payments.iterator());
     }
 
     public Pagination<Payment> searchPayments(final String searchKey, final Long offset, final Long limit, final boolean withPluginInfo, final boolean withAttempts, final Iterable<PluginProperty> properties, final TenantContext tenantContext, final InternalTenantContext internalTenantContext) {
@@ -290,21 +277,10 @@ public class PaymentProcessor extends ProcessorBase {
                                                  );
         } else {
             try {
-                return getEntityPagination(limit,
-                                           new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
-                                               @Override
-                                               public Pagination<PaymentModelDao> build() {
-                                                   return paymentDao.searchPayments(searchKey, offset, limit, internalTenantContext);
-                                               }
-                                           },
-                                           new Function<PaymentModelDao, Payment>() {
-                                               @Override
-                                               public Payment apply(final PaymentModelDao paymentModelDao) {
-                                                   return toPayment(paymentModelDao.getId(), null, withAttempts, internalTenantContext);
-                                               }
-                                           }
-                                          );
-            } catch (final PaymentApiException e) {
+                final Pagination<PaymentModelDao> paymentModelDaos = paymentDao.searchPayments(searchKey, offset, limit, internalTenantContext);
+                final List<Payment> payments = toPayments(ImmutableList.<PaymentModelDao>copyOf(paymentModelDaos), null, withAttempts, internalTenantContext);
+                return new DefaultPagination<Payment>(paymentModelDaos, limit, payments.iterator());
+            } catch (final RuntimeException e) {
                 log.warn("Unable to search through payments", e);
                 return new DefaultPagination<Payment>(offset, limit, null, null, Iterators.<Payment>emptyIterator());
             }
@@ -591,6 +567,50 @@ public class PaymentProcessor extends ProcessorBase {
         }
     }
 
+    // Used in bulk get API (getPayments): all the payments belong to the plugin
+    private Map<UUID, List<PaymentTransactionInfoPlugin>> getPaymentTransactionInfoPlugins(final PaymentPluginApi pluginApi, final Iterable<PaymentModelDao> paymentModelDaos, final TenantContext context) {
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = new HashMap<UUID, List<PaymentTransactionInfoPlugin>>();
+        for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+            pluginInfoByPaymentId.put(paymentModelDao.getId(), getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, context));
+        }
+        return pluginInfoByPaymentId;
+    }
+
+    // Used in bulk get APIs (getAccountPayments / keyset getPayments): the payments are grouped by plugin, so that each payment method and plugin is only resolved once
+    private Map<UUID, List<PaymentTransactionInfoPlugin>> getPaymentTransactionInfoPluginsByPlugin(final Iterable<PaymentModelDao> paymentModelDaos, final TenantContext context, final InternalTenantContext tenantContext) {
+        final Map<UUID, String> pluginNameByPaymentMethodId = new HashMap<UUID, String>();
+        final Multimap<String, PaymentModelDao> paymentsByPluginName = LinkedListMultimap.<String, PaymentModelDao>create();
+        for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+            if (!pluginNameByPaymentMethodId.containsKey(paymentModelDao.getPaymentMethodId())) {
+                String pluginName = null;
+                try {
+                    pluginName = getPaymentProviderPluginName(paymentModelDao.getPaymentMethodId(), tenantContext);
+                } catch (final PaymentApiException e) {
+                    log.warn("Unable to retrieve plugin for payment method " + paymentModelDao.getPaymentMethodId());
+                }
+                pluginNameByPaymentMethodId.put(paymentModelDao.getPaymentMethodId(), pluginName);
+            }
+
+            final String pluginName = pluginNameByPaymentMethodId.get(paymentModelDao.getPaymentMethodId());
+            if (pluginName != null) {
+                paymentsByPluginName.put(pluginName, paymentModelDao);
+            }
+        }
+
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = new HashMap<UUID, List<PaymentTransactionInfoPlugin>>();
+        for (final String pluginName : paymentsByPluginName.keySet()) {
+            final PaymentPluginApi pluginApi;
+            try {
+                pluginApi = getPaymentPluginApi(pluginName);
+            } catch (final PaymentApiException e) {
+                log.warn("Unable to retrieve pluginApi " + pluginName);
+                continue;
+            }
+            pluginInfoByPaymentId.putAll(getPaymentTransactionInfoPlugins(pluginApi, paymentsByPluginName.get(pluginName), context));
+        }
+        return pluginInfoByPaymentId;
+    }
+
     private List<PaymentTransactionInfoPlugin> getPaymentTransactionInfoPlugins(final PaymentPluginApi plugin, final PaymentModelDao paymentModelDao, final Iterable<PluginProperty> properties, final TenantContext context) throws PaymentApiException {
         try {
             return plugin.getPaymentInfo(paymentModelDao.getAccountId(), paymentModelDao.getId(), properties, context);
@@ -610,6 +630,71 @@ public class PaymentProcessor extends ProcessorBase {
         return toPayment(paymentModelDao, pluginTransactions, withAttempts, tenantContext);
     }
 
+    // Used in bulk get APIs (getPayments / searchPayments): transactions and attempts for the whole page are fetched at once
+    private List<Payment> toPayments(final List<PaymentModelDao> paymentModelDaos, @Nullable final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId,
+                                     final boolean withAttempts, final InternalTenantContext tenantContext) {
+        if (paymentModelDaos.isEmpty()) {
+            return ImmutableList.<Payment>of();
+        }
+
+        final Collection<UUID> paymentIds = new HashSet<UUID>();
+        final Collection<String> paymentExternalKeys = new HashSet<String>();
+        for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+            paymentIds.add(paymentModelDao.getId());
+            paymentExternalKeys.add(paymentModelDao.getExternalKey());
+        }
+
+        final Multimap<UUID, PaymentTransactionModelDao> transactionsByPaymentId = LinkedListMultimap.<UUID, PaymentTransactionModelDao>create();
+        for (final PaymentTransactionModelDao paymentTransactionModelDao : paymentDao.getTransactionsForPayments(paymentIds, tenantContext)) {
+            transactionsByPaymentId.put(paymentTransactionModelDao.getPaymentId(), paymentTransactionModelDao);
+        }
+
+        final Multimap<String, PaymentAttemptModelDao> attemptsByPaymentExternalKey = LinkedListMultimap.<String, PaymentAttemptModelDao>create();
+        if (withAttempts) {
+            for (final PaymentAttemptModelDao paymentAttemptModelDao : paymentDao.getPaymentAttemptsForPayments(paymentExternalKeys, tenantContext)) {
+                attemptsByPaymentExternalKey.put(paymentAttemptModelDao.getPaymentExternalKey(), paymentAttemptModelDao);
+            }
+        }
+
+        // Payments on a page often share the same account: resolve the account context and scheduled retries only once per account
+        final Map<UUID, InternalTenantContext> tenantContextByAccountId = new HashMap<UUID, InternalTenantContext>();
+        final Map<UUID, List<NotificationEventWithMetadata<NotificationEvent>>> futureRetriesByAccountId = new HashMap<UUID, List<NotificationEventWithMetadata<NotificationEvent>>>();
+
+        final List<Payment> payments = new ArrayList<Payment>(paymentModelDaos.size());
+        for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+            InternalTenantContext tenantContextWithAccountRecordId = tenantContextByAccountId.get(paymentModelDao.getAccountId());
+            if (tenantContextWithAccountRecordId == null) {
+                tenantContextWithAccountRecordId = getInternalTenantContextWithAccountRecordId(paymentModelDao.getAccountId(), tenantContext);
+                tenantContextByAccountId.put(paymentModelDao.getAccountId(), tenantContextWithAccountRecordId);
+            }
+
+            final List<PaymentTransactionInfoPlugin> pluginInfo = pluginInfoByPaymentId != null ? pluginInfoByPaymentId.get(paymentModelDao.getId()) : null;
+            final Payment payment = toPayment(paymentModelDao, transactionsByPaymentId.get(paymentModelDao.getId()), pluginInfo, false, tenantContextWithAccountRecordId);
+
+            if (!withAttempts || payment.getTransactions().isEmpty()) {
+                payments.add(payment);
+                continue;
+            }
+
+            List<NotificationEventWithMetadata<NotificationEvent>> futureRetries = futureRetriesByAccountId.get(paymentModelDao.getAccountId());
+            if (futureRetries == null) {
+                futureRetries = getFuturePaymentRetries(tenantContextWithAccountRecordId);
+                futureRetriesByAccountId.put(paymentModelDao.getAccountId(), futureRetries);
+            }
+            final List<PaymentAttempt> paymentAttempts = getPaymentAttempts(ImmutableList.<PaymentAttemptModelDao>copyOf(attemptsByPaymentExternalKey.get(paymentModelDao.getExternalKey())), futureRetries);
+            payments.add(new DefaultPayment(payment.getId(),
+                                            payment.getCreatedDate(),
+                                            payment.getUpdatedDate(),
+                                            payment.getAccountId(),
+                                            payment.getPaymentMethodId(),
+                                            payment.getPaymentNumber(),
+                                            payment.getExternalKey(),
+                                            payment.getTransactions(),
+                                            paymentAttempts));
+        }
+        return payments;
+    }
+
     // Used in single get APIs (getPayment / getPaymentByExternalKey)
     private Payment toPayment(final PaymentModelDao paymentModelDao, final boolean withPluginInfo, final boolean withAttempts, final Iterable<PluginProperty> properties, final TenantContext context, final InternalTenantContext tenantContext) throws PaymentApiException {
         final PaymentPluginApi plugin = getPaymentProviderPlugin(paymentModelDao.getPaymentMethodId(), tenantContext);
@@ -710,6 +795,11 @@ public class PaymentProcessor extends ProcessorBase {
 
     private List<PaymentAttempt> getPaymentAttempts(final List<PaymentAttemptModelDao> pastPaymentAttempts,
                                                     final InternalTenantContext internalTenantContext) {
+        return getPaymentAttempts(pastPaymentAttempts, getFuturePaymentRetries(internalTenantContext));
+    }
+
+    private List<PaymentAttempt> getPaymentAttempts(final List<PaymentAttemptModelDao> pastPaymentAttempts,
+                                                    final Iterable<NotificationEventWithMetadata<NotificationEvent>> futurePaymentRetries) {
 
         List<PaymentAttempt> paymentAttempts = new ArrayList<PaymentAttempt>();
 
@@ -734,41 +824,43 @@ public class PaymentProcessor extends ProcessorBase {
             paymentAttempts.add(paymentAttempt);
         }
 
-        // Get Future Payment Attempts from Notification Queue and add them to the list
+        // Add Future Payment Attempts (from the retry Notification Queue) to the list
+        for (final NotificationEventWithMetadata<NotificationEvent> notificationEvent : futurePaymentRetries) {
+            // Last Attempt
+            PaymentAttemptModelDao lastPaymentAttempt = getLastPaymentAttempt(pastPaymentAttempts,
+                                                                              ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId());
+
+            if (lastPaymentAttempt != null) {
+                DefaultPaymentAttempt futurePaymentAttempt = new DefaultPaymentAttempt(
+                        lastPaymentAttempt.getAccountId(), // accountId
+                        lastPaymentAttempt.getPaymentMethodId(), // paymentMethodId
+                        ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId(), // id
+                        null, // createdDate
+                        null, // updatedDate
+                        notificationEvent.getEffectiveDate(), // effectiveDate
+                        lastPaymentAttempt.getPaymentExternalKey(), // paymentExternalKey
+                        null, // transactionId
+                        lastPaymentAttempt.getTransactionExternalKey(), // transactionExternalKey
+                        lastPaymentAttempt.getTransactionType(), // transactionType
+                        SCHEDULED, // stateName
+                        lastPaymentAttempt.getAmount(), // amount
+                        lastPaymentAttempt.getCurrency(), // currency
+                        ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getPaymentControlPluginNames().get(0), // pluginName,
+                        buildPluginProperties(lastPaymentAttempt)); // pluginProperties
+                paymentAttempts.add(futurePaymentAttempt);
+            }
+        }
+        return paymentAttempts;
+    }
+
+    private List<NotificationEventWithMetadata<NotificationEvent>> getFuturePaymentRetries(final InternalTenantContext internalTenantContext) {
         try {
             final NotificationQueue retryQueue = notificationQueueService.getNotificationQueue(DefaultPaymentService.SERVICE_NAME, DefaultRetryService.QUEUE_NAME);
-            final List<NotificationEventWithMetadata<NotificationEvent>> notificationEventWithMetadatas =
-                    retryQueue.getFutureNotificationForSearchKeys(internalTenantContext.getAccountRecordId(), internalTenantContext.getTenantRecordId());
-
-            for (final NotificationEventWithMetadata<NotificationEvent> notificationEvent : notificationEventWithMetadatas) {
-                // Last Attempt
-                PaymentAttemptModelDao lastPaymentAttempt = getLastPaymentAttempt(pastPaymentAttempts,
-                                                                                  ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId());
-
-                if (lastPaymentAttempt != null) {
-                    DefaultPaymentAttempt futurePaymentAttempt = new DefaultPaymentAttempt(
-                            lastPaymentAttempt.getAccountId(), // accountId
-                            lastPaymentAttempt.getPaymentMethodId(), // paymentMethodId
-                            ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId(), // id
-                            null, // createdDate
-                            null, // updatedDate
-                            notificationEvent.getEffectiveDate(), // effectiveDate
-                            lastPaymentAttempt.getPaymentExternalKey(), // paymentExternalKey
-                            null, // transactionId
-                            lastPaymentAttempt.getTransactionExternalKey(), // transactionExternalKey
-                            lastPaymentAttempt.getTransactionType(), // transactionType
-                            SCHEDULED, // stateName
-                            lastPaymentAttempt.getAmount(), // amount
-                            lastPaymentAttempt.getCurrency(), // currency
-                            ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getPaymentControlPluginNames().get(0), // pluginName,
-                            buildPluginProperties(lastPaymentAttempt)); // pluginProperties
-                    paymentAttempts.add(futurePaymentAttempt);
-                }
-            }
+            return retryQueue.getFutureNotificationForSearchKeys(internalTenantContext.getAccountRecordId(), internalTenantContext.getTenantRecordId());
         } catch (NoSuchNotificationQueue noSuchNotificationQueue) {
             log.error("ERROR Loading Notification Queue - " + noSuchNotificationQueue.getMessage());
+            return ImmutableList.<NotificationEventWithMetadata<NotificationEvent>>of();
         }
-        return paymentAttempts;
     }
 
     private PaymentAttemptModelDao getLastPaymentAttempt(final List<PaymentAttemptModelDao> pastPaymentAttempts, final UUID attemptId) {
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+//
+// Executor dedicated to a single payment plugin: concurrency and queue are bounded, so that a slow plugin cannot
+// hold the threads other plugins need. Once the queue is full, calls are rejected right away instead of waiting for the timeout.
+//
+class PluginBulkheadExecutor extends WithProfilingThreadPoolExecutor {
+
+    private final Timer latency;
+    private final ThreadLocal<Timer.Context> latencyContext = new ThreadLocal<Timer.Context>();
+
+    PluginBulkheadExecutor(final String pluginName,
+                           final int threadNb,
+                           final int queueSize,
+                           final ThreadFactory threadFactory,
+                           final MetricRegistry metricRegistry,
+                           final String metricsPrefix) {
+        super(threadNb,
+              threadNb,
+              10,
+              TimeUnit.MINUTES,
+              queueSize > 0 ? new ArrayBlockingQueue<Runnable>(queueSize) : new SynchronousQueue<Runnable>(),
+              threadFactory,
+              new RejectWithMeter(pluginName, metricRegistry.meter(MetricRegistry.name(metricsPrefix, "rejected"))));
+        allowCoreThreadTimeOut(true);
+
+        this.latency = metricRegistry.timer(MetricRegistry.name(metricsPrefix, "latency"));
+        final BlockingQueue<Runnable> queue = getQueue();
+        metricRegistry.register(MetricRegistry.name(metricsPrefix, "queueSize"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return queue.size();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(metricsPrefix, "activeCount"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getActiveCount();
+            }
+        });
+    }
+
+    @Override
+    protected void beforeExecute(final Thread t, final Runnable r) {
+        super.beforeExecute(t, r);
+        latencyContext.set(latency.time());
+    }
+
+    @Override
+    protected void afterExecute(final Runnable r, final Throwable t) {
+        final Timer.Context context = latencyContext.get();
+        if (context != null) {
+            context.stop();
+            latencyContext.remove();
+        }
+        super.afterExecute(r, t);
+    }
+
+    private static final class RejectWithMeter implements RejectedExecutionHandler {
+
+        private final String pluginName;
+        private final Meter rejected;
+
+        private RejectWithMeter(final String pluginName, final Meter rejected) {
+            this.pluginName = pluginName;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+            rejected.mark();
+            throw new RejectedExecutionException(String.format("Too many pending calls for plugin='%s' (active=%s, queued=%s)", pluginName, executor.getActiveCount(), executor.getQueue().size()));
+        }
+    }
+}
@@ -18,6 +18,15 @@
 package org.killbill.billing.payment.core.janitor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountInternalApi;
@@ -26,6 +35,7 @@ import org.killbill.billing.callcontext.DefaultCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.events.PaymentInternalEvent;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.payment.core.PaymentExecutors;
 import org.killbill.billing.payment.core.sm.PaymentControlStateMachineHelper;
 import org.killbill.billing.payment.core.sm.PaymentStateMachineHelper;
 import org.killbill.billing.payment.dao.PaymentDao;
@@ -46,10 +56,22 @@ import org.killbill.notificationq.api.NotificationQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Multimap;
+
+//
+// Items returned by getItemsForIteration are sharded by account record id and the shards are processed concurrently on the janitor worker pool.
+// Each shard is guarded by a global lock, so that a given shard is only processed by one node at a time.
+//
 abstract class CompletionTaskBase<T> implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(CompletionTaskBase.class);
 
+    private static final String METRICS_PREFIX = "killbill.payment.janitor";
+
     protected final PaymentConfig paymentConfig;
     protected final Clock clock;
     protected final PaymentDao paymentDao;
@@ -59,6 +81,13 @@ abstract class CompletionTaskBase<T> implements Runnable {
     protected final AccountInternalApi accountInternalApi;
     protected final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry;
     protected final GlobalLocker locker;
+    protected final PaymentExecutors paymentExecutors;
+    protected final MetricRegistry metricRegistry;
+
+    // Number of items from the current run not yet processed, and items processed overall
+    private final AtomicLong backlog = new AtomicLong();
+    protected final Meter processed;
+    private final String backlogMetricName;
 
     protected NotificationQueue janitorQueue;
 
@@ -67,7 +96,8 @@ abstract class CompletionTaskBase<T> implements Runnable {
     public CompletionTaskBase(final InternalCallContextFactory internalCallContextFactory, final PaymentConfig paymentConfig,
                               final PaymentDao paymentDao, final Clock clock, final PaymentStateMachineHelper paymentStateMachineHelper,
                               final PaymentControlStateMachineHelper retrySMHelper, final AccountInternalApi accountInternalApi,
-                              final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry, final GlobalLocker locker) {
+                              final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry, final GlobalLocker locker,
+                              final PaymentExecutors paymentExecutors, final MetricRegistry metricRegistry) {
         this.internalCallContextFactory = internalCallContextFactory;
         this.paymentConfig = paymentConfig;
         this.paymentDao = paymentDao;
@@ -77,6 +107,10 @@ abstract class CompletionTaskBase<T> implements Runnable {
         this.accountInternalApi = accountInternalApi;
         this.pluginRegistry = pluginRegistry;
         this.locker = locker;
+        this.paymentExecutors = paymentExecutors;
+        this.metricRegistry = metricRegistry;
+        this.processed = metricRegistry.meter(MetricRegistry.name(METRICS_PREFIX, getClass().getSimpleName(), "processed"));
+        this.backlogMetricName = MetricRegistry.name(METRICS_PREFIX, getClass().getSimpleName(), "backlog");
         this.isStopped = false;
     }
 
@@ -86,30 +120,99 @@ abstract class CompletionTaskBase<T> implements Runnable {
             log.info("Janitor was requested to stop");
             return;
         }
-        final Iterable<T> items = getItemsForIteration();
-        for (final T item : items) {
-            if (isStopped) {
-                log.info("Janitor was requested to stop");
-                return;
+        // Items for a given account end up in the same shard, and are processed sequentially
+        final int shardsNb = paymentConfig.getJanitorShardsNb();
+        final Map<Integer, Multimap<Long, T>> itemsPerShard = new HashMap<Integer, Multimap<Long, T>>();
+        long nbItems = 0;
+        for (final T item : getItemsForIteration()) {
+            final Long accountRecordId = getAccountRecordId(item);
+            final int shard = (int) (accountRecordId % shardsNb);
+            Multimap<Long, T> shardItems = itemsPerShard.get(shard);
+            if (shardItems == null) {
+                shardItems = LinkedListMultimap.<Long, T>create();
+                itemsPerShard.put(shard, shardItems);
             }
+            shardItems.put(accountRecordId, item);
+            nbItems++;
+        }
+        backlog.set(nbItems);
+
+        final ExecutorService workerExecutor = paymentExecutors.getJanitorWorkerExecutorService();
+        final List<Future<?>> futures = new ArrayList<Future<?>>(itemsPerShard.size());
+        for (final Entry<Integer, Multimap<Long, T>> entry : itemsPerShard.entrySet()) {
+            futures.add(workerExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    processShard(entry.getKey(), entry.getValue());
+                }
+            }));
+        }
+
+        // Wait for all the shards, so that runs don't overlap
+        for (final Future<?> future : futures) {
             try {
-                doIteration(item);
-            } catch (final IllegalStateException e) {
-                log.warn(e.getMessage());
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Janitor run got interrupted");
+                return;
+            } catch (final ExecutionException e) {
+                log.warn("Janitor failed to process shard", e.getCause());
+            }
+        }
+    }
+
+    private void processShard(final int shard, final Multimap<Long, T> shardItems) {
+        GlobalLock lock = null;
+        try {
+            lock = locker.lockWithNumberOfTries(LockerType.PAYMENT_JANITOR_SHARD.toString(), getClass().getSimpleName() + "-" + shard, 1);
+            for (final T item : shardItems.values()) {
+                if (isStopped) {
+                    log.info("Janitor was requested to stop");
+                    return;
+                }
+                try {
+                    doIteration(item);
+                } catch (final IllegalStateException e) {
+                    log.warn(e.getMessage());
+                }
+                processed.mark();
+                backlog.decrementAndGet();
+            }
+        } catch (final LockFailedException e) {
+            log.info("Janitor shard='{}' is being processed by another node", shard);
+            backlog.addAndGet(-shardItems.size());
+        } finally {
+            if (lock != null) {
+                lock.release();
             }
         }
     }
 
     public synchronized void start() {
         this.isStopped = false;
+        metricRegistry.remove(backlogMetricName);
+        metricRegistry.register(backlogMetricName, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return backlog.get();
+            }
+        });
     }
 
     public synchronized void stop() {
         this.isStopped = true;
+        metricRegistry.remove(backlogMetricName);
+    }
+
+    protected boolean isStopped() {
+        return isStopped;
     }
 
     public abstract Iterable<T> getItemsForIteration();
 
+    protected abstract Long getAccountRecordId(final T item);
+
     public abstract void doIteration(final T item);
 
     public abstract void processPaymentEvent(final PaymentInternalEvent event, final NotificationQueue janitorQueue) throws IOException;
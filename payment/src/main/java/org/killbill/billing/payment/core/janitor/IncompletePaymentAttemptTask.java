@@ -31,6 +31,7 @@ import org.killbill.billing.events.PaymentInternalEvent;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.payment.api.PaymentApiException;
 import org.killbill.billing.payment.api.TransactionStatus;
+import org.killbill.billing.payment.core.PaymentExecutors;
 import org.killbill.billing.payment.core.sm.PaymentControlStateMachineHelper;
 import org.killbill.billing.payment.core.sm.PaymentStateMachineHelper;
 import org.killbill.billing.payment.core.sm.PluginControlPaymentAutomatonRunner;
@@ -51,6 +52,7 @@ import org.killbill.notificationq.api.NotificationQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -83,8 +85,9 @@ public class IncompletePaymentAttemptTask extends CompletionTaskBase<PaymentAtte
                                         final AccountInternalApi accountInternalApi,
                                         final PluginControlPaymentAutomatonRunner pluginControlledPaymentAutomatonRunner,
                                         final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry,
-                                        final GlobalLocker locker) {
-        super(internalCallContextFactory, paymentConfig, paymentDao, clock, paymentStateMachineHelper, retrySMHelper, accountInternalApi, pluginRegistry, locker);
+                                        final GlobalLocker locker,
+                                        final PaymentExecutors paymentExecutors, final MetricRegistry metricRegistry) {
+        super(internalCallContextFactory, paymentConfig, paymentDao, clock, paymentStateMachineHelper, retrySMHelper, accountInternalApi, pluginRegistry, locker, paymentExecutors, metricRegistry);
         this.pluginControlledPaymentAutomatonRunner = pluginControlledPaymentAutomatonRunner;
     }
 
@@ -97,6 +100,11 @@ public class IncompletePaymentAttemptTask extends CompletionTaskBase<PaymentAtte
         return incompleteAttempts;
     }
 
+    @Override
+    protected Long getAccountRecordId(final PaymentAttemptModelDao attempt) {
+        return attempt.getAccountRecordId();
+    }
+
     @Override
     public void doIteration(final PaymentAttemptModelDao attempt) {
         // We don't grab account lock here as the lock will be taken when calling the completeRun API.
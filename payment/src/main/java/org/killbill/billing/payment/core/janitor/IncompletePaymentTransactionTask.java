@@ -34,6 +34,7 @@ import org.killbill.billing.events.PaymentInternalEvent;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.payment.api.TransactionStatus;
+import org.killbill.billing.payment.core.PaymentExecutors;
 import org.killbill.billing.payment.core.PaymentTransactionInfoPluginConverter;
 import org.killbill.billing.payment.core.sm.PaymentControlStateMachineHelper;
 import org.killbill.billing.payment.core.sm.PaymentStateMachineHelper;
@@ -49,15 +50,18 @@ import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.billing.util.entity.Pagination;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLocker;
 import org.killbill.commons.locker.LockFailedException;
 import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationEventWithMetadata;
 import org.killbill.notificationq.api.NotificationQueue;
 import org.skife.config.TimeSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
@@ -74,23 +78,51 @@ public class IncompletePaymentTransactionTask extends CompletionTaskBase<Payment
                                                                                                           .add(TransactionStatus.UNKNOWN)
                                                                                                           .build();
 
+    private static final long MAX_TRANSACTIONS_PER_ITERATIONS = 1000L;
+
     @Inject
     public IncompletePaymentTransactionTask(final InternalCallContextFactory internalCallContextFactory, final PaymentConfig paymentConfig,
                                             final PaymentDao paymentDao, final Clock clock,
                                             final PaymentStateMachineHelper paymentStateMachineHelper, final PaymentControlStateMachineHelper retrySMHelper, final AccountInternalApi accountInternalApi,
-                                            final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry, final GlobalLocker locker) {
-        super(internalCallContextFactory, paymentConfig, paymentDao, clock, paymentStateMachineHelper, retrySMHelper, accountInternalApi, pluginRegistry, locker);
+                                            final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry, final GlobalLocker locker,
+                                            final PaymentExecutors paymentExecutors, final MetricRegistry metricRegistry) {
+        super(internalCallContextFactory, paymentConfig, paymentDao, clock, paymentStateMachineHelper, retrySMHelper, accountInternalApi, pluginRegistry, locker, paymentExecutors, metricRegistry);
     }
 
+    //
+    // Unresolved transactions are fixed through bus event + notificationQ (see processPaymentEvent). The sweep only picks up the ones whose
+    // notification chain was lost (e.g. node killed before the follow-up notification was recorded) and reschedules them.
+    //
     @Override
     public Iterable<PaymentTransactionModelDao> getItemsForIteration() {
-        // This is not triggered by Janitor proper but instead relies on bus event + notificationQ
-        return ImmutableList.of();
+        final Pagination<PaymentTransactionModelDao> incompleteTransactions = paymentDao.getByTransactionStatusAcrossTenants(TRANSACTION_STATUSES_TO_CONSIDER, getCreatedDateBefore(), getCreatedDateAfter(), 0L, MAX_TRANSACTIONS_PER_ITERATIONS);
+        if (incompleteTransactions.getTotalNbRecords() > 0) {
+            log.info("Janitor IncompletePaymentTransactionTask start run: found {} incomplete transactions", incompleteTransactions.getTotalNbRecords());
+        }
+        return incompleteTransactions;
+    }
+
+    @Override
+    protected Long getAccountRecordId(final PaymentTransactionModelDao paymentTransaction) {
+        return paymentTransaction.getAccountRecordId();
     }
 
     @Override
     public void doIteration(final PaymentTransactionModelDao paymentTransaction) {
-        // Nothing
+        final List<NotificationEventWithMetadata<NotificationEvent>> notifications = janitorQueue.getFutureOrInProcessingNotificationForSearchKeys(paymentTransaction.getAccountRecordId(), paymentTransaction.getTenantRecordId());
+        final boolean hasPendingNotification = Iterables.any(notifications, new Predicate<NotificationEventWithMetadata<NotificationEvent>>() {
+            @Override
+            public boolean apply(final NotificationEventWithMetadata<NotificationEvent> notification) {
+                return notification.getEvent() instanceof JanitorNotificationKey &&
+                       paymentTransaction.getId().equals(((JanitorNotificationKey) notification.getEvent()).getUuidKey());
+            }
+        });
+        if (hasPendingNotification) {
+            return;
+        }
+
+        log.info("Janitor IncompletePaymentTransactionTask rescheduling paymentTransactionId='{}'", paymentTransaction.getId());
+        insertNewNotificationForUnresolvedTransactionIfNeeded(paymentTransaction.getId(), 0, null, paymentTransaction.getAccountRecordId(), paymentTransaction.getTenantRecordId());
     }
 
     public void processNotification(final JanitorNotificationKey notificationKey, final UUID userToken, final Long accountRecordId, final long tenantRecordId) {
@@ -100,6 +132,7 @@ public class IncompletePaymentTransactionTask extends CompletionTaskBase<Payment
             log.warn("Error locking accountRecordId='{}', will attempt to retry later", accountRecordId, e);
             insertNewNotificationForUnresolvedTransactionIfNeeded(notificationKey.getUuidKey(), notificationKey.getAttemptNumber(), userToken, accountRecordId, tenantRecordId);
         }
+        processed.mark();
     }
 
     public void tryToProcessNotification(final JanitorNotificationKey notificationKey, final UUID userToken, final Long accountRecordId, final long tenantRecordId) throws LockFailedException {
@@ -116,34 +149,27 @@ public class IncompletePaymentTransactionTask extends CompletionTaskBase<Payment
                 final PaymentMethodModelDao paymentMethod = paymentDao.getPaymentMethod(payment.getPaymentMethodId(), internalTenantContext);
                 final PaymentPluginApi paymentPluginApi = getPaymentPluginApi(payment, paymentMethod.getPluginName());
 
-                final PaymentTransactionInfoPlugin undefinedPaymentTransaction = new DefaultNoOpPaymentInfoPlugin(payment.getId(),
-                                                                                                                  rehydratedPaymentTransaction.getId(),
-                                                                                                                  rehydratedPaymentTransaction.getTransactionType(),
-                                                                                                                  rehydratedPaymentTransaction.getAmount(),
-                                                                                                                  rehydratedPaymentTransaction.getCurrency(),
-                                                                                                                  rehydratedPaymentTransaction.getCreatedDate(),
-                                                                                                                  rehydratedPaymentTransaction.getCreatedDate(),
-                                                                                                                  PaymentPluginStatus.UNDEFINED,
-                                                                                                                  null,
-                                                                                                                  null);
-                PaymentTransactionInfoPlugin paymentTransactionInfoPlugin;
+                List<PaymentTransactionInfoPlugin> paymentTransactionInfoPlugins;
                 try {
-                    final List<PaymentTransactionInfoPlugin> result = paymentPluginApi.getPaymentInfo(payment.getAccountId(), payment.getId(), ImmutableList.<PluginProperty>of(), tenantContext);
-                    paymentTransactionInfoPlugin = Iterables.tryFind(result, new Predicate<PaymentTransactionInfoPlugin>() {
-                        @Override
-                        public boolean apply(final PaymentTransactionInfoPlugin input) {
-                            return input.getKbTransactionPaymentId().equals(rehydratedPaymentTransaction.getId());
-                        }
-                    }).or(new Supplier<PaymentTransactionInfoPlugin>() {
-                        @Override
-                        public PaymentTransactionInfoPlugin get() {
-                            return undefinedPaymentTransaction;
-                        }
-                    });
+                    paymentTransactionInfoPlugins = paymentPluginApi.getPaymentInfo(payment.getAccountId(), payment.getId(), ImmutableList.<PluginProperty>of(), tenantContext);
                 } catch (final Exception e) {
-                    paymentTransactionInfoPlugin = undefinedPaymentTransaction;
+                    paymentTransactionInfoPlugins = ImmutableList.<PaymentTransactionInfoPlugin>of();
                 }
+                final PaymentTransactionInfoPlugin paymentTransactionInfoPlugin = findPaymentTransactionInfoPlugin(paymentTransactionInfoPlugins, rehydratedPaymentTransaction);
                 updatePaymentAndTransactionIfNeeded(payment, notificationKey.getAttemptNumber(), userToken, rehydratedPaymentTransaction, paymentTransactionInfoPlugin, internalTenantContext);
+
+                // The plugin returned all the transactions for that payment: repair the other incomplete ones now instead of calling the plugin again when their
+                // own notification fires (which will then be a no-op). Unresolved ones are left to their notification (no attemptNumber, so nothing is rescheduled here).
+                for (final PaymentTransactionModelDao otherPaymentTransaction : paymentDao.getTransactionsForPayment(payment.getId(), internalTenantContext)) {
+                    if (otherPaymentTransaction.getId().equals(rehydratedPaymentTransaction.getId()) ||
+                        !TRANSACTION_STATUSES_TO_CONSIDER.contains(otherPaymentTransaction.getTransactionStatus())) {
+                        continue;
+                    }
+                    final PaymentTransactionInfoPlugin otherPaymentTransactionInfoPlugin = findPaymentTransactionInfoPlugin(paymentTransactionInfoPlugins, otherPaymentTransaction);
+                    if (otherPaymentTransactionInfoPlugin.getStatus() != PaymentPluginStatus.UNDEFINED) {
+                        updatePaymentAndTransactionInternal(payment, null, null, otherPaymentTransaction, otherPaymentTransactionInfoPlugin, internalTenantContext);
+                    }
+                }
                 return null;
             }
         }, internalTenantContext);
@@ -261,6 +287,29 @@ public class IncompletePaymentTransactionTask extends CompletionTaskBase<Payment
         return (newTransactionStatus != TransactionStatus.UNKNOWN) ? newTransactionStatus : currentTransactionStatus;
     }
 
+    private PaymentTransactionInfoPlugin findPaymentTransactionInfoPlugin(final Iterable<PaymentTransactionInfoPlugin> paymentTransactionInfoPlugins, final PaymentTransactionModelDao paymentTransaction) {
+        return Iterables.tryFind(paymentTransactionInfoPlugins, new Predicate<PaymentTransactionInfoPlugin>() {
+            @Override
+            public boolean apply(final PaymentTransactionInfoPlugin input) {
+                return input.getKbTransactionPaymentId().equals(paymentTransaction.getId());
+            }
+        }).or(new Supplier<PaymentTransactionInfoPlugin>() {
+            @Override
+            public PaymentTransactionInfoPlugin get() {
+                return new DefaultNoOpPaymentInfoPlugin(paymentTransaction.getPaymentId(),
+                                                        paymentTransaction.getId(),
+                                                        paymentTransaction.getTransactionType(),
+                                                        paymentTransaction.getAmount(),
+                                                        paymentTransaction.getCurrency(),
+                                                        paymentTransaction.getCreatedDate(),
+                                                        paymentTransaction.getCreatedDate(),
+                                                        PaymentPluginStatus.UNDEFINED,
+                                                        null,
+                                                        null);
+            }
+        });
+    }
+
     private PaymentPluginApi getPaymentPluginApi(final PaymentModelDao item, final String pluginName) {
         final PaymentPluginApi pluginApi = pluginRegistry.getServiceForName(pluginName);
         Preconditions.checkState(pluginApi != null, "Janitor IncompletePaymentTransactionTask cannot retrieve PaymentPluginApi for plugin %s (payment id %s), skipping", pluginName, item.getId());
@@ -288,7 +337,7 @@ public class IncompletePaymentTransactionTask extends CompletionTaskBase<Payment
 
         // Increment value before we insert
         final Integer newAttemptNumber = attemptNumber.intValue() + 1;
-        final NotificationEvent key = new JanitorNotificationKey(paymentTransactionId, IncompletePaymentTransactionTask.class.toString(), newAttemptNumber);
+        final JanitorNotificationKey key = new JanitorNotificationKey(paymentTransactionId, IncompletePaymentTransactionTask.class.toString(), newAttemptNumber);
         final DateTime notificationTime = getNextNotificationTime(newAttemptNumber, tenantContext);
         // Will be null in the GET path or when we run out opf attempts..
         if (notificationTime != null) {
@@ -299,4 +348,18 @@ public class IncompletePaymentTransactionTask extends CompletionTaskBase<Payment
             }
         }
     }
+
+    private DateTime getCreatedDateBefore() {
+        final long delayBeforeNowMs = paymentConfig.getIncompleteTransactionsTimeSpanDelay().getMillis();
+        return clock.getUTCNow().minusMillis((int) delayBeforeNowMs);
+    }
+
+    // Past the last retry, unresolved transactions are left alone (see getNextNotificationTime)
+    private DateTime getCreatedDateAfter() {
+        long retriesMs = 0;
+        for (final TimeSpan retry : paymentConfig.getIncompleteTransactionsRetries()) {
+            retriesMs += retry.getMillis();
+        }
+        return clock.getUTCNow().minus(retriesMs);
+    }
 }
@@ -23,12 +23,14 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.SortedSet;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.joda.time.DateTime;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.Currency;
@@ -46,12 +48,15 @@ import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.search.SearchIndex;
+import org.killbill.billing.util.search.SearchIndexSource;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
@@ -64,6 +69,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
 public class DefaultPaymentDao implements PaymentDao {
@@ -74,14 +80,23 @@ public class DefaultPaymentDao implements PaymentDao {
     private final DefaultPaginationSqlDaoHelper paginationHelper;
     private final PersistentBus eventBus;
     private final Clock clock;
+    private final SearchIndex searchIndex;
 
     @Inject
     public DefaultPaymentDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher,
-                             final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final PersistentBus eventBus) {
-        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
+                             final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final PersistentBus eventBus,
+                             final SearchIndex searchIndex) {
+        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, searchIndex.getEntitySqlDaoTransactionHook());
         this.paginationHelper = new DefaultPaginationSqlDaoHelper(transactionalSqlDao);
         this.eventBus = eventBus;
         this.clock = clock;
+        this.searchIndex = searchIndex;
+        this.searchIndex.registerSource(ObjectType.PAYMENT, new SearchIndexSource() {
+            @Override
+            public Iterator<PaymentModelDao> getAll(final InternalTenantContext context) {
+                return transactionalSqlDao.onDemandForStreamingResults(PaymentSqlDao.class).getAll(context);
+            }
+        });
     }
 
     @Override
@@ -168,6 +183,20 @@ public class DefaultPaymentDao implements PaymentDao {
         });
     }
 
+    @Override
+    public List<PaymentAttemptModelDao> getPaymentAttemptsForPayments(final Collection<String> paymentExternalKeys, final InternalTenantContext context) {
+        if (paymentExternalKeys.isEmpty()) {
+            return ImmutableList.<PaymentAttemptModelDao>of();
+        }
+
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<PaymentAttemptModelDao>>() {
+            @Override
+            public List<PaymentAttemptModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(PaymentAttemptSqlDao.class).getByPaymentExternalKeys(ImmutableSet.<String>copyOf(paymentExternalKeys), context);
+            }
+        });
+    }
+
     @Override
     public List<PaymentAttemptModelDao> getPaymentAttemptByTransactionExternalKey(final String externalKey, final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<PaymentAttemptModelDao>>() {
@@ -246,8 +275,18 @@ public class DefaultPaymentDao implements PaymentDao {
                                              );
     }
 
+    @Override
+    public PageTokenPagination<PaymentModelDao> getPaymentsFromPageToken(@Nullable final String pageToken, final Long limit, final boolean withCount, final InternalTenantContext context) {
+        return paginationHelper.getPaginationFromPageToken(PaymentSqlDao.class, pageToken, limit, withCount, context);
+    }
+
     @Override
     public Pagination<PaymentModelDao> searchPayments(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
+        final SortedSet<Long> candidateRecordIds = searchIndex.search(ObjectType.PAYMENT, searchKey, context);
+        if (candidateRecordIds != null) {
+            return paginationHelper.getPaginationFromSearchCandidates(PaymentSqlDao.class, candidateRecordIds, searchKey, offset, limit, context);
+        }
+
         return paginationHelper.getPagination(PaymentSqlDao.class,
                                               new PaginationIteratorBuilder<PaymentModelDao, Payment, PaymentSqlDao>() {
                                                   @Override
@@ -391,6 +430,21 @@ public class DefaultPaymentDao implements PaymentDao {
         });
     }
 
+    @Override
+    public List<PaymentTransactionModelDao> getTransactionsForPayments(final Collection<UUID> paymentIds, final InternalTenantContext context) {
+        if (paymentIds.isEmpty()) {
+            return ImmutableList.<PaymentTransactionModelDao>of();
+        }
+
+        final Collection<String> paymentIdsAsStrings = ImmutableSet.<String>copyOf(Collections2.transform(paymentIds, Functions.toStringFunction()));
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<PaymentTransactionModelDao>>() {
+            @Override
+            public List<PaymentTransactionModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(TransactionSqlDao.class).getByPaymentIds(paymentIdsAsStrings, context);
+            }
+        });
+    }
+
     @Override
     public PaymentMethodModelDao insertPaymentMethod(final PaymentMethodModelDao paymentMethod, final InternalCallContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<PaymentMethodModelDao>() {
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.payment.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -58,6 +59,10 @@ public interface PaymentAttemptSqlDao extends EntitySqlDao<PaymentAttemptModelDa
     List<PaymentAttemptModelDao> getByPaymentExternalKey(@Bind("paymentExternalKey") final String paymentExternalKey,
                                                          @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    List<PaymentAttemptModelDao> getByPaymentExternalKeys(@PaymentExternalKeyCollectionBinder final Collection<String> paymentExternalKeys,
+                                                          @BindBean final InternalTenantContext context);
+
     @SqlQuery
     Long getCountByStateNameAcrossTenants(@Bind("stateName") final String stateName,
                                           @Bind("createdBeforeDate") final Date createdBeforeDate);
@@ -17,6 +17,7 @@
 
 package org.killbill.billing.payment.dao;
 
+import java.util.Arrays;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -27,10 +28,11 @@ import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.dao.EntityModelDao;
 import org.killbill.billing.util.entity.dao.EntityModelDaoBase;
 import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.search.SearchIndexable;
 
 import com.google.common.base.Objects;
 
-public class PaymentModelDao extends EntityModelDaoBase implements EntityModelDao<Payment> {
+public class PaymentModelDao extends EntityModelDaoBase implements EntityModelDao<Payment>, SearchIndexable {
 
     public static final Integer INVALID_PAYMENT_NUMBER = new Integer(-17);
 
@@ -165,6 +167,15 @@ public class PaymentModelDao extends EntityModelDaoBase implements EntityModelDa
         return result;
     }
 
+    @Override
+    public Iterable<String> getSearchableValues() {
+        return Arrays.<String>asList(getId() != null ? getId().toString() : null,
+                                     accountId != null ? accountId.toString() : null,
+                                     paymentMethodId != null ? paymentMethodId.toString() : null,
+                                     externalKey,
+                                     stateName);
+    }
+
     @Override
     public TableName getTableName() {
         return TableName.PAYMENTS;
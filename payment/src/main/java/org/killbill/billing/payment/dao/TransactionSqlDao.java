@@ -69,6 +69,10 @@ public interface TransactionSqlDao extends EntitySqlDao<PaymentTransactionModelD
     @SqlQuery
     public List<PaymentTransactionModelDao> getByPaymentId(@Bind("paymentId") final UUID paymentId,
                                                            @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<PaymentTransactionModelDao> getByPaymentIds(@PaymentIdCollectionBinder final Collection<String> paymentIds,
+                                                            @BindBean final InternalTenantContext context);
 }
 
 
@@ -39,6 +39,7 @@ import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.osgi.api.OSGIServiceDescriptor;
 import org.killbill.billing.payment.MockRecurringInvoiceItem;
+import org.killbill.billing.payment.PaymentPaginationApi;
 import org.killbill.billing.payment.PaymentTestSuiteWithEmbeddedDB;
 import org.killbill.billing.payment.dao.PaymentAttemptModelDao;
 import org.killbill.billing.payment.dao.PaymentSqlDao;
@@ -48,6 +49,7 @@ import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
 import org.killbill.billing.payment.provider.ExternalPaymentProviderPlugin;
 import org.killbill.billing.payment.provider.MockPaymentControlProviderPlugin;
 import org.killbill.billing.payment.provider.MockPaymentProviderPlugin;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.testng.Assert;
@@ -56,6 +58,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -94,6 +97,9 @@ public class TestPaymentApi extends PaymentTestSuiteWithEmbeddedDB {
         }
     };
 
+    @Inject
+    private PaymentPaginationApi paymentPaginationApi;
+
     private Account account;
 
     @BeforeClass(groups = "slow")
@@ -232,6 +238,34 @@ public class TestPaymentApi extends PaymentTestSuiteWithEmbeddedDB {
         assertNotNull(payment.getTransactions().get(0).getGatewayErrorCode());
     }
 
+    @Test(groups = "slow")
+    public void testGetPaymentsFromPageToken() throws PaymentApiException {
+        final List<UUID> paymentIds = new ArrayList<UUID>();
+        for (int i = 0; i < 3; i++) {
+            final Payment payment = paymentApi.createPurchase(account, account.getPaymentMethodId(), null, BigDecimal.TEN, Currency.AED, UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                                                              ImmutableList.<PluginProperty>of(), callContext);
+            paymentIds.add(payment.getId());
+        }
+
+        final PageTokenPagination<Payment> firstPage = paymentPaginationApi.getPayments(null, 2L, true, true, false, ImmutableList.<PluginProperty>of(), callContext);
+        assertEquals(firstPage.getTotalNbRecords(), (Long) 3L);
+        assertEquals(firstPage.getMaxNbRecords(), (Long) 3L);
+        final List<Payment> firstPayments = ImmutableList.<Payment>copyOf(firstPage);
+        assertEquals(firstPayments.size(), 2);
+        assertEquals(firstPayments.get(0).getId(), paymentIds.get(0));
+        assertEquals(firstPayments.get(1).getId(), paymentIds.get(1));
+        // Plugin info is retrieved from the plugin of each payment
+        assertEquals(firstPayments.get(0).getTransactions().get(0).getPaymentInfoPlugin().getStatus(), PaymentPluginStatus.PROCESSED);
+        assertNotNull(firstPage.getNextPageToken());
+
+        final PageTokenPagination<Payment> secondPage = paymentPaginationApi.getPayments(firstPage.getNextPageToken(), 2L, false, false, false, ImmutableList.<PluginProperty>of(), callContext);
+        assertNull(secondPage.getTotalNbRecords());
+        final List<Payment> secondPayments = ImmutableList.<Payment>copyOf(secondPage);
+        assertEquals(secondPayments.size(), 1);
+        assertEquals(secondPayments.get(0).getId(), paymentIds.get(2));
+        assertNull(secondPage.getNextPageToken());
+    }
+
     @Test(groups = "slow")
     public void testCreateFailedPurchase() throws PaymentApiException {
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.payment.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.payment.PaymentTestSuiteNoDB;
+import org.killbill.billing.payment.provider.MockPaymentProviderPlugin;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestPluginBulkheadExecutor extends PaymentTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testRejectWhenFull() throws Exception {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final PluginBulkheadExecutor executor = new PluginBulkheadExecutor("slow-plugin", 1, 1, Executors.defaultThreadFactory(), metricRegistry, "test.slow-plugin");
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Callable<Void> blockingTask = new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                latch.await();
+                return null;
+            }
+        };
+        try {
+            final Future<Void> running = executor.submit(blockingTask);
+            final Future<Void> queued = executor.submit(blockingTask);
+            try {
+                executor.submit(blockingTask);
+                Assert.fail("Call should have been rejected");
+            } catch (final RejectedExecutionException e) {
+                Assert.assertEquals(metricRegistry.meter("test.slow-plugin.rejected").getCount(), 1);
+            }
+
+            latch.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(metricRegistry.timer("test.slow-plugin.latency").getCount(), 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testOneExecutorPerPlugin() throws Exception {
+        final Object pluginExecutor = paymentExecutors.getPluginExecutorService(MockPaymentProviderPlugin.PLUGIN_NAME);
+        Assert.assertTrue(pluginExecutor instanceof PluginBulkheadExecutor);
+        Assert.assertSame(paymentExecutors.getPluginExecutorService(MockPaymentProviderPlugin.PLUGIN_NAME), pluginExecutor);
+
+        // Unknown plugins (e.g. control plugins) share the default executor
+        Assert.assertSame(paymentExecutors.getPluginExecutorService("unknown-plugin"), paymentExecutors.getPluginExecutorService());
+        Assert.assertSame(paymentExecutors.getPluginExecutorService(null), paymentExecutors.getPluginExecutorService());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014-2015 Groupon, Inc
+ * Copyright 2014-2015 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core.janitor;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.killbill.billing.events.PaymentInternalEvent;
+import org.killbill.billing.payment.PaymentTestSuiteNoDB;
+import org.killbill.billing.util.globallocker.LockerType;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+
+public class TestCompletionTaskBase extends PaymentTestSuiteNoDB {
+
+    @Inject
+    protected GlobalLocker locker;
+
+    @Test(groups = "fast")
+    public void testShardsAreDisjointAndAllProcessed() throws Exception {
+        final ShardedTask task = new ShardedTask(createItems(40, 3));
+        task.start();
+        try {
+            task.run();
+        } finally {
+            task.stop();
+        }
+
+        // Each item is processed exactly once
+        Assert.assertEquals(task.processedItems.size(), 120);
+        Assert.assertEquals(task.processed.getCount(), 120);
+        final Map<Long, List<Integer>> itemsPerAccount = new ConcurrentHashMap<Long, List<Integer>>();
+        for (final JanitorItem item : task.processedItems) {
+            if (itemsPerAccount.get(item.accountRecordId) == null) {
+                itemsPerAccount.put(item.accountRecordId, new LinkedList<Integer>());
+            }
+            itemsPerAccount.get(item.accountRecordId).add(item.sequence);
+        }
+        Assert.assertEquals(itemsPerAccount.size(), 40);
+
+        // Items of a given shard are processed sequentially (in order, by a single worker)
+        final int shardsNb = paymentConfig.getJanitorShardsNb();
+        for (final Long accountRecordId : itemsPerAccount.keySet()) {
+            Assert.assertEquals(itemsPerAccount.get(accountRecordId).size(), 3);
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals((int) itemsPerAccount.get(accountRecordId).get(i), i);
+            }
+            for (final Long otherAccountRecordId : itemsPerAccount.keySet()) {
+                if (accountRecordId % shardsNb == otherAccountRecordId % shardsNb) {
+                    Assert.assertEquals(task.threadPerAccount.get(otherAccountRecordId), task.threadPerAccount.get(accountRecordId));
+                }
+            }
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testShardLockedByAnotherNodeIsSkipped() throws Exception {
+        final ShardedTask task = new ShardedTask(createItems(40, 1));
+        final int shardsNb = paymentConfig.getJanitorShardsNb();
+
+        task.start();
+        try {
+            // Simulate another node working on shard 1
+            final GlobalLock lock = locker.lockWithNumberOfTries(LockerType.PAYMENT_JANITOR_SHARD.toString(), ShardedTask.class.getSimpleName() + "-1", 1);
+            try {
+                task.run();
+            } finally {
+                lock.release();
+            }
+
+            int nbItemsInShard = 0;
+            for (long accountRecordId = 1; accountRecordId <= 40; accountRecordId++) {
+                if (accountRecordId % shardsNb == 1) {
+                    nbItemsInShard++;
+                }
+            }
+            Assert.assertEquals(task.processedItems.size(), 40 - nbItemsInShard);
+            for (final JanitorItem item : task.processedItems) {
+                Assert.assertNotEquals(item.accountRecordId % shardsNb, 1L);
+            }
+
+            // The shard is picked up on the next run once released
+            task.processedItems.clear();
+            task.run();
+            Assert.assertEquals(task.processedItems.size(), 40);
+        } finally {
+            task.stop();
+        }
+    }
+
+    private List<JanitorItem> createItems(final int nbAccounts, final int nbItemsPerAccount) {
+        final List<JanitorItem> items = new LinkedList<JanitorItem>();
+        for (int i = 0; i < nbItemsPerAccount; i++) {
+            for (long accountRecordId = 1; accountRecordId <= nbAccounts; accountRecordId++) {
+                items.add(new JanitorItem(accountRecordId, i));
+            }
+        }
+        return items;
+    }
+
+    private static final class JanitorItem {
+
+        private final Long accountRecordId;
+        private final int sequence;
+
+        private JanitorItem(final Long accountRecordId, final int sequence) {
+            this.accountRecordId = accountRecordId;
+            this.sequence = sequence;
+        }
+    }
+
+    private final class ShardedTask extends CompletionTaskBase<JanitorItem> {
+
+        private final Iterable<JanitorItem> items;
+        private final ConcurrentLinkedQueue<JanitorItem> processedItems = new ConcurrentLinkedQueue<JanitorItem>();
+        private final Map<Long, String> threadPerAccount = new ConcurrentHashMap<Long, String>();
+
+        private ShardedTask(final Iterable<JanitorItem> items) {
+            super(TestCompletionTaskBase.this.internalCallContextFactory, TestCompletionTaskBase.this.paymentConfig, TestCompletionTaskBase.this.paymentDao,
+                  TestCompletionTaskBase.this.clock, paymentSMHelper, null, TestCompletionTaskBase.this.accountInternalApi, registry, TestCompletionTaskBase.this.locker,
+                  TestCompletionTaskBase.this.paymentExecutors, new MetricRegistry());
+            this.items = items;
+        }
+
+        @Override
+        public Iterable<JanitorItem> getItemsForIteration() {
+            return items;
+        }
+
+        @Override
+        protected Long getAccountRecordId(final JanitorItem item) {
+            return item.accountRecordId;
+        }
+
+        @Override
+        public void doIteration(final JanitorItem item) {
+            threadPerAccount.put(item.accountRecordId, Thread.currentThread().getName());
+            processedItems.add(item);
+        }
+
+        @Override
+        public void processPaymentEvent(final PaymentInternalEvent event, final NotificationQueue janitorQueue) {
+        }
+    }
+}
@@ -26,7 +26,11 @@ import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.payment.PaymentTestSuiteWithEmbeddedDB;
 import org.killbill.billing.payment.api.Payment;
 import org.killbill.billing.payment.api.PaymentApiException;
+import org.killbill.billing.payment.api.PaymentTransaction;
 import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.api.TransactionStatus;
+import org.killbill.billing.payment.api.TransactionType;
+import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
 import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
 import org.killbill.billing.payment.provider.MockPaymentProviderPlugin;
 import org.killbill.billing.util.globallocker.LockerType;
@@ -103,4 +107,75 @@ public class TestIncompletePaymentTransactionTaskWithDB extends PaymentTestSuite
             }
         }
     }
+
+    @Test(groups = "slow")
+    public void testFixSiblingTransactionsFromSinglePluginCall() throws PaymentApiException {
+        final Payment authorization = paymentApi.createAuthorization(account, account.getPaymentMethodId(), null, BigDecimal.TEN, Currency.EUR, UUID.randomUUID().toString(),
+                                                                     UUID.randomUUID().toString(), ImmutableList.<PluginProperty>of(), callContext);
+        final Payment payment = paymentApi.createCapture(account, authorization.getId(), BigDecimal.TEN, Currency.EUR, UUID.randomUUID().toString(), ImmutableList.<PluginProperty>of(), callContext);
+        Assert.assertEquals(payment.getTransactions().size(), 2);
+
+        // Artificially move both transactions to UNKNOWN (the plugin knows them as PROCESSED)
+        for (final PaymentTransaction transaction : payment.getTransactions()) {
+            final String paymentStateName = paymentSMHelper.getErroredStateForTransaction(transaction.getTransactionType()).toString();
+            paymentDao.updatePaymentAndTransactionOnCompletion(account.getId(), null, payment.getId(), transaction.getTransactionType(), paymentStateName, paymentStateName,
+                                                               transaction.getId(), TransactionStatus.UNKNOWN, BigDecimal.TEN, Currency.EUR, "foo", "bar", internalCallContext);
+        }
+
+        final int getPaymentInfoCalls = mockPaymentProviderPlugin.getGetPaymentInfoCalls();
+        final UUID authorizationTransactionId = payment.getTransactions().get(0).getId();
+        Assert.assertEquals(payment.getTransactions().get(0).getTransactionType(), TransactionType.AUTHORIZE);
+        final JanitorNotificationKey notificationKey = new JanitorNotificationKey(authorizationTransactionId, incompletePaymentTransactionTask.getClass().toString(), 1);
+        incompletePaymentTransactionTask.processNotification(notificationKey, UUID.randomUUID(), internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+
+        // Both transactions are fixed by the notification of the first one, with a single call to the plugin
+        Assert.assertEquals(mockPaymentProviderPlugin.getGetPaymentInfoCalls(), getPaymentInfoCalls + 1);
+        final Payment updatedPayment = paymentApi.getPayment(payment.getId(), false, false, ImmutableList.<PluginProperty>of(), callContext);
+        Assert.assertEquals(updatedPayment.getTransactions().size(), 2);
+        for (final PaymentTransaction transaction : updatedPayment.getTransactions()) {
+            Assert.assertEquals(transaction.getTransactionStatus(), TransactionStatus.SUCCESS);
+        }
+    }
+
+    @Test(groups = "slow")
+    public void testRescheduleTransactionWithoutNotification() throws PaymentApiException {
+        final Payment payment = paymentApi.createPurchase(account,
+                                                          account.getPaymentMethodId(),
+                                                          null,
+                                                          BigDecimal.TEN,
+                                                          Currency.EUR,
+                                                          UUID.randomUUID().toString(),
+                                                          UUID.randomUUID().toString(),
+                                                          ImmutableList.<PluginProperty>of(new PluginProperty(MockPaymentProviderPlugin.PLUGIN_PROPERTY_PAYMENT_PLUGIN_STATUS_OVERRIDE, PaymentPluginStatus.PENDING.toString(), false)),
+                                                          callContext);
+        final UUID transactionId = payment.getTransactions().get(0).getId();
+        Assert.assertTrue(incompletePaymentTransactionTask.janitorQueue.getFutureNotificationForSearchKeys(internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId()).isEmpty());
+
+        // Not picked up by the sweep until the delay has elapsed
+        Assert.assertNull(findTransactionForIteration(transactionId));
+        clock.addDeltaFromReality(paymentConfig.getIncompleteTransactionsTimeSpanDelay().getMillis() + 1000);
+
+        final PaymentTransactionModelDao paymentTransaction = findTransactionForIteration(transactionId);
+        Assert.assertNotNull(paymentTransaction);
+        incompletePaymentTransactionTask.doIteration(paymentTransaction);
+
+        final List<NotificationEventWithMetadata<NotificationEvent>> futureNotifications = incompletePaymentTransactionTask.janitorQueue.getFutureNotificationForSearchKeys(internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+        Assert.assertEquals(futureNotifications.size(), 1);
+        final JanitorNotificationKey event = (JanitorNotificationKey) futureNotifications.get(0).getEvent();
+        Assert.assertEquals(event.getUuidKey(), transactionId);
+        Assert.assertEquals((int) event.getAttemptNumber(), 1);
+
+        // The transaction has a pending notification now: nothing to reschedule
+        incompletePaymentTransactionTask.doIteration(paymentTransaction);
+        Assert.assertEquals(incompletePaymentTransactionTask.janitorQueue.getFutureNotificationForSearchKeys(internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId()).size(), 1);
+    }
+
+    private PaymentTransactionModelDao findTransactionForIteration(final UUID transactionId) {
+        for (final PaymentTransactionModelDao paymentTransaction : incompletePaymentTransactionTask.getItemsForIteration()) {
+            if (paymentTransaction.getId().equals(transactionId)) {
+                return paymentTransaction;
+            }
+        }
+        return null;
+    }
 }
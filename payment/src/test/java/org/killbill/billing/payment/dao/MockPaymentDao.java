@@ -20,6 +20,7 @@ package org.killbill.billing.payment.dao;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -37,6 +38,7 @@ import org.killbill.billing.dao.MockNonEntityDao;
 import org.killbill.billing.payment.api.TransactionStatus;
 import org.killbill.billing.payment.api.TransactionType;
 import org.killbill.billing.util.entity.DefaultPagination;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 
 import com.google.common.base.Predicate;
@@ -139,6 +141,19 @@ public class MockPaymentDao implements PaymentDao {
         }
     }
 
+    @Override
+    public List<PaymentAttemptModelDao> getPaymentAttemptsForPayments(final Collection<String> paymentExternalKeys, final InternalTenantContext context) {
+        synchronized (this) {
+            final List<PaymentAttemptModelDao> result = new ArrayList<PaymentAttemptModelDao>();
+            for (PaymentAttemptModelDao cur : attempts.values()) {
+                if (paymentExternalKeys.contains(cur.getPaymentExternalKey())) {
+                    result.add(cur);
+                }
+            }
+            return result;
+        }
+    }
+
     @Override
     public List<PaymentAttemptModelDao> getPaymentAttemptByTransactionExternalKey(final String transactionExternalKey, final InternalTenantContext context) {
         synchronized (this) {
@@ -182,6 +197,11 @@ public class MockPaymentDao implements PaymentDao {
         return null;
     }
 
+    @Override
+    public PageTokenPagination<PaymentModelDao> getPaymentsFromPageToken(final String pageToken, final Long limit, final boolean withCount, final InternalTenantContext context) {
+        return null;
+    }
+
     @Override
     public Pagination<PaymentModelDao> searchPayments(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
         throw new UnsupportedOperationException();
@@ -302,6 +322,18 @@ public class MockPaymentDao implements PaymentDao {
         }
     }
 
+    @Override
+    public List<PaymentTransactionModelDao> getTransactionsForPayments(final Collection<UUID> paymentIds, final InternalTenantContext context) {
+        synchronized (this) {
+            return ImmutableList.copyOf(Iterables.filter(transactions.values(), new Predicate<PaymentTransactionModelDao>() {
+                @Override
+                public boolean apply(final PaymentTransactionModelDao input) {
+                    return paymentIds.contains(input.getPaymentId());
+                }
+            }));
+        }
+    }
+
     @Override
     public PaymentAttemptModelDao getPaymentAttempt(final UUID attemptId, final InternalTenantContext context) {
         synchronized (this) {
@@ -32,6 +32,7 @@ import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.payment.api.TransactionStatus;
 import org.killbill.billing.payment.api.TransactionType;
 import org.killbill.billing.payment.dao.PluginPropertySerializer.PluginPropertySerializerException;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -211,6 +212,78 @@ public class TestPaymentDao extends PaymentTestSuiteWithEmbeddedDB {
         assertEquals(transactions2.size(), 2);
     }
 
+    @Test(groups = "slow")
+    public void testBatchedTransactionsAndAttemptsForPayments() {
+        final UUID accountId = UUID.randomUUID();
+        final DateTime utcNow = clock.getUTCNow();
+
+        final List<PaymentModelDao> payments = new ArrayList<PaymentModelDao>();
+        for (int i = 0; i < 3; i++) {
+            final PaymentModelDao paymentModelDao = new PaymentModelDao(utcNow, utcNow, accountId, UUID.randomUUID(), "batch-payment-" + i);
+            final PaymentTransactionModelDao transactionModelDao = new PaymentTransactionModelDao(utcNow, utcNow, null, "batch-transaction-" + i,
+                                                                                                  paymentModelDao.getId(), TransactionType.AUTHORIZE, utcNow,
+                                                                                                  TransactionStatus.SUCCESS, BigDecimal.TEN, Currency.USD,
+                                                                                                  "success", "");
+            payments.add(paymentDao.insertPaymentWithFirstTransaction(paymentModelDao, transactionModelDao, internalCallContext));
+
+            final PaymentAttemptModelDao attempt = new PaymentAttemptModelDao(accountId, paymentModelDao.getPaymentMethodId(), utcNow, utcNow,
+                                                                              paymentModelDao.getExternalKey(), transactionModelDao.getId(), transactionModelDao.getTransactionExternalKey(),
+                                                                              TransactionType.AUTHORIZE, "SUCCESS", BigDecimal.TEN, Currency.USD, ImmutableList.<String>of("batchPlugin"), null);
+            paymentDao.insertPaymentAttemptWithProperties(attempt, internalCallContext);
+        }
+
+        final List<PaymentTransactionModelDao> transactions = paymentDao.getTransactionsForPayments(ImmutableList.<UUID>of(payments.get(0).getId(), payments.get(2).getId()), internalCallContext);
+        assertEquals(transactions.size(), 2);
+        assertEquals(transactions.get(0).getPaymentId(), payments.get(0).getId());
+        assertEquals(transactions.get(1).getPaymentId(), payments.get(2).getId());
+
+        final List<PaymentAttemptModelDao> attempts = paymentDao.getPaymentAttemptsForPayments(ImmutableList.<String>of(payments.get(1).getExternalKey(), payments.get(2).getExternalKey()), internalCallContext);
+        assertEquals(attempts.size(), 2);
+        assertEquals(attempts.get(0).getPaymentExternalKey(), payments.get(1).getExternalKey());
+        assertEquals(attempts.get(1).getPaymentExternalKey(), payments.get(2).getExternalKey());
+
+        assertEquals(paymentDao.getTransactionsForPayments(ImmutableList.<UUID>of(), internalCallContext).size(), 0);
+        assertEquals(paymentDao.getPaymentAttemptsForPayments(ImmutableList.<String>of(UUID.randomUUID().toString()), internalCallContext).size(), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testKeysetPagination() {
+        final UUID accountId = UUID.randomUUID();
+        final DateTime utcNow = clock.getUTCNow();
+
+        final List<UUID> paymentIds = new ArrayList<UUID>();
+        for (int i = 0; i < 5; i++) {
+            final PaymentModelDao paymentModelDao = new PaymentModelDao(utcNow, utcNow, accountId, UUID.randomUUID(), UUID.randomUUID().toString());
+            final PaymentTransactionModelDao transactionModelDao = new PaymentTransactionModelDao(utcNow, utcNow, null, UUID.randomUUID().toString(),
+                                                                                                  paymentModelDao.getId(), TransactionType.AUTHORIZE, utcNow,
+                                                                                                  TransactionStatus.SUCCESS, BigDecimal.TEN, Currency.USD,
+                                                                                                  "success", "");
+            paymentIds.add(paymentDao.insertPaymentWithFirstTransaction(paymentModelDao, transactionModelDao, internalCallContext).getId());
+        }
+
+        final PageTokenPagination<PaymentModelDao> firstPage = paymentDao.getPaymentsFromPageToken(null, 2L, true, internalCallContext);
+        assertEquals(firstPage.getTotalNbRecords(), (Long) 5L);
+        assertNull(firstPage.getNextOffset());
+        assertNotNull(firstPage.getNextPageToken());
+
+        final List<UUID> seenPaymentIds = new ArrayList<UUID>();
+        String pageToken = null;
+        int nbPages = 0;
+        do {
+            final PageTokenPagination<PaymentModelDao> page = paymentDao.getPaymentsFromPageToken(pageToken, 2L, false, internalCallContext);
+            assertNull(page.getTotalNbRecords());
+            assertNull(page.getMaxNbRecords());
+            for (final PaymentModelDao paymentModelDao : page) {
+                seenPaymentIds.add(paymentModelDao.getId());
+            }
+            pageToken = page.getNextPageToken();
+            nbPages++;
+        } while (pageToken != null);
+
+        assertEquals(nbPages, 3);
+        assertEquals(seenPaymentIds, paymentIds);
+    }
+
     @Test(groups = "slow")
     public void testPaymentMethod() {
 
@@ -77,6 +77,7 @@ public class MockPaymentProviderPlugin implements PaymentPluginApi {
     private final AtomicInteger makePluginWaitSomeMilliseconds = new AtomicInteger(0);
     private final AtomicReference<BigDecimal> overrideNextProcessedAmount = new AtomicReference<BigDecimal>();
     private final AtomicReference<Currency> overrideNextProcessedCurrency = new AtomicReference<Currency>();
+    private final AtomicInteger getPaymentInfoCalls = new AtomicInteger(0);
 
     private final Map<String, InternalPaymentInfo> payments = new ConcurrentHashMap<String, InternalPaymentInfo>();
     private final Map<String, List<PaymentTransactionInfoPlugin>> paymentTransactions = new ConcurrentHashMap<String, List<PaymentTransactionInfoPlugin>>();
@@ -204,6 +205,7 @@ public class MockPaymentProviderPlugin implements PaymentPluginApi {
         makeNextPaymentPending.set(false);
         makePluginWaitSomeMilliseconds.set(0);
         overrideNextProcessedAmount.set(null);
+        getPaymentInfoCalls.set(0);
         paymentMethods.clear();
         payments.clear();
         paymentTransactions.clear();
@@ -242,6 +244,10 @@ public class MockPaymentProviderPlugin implements PaymentPluginApi {
         overrideNextProcessedCurrency.set(currency);
     }
 
+    public int getGetPaymentInfoCalls() {
+        return getPaymentInfoCalls.get();
+    }
+
     public void updatePaymentTransactions(final UUID paymentId, final List<PaymentTransactionInfoPlugin> newTransactions) {
         if (paymentTransactions.containsKey(paymentId.toString())) {
             paymentTransactions.put (paymentId.toString(), newTransactions);
@@ -303,6 +309,7 @@ public class MockPaymentProviderPlugin implements PaymentPluginApi {
 
     @Override
     public List<PaymentTransactionInfoPlugin> getPaymentInfo(final UUID kbAccountId, final UUID kbPaymentId, final Iterable<PluginProperty> properties, final TenantContext context) throws PaymentPluginApiException {
+        getPaymentInfoCalls.incrementAndGet();
         final List<PaymentTransactionInfoPlugin> result = paymentTransactions.get(kbPaymentId.toString());
         return result != null ? result : ImmutableList.<PaymentTransactionInfoPlugin>of();
     }
@@ -28,13 +28,14 @@ import org.killbill.billing.util.config.definition.KillbillConfig;
 import org.killbill.billing.util.config.definition.NotificationConfig;
 import org.killbill.billing.util.config.tenant.CacheConfig;
 import org.killbill.billing.util.config.tenant.MultiTenantConfigBase;
+import org.killbill.billing.util.config.tenant.PerTenantConfig;
 import org.skife.config.Param;
 import org.skife.config.TimeSpan;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
-public class MultiTenantNotificationConfig extends MultiTenantConfigBase implements NotificationConfig {
+public class MultiTenantNotificationConfig extends MultiTenantConfigBase<MultiTenantNotificationConfig.TenantOverrides> implements NotificationConfig {
 
     private final Map<String, Method> methodsCache = new HashMap<String, Method>();
     private final NotificationConfig staticConfig;
@@ -52,15 +53,29 @@ public class MultiTenantNotificationConfig extends MultiTenantConfigBase impleme
 
     @Override
     public List<TimeSpan> getPushNotificationsRetries(@Param("dummy") final InternalTenantContext tenantContext) {
-        final String result = getStringTenantConfig("getPushNotificationsRetries", tenantContext);
-        if (result != null) {
-            return convertToListTimeSpan(result, "getPushNotificationsRetries");
+        final TenantOverrides tenantConfig = getTenantConfig(tenantContext);
+        if (tenantConfig != null && tenantConfig.pushNotificationsRetries != null) {
+            return tenantConfig.pushNotificationsRetries;
         }
         return getPushNotificationsRetries();
     }
 
+    @Override
+    protected TenantOverrides compile(final PerTenantConfig perTenantConfig) {
+        return new TenantOverrides(getListTimeSpanOverride(perTenantConfig, "getPushNotificationsRetries"));
+    }
+
     @Override
     protected Class<? extends KillbillConfig> getConfigClass() {
         return NotificationConfig.class;
     }
+
+    static final class TenantOverrides {
+
+        final List<TimeSpan> pushNotificationsRetries;
+
+        TenantOverrides(final List<TimeSpan> pushNotificationsRetries) {
+            this.pushNotificationsRetries = pushNotificationsRetries;
+        }
+    }
 }
@@ -84,6 +84,7 @@ import org.killbill.billing.util.glue.KillbillApiAopModule;
 import org.killbill.billing.util.glue.NodesModule;
 import org.killbill.billing.util.glue.NonEntityDaoModule;
 import org.killbill.billing.util.glue.RecordIdModule;
+import org.killbill.billing.util.glue.SearchModule;
 import org.killbill.billing.util.glue.SecurityModule;
 import org.killbill.billing.util.glue.TagStoreModule;
 import org.killbill.billing.util.security.shiro.dao.SessionModelDao;
@@ -173,6 +174,7 @@ public class KillbillServerModule extends KillbillPlatformModule {
         install(new PaymentModule(configSource));
         install(new RecordIdModule(configSource));
         install(new SecurityModule(configSource));
+        install(new SearchModule(configSource));
         install(new TagStoreModule(configSource));
         install(new TemplateModule(configSource));
         install(new DefaultTenantModule(configSource));
@@ -46,6 +46,7 @@ import org.killbill.billing.entitlement.api.SubscriptionEventType;
 import org.killbill.billing.invoice.api.DryRunType;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoiceStatus;
+import org.killbill.billing.jaxrs.resources.JaxrsResource;
 import org.killbill.billing.payment.provider.ExternalPaymentProviderPlugin;
 import org.killbill.billing.util.api.AuditLevel;
 import org.testng.Assert;
@@ -53,6 +54,7 @@ import org.testng.annotations.Test;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
 
 import static org.testng.Assert.assertEquals;
@@ -708,6 +710,23 @@ public class TestInvoice extends TestJaxrsBase {
             page = page.getNext();
         }
         Assert.assertNull(page);
+
+        // Keyset pagination, without the count queries
+        final RequestOptions keysetRequestOptions = RequestOptions.builder()
+                                                                  .withQueryParams(ImmutableMultimap.<String, String>of(JaxrsResource.QUERY_SEARCH_LIMIT, "1",
+                                                                                                                        JaxrsResource.QUERY_SEARCH_WITH_COUNT, "false"))
+                                                                  .build();
+        Invoices keysetPage = killBillHttpClient.doGet(JaxrsResource.INVOICES_PATH + "/" + JaxrsResource.PAGINATION, Invoices.class, keysetRequestOptions);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNotNull(keysetPage);
+            Assert.assertEquals(keysetPage.size(), 1);
+            Assert.assertEquals(keysetPage.get(0), allInvoices.get(i));
+            keysetPage = keysetPage.getNext();
+        }
+        // The last full page doesn't know it's the last one
+        Assert.assertNotNull(keysetPage);
+        Assert.assertEquals(keysetPage.size(), 0);
+        Assert.assertNull(keysetPage.getNext());
     }
 
     @Test(groups = "slow", description = "Can add a credit to a new invoice")
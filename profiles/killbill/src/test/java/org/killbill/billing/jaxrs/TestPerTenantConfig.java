@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
+import org.killbill.billing.client.KillBillClientException;
 import org.killbill.billing.client.model.Account;
 import org.killbill.billing.client.model.Payments;
 import org.killbill.billing.client.model.Tenant;
@@ -141,4 +142,28 @@ public class TestPerTenantConfig extends TestJaxrsBase {
         Assert.assertEquals(payments4.get(0).getTransactions().get(1).getStatus(), TransactionStatus.PAYMENT_FAILURE.name());
         Assert.assertEquals(payments4.get(0).getTransactions().get(2).getStatus(), TransactionStatus.SUCCESS.name());
     }
+
+    @Test(groups = "slow")
+    public void testUploadInvalidPerTenantConfig() throws Exception {
+        final String apiKeyTenant1 = "tenantBadlyTuned";
+        final String apiSecretTenant1 = "2367$$ffr79";
+        loginTenant(apiKeyTenant1, apiSecretTenant1);
+        final Tenant tenant1 = new Tenant();
+        tenant1.setApiKey(apiKeyTenant1);
+        tenant1.setApiSecret(apiSecretTenant1);
+        killBillClient.createTenant(tenant1, createdBy, reason, comment);
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final HashMap<String, String> perTenantProperties = new HashMap<String, String>();
+        perTenantProperties.put("org.killbill.payment.retry.days", "1,one,1");
+        final String perTenantConfig = mapper.writeValueAsString(perTenantProperties);
+
+        try {
+            killBillClient.postConfigurationPropertiesForTenant(perTenantConfig, basicRequestOptions());
+            Assert.fail("Invalid per tenant config should have been rejected");
+        } catch (final KillBillClientException e) {
+            Assert.assertEquals(e.getBillingException().getClassName(), IllegalArgumentException.class.getName());
+        }
+        Assert.assertTrue(killBillClient.getConfigurationForTenant().getValues().isEmpty());
+    }
 }
@@ -64,6 +64,7 @@ import org.killbill.billing.util.glue.KillBillShiroAopModule;
 import org.killbill.billing.util.glue.KillbillApiAopModule;
 import org.killbill.billing.util.glue.NonEntityDaoModule;
 import org.killbill.billing.util.glue.RecordIdModule;
+import org.killbill.billing.util.glue.SearchModule;
 import org.killbill.billing.util.glue.SecurityModule;
 import org.killbill.billing.util.glue.TagStoreModule;
 
@@ -94,6 +95,7 @@ public class KillpayServerModule extends KillbillServerModule {
         install(new PaymentModule(configSource));
         install(new RecordIdModule(configSource));
         install(new SecurityModule(configSource));
+        install(new SearchModule(configSource));
         install(new TagStoreModule(configSource));
         install(new DefaultTenantModule(configSource));
 
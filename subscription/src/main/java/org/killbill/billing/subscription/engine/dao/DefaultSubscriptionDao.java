@@ -105,7 +105,6 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Collections2;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 
@@ -342,23 +341,15 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
         final List<SubscriptionBaseEvent> eventsForAccount = getEventsForAccountId(context);
 
+        // Single pass over the account events (ordering is preserved for each subscription)
+        final Multimap<UUID, SubscriptionBaseEvent> eventsForSubscriptions = ArrayListMultimap.create();
+        for (final SubscriptionBaseEvent event : eventsForAccount) {
+            eventsForSubscriptions.put(event.getSubscriptionId(), event);
+        }
+
         final Map<UUID, List<SubscriptionBase>> result = new HashMap<UUID, List<SubscriptionBase>>();
         for (final UUID bundleId : subscriptionsFromAccountId.keySet()) {
-
             final List<SubscriptionBase> subscriptionsForBundle = subscriptionsFromAccountId.get(bundleId);
-            final Multimap<UUID, SubscriptionBaseEvent> eventsForSubscriptions = ArrayListMultimap.create();
-
-            for (final SubscriptionBase cur : subscriptionsForBundle) {
-                final Collection<SubscriptionBaseEvent> events = Collections2.filter(eventsForAccount, new Predicate<SubscriptionBaseEvent>() {
-                    @Override
-                    public boolean apply(final SubscriptionBaseEvent input) {
-                        return input.getSubscriptionId().equals(cur.getId());
-
-                    }
-                });
-                eventsForSubscriptions.putAll(cur.getId(), ImmutableList.copyOf(events));
-            }
-
             result.put(bundleId, buildBundleSubscriptions(subscriptionsForBundle, eventsForSubscriptions, null, context));
         }
         return result;
@@ -370,18 +361,16 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
             public List<SubscriptionBase> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
 
                 final List<SubscriptionBundleModelDao> bundleModels = entitySqlDaoWrapperFactory.become(BundleSqlDao.class).getByAccountRecordId(context);
+                final Map<UUID, SubscriptionBundleModelDao> bundleModelsById = new HashMap<UUID, SubscriptionBundleModelDao>();
+                for (final SubscriptionBundleModelDao bundleModel : bundleModels) {
+                    bundleModelsById.put(bundleModel.getId(), bundleModel);
+                }
 
                 final List<SubscriptionModelDao> subscriptionModels = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class).getByAccountRecordId(context);
                 return new ArrayList<SubscriptionBase>(Collections2.transform(subscriptionModels, new Function<SubscriptionModelDao, SubscriptionBase>() {
                     @Override
                     public SubscriptionBase apply(final SubscriptionModelDao input) {
-                        final SubscriptionBundleModelDao bundleModel = Iterables.find(bundleModels, new Predicate<SubscriptionBundleModelDao>() {
-                            @Override
-                            public boolean apply(final SubscriptionBundleModelDao bundleInput) {
-                                return bundleInput.getId().equals(input.getBundleId());
-                            }
-                        });
-                        return SubscriptionModelDao.toSubscription(input, bundleModel.getExternalKey());
+                        return SubscriptionModelDao.toSubscription(input, bundleModelsById.get(input.getBundleId()).getExternalKey());
                     }
                 }));
             }
@@ -530,17 +519,31 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
                 final SubscriptionSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
                 final SubscriptionEventSqlDao eventsDaoFromSameTransaction = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
 
+                // Insert all subscriptions and events (and their history and audit rows) in batches
+                final List<SubscriptionModelDao> subscriptionModelDaos = new LinkedList<SubscriptionModelDao>();
+                final List<SubscriptionEventModelDao> eventModelDaos = new LinkedList<SubscriptionEventModelDao>();
+                for (final SubscriptionBaseWithAddOns subscription : subscriptions) {
+                    for (final SubscriptionBase subscriptionBase : subscription.getSubscriptionBaseList()) {
+                        subscriptionModelDaos.add(new SubscriptionModelDao((DefaultSubscriptionBase) subscriptionBase));
+                        for (final SubscriptionBaseEvent cur : initialEventsMap.get(subscriptionBase.getId())) {
+                            eventModelDaos.add(new SubscriptionEventModelDao(cur));
+                        }
+                    }
+                }
+                if (!subscriptionModelDaos.isEmpty()) {
+                    transactional.batchCreate(subscriptionModelDaos, context);
+                }
+                if (!eventModelDaos.isEmpty()) {
+                    eventsDaoFromSameTransaction.batchCreate(eventModelDaos, context);
+                }
+
                 for (final SubscriptionBaseWithAddOns subscription : subscriptions) {
                     for (final SubscriptionBase subscriptionBase : subscription.getSubscriptionBaseList()) {
                         // Safe cast
                         final DefaultSubscriptionBase defaultSubscriptionBase = (DefaultSubscriptionBase) subscriptionBase;
 
-                        transactional.create(new SubscriptionModelDao(defaultSubscriptionBase), context);
-
                         final List<SubscriptionBaseEvent> initialEvents = initialEventsMap.get(defaultSubscriptionBase.getId());
                         for (final SubscriptionBaseEvent cur : initialEvents) {
-                            eventsDaoFromSameTransaction.create(new SubscriptionEventModelDao(cur), context);
-
                             final boolean isBusEvent = cur.getEffectiveDate().compareTo(clock.getUTCNow()) <= 0 && (cur.getType() == EventType.API_USER);
                             recordBusOrFutureNotificationFromTransaction(defaultSubscriptionBase, cur, entitySqlDaoWrapperFactory, isBusEvent, 0, context);
                         }
@@ -24,6 +24,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 import org.killbill.billing.tenant.dao.TenantDao;
@@ -45,6 +46,12 @@ import org.killbill.billing.util.LocaleUtils;
  */
 public class DefaultTenantInternalApi implements TenantInternalApi {
 
+    // Keys written by Kill Bill itself, which the TenantUserApi refuses to modify
+    public static final String RESERVED_KEY_PREFIX = "__KILLBILL_";
+
+    // Deliberately not prefixed by a TenantKey: writing the snapshot must not be broadcast (it would invalidate the catalog caches)
+    private static final String CATALOG_SNAPSHOT_KEY = RESERVED_KEY_PREFIX + "CATALOG_SNAPSHOT";
+
     private final TenantDao tenantDao;
     private final TenantCacheInvalidation tenantCacheInvalidation;
 
@@ -65,6 +72,18 @@ public class DefaultTenantInternalApi implements TenantInternalApi {
         return tenantDao.getTenantValueForKey(TenantKey.CATALOG.toString(), tenantContext);
     }
 
+    @Override
+    public String getTenantCatalogSnapshot(final InternalTenantContext tenantContext) {
+        final List<String> values = tenantDao.getTenantValueForKey(CATALOG_SNAPSHOT_KEY, tenantContext);
+        // Concurrent writers on different nodes may have created more than one row: the last one wins
+        return values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+
+    @Override
+    public void updateTenantCatalogSnapshot(final String snapshot, final InternalCallContext context) {
+        tenantDao.updateTenantLastKeyValue(CATALOG_SNAPSHOT_KEY, snapshot, context);
+    }
+
     @Override
     public String getTenantOverdueConfig(final InternalTenantContext tenantContext) {
         final List<String> values = tenantDao.getTenantValueForKey(TenantKey.OVERDUE_CONFIG.toString(), tenantContext);
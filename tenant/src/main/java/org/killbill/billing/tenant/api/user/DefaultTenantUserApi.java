@@ -29,6 +29,7 @@ import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.tenant.api.DefaultTenant;
+import org.killbill.billing.tenant.api.DefaultTenantInternalApi;
 import org.killbill.billing.tenant.api.Tenant;
 import org.killbill.billing.tenant.api.TenantApiException;
 import org.killbill.billing.tenant.api.TenantData;
@@ -44,6 +45,7 @@ import org.killbill.billing.util.cache.CacheLoaderArgument;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.tenant.CacheConfig;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
@@ -73,12 +75,15 @@ public class DefaultTenantUserApi implements TenantUserApi {
     private final InternalCallContextFactory internalCallContextFactory;
     private final CacheController<Object, Object> tenantKVCache;
     private final CacheController<Object, Object> tenantCache;
+    private final CacheConfig cacheConfig;
 
 
     @Inject
-    public DefaultTenantUserApi(final TenantDao tenantDao, final InternalCallContextFactory internalCallContextFactory, final CacheControllerDispatcher cacheControllerDispatcher) {
+    public DefaultTenantUserApi(final TenantDao tenantDao, final InternalCallContextFactory internalCallContextFactory, final CacheControllerDispatcher cacheControllerDispatcher,
+                                final CacheConfig cacheConfig) {
         this.tenantDao = tenantDao;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.cacheConfig = cacheConfig;
         this.tenantKVCache = cacheControllerDispatcher.getCacheController(CacheType.TENANT_KV);
         this.tenantCache = cacheControllerDispatcher.getCacheController(CacheType.TENANT);
     }
@@ -130,24 +135,29 @@ public class DefaultTenantUserApi implements TenantUserApi {
 
     @Override
     public void addTenantKeyValue(final String key, final String value, final CallContext context) throws TenantApiException {
+        checkNotReservedKey(key);
         // Invalidate tenantKVCache after we store (to avoid race conditions). Multi-node invalidation will follow the TenantBroadcast pattern
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(context);
         final String tenantKey = getCacheKeyName(key, internalContext);
+        validateTenantKeyValue(key, value);
         tenantDao.addTenantKeyValue(key, value, isSingleValueKey(key), internalContext);
         tenantKVCache.remove(tenantKey);
     }
 
     @Override
     public void updateTenantKeyValue(final String key, final String value, final CallContext context) throws TenantApiException {
+        checkNotReservedKey(key);
         // Invalidate tenantKVCache after we store (to avoid race conditions). Multi-node invalidation will follow the TenantBroadcast pattern
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(context);
         final String tenantKey = getCacheKeyName(key, internalContext);
+        validateTenantKeyValue(key, value);
         tenantDao.updateTenantLastKeyValue(key, value, internalContext);
         tenantKVCache.remove(tenantKey);
     }
 
     @Override
     public void deleteTenantKey(final String key, final CallContext context) throws TenantApiException {
+        checkNotReservedKey(key);
         // Invalidate tenantKVCache after we delete (to avoid race conditions). Multi-node invalidation will follow the TenantBroadcast pattern
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(context);
         final String tenantKey = getCacheKeyName(key, internalContext);
@@ -188,6 +198,19 @@ public class DefaultTenantUserApi implements TenantUserApi {
         return tenantKey.toString();
     }
 
+    private void checkNotReservedKey(final String key) throws TenantApiException {
+        if (key != null && key.startsWith(DefaultTenantInternalApi.RESERVED_KEY_PREFIX)) {
+            throw new TenantApiException(ErrorCode.TENANT_UPDATE_FAILED);
+        }
+    }
+
+    // Invalid per tenant config values are rejected here instead of failing the config getters on first use
+    private void validateTenantKeyValue(final String key, final String value) {
+        if (TenantKey.PER_TENANT_CONFIG.toString().equals(key)) {
+            cacheConfig.validatePerTenantConfig(value);
+        }
+    }
+
     private boolean isSingleValueKey(final String key) {
         return Iterables.tryFind(ImmutableList.copyOf(TenantKey.values()), new Predicate<TenantKey>() {
             @Override
@@ -28,6 +28,7 @@ import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.tenant.api.Tenant;
 import org.killbill.billing.tenant.api.TenantApiException;
 import org.killbill.billing.tenant.glue.DefaultTenantModule;
+import org.killbill.billing.util.UUIDs;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
@@ -46,6 +47,7 @@ import com.google.inject.Inject;
  * to the EntitySqlDaoWrapperInvocationHandler. It only implements the set of operations that does not require caching:
  * - Only getXXX methods where there is no Cache annotation on the SqlDao method
  * - In addition excludes getById method, which are cached by EntitySqlDaoWrapperInvocationHandler
+ * - The only write operation is updateTenantLastKeyValue, which neither re-hydrates the entity nor broadcasts the change
  * <p/>
  * <p/>
  * It is used from the TenantInternalApi so that caching of catalog, overdue, ... can be done at a higher level (catalog module, overdue module)
@@ -114,9 +116,22 @@ public class NoCachingTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Te
         throw new IllegalStateException("Not implemented by NoCachingTenantDao");
     }
 
+    // Only used for keys which are not broadcast (see DefaultTenantInternalApi#updateTenantCatalogSnapshot)
     @Override
     public void updateTenantLastKeyValue(final String key, final String value, final InternalCallContext context) {
-        throw new IllegalStateException("Not implemented by NoCachingTenantDao");
+        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final TenantKVSqlDao tenantKVSqlDao = entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class);
+                final List<TenantKVModelDao> tenantKV = tenantKVSqlDao.getTenantValueForKey(key, context);
+                if (!tenantKV.isEmpty()) {
+                    tenantKVSqlDao.updateTenantValueKey(tenantKV.get(tenantKV.size() - 1).getId().toString(), value, context);
+                } else {
+                    tenantKVSqlDao.create(new TenantKVModelDao(UUIDs.randomUUID(), context.getCreatedDate(), context.getUpdatedDate(), key, value), context);
+                }
+                return null;
+            }
+        });
     }
 
     @Override
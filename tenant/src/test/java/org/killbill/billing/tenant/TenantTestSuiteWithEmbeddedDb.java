@@ -24,6 +24,7 @@ import org.killbill.billing.GuicyKillbillTestSuiteWithEmbeddedDB;
 import org.killbill.billing.tenant.api.TenantUserApi;
 import org.killbill.billing.tenant.dao.DefaultTenantDao;
 import org.killbill.billing.tenant.dao.TenantBroadcastDao;
+import org.killbill.billing.tenant.dao.TenantDao;
 import org.killbill.billing.tenant.glue.DefaultTenantModule;
 import org.killbill.billing.tenant.glue.TestTenantModuleWithEmbeddedDB;
 import org.killbill.billing.util.config.definition.SecurityConfig;
@@ -40,6 +41,10 @@ public class TenantTestSuiteWithEmbeddedDb extends GuicyKillbillTestSuiteWithEmb
     @Inject
     protected DefaultTenantDao tenantDao;
 
+    @Named(DefaultTenantModule.NO_CACHING_TENANT)
+    @Inject
+    protected TenantDao noCachingTenantDao;
+
     @Named(DefaultTenantModule.NO_CACHING_TENANT)
     @Inject
     protected TenantBroadcastDao noCachingTenantBroadcastDao;
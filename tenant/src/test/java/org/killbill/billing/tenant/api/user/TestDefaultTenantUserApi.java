@@ -23,6 +23,7 @@ import java.util.UUID;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.tenant.TenantTestSuiteWithEmbeddedDb;
 import org.killbill.billing.tenant.api.DefaultTenant;
+import org.killbill.billing.tenant.api.DefaultTenantInternalApi;
 import org.killbill.billing.tenant.api.Tenant;
 import org.killbill.billing.tenant.api.TenantApiException;
 import org.killbill.billing.tenant.api.TenantData;
@@ -71,6 +72,30 @@ public class TestDefaultTenantUserApi extends TenantTestSuiteWithEmbeddedDb {
         Assert.assertEquals(value.size(), 0);
     }
 
+    @Test(groups = "slow", description = "Test Tenant keys reserved to Kill Bill cannot be modified")
+    public void testReservedKey() throws Exception {
+        final String reservedKey = DefaultTenantInternalApi.RESERVED_KEY_PREFIX + "CATALOG_SNAPSHOT";
+        try {
+            tenantUserApi.addTenantKeyValue(reservedKey, "TheValue", callContext);
+            Assert.fail();
+        } catch (final TenantApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.TENANT_UPDATE_FAILED.getCode());
+        }
+        try {
+            tenantUserApi.updateTenantKeyValue(reservedKey, "TheValue", callContext);
+            Assert.fail();
+        } catch (final TenantApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.TENANT_UPDATE_FAILED.getCode());
+        }
+        try {
+            tenantUserApi.deleteTenantKey(reservedKey, callContext);
+            Assert.fail();
+        } catch (final TenantApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.TENANT_UPDATE_FAILED.getCode());
+        }
+        Assert.assertEquals(tenantUserApi.getTenantValuesForKey(reservedKey, callContext).size(), 0);
+    }
+
     @Test(groups = "slow", description = "https://github.com/killbill/killbill/issues/297")
     public void testVerifyCacheOnAbsentValues() throws Exception {
         final String tenantKey = TenantKey.PLUGIN_CONFIG_.toString() + "MyPluginName";
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.tenant.dao;
+
+import java.util.List;
+
+import org.killbill.billing.tenant.TenantTestSuiteWithEmbeddedDb;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestNoCachingTenantDao extends TenantTestSuiteWithEmbeddedDb {
+
+    @Test(groups = "slow")
+    public void testUpdateTenantLastKeyValue() throws Exception {
+        final TenantBroadcastModelDao latestBroadcast = noCachingTenantBroadcastDao.getLatestEntry();
+
+        noCachingTenantDao.updateTenantLastKeyValue("SNAPSHOT_CATALOG", "v1", internalCallContext);
+        List<String> values = tenantDao.getTenantValueForKey("SNAPSHOT_CATALOG", internalCallContext);
+        Assert.assertEquals(values.size(), 1);
+        Assert.assertEquals(values.get(0), "v1");
+
+        noCachingTenantDao.updateTenantLastKeyValue("SNAPSHOT_CATALOG", "v2", internalCallContext);
+        values = tenantDao.getTenantValueForKey("SNAPSHOT_CATALOG", internalCallContext);
+        Assert.assertEquals(values.size(), 1);
+        Assert.assertEquals(values.get(0), "v2");
+
+        // Nothing was broadcast
+        final TenantBroadcastModelDao newLatestBroadcast = noCachingTenantBroadcastDao.getLatestEntry();
+        if (latestBroadcast == null) {
+            Assert.assertNull(newLatestBroadcast);
+        } else {
+            Assert.assertEquals(newLatestBroadcast.getRecordId(), latestBroadcast.getRecordId());
+        }
+    }
+}
@@ -19,11 +19,13 @@
 package org.killbill.billing.tenant.glue;
 
 import org.killbill.billing.GuicyKillbillTestWithEmbeddedDBModule;
+import org.killbill.billing.broadcast.BroadcastApi;
 import org.killbill.billing.mock.glue.MockAccountModule;
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.glue.NonEntityDaoModule;
 import org.killbill.billing.util.glue.SecurityModule;
 import org.killbill.billing.util.glue.TestUtilModuleNoDB.ShiroModuleNoDB;
+import org.mockito.Mockito;
 
 public class TestTenantModuleWithEmbeddedDB extends TestTenantModule {
 
@@ -38,6 +40,7 @@ public class TestTenantModuleWithEmbeddedDB extends TestTenantModule {
         install(new GuicyKillbillTestWithEmbeddedDBModule(configSource));
         install(new NonEntityDaoModule(configSource));
         install(new SecurityModule(configSource));
+        bind(BroadcastApi.class).toInstance(Mockito.mock(BroadcastApi.class));
         install(new ShiroModuleNoDB(configSource));
         install(new MockAccountModule(configSource));
     }
@@ -28,6 +28,7 @@ import org.killbill.billing.usage.InternalUserApi;
 import org.killbill.billing.usage.RawUsage;
 import org.killbill.billing.usage.dao.RolledUpUsageDao;
 import org.killbill.billing.usage.dao.RolledUpUsageModelDao;
+import org.killbill.billing.util.config.definition.UsageConfig;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
@@ -36,15 +37,20 @@ import com.google.common.collect.Iterables;
 public class DefaultInternalUserApi implements InternalUserApi {
 
     private final RolledUpUsageDao rolledUpUsageDao;
+    private final UsageConfig usageConfig;
 
     @Inject
-    public DefaultInternalUserApi(final RolledUpUsageDao rolledUpUsageDao) {
+    public DefaultInternalUserApi(final RolledUpUsageDao rolledUpUsageDao, final UsageConfig usageConfig) {
         this.rolledUpUsageDao = rolledUpUsageDao;
+        this.usageConfig = usageConfig;
     }
 
     @Override
     public List<RawUsage> getRawUsageForAccount(final LocalDate stateDate, final LocalDate endDate, final InternalTenantContext internalTenantContext) {
-        final List<RolledUpUsageModelDao> usage = rolledUpUsageDao.getRawUsageForAccount(stateDate, endDate, internalTenantContext);
+        // The invoice code only sums amounts per day and unit type, so the daily aggregates are sufficient
+        final List<RolledUpUsageModelDao> usage = usageConfig.isDailyAggregateEnabled() ?
+                                                  rolledUpUsageDao.getDailyUsageForAccount(stateDate, endDate, internalTenantContext) :
+                                                  rolledUpUsageDao.getRawUsageForAccount(stateDate, endDate, internalTenantContext);
         return ImmutableList.copyOf(Iterables.transform(usage, new Function<RolledUpUsageModelDao, RawUsage>() {
             @Nullable
             @Override
@@ -18,8 +18,11 @@ package org.killbill.billing.usage.api.user;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -29,6 +32,7 @@ import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.usage.BulkUsageUserApi;
 import org.killbill.billing.usage.api.RolledUpUnit;
 import org.killbill.billing.usage.api.RolledUpUsage;
 import org.killbill.billing.usage.api.SubscriptionUsageRecord;
@@ -41,19 +45,26 @@ import org.killbill.billing.usage.dao.RolledUpUsageModelDao;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.definition.UsageConfig;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
 
-public class DefaultUsageUserApi implements UsageUserApi {
+public class DefaultUsageUserApi implements UsageUserApi, BulkUsageUserApi {
 
     private final RolledUpUsageDao rolledUpUsageDao;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final UsageConfig usageConfig;
 
     @Inject
     public DefaultUsageUserApi(final RolledUpUsageDao rolledUpUsageDao,
-                               final InternalCallContextFactory internalCallContextFactory) {
+                               final InternalCallContextFactory internalCallContextFactory,
+                               final UsageConfig usageConfig) {
         this.rolledUpUsageDao = rolledUpUsageDao;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.usageConfig = usageConfig;
     }
 
     @Override
@@ -66,17 +77,71 @@ public class DefaultUsageUserApi implements UsageUserApi {
         }
 
         final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        addRolledUpUsageModelDaos(record, usages);
+        rolledUpUsageDao.record(usages, internalCallContext);
+    }
+
+    @Override
+    public void recordRolledUpUsage(final Iterable<SubscriptionUsageRecord> records, final CallContext callContext) throws UsageApiException {
+        final Set<UUID> subscriptionIds = new HashSet<UUID>();
+        final Set<String> trackingIds = new HashSet<String>();
+        for (final SubscriptionUsageRecord record : records) {
+            subscriptionIds.add(record.getSubscriptionId());
+            if (!Strings.isNullOrEmpty(record.getTrackingId())) {
+                trackingIds.add(record.getTrackingId());
+            }
+        }
+        if (subscriptionIds.isEmpty()) {
+            return;
+        }
+
+        // One tenant lookup and one account_record_id lookup for all subscriptions
+        final Map<UUID, InternalCallContext> internalCallContexts = internalCallContextFactory.createInternalCallContexts(subscriptionIds, ObjectType.SUBSCRIPTION, callContext);
+
+        if (!trackingIds.isEmpty()) {
+            // All contexts share the same tenant, which is all the tracking ids check needs
+            final InternalTenantContext internalTenantContext = internalCallContexts.values().iterator().next();
+            final Multimap<String, UUID> existingSubscriptionIdsByTrackingId = rolledUpUsageDao.getSubscriptionIdsForTrackingIds(trackingIds, internalTenantContext);
+            // Also reject the same tracking id twice for a subscription within the request, as two successive calls would
+            final Multimap<String, UUID> requestedSubscriptionIdsByTrackingId = HashMultimap.<String, UUID>create();
+            for (final SubscriptionUsageRecord record : records) {
+                if (Strings.isNullOrEmpty(record.getTrackingId())) {
+                    continue;
+                }
+                if (existingSubscriptionIdsByTrackingId.containsEntry(record.getTrackingId(), record.getSubscriptionId()) ||
+                    !requestedSubscriptionIdsByTrackingId.put(record.getTrackingId(), record.getSubscriptionId())) {
+                    throw new UsageApiException(ErrorCode.USAGE_RECORD_TRACKING_ID_ALREADY_EXISTS, record.getTrackingId());
+                }
+            }
+        }
+
+        final Map<InternalCallContext, List<RolledUpUsageModelDao>> usagesByContext = new LinkedHashMap<InternalCallContext, List<RolledUpUsageModelDao>>();
+        for (final SubscriptionUsageRecord record : records) {
+            final InternalCallContext internalCallContext = internalCallContexts.get(record.getSubscriptionId());
+            List<RolledUpUsageModelDao> usages = usagesByContext.get(internalCallContext);
+            if (usages == null) {
+                usages = new ArrayList<RolledUpUsageModelDao>();
+                usagesByContext.put(internalCallContext, usages);
+            }
+            addRolledUpUsageModelDaos(record, usages);
+        }
+        rolledUpUsageDao.recordBulk(usagesByContext);
+    }
+
+    private void addRolledUpUsageModelDaos(final SubscriptionUsageRecord record, final List<RolledUpUsageModelDao> usages) {
         for (final UnitUsageRecord unitUsageRecord : record.getUnitUsageRecord()) {
             for (final UsageRecord usageRecord : unitUsageRecord.getDailyAmount()) {
                 usages.add(new RolledUpUsageModelDao(record.getSubscriptionId(), unitUsageRecord.getUnitType(), usageRecord.getDate(), usageRecord.getAmount(), record.getTrackingId()));
             }
         }
-        rolledUpUsageDao.record(usages, internalCallContext);
     }
 
     @Override
     public RolledUpUsage getUsageForSubscription(final UUID subscriptionId, final String unitType, final LocalDate startDate, final LocalDate endDate, final TenantContext tenantContext) {
-        final List<RolledUpUsageModelDao> usageForSubscription = rolledUpUsageDao.getUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContextFactory.createInternalTenantContext(subscriptionId, ObjectType.SUBSCRIPTION, tenantContext));
+        final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContext(subscriptionId, ObjectType.SUBSCRIPTION, tenantContext);
+        final List<RolledUpUsageModelDao> usageForSubscription = usageConfig.isDailyAggregateEnabled() ?
+                                                                 rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalTenantContext) :
+                                                                 rolledUpUsageDao.getUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalTenantContext);
         final List<RolledUpUnit> rolledUpAmount = getRolledUpUnits(usageForSubscription);
         return new DefaultRolledUpUsage(subscriptionId, startDate, endDate, rolledUpAmount);
     }
@@ -85,10 +150,26 @@ public class DefaultUsageUserApi implements UsageUserApi {
     public List<RolledUpUsage> getAllUsageForSubscription(final UUID subscriptionId, final List<LocalDate> transitionTimes, final TenantContext tenantContext) {
         final InternalTenantContext internalCallContext = internalCallContextFactory.createInternalTenantContext(subscriptionId, ObjectType.SUBSCRIPTION, tenantContext);
         List<RolledUpUsage> result = new ArrayList<RolledUpUsage>();
+        if (transitionTimes.size() < 2) {
+            return result;
+        }
+
+        // Fetch the usage for all intervals at once, and split it in memory
+        final LocalDate minDate = Ordering.<LocalDate>natural().min(transitionTimes);
+        final LocalDate maxDate = Ordering.<LocalDate>natural().max(transitionTimes);
+        final List<RolledUpUsageModelDao> allUsageForSubscription = usageConfig.isDailyAggregateEnabled() ?
+                                                                    rolledUpUsageDao.getAllDailyUsageForSubscription(subscriptionId, minDate, maxDate, internalCallContext) :
+                                                                    rolledUpUsageDao.getAllUsageForSubscription(subscriptionId, minDate, maxDate, internalCallContext);
+
         LocalDate prevDate = null;
         for (LocalDate curDate : transitionTimes) {
             if (prevDate != null) {
-                final List<RolledUpUsageModelDao> usageForSubscription = rolledUpUsageDao.getAllUsageForSubscription(subscriptionId, prevDate, curDate, internalCallContext);
+                final List<RolledUpUsageModelDao> usageForSubscription = new ArrayList<RolledUpUsageModelDao>();
+                for (final RolledUpUsageModelDao usage : allUsageForSubscription) {
+                    if (!usage.getRecordDate().isBefore(prevDate) && usage.getRecordDate().isBefore(curDate)) {
+                        usageForSubscription.add(usage);
+                    }
+                }
                 final List<RolledUpUnit> rolledUpAmount = getRolledUpUnits(usageForSubscription);
                 result.add(new DefaultRolledUpUsage(subscriptionId, prevDate, curDate, rolledUpAmount));
             }
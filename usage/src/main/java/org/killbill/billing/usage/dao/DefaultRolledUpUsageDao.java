@@ -16,7 +16,13 @@
 
 package org.killbill.billing.usage.dao;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -24,20 +30,159 @@ import javax.inject.Inject;
 import org.joda.time.LocalDate;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.definition.UsageConfig;
+import org.killbill.commons.jdbi.mapper.LowerToCamelBeanMapperFactory;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
 
 public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
 
+    // Bound the size of the IN clause for tracking ids lookups
+    private static final int MAX_TRACKING_IDS_PER_QUERY = 1000;
+
+    private static final String DAILY_AGGREGATES_SAVEPOINT = "daily_aggregates";
+    private static final int MAX_DAILY_AGGREGATE_UPSERT_ATTEMPTS = 5;
+
+    private final IDBI dbi;
     private final RolledUpUsageSqlDao rolledUpUsageSqlDao;
+    private final RolledUpUsageDailySqlDao rolledUpUsageDailySqlDao;
+    private final UsageConfig usageConfig;
 
     @Inject
-    public DefaultRolledUpUsageDao(final IDBI dbi) {
+    public DefaultRolledUpUsageDao(final IDBI dbi, final UsageConfig usageConfig) {
+        this.dbi = dbi;
         this.rolledUpUsageSqlDao = dbi.onDemand(RolledUpUsageSqlDao.class);
+        this.rolledUpUsageDailySqlDao = dbi.onDemand(RolledUpUsageDailySqlDao.class);
+        ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(RolledUpUsageModelDao.class));
+        this.usageConfig = usageConfig;
     }
 
     @Override
     public void record(final Iterable<RolledUpUsageModelDao> usages, final InternalCallContext context){
-        rolledUpUsageSqlDao.create(usages, context);
+        inTransaction(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                handle.attach(RolledUpUsageSqlDao.class).create(usages, context);
+                addToDailyAggregates(handle, usages, context);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void recordBulk(final Map<InternalCallContext, List<RolledUpUsageModelDao>> usagesByContext) {
+        final int batchSize = Math.max(1, usageConfig.getBulkUsageBatchSize());
+
+        // The whole request is written in a single transaction, so that a failure (and the client retry) doesn't leave part of it behind.
+        // Rows for a given account share the same context (account_record_id), hence the same JDBC batches.
+        inTransaction(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final RolledUpUsageSqlDao transactional = handle.attach(RolledUpUsageSqlDao.class);
+                for (final Entry<InternalCallContext, List<RolledUpUsageModelDao>> entry : usagesByContext.entrySet()) {
+                    for (final List<RolledUpUsageModelDao> batch : Iterables.partition(entry.getValue(), batchSize)) {
+                        transactional.create(batch, entry.getKey());
+                    }
+                    addToDailyAggregates(handle, entry.getValue(), entry.getKey());
+                }
+                return null;
+            }
+        });
+    }
+
+    private void inTransaction(final TransactionCallback<Void> callback) {
+        try {
+            dbi.inTransaction(callback);
+        } catch (final RuntimeException e) {
+            // Surface the underlying exception (e.g. UnableToExecuteStatementException for duplicates), as EntitySqlDaoTransactionalJdbiWrapper does
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Amounts are first summed per (subscription, unit type, day), so that each aggregate row is updated once. Missing rows are
+    // inserted in one batch: if a concurrent transaction created some of them first, the batch is rolled back to a savepoint and
+    // the rows are upserted one at a time instead (update, or insert and retry the update on a duplicate key).
+    private void addToDailyAggregates(final Handle handle, final Iterable<RolledUpUsageModelDao> usages, final InternalCallContext context) {
+        final Map<List<Object>, RolledUpUsageModelDao> dailyUsages = new LinkedHashMap<List<Object>, RolledUpUsageModelDao>();
+        for (final RolledUpUsageModelDao usage : usages) {
+            final List<Object> key = ImmutableList.<Object>of(usage.getSubscriptionId(), usage.getUnitType(), usage.getRecordDate());
+            final RolledUpUsageModelDao dailyUsage = dailyUsages.get(key);
+            if (dailyUsage == null) {
+                dailyUsages.put(key, new RolledUpUsageModelDao(usage.getSubscriptionId(), usage.getUnitType(), usage.getRecordDate(), usage.getAmount(), null));
+            } else {
+                dailyUsage.setAmount(dailyUsage.getAmount() + usage.getAmount());
+            }
+        }
+
+        final RolledUpUsageDailySqlDao transactional = handle.attach(RolledUpUsageDailySqlDao.class);
+        final List<RolledUpUsageModelDao> newDailyUsages = new ArrayList<RolledUpUsageModelDao>();
+        for (final RolledUpUsageModelDao dailyUsage : dailyUsages.values()) {
+            if (transactional.addAmount(dailyUsage, context) == 0) {
+                newDailyUsages.add(dailyUsage);
+            }
+        }
+        if (newDailyUsages.isEmpty()) {
+            return;
+        }
+
+        handle.checkpoint(DAILY_AGGREGATES_SAVEPOINT);
+        try {
+            transactional.create(newDailyUsages, context);
+            handle.release(DAILY_AGGREGATES_SAVEPOINT);
+            return;
+        } catch (final RuntimeException e) {
+            if (!isDuplicateKey(e)) {
+                throw e;
+            }
+            handle.rollback(DAILY_AGGREGATES_SAVEPOINT);
+        }
+
+        for (final RolledUpUsageModelDao dailyUsage : newDailyUsages) {
+            upsertDailyAggregate(handle, transactional, dailyUsage, context);
+        }
+    }
+
+    private void upsertDailyAggregate(final Handle handle, final RolledUpUsageDailySqlDao transactional, final RolledUpUsageModelDao dailyUsage, final InternalCallContext context) {
+        for (int attempt = 1; ; attempt++) {
+            if (transactional.addAmount(dailyUsage, context) != 0) {
+                return;
+            }
+
+            handle.checkpoint(DAILY_AGGREGATES_SAVEPOINT);
+            try {
+                transactional.create(ImmutableList.<RolledUpUsageModelDao>of(dailyUsage), context);
+                handle.release(DAILY_AGGREGATES_SAVEPOINT);
+                return;
+            } catch (final RuntimeException e) {
+                // The row may not be visible yet if the database reports the duplicate before the other transaction commits
+                if (!isDuplicateKey(e) || attempt == MAX_DAILY_AGGREGATE_UPSERT_ATTEMPTS) {
+                    throw e;
+                }
+                handle.rollback(DAILY_AGGREGATES_SAVEPOINT);
+            }
+        }
+    }
+
+    private static boolean isDuplicateKey(final Throwable t) {
+        for (Throwable cur = t; cur != null; cur = cur.getCause()) {
+            // SQL:2003 class 23: integrity constraint violation
+            if (cur instanceof SQLException && ((SQLException) cur).getSQLState() != null && ((SQLException) cur).getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -45,6 +190,17 @@ public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
         return rolledUpUsageSqlDao.recordsWithTrackingIdExist(subscriptionId, trackingId, context) != null ;
     }
 
+    @Override
+    public Multimap<String, UUID> getSubscriptionIdsForTrackingIds(final Collection<String> trackingIds, final InternalTenantContext context) {
+        final Multimap<String, UUID> subscriptionIdsByTrackingId = HashMultimap.<String, UUID>create();
+        for (final List<String> chunk : Iterables.partition(ImmutableSet.<String>copyOf(trackingIds), MAX_TRACKING_IDS_PER_QUERY)) {
+            for (final RolledUpUsageModelDao usage : rolledUpUsageSqlDao.getSubscriptionIdsForTrackingIds(chunk, context)) {
+                subscriptionIdsByTrackingId.put(usage.getTrackingId(), usage.getSubscriptionId());
+            }
+        }
+        return subscriptionIdsByTrackingId;
+    }
+
     @Override
     public List<RolledUpUsageModelDao> getUsageForSubscription(final UUID subscriptionId, final LocalDate startDate, final LocalDate endDate, final String unitType, final InternalTenantContext context) {
         return rolledUpUsageSqlDao.getUsageForSubscription(subscriptionId, startDate.toDate(), endDate.toDate(), unitType, context);
@@ -59,4 +215,19 @@ public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
     public List<RolledUpUsageModelDao> getRawUsageForAccount(final LocalDate startDate, final LocalDate endDate, final InternalTenantContext context) {
         return rolledUpUsageSqlDao.getRawUsageForAccount(startDate.toDate(), endDate.toDate(), context);
     }
+
+    @Override
+    public List<RolledUpUsageModelDao> getDailyUsageForSubscription(final UUID subscriptionId, final LocalDate startDate, final LocalDate endDate, final String unitType, final InternalTenantContext context) {
+        return rolledUpUsageDailySqlDao.getUsageForSubscription(subscriptionId, startDate.toDate(), endDate.toDate(), unitType, context);
+    }
+
+    @Override
+    public List<RolledUpUsageModelDao> getAllDailyUsageForSubscription(final UUID subscriptionId, final LocalDate startDate, final LocalDate endDate, final InternalTenantContext context) {
+        return rolledUpUsageDailySqlDao.getAllUsageForSubscription(subscriptionId, startDate.toDate(), endDate.toDate(), context);
+    }
+
+    @Override
+    public List<RolledUpUsageModelDao> getDailyUsageForAccount(final LocalDate startDate, final LocalDate endDate, final InternalTenantContext context) {
+        return rolledUpUsageDailySqlDao.getUsageForAccount(startDate.toDate(), endDate.toDate(), context);
+    }
 }
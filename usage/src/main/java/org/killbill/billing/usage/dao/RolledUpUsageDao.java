@@ -16,22 +16,40 @@
 
 package org.killbill.billing.usage.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.joda.time.LocalDate;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 
+import com.google.common.collect.Multimap;
+
 public interface RolledUpUsageDao {
 
     void record(Iterable<RolledUpUsageModelDao> usages, InternalCallContext context);
 
+    // Rows are written in a single transaction, using JDBC batches of at most org.killbill.usage.bulk.batchSize rows
+    void recordBulk(Map<InternalCallContext, List<RolledUpUsageModelDao>> usagesByContext);
+
     Boolean recordsWithTrackingIdExist(UUID subscriptionId, String trackingId, InternalTenantContext context);
 
+    // Returns the subscription ids which already have rows for each of the tracking ids (across all accounts of the tenant)
+    Multimap<String, UUID> getSubscriptionIdsForTrackingIds(Collection<String> trackingIds, InternalTenantContext context);
+
     List<RolledUpUsageModelDao> getUsageForSubscription(UUID subscriptionId, LocalDate startDate, LocalDate endDate, String unitType, InternalTenantContext context);
 
     List<RolledUpUsageModelDao> getAllUsageForSubscription(UUID subscriptionId, LocalDate startDate, LocalDate endDate, InternalTenantContext context);
 
     List<RolledUpUsageModelDao> getRawUsageForAccount(LocalDate startDate, LocalDate endDate, InternalTenantContext context);
+
+    // Same as above, but from the per day aggregates (maintained on insert): rows have no id nor tracking id
+
+    List<RolledUpUsageModelDao> getDailyUsageForSubscription(UUID subscriptionId, LocalDate startDate, LocalDate endDate, String unitType, InternalTenantContext context);
+
+    List<RolledUpUsageModelDao> getAllDailyUsageForSubscription(UUID subscriptionId, LocalDate startDate, LocalDate endDate, InternalTenantContext context);
+
+    List<RolledUpUsageModelDao> getDailyUsageForAccount(LocalDate startDate, LocalDate endDate, InternalTenantContext context);
 }
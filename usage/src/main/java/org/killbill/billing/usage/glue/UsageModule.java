@@ -19,13 +19,16 @@
 package org.killbill.billing.usage.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.usage.BulkUsageUserApi;
 import org.killbill.billing.usage.InternalUserApi;
 import org.killbill.billing.usage.api.UsageUserApi;
 import org.killbill.billing.usage.api.svcs.DefaultInternalUserApi;
 import org.killbill.billing.usage.api.user.DefaultUsageUserApi;
 import org.killbill.billing.usage.dao.DefaultRolledUpUsageDao;
 import org.killbill.billing.usage.dao.RolledUpUsageDao;
+import org.killbill.billing.util.config.definition.UsageConfig;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class UsageModule extends KillBillModule {
 
@@ -41,6 +44,10 @@ public class UsageModule extends KillBillModule {
         bind(UsageUserApi.class).to(DefaultUsageUserApi.class).asEagerSingleton();
     }
 
+    protected void installBulkUsageUserApi() {
+        bind(BulkUsageUserApi.class).to(DefaultUsageUserApi.class).asEagerSingleton();
+    }
+
     protected void installInternalUserApi() {
         bind(InternalUserApi.class).to(DefaultInternalUserApi.class).asEagerSingleton();
     }
@@ -48,8 +55,12 @@ public class UsageModule extends KillBillModule {
 
     @Override
     protected void configure() {
+        final UsageConfig usageConfig = new ConfigurationObjectFactory(skifeConfigSource).build(UsageConfig.class);
+        bind(UsageConfig.class).toInstance(usageConfig);
+
         installRolledUpUsageDao();
         installUsageUserApi();
+        installBulkUsageUserApi();
         installInternalUserApi();
     }
 }
@@ -0,0 +1,18 @@
+CREATE TABLE rolled_up_usage_daily (
+    record_id serial unique,
+    subscription_id varchar(36) NOT NULL,
+    unit_type varchar(255) NOT NULL,
+    record_date date NOT NULL,
+    amount bigint NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX rolled_up_usage_daily_subscription_id_unit_type_record_date ON rolled_up_usage_daily(subscription_id, unit_type, record_date);
+CREATE INDEX rolled_up_usage_daily_tenant_account_record_id ON rolled_up_usage_daily(tenant_record_id, account_record_id, record_date);
+insert into rolled_up_usage_daily (subscription_id, unit_type, record_date, amount, created_date, updated_date, account_record_id, tenant_record_id)
+select subscription_id, unit_type, record_date, sum(amount), min(created_date), max(created_date), account_record_id, tenant_record_id
+from rolled_up_usage
+group by subscription_id, unit_type, record_date, account_record_id, tenant_record_id;
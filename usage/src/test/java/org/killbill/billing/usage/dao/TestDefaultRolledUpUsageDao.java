@@ -20,13 +20,25 @@ package org.killbill.billing.usage.dao;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.LocalDate;
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.usage.UsageTestSuiteWithEmbeddedDB;
 import org.killbill.billing.util.UUIDs;
 import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
@@ -170,4 +182,144 @@ public class TestDefaultRolledUpUsageDao extends UsageTestSuiteWithEmbeddedDB {
         assertEquals(rolledUpUsageDao.recordsWithTrackingIdExist(subscriptionId, trackingId, internalCallContext),
                      Boolean.TRUE);
     }
-}
\ No newline at end of file
+
+    @Test(groups = "slow")
+    public void testRecordBulk() {
+        final UUID subscriptionId1 = UUIDs.randomUUID();
+        final UUID subscriptionId2 = UUIDs.randomUUID();
+        final String unitType = "foo";
+        final LocalDate startDate = new LocalDate(2013, 1, 1);
+        final LocalDate endDate = new LocalDate(2013, 2, 1);
+        final String trackingId1 = UUIDs.randomUUID().toString();
+        final String trackingId2 = UUIDs.randomUUID().toString();
+
+        // More rows than the default batch size, to span several JDBC batches
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        for (int i = 0; i < 1500; i++) {
+            usages.add(new RolledUpUsageModelDao(i % 2 == 0 ? subscriptionId1 : subscriptionId2, unitType, startDate.plusDays(i % 31), 1L, i % 2 == 0 ? trackingId1 : trackingId2));
+        }
+        rolledUpUsageDao.recordBulk(ImmutableMap.<InternalCallContext, List<RolledUpUsageModelDao>>of(internalCallContext, usages));
+
+        assertEquals(rolledUpUsageDao.getUsageForSubscription(subscriptionId1, startDate, endDate, unitType, internalCallContext).size(), 750);
+        assertEquals(rolledUpUsageDao.getUsageForSubscription(subscriptionId2, startDate, endDate, unitType, internalCallContext).size(), 750);
+
+        // Rows for a given day are spread over several JDBC batches
+        final List<RolledUpUsageModelDao> dailyUsage = rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId1, startDate, endDate, unitType, internalCallContext);
+        assertEquals(dailyUsage.size(), 31);
+        long total = 0;
+        for (final RolledUpUsageModelDao usage : dailyUsage) {
+            total += usage.getAmount();
+        }
+        assertEquals(total, 750L);
+
+        final Multimap<String, UUID> subscriptionIdsByTrackingId = rolledUpUsageDao.getSubscriptionIdsForTrackingIds(ImmutableList.<String>of(trackingId1, trackingId2, UUIDs.randomUUID().toString()), internalCallContext);
+        assertEquals(subscriptionIdsByTrackingId.size(), 2);
+        assertEquals(subscriptionIdsByTrackingId.get(trackingId1), ImmutableSet.<UUID>of(subscriptionId1));
+        assertEquals(subscriptionIdsByTrackingId.get(trackingId2), ImmutableSet.<UUID>of(subscriptionId2));
+    }
+
+    @Test(groups = "slow")
+    public void testRecordBulkIsAtomic() {
+        final UUID subscriptionId = UUIDs.randomUUID();
+        final String unitType = "foo";
+        final LocalDate startDate = new LocalDate(2013, 1, 1);
+        final LocalDate endDate = new LocalDate(2013, 2, 1);
+
+        final RolledUpUsageModelDao existingUsage = new RolledUpUsageModelDao(subscriptionId, unitType, startDate, 1L, UUIDs.randomUUID().toString());
+        rolledUpUsageDao.record(ImmutableList.<RolledUpUsageModelDao>of(existingUsage), internalCallContext);
+
+        // The row in error comes after the first JDBC batch
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        for (int i = 0; i < 1200; i++) {
+            usages.add(new RolledUpUsageModelDao(subscriptionId, unitType, startDate.plusDays(i % 31), 1L, UUIDs.randomUUID().toString()));
+        }
+        usages.add(existingUsage);
+        try {
+            rolledUpUsageDao.recordBulk(ImmutableMap.<InternalCallContext, List<RolledUpUsageModelDao>>of(internalCallContext, usages));
+            fail("duplicate records accepted");
+        } catch (final UnableToExecuteStatementException e) {
+            // Nothing from the request was recorded, so that it can be retried as is
+            assertEquals(rolledUpUsageDao.getUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContext).size(), 1);
+            assertEquals(rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContext).size(), 1);
+        }
+
+        usages.remove(existingUsage);
+        rolledUpUsageDao.recordBulk(ImmutableMap.<InternalCallContext, List<RolledUpUsageModelDao>>of(internalCallContext, usages));
+        assertEquals(rolledUpUsageDao.getUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContext).size(), 1201);
+    }
+
+    @Test(groups = "slow")
+    public void testDailyAggregates() {
+        final UUID subscriptionId = UUIDs.randomUUID();
+        final String unitType1 = "foo";
+        final String unitType2 = "bar";
+        final LocalDate startDate = new LocalDate(2013, 1, 1);
+        final LocalDate endDate = new LocalDate(2013, 2, 1);
+
+        rolledUpUsageDao.record(ImmutableList.<RolledUpUsageModelDao>of(new RolledUpUsageModelDao(subscriptionId, unitType1, startDate, 10L, UUIDs.randomUUID().toString()),
+                                                                        new RolledUpUsageModelDao(subscriptionId, unitType1, startDate, 5L, UUIDs.randomUUID().toString()),
+                                                                        new RolledUpUsageModelDao(subscriptionId, unitType2, startDate, 7L, UUIDs.randomUUID().toString())),
+                                internalCallContext);
+        rolledUpUsageDao.record(ImmutableList.<RolledUpUsageModelDao>of(new RolledUpUsageModelDao(subscriptionId, unitType1, startDate, 3L, UUIDs.randomUUID().toString()),
+                                                                        new RolledUpUsageModelDao(subscriptionId, unitType1, startDate.plusDays(1), 1L, UUIDs.randomUUID().toString())),
+                                internalCallContext);
+
+        assertEquals(rolledUpUsageDao.getAllUsageForSubscription(subscriptionId, startDate, endDate, internalCallContext).size(), 5);
+
+        final List<RolledUpUsageModelDao> result = rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, startDate, endDate, unitType1, internalCallContext);
+        assertEquals(result.size(), 2);
+        assertEquals(result.get(0).getSubscriptionId(), subscriptionId);
+        assertEquals(result.get(0).getRecordDate().compareTo(startDate), 0);
+        assertEquals(result.get(0).getAmount(), (Long) 18L);
+        assertEquals(result.get(1).getRecordDate().compareTo(startDate.plusDays(1)), 0);
+        assertEquals(result.get(1).getAmount(), (Long) 1L);
+
+        assertEquals(rolledUpUsageDao.getAllDailyUsageForSubscription(subscriptionId, startDate, endDate, internalCallContext).size(), 3);
+        assertEquals(rolledUpUsageDao.getAllDailyUsageForSubscription(subscriptionId, startDate.plusDays(1), endDate, internalCallContext).size(), 1);
+        assertEquals(rolledUpUsageDao.getDailyUsageForAccount(startDate, endDate, internalCallContext).size(), 3);
+    }
+
+    @Test(groups = "slow")
+    public void testConcurrentDailyAggregatesCreation() throws Exception {
+        final UUID subscriptionId = UUIDs.randomUUID();
+        final String unitType = "foo";
+        final LocalDate startDate = new LocalDate(2013, 1, 1);
+        final LocalDate endDate = new LocalDate(2013, 2, 1);
+
+        final int nbThreads = 2;
+        final int nbRecordsPerThread = 20;
+        final CyclicBarrier barrier = new CyclicBarrier(nbThreads);
+        final ExecutorService executorService = Executors.newFixedThreadPool(nbThreads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < nbThreads; i++) {
+                futures.add(executorService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int j = 0; j < nbRecordsPerThread; j++) {
+                            // All threads race to create the aggregate rows for the same days
+                            barrier.await(30, TimeUnit.SECONDS);
+                            rolledUpUsageDao.record(ImmutableList.<RolledUpUsageModelDao>of(new RolledUpUsageModelDao(subscriptionId, unitType, startDate.plusDays(j), 1L, UUIDs.randomUUID().toString()),
+                                                                                            new RolledUpUsageModelDao(subscriptionId, unitType, startDate.plusDays(j + 1), 2L, UUIDs.randomUUID().toString())),
+                                                    internalCallContext);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        final List<RolledUpUsageModelDao> dailyUsage = rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContext);
+        assertEquals(dailyUsage.size(), nbRecordsPerThread + 1);
+        long total = 0;
+        for (final RolledUpUsageModelDao usage : dailyUsage) {
+            total += usage.getAmount();
+        }
+        assertEquals(total, (long) nbThreads * nbRecordsPerThread * 3);
+    }
+}
@@ -18,6 +18,9 @@
 
 package org.killbill.billing.util.callcontext;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -179,6 +182,39 @@ public class InternalCallContextFactory {
                                          context);
     }
 
+    /**
+     * Bulk version of createInternalCallContext(UUID, ObjectType, CallContext): the tenant and all account_record_id
+     * are resolved with a bounded number of queries, and objects sharing an account share the same internal call callcontext
+     *
+     * @param objectIds  the ids of the rows in the table pointed by object type where to look for account_record_id
+     * @param objectType the object type pointed by these objectIds
+     * @param context    original call callcontext
+     * @return internal call callcontexts, keyed by object id
+     * @throws ObjectDoesNotExist if one of the objects doesn't exist in the tenant
+     */
+    public Map<UUID, InternalCallContext> createInternalCallContexts(final Collection<UUID> objectIds, final ObjectType objectType, final CallContext context) throws ObjectDoesNotExist {
+        final Long tenantRecordId = getTenantRecordIdSafe(context);
+        final Map<UUID, Long> accountRecordIds = nonEntityDao.retrieveAccountRecordIdsFromObjects(objectIds, objectType, tenantRecordId);
+
+        final Map<Long, InternalCallContext> contextsByAccountRecordId = new HashMap<Long, InternalCallContext>();
+        final Map<UUID, InternalCallContext> contexts = new HashMap<UUID, InternalCallContext>();
+        for (final UUID objectId : objectIds) {
+            final Long accountRecordId = accountRecordIds.get(objectId);
+            if (accountRecordId == null) {
+                throw new ObjectDoesNotExist(String.format("Object id=%s type=%s doesn't exist in tenant id=%s!", objectId, objectType, context.getTenantId()));
+            }
+
+            InternalCallContext internalCallContext = contextsByAccountRecordId.get(accountRecordId);
+            if (internalCallContext == null) {
+                internalCallContext = createInternalCallContext(tenantRecordId, accountRecordId, context.getUserName(), context.getCallOrigin(),
+                                                                context.getUserType(), context.getUserToken(), context.getReasonCode(), context.getComments());
+                contextsByAccountRecordId.put(accountRecordId, internalCallContext);
+            }
+            contexts.put(objectId, internalCallContext);
+        }
+        return contexts;
+    }
+
     // Used by the payment retry service
     public InternalCallContext createInternalCallContext(final UUID objectId, final ObjectType objectType, final String userName,
                                                          final CallOrigin callOrigin, final UserType userType, @Nullable final UUID userToken, final Long tenantRecordId) {
@@ -27,4 +27,14 @@ public interface CatalogConfig extends KillbillConfig {
     @Default("SpyCarBasic.xml")
     @Description("Default Catalog location, either in the classpath or in the filesystem. For multi-tenancy, one should use APIs to load per-tenant catalog")
     String getCatalogURI();
+
+    @Config("org.killbill.catalog.loader.threads.nb")
+    @Default("4")
+    @Description("Number of threads used to parse and validate the versions of a tenant catalog")
+    int getCatalogLoaderThreadsNb();
+
+    @Config("org.killbill.catalog.snapshot.enabled")
+    @Default("true")
+    @Description("Whether a serialized copy of the validated tenant catalog is kept in tenant_kvs to avoid parsing the xml on cold caches")
+    boolean isCatalogSnapshotEnabled();
 }
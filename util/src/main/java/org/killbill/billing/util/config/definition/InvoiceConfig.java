@@ -76,11 +76,26 @@ public interface InvoiceConfig extends KillbillConfig {
     @Description("Maximum number of past billing periods we use to fetch raw usage data (usage optimization)")
     int getMaxRawUsagePreviousPeriod(@Param("dummy") final InternalTenantContext tenantContext);
 
+    @Config("org.killbill.invoice.incrementalGenerationWindowMonths")
+    @Default("0")
+    @Description("Number of months prior to the target date for which existing invoice items, recurring periods and raw usage are considered during invoice generation (0 to always reload the full invoice history)")
+    int getIncrementalGenerationWindowMonths();
+
+    @Config("org.killbill.invoice.incrementalGenerationWindowMonths")
+    @Default("0")
+    @Description("Number of months prior to the target date for which existing invoice items, recurring periods and raw usage are considered during invoice generation (0 to always reload the full invoice history)")
+    int getIncrementalGenerationWindowMonths(@Param("dummy") final InternalTenantContext tenantContext);
+
     @Config("org.killbill.invoice.globalLock.retries")
     @Default("50")
     @Description("Maximum number of times the system will retry to grab global lock (with a 100ms wait each time)")
     int getMaxGlobalLockRetries();
 
+    @Config("org.killbill.invoice.tree.nbThreads")
+    @Default("4")
+    @Description("Number of threads used to build the per-subscription invoice item trees of an account (0 to build them in the invoicing thread)")
+    int getTreeThreadNb();
+
     @Config("org.killbill.invoice.emailNotificationsEnabled")
     @Default("false")
     @Description("Whether to send email notifications on invoice creation (for configured accounts)")
@@ -93,11 +93,26 @@ public interface PaymentConfig extends KillbillConfig {
     @Description("Rate at which janitor tasks are scheduled")
     TimeSpan getJanitorRunningRate();
 
+    @Config("org.killbill.payment.janitor.shards.nb")
+    @Default("16")
+    @Description("Number of shards (by account record id) the janitor work is split into, should be the same on all nodes")
+    int getJanitorShardsNb();
+
+    @Config("org.killbill.payment.janitor.threads.nb")
+    @Default("4")
+    @Description("Number of threads processing janitor shards concurrently")
+    int getJanitorThreadsNb();
+
     @Config("org.killbill.payment.janitor.attempts.delay")
     @Default("12h")
     @Description("Delay before which unresolved attempt should be retried")
     TimeSpan getIncompleteAttemptsTimeSpanDelay();
 
+    @Config("org.killbill.payment.janitor.transactions.delay")
+    @Default("1h")
+    @Description("Delay after which unresolved transactions without any pending janitor notification are rescheduled")
+    TimeSpan getIncompleteTransactionsTimeSpanDelay();
+
     @Config("org.killbill.payment.provider.default")
     // See ExternalPaymentProviderPlugin.PLUGIN_NAME
     @Default("__external_payment__")
@@ -114,6 +129,26 @@ public interface PaymentConfig extends KillbillConfig {
     @Description("Number of threads for plugin executor dispatcher")
     int getPaymentPluginThreadNb();
 
+    @Config("org.killbill.payment.plugin.bulkhead.enabled")
+    @Default("true")
+    @Description("Whether each payment plugin is dispatched on its own executor (otherwise all plugins share the plugin executor)")
+    boolean isPaymentPluginBulkheadEnabled();
+
+    @Config("org.killbill.payment.plugin.bulkhead.threads.nb")
+    @Default("100")
+    @Description("Maximum number of concurrent calls for a given payment plugin")
+    int getPaymentPluginBulkheadThreadNb();
+
+    @Config("org.killbill.payment.plugin.bulkhead.queue.size")
+    @Default("1000")
+    @Description("Maximum number of calls waiting for a thread for a given payment plugin, further calls are rejected")
+    int getPaymentPluginBulkheadQueueSize();
+
+    @Config("org.killbill.payment.plugin.bulkhead.virtualThreads")
+    @Default("false")
+    @Description("Whether payment plugin calls run on virtual threads (ignored if the JVM doesn't support them)")
+    boolean isPaymentPluginBulkheadVirtualThreadsEnabled();
+
     @Config("org.killbill.payment.globalLock.retries")
     @Default("50")
     @Description("Maximum number of times the system will retry to grab global lock (with a 100ms wait each time)")
@@ -28,4 +28,9 @@ public interface RbacConfig extends KillbillConfig {
     @Default("1h")
     @Description("System-wide default time that any session may remain idle before expiring")
     public TimeSpan getGlobalSessionTimeout();
+
+    @Config("org.killbill.rbac.sessionLastAccessTimeFlushInterval")
+    @Default("10s")
+    @Description("Maximum delay before a session last access time is persisted (0 to persist it on every access)")
+    public TimeSpan getSessionLastAccessTimeFlushInterval();
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config.definition;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
+public interface SearchConfig extends KillbillConfig {
+
+    @Config("org.killbill.billing.util.search.index.enabled")
+    @Default("false")
+    @Description("Whether the search index should be used to answer search queries (it is maintained regardless)")
+    public boolean isSearchIndexEnabled();
+
+    @Config("org.killbill.billing.util.search.index.maxCandidates")
+    @Default("1000")
+    @Description("Maximum number of candidates returned by the search index before falling back to a database scan")
+    public int getSearchIndexMaxCandidates();
+}
@@ -21,6 +21,7 @@ import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.DefaultNull;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 public interface SecurityConfig extends KillbillConfig {
 
@@ -34,6 +35,16 @@ public interface SecurityConfig extends KillbillConfig {
     @Description("Sets the number of times submitted credentials will be hashed before comparing to the credentials stored in the system")
     public Integer getShiroNbHashIterations();
 
+    @Config("org.killbill.security.jdbcRealm.cacheMaxSize")
+    @Default("10000")
+    @Description("Maximum number of users whose authentication and authorization info are cached by the JDBC realm")
+    public Integer getJdbcRealmCacheMaxSize();
+
+    @Config("org.killbill.security.jdbcRealm.cacheTTL")
+    @Default("10m")
+    @Description("How long the JDBC realm caches the authentication and authorization info of a user (0 to disable)")
+    public TimeSpan getJdbcRealmCacheTTL();
+
     // LDAP Realm
 
     @Config("org.killbill.security.ldap.userDnTemplate")
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config.definition;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
+public interface UsageConfig extends KillbillConfig {
+
+    @Config("org.killbill.usage.bulk.batchSize")
+    @Default("1000")
+    @Description("Maximum number of usage rows per JDBC batch for the bulk usage API (each request is written in a single transaction)")
+    public int getBulkUsageBatchSize();
+
+    @Config("org.killbill.usage.dailyAggregate.enabled")
+    @Default("true")
+    @Description("Whether usage reads use the per day aggregates (rolled_up_usage_daily) instead of the raw usage rows")
+    public boolean isDailyAggregateEnabled();
+}
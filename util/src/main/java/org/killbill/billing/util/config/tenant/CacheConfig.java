@@ -18,6 +18,8 @@
 package org.killbill.billing.util.config.tenant;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.annotation.Nullable;
 
@@ -39,6 +41,8 @@ public class CacheConfig {
 
     private final ObjectMapper objectMapper;
 
+    private final List<MultiTenantConfigBase<?>> multiTenantConfigs = new CopyOnWriteArrayList<MultiTenantConfigBase<?>>();
+
     @Inject
     public CacheConfig(final CacheControllerDispatcher cacheControllerDispatcher) {
         this.cacheController = cacheControllerDispatcher.getCacheController(CacheType.TENANT_CONFIG);
@@ -56,11 +60,40 @@ public class CacheConfig {
         cacheController.remove(tenantContext.getTenantRecordId());
     }
 
+    /**
+     * Check the per tenant config prior storing it, so that invalid values are not detected when the config is first used.
+     *
+     * @param inputJson the per tenant config
+     * @throws IllegalArgumentException if the json cannot be deserialized or one of the values is invalid
+     */
+    public void validatePerTenantConfig(final String inputJson) {
+        final PerTenantConfig perTenantConfig;
+        try {
+            perTenantConfig = objectMapper.readValue(inputJson, PerTenantConfig.class);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Failed to deserialize per tenant config: " + e.getMessage(), e);
+        }
+        perTenantConfig.setStrict(true);
+        compile(perTenantConfig);
+    }
+
+    void registerMultiTenantConfig(final MultiTenantConfigBase<?> multiTenantConfig) {
+        multiTenantConfigs.add(multiTenantConfig);
+    }
+
+    private void compile(final PerTenantConfig perTenantConfig) {
+        for (final MultiTenantConfigBase<?> multiTenantConfig : multiTenantConfigs) {
+            perTenantConfig.compile(multiTenantConfig);
+        }
+    }
+
     private CacheLoaderArgument initializeCacheLoaderArgument() {
         final LoaderCallback loaderCallback = new LoaderCallback() {
             @Override
             public Object loadConfig(@Nullable final String inputJson) throws IOException {
-                return inputJson != null ? objectMapper.readValue(inputJson, PerTenantConfig.class) : new PerTenantConfig();
+                final PerTenantConfig perTenantConfig = inputJson != null ? objectMapper.readValue(inputJson, PerTenantConfig.class) : new PerTenantConfig();
+                compile(perTenantConfig);
+                return perTenantConfig;
             }
         };
         final Object[] args = new Object[1];
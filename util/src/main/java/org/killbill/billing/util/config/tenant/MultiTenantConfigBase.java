@@ -27,12 +27,21 @@ import org.killbill.billing.util.config.definition.KillbillConfig;
 import org.skife.config.Config;
 import org.skife.config.Separator;
 import org.skife.config.TimeSpan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
-public abstract class MultiTenantConfigBase {
+//
+// The per tenant overrides are compiled into a typed object of type S when the tenant entry is loaded in the TENANT_CONFIG cache
+// (see CacheConfig): the tenant aware getters only read its fields, and invalid values are reported when the config is uploaded.
+// Invalid values stored before that check existed are logged and ignored, so that only the affected property falls back to its default.
+//
+public abstract class MultiTenantConfigBase<S> {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiTenantConfigBase.class);
 
     private final Map<String, Method> methodsCache = new HashMap<String, Method>();
     protected final CacheConfig cacheConfig;
@@ -53,6 +62,22 @@ public abstract class MultiTenantConfigBase {
 
     public MultiTenantConfigBase(final CacheConfig cacheConfig) {
         this.cacheConfig = cacheConfig;
+        cacheConfig.registerMultiTenantConfig(this);
+    }
+
+    /**
+     * @param perTenantConfig the raw tenant overrides
+     * @return the typed overrides (never null)
+     * @throws IllegalArgumentException if one of the values cannot be converted
+     */
+    protected abstract S compile(final PerTenantConfig perTenantConfig);
+
+    // Null if there is no tenant context, meaning the static config value should be used
+    protected S getTenantConfig(final InternalTenantContext tenantContext) {
+        if (tenantContext == null) {
+            return null;
+        }
+        return cacheConfig.getPerTenantConfig(tenantContext).getCompiledConfig(this);
     }
 
     //
@@ -60,41 +85,85 @@ public abstract class MultiTenantConfigBase {
     // Ideally we could reuse the bully/Coercer from skife package, but those are kept private.
     //
 
-    protected List<String> convertToListString(final String value, final String methodName) {
+    protected String getStringOverride(final PerTenantConfig perTenantConfig, final String methodName) {
         final Method method = getConfigStaticMethodWithChecking(methodName);
-        final Iterable<String> tokens = getTokens(method, value);
-        return ImmutableList.copyOf(tokens);
+        for (final String propertyName : method.getAnnotation(Config.class).value()) {
+            final String result = perTenantConfig.get(propertyName);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
     }
 
-    protected List<TimeSpan> convertToListTimeSpan(final String value, final String methodName) {
-        final Method method = getConfigStaticMethodWithChecking(methodName);
-        final Iterable<String> tokens = getTokens(method, value);
-        return ImmutableList.copyOf(Iterables.transform(tokens, TIME_SPAN_CONVERTER));
+    protected Integer getIntegerOverride(final PerTenantConfig perTenantConfig, final String methodName) {
+        final String value = getStringOverride(perTenantConfig, methodName);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return INT_CONVERTER.apply(value);
+        } catch (final IllegalArgumentException e) {
+            return invalidValue(perTenantConfig, methodName, value, e);
+        }
     }
 
-    protected List<Integer> convertToListInteger(final String value, final String methodName) {
-        final Method method = getConfigStaticMethodWithChecking(methodName);
-        final Iterable<String> tokens = getTokens(method, value);
-        return ImmutableList.copyOf(Iterables.transform(tokens, INT_CONVERTER));
+    protected Boolean getBooleanOverride(final PerTenantConfig perTenantConfig, final String methodName) {
+        final String value = getStringOverride(perTenantConfig, methodName);
+        return value == null ? null : Boolean.valueOf(value);
     }
 
-    protected String getStringTenantConfig(final String methodName, final InternalTenantContext tenantContext) {
-        // That means we want to default to static config value
-        if (tenantContext == null) {
+    protected TimeSpan getTimeSpanOverride(final PerTenantConfig perTenantConfig, final String methodName) {
+        final String value = getStringOverride(perTenantConfig, methodName);
+        if (value == null) {
             return null;
         }
-        final Method method = getConfigStaticMethodWithChecking(methodName);
-        return getCachedValue(method.getAnnotation(Config.class), tenantContext);
+        try {
+            return TIME_SPAN_CONVERTER.apply(value);
+        } catch (final IllegalArgumentException e) {
+            return invalidValue(perTenantConfig, methodName, value, e);
+        }
     }
 
-    private String getCachedValue(final Config annotation, final InternalTenantContext tenantContext) {
-        final PerTenantConfig perTenantConfig = cacheConfig.getPerTenantConfig(tenantContext);
-        for (final String propertyName : annotation.value()) {
-            final String result = perTenantConfig.get(propertyName);
-            if (result != null) {
-                return result;
-            }
+    protected List<String> getListStringOverride(final PerTenantConfig perTenantConfig, final String methodName) {
+        final String value = getStringOverride(perTenantConfig, methodName);
+        if (value == null) {
+            return null;
+        }
+        return getTokens(getConfigStaticMethodWithChecking(methodName), value);
+    }
+
+    protected List<TimeSpan> getListTimeSpanOverride(final PerTenantConfig perTenantConfig, final String methodName) {
+        final String value = getStringOverride(perTenantConfig, methodName);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ImmutableList.copyOf(Iterables.transform(getTokens(getConfigStaticMethodWithChecking(methodName), value), TIME_SPAN_CONVERTER));
+        } catch (final IllegalArgumentException e) {
+            return invalidValue(perTenantConfig, methodName, value, e);
+        }
+    }
+
+    protected List<Integer> getListIntegerOverride(final PerTenantConfig perTenantConfig, final String methodName) {
+        final String value = getStringOverride(perTenantConfig, methodName);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ImmutableList.copyOf(Iterables.transform(getTokens(getConfigStaticMethodWithChecking(methodName), value), INT_CONVERTER));
+        } catch (final IllegalArgumentException e) {
+            return invalidValue(perTenantConfig, methodName, value, e);
+        }
+    }
+
+    private <T> T invalidValue(final PerTenantConfig perTenantConfig, final String methodName, final String value, final IllegalArgumentException cause) {
+        final String propertyName = getConfigStaticMethodWithChecking(methodName).getAnnotation(Config.class).value()[0];
+        final String message = String.format("Invalid per tenant value '%s' for %s", value, propertyName);
+        if (perTenantConfig.isStrict()) {
+            throw new IllegalArgumentException(message, cause);
         }
+        log.warn("{}, using the default value instead", message);
         return null;
     }
 
@@ -17,11 +17,51 @@
 
 package org.killbill.billing.util.config.tenant;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class PerTenantConfig extends HashMap<String, String> {
 
+    // Typed overrides per MultiTenantConfigBase, compiled when the entry is loaded in the cache (see CacheConfig)
+    private transient ConcurrentMap<MultiTenantConfigBase<?>, Object> compiledConfigs = new ConcurrentHashMap<MultiTenantConfigBase<?>, Object>();
+
+    // When set, invalid values are rejected instead of being ignored (see CacheConfig#validatePerTenantConfig)
+    private transient boolean strict;
+
     public PerTenantConfig() {
     }
 
+    void setStrict(final boolean strict) {
+        this.strict = strict;
+    }
+
+    boolean isStrict() {
+        return strict;
+    }
+
+    void compile(final MultiTenantConfigBase<?> multiTenantConfig) {
+        compiledConfigs.put(multiTenantConfig, multiTenantConfig.compile(this));
+    }
+
+    @SuppressWarnings("unchecked")
+    <S> S getCompiledConfig(final MultiTenantConfigBase<S> multiTenantConfig) {
+        Object compiledConfig = compiledConfigs.get(multiTenantConfig);
+        if (compiledConfig == null) {
+            // Config registered after the entry was loaded, or entry deserialized by the cache
+            final Object newCompiledConfig = multiTenantConfig.compile(this);
+            compiledConfig = compiledConfigs.putIfAbsent(multiTenantConfig, newCompiledConfig);
+            if (compiledConfig == null) {
+                compiledConfig = newCompiledConfig;
+            }
+        }
+        return (S) compiledConfig;
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        compiledConfigs = new ConcurrentHashMap<MultiTenantConfigBase<?>, Object>();
+    }
 }
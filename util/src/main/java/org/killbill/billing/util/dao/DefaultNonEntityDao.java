@@ -18,6 +18,11 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -36,9 +41,14 @@ import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.sqlobject.SqlObjectBuilder;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 
 public class DefaultNonEntityDao implements NonEntityDao {
 
+    // Bound the size of the IN clause for bulk lookups
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final NonEntitySqlDao nonEntitySqlDao;
     private final WithCaching<UUID, Long> withCachingObjectId;
     private final WithCaching<Long, UUID> withCachingRecordId;
@@ -103,6 +113,27 @@ public class DefaultNonEntityDao implements NonEntityDao {
         }, objectId, objectType, tableName, cache);
     }
 
+    @Override
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, final Long tenantRecordId) {
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+        // Accounts, tenants and tag definitions don't have an account_record_id column (see retrieveAccountRecordIdFromObjectInTransaction)
+        Preconditions.checkArgument(tableName != TableName.ACCOUNT && tableName != TableName.TENANT && tableName != TableName.TAG_DEFINITIONS,
+                                    "%s is not supported for bulk account record id lookups", objectType);
+
+        final Map<UUID, Long> accountRecordIds = new HashMap<UUID, Long>();
+        for (final List<UUID> chunk : Iterables.partition(ImmutableSet.<UUID>copyOf(objectIds), MAX_IDS_PER_QUERY)) {
+            final Collection<String> ids = new ArrayList<String>(chunk.size());
+            for (final UUID objectId : chunk) {
+                ids.add(objectId.toString());
+            }
+            for (final RecordIdIdMappings mapping : nonEntitySqlDao.getAccountRecordIdIdMappingsForObjects(ids, tableName.getTableName(), tenantRecordId)) {
+                accountRecordIds.put(mapping.getId(), mapping.getRecordId());
+            }
+        }
+        return accountRecordIds;
+    }
+
     @Override
     public Long retrieveTenantRecordIdFromObject(@Nullable final UUID objectId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
         return retrieveTenantRecordIdFromObjectInTransaction(objectId, objectType, cache, null);
@@ -160,6 +191,19 @@ public class DefaultNonEntityDao implements NonEntityDao {
         return transactional.getLastHistoryRecordId(targetRecordId, tableName.getTableName());
     }
 
+    @Override
+    public Map<UUID, Long> retrieveHistoryRecordIdsFromTransaction(final Collection<Long> targetRecordIds, final TableName tableName, final NonEntitySqlDao transactional) {
+        final Map<UUID, Long> historyRecordIds = new HashMap<UUID, Long>();
+        if (targetRecordIds.isEmpty()) {
+            return historyRecordIds;
+        }
+
+        for (final RecordIdIdMappings mapping : transactional.getHistoryRecordIdIdMappingsForTargetRecordIds(targetRecordIds, tableName.getTableName())) {
+            historyRecordIds.put(mapping.getId(), mapping.getRecordId());
+        }
+        return historyRecordIds;
+    }
+
     @Override
     public Long retrieveHistoryTargetRecordId(@Nullable final Long recordId, final TableName tableName) {
         return nonEntitySqlDao.getHistoryTargetRecordId(recordId, tableName.getTableName());
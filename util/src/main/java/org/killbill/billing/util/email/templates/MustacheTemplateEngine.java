@@ -23,9 +23,21 @@ import com.samskivert.mustache.Template;
 
 public class MustacheTemplateEngine implements TemplateEngine {
 
+    private final Mustache.Compiler compiler = Mustache.compiler().nullValue("");
+
     @Override
     public String executeTemplateText(final String templateText, final Map<String, Object> data) {
-        final Template template = Mustache.compiler().nullValue("").compile(templateText);
-        return template.execute(data);
+        return compileTemplateText(templateText).execute(data);
+    }
+
+    @Override
+    public CompiledTemplate compileTemplateText(final String templateText) {
+        final Template template = compiler.compile(templateText);
+        return new CompiledTemplate() {
+            @Override
+            public String execute(final Map<String, Object> data) {
+                return template.execute(data);
+            }
+        };
     }
 }
@@ -20,6 +20,14 @@ import java.util.Map;
 
 public interface TemplateEngine {
 
+    public interface CompiledTemplate {
+
+        public String execute(final Map<String, Object> data);
+    }
+
     public String executeTemplateText(final String templateText, final Map<String, Object> data);
 
+    // The returned template is immutable and can be executed concurrently
+    public CompiledTemplate compileTemplateText(final String templateText);
+
 }
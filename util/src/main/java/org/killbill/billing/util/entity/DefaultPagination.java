@@ -16,6 +16,7 @@
 
 package org.killbill.billing.util.entity;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -23,16 +24,42 @@ import java.util.List;
 import javax.annotation.Nullable;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
 
 // Assumes the original offset starts at zero.
-public class DefaultPagination<T> implements Pagination<T> {
+public class DefaultPagination<T> implements PageTokenPagination<T> {
+
+    private static final String PAGE_TOKEN_PREFIX = "rid:";
 
     private final Long currentOffset;
     private final Long limit;
     private final Long totalNbRecords;
     private final Long maxNbRecords;
+    private final String nextPageToken;
     private final Iterator<T> delegateIterator;
 
+    // Keyset pagination: the token is an opaque representation of the last record_id returned
+    public static String toPageToken(final Long lastRecordId) {
+        return BaseEncoding.base64Url().omitPadding().encode((PAGE_TOKEN_PREFIX + lastRecordId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long fromPageToken(@Nullable final String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            // First page
+            return 0L;
+        }
+
+        try {
+            final String decoded = new String(BaseEncoding.base64Url().omitPadding().decode(pageToken), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PAGE_TOKEN_PREFIX)) {
+                return Long.valueOf(decoded.substring(PAGE_TOKEN_PREFIX.length()));
+            }
+        } catch (final IllegalArgumentException ignored) {
+            // Includes NumberFormatException
+        }
+        throw new IllegalArgumentException("Invalid page token " + pageToken);
+    }
+
     // Builders when the streaming API can't be used (should only be used for tests)
     // Notes: elements should be the entire records set (regardless of filtering) otherwise maxNbRecords won't be accurate
     public static <T> Pagination<T> build(final Long offset, final Long limit, final Collection<T> elements) {
@@ -55,7 +82,9 @@ public class DefaultPagination<T> implements Pagination<T> {
 
     // Constructor for DAO -> API bridge
     public DefaultPagination(final Pagination original, final Long limit, final Iterator<T> delegate) {
-        this(original.getCurrentOffset(), limit, original.getTotalNbRecords(), original.getMaxNbRecords(), delegate);
+        this(original.getCurrentOffset(), limit, original.getTotalNbRecords(), original.getMaxNbRecords(),
+             original instanceof PageTokenPagination ? ((PageTokenPagination) original).getNextPageToken() : null,
+             delegate);
     }
 
     // Constructor for DAO getAll calls
@@ -66,10 +95,18 @@ public class DefaultPagination<T> implements Pagination<T> {
     public DefaultPagination(final Long currentOffset, final Long limit,
                              @Nullable final Long totalNbRecords, @Nullable final Long maxNbRecords,
                              final Iterator<T> delegateIterator) {
+        this(currentOffset, limit, totalNbRecords, maxNbRecords, null, delegateIterator);
+    }
+
+    // Constructor for keyset pagination (currentOffset is null since offsets don't apply)
+    public DefaultPagination(@Nullable final Long currentOffset, final Long limit,
+                             @Nullable final Long totalNbRecords, @Nullable final Long maxNbRecords,
+                             @Nullable final String nextPageToken, final Iterator<T> delegateIterator) {
         this.currentOffset = currentOffset;
         this.limit = limit;
         this.totalNbRecords = totalNbRecords;
         this.maxNbRecords = maxNbRecords;
+        this.nextPageToken = nextPageToken;
         this.delegateIterator = delegateIterator;
     }
 
@@ -85,6 +122,11 @@ public class DefaultPagination<T> implements Pagination<T> {
 
     @Override
     public Long getNextOffset() {
+        if (currentOffset == null) {
+            // Keyset pagination, see getNextPageToken()
+            return null;
+        }
+
         final long candidate = currentOffset + limit;
         if (totalNbRecords != null && candidate >= totalNbRecords) {
             // No more results
@@ -98,6 +140,12 @@ public class DefaultPagination<T> implements Pagination<T> {
         }
     }
 
+    // Null when there are no more results (or when offset-based pagination is used)
+    @Override
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
     @Override
     public Long getMaxNbRecords() {
         return maxNbRecords;
@@ -115,6 +163,7 @@ public class DefaultPagination<T> implements Pagination<T> {
         sb.append(", nextOffset=").append(getNextOffset());
         sb.append(", totalNbRecords=").append(totalNbRecords);
         sb.append(", maxNbRecords=").append(maxNbRecords);
+        sb.append(", nextPageToken=").append(nextPageToken);
         sb.append('}');
         return sb.toString();
     }
@@ -140,6 +189,9 @@ public class DefaultPagination<T> implements Pagination<T> {
         if (currentOffset != null ? !currentOffset.equals(that.currentOffset) : that.currentOffset != null) {
             return false;
         }
+        if (nextPageToken != null ? !nextPageToken.equals(that.nextPageToken) : that.nextPageToken != null) {
+            return false;
+        }
         if (delegateIterator != null ? !ImmutableList.<T>copyOf(delegateIterator).equals(ImmutableList.<T>copyOf(that.delegateIterator)) : that.delegateIterator != null) {
             return false;
         }
@@ -152,6 +204,7 @@ public class DefaultPagination<T> implements Pagination<T> {
         int result = currentOffset != null ? currentOffset.hashCode() : 0;
         result = 31 * result + (totalNbRecords != null ? totalNbRecords.hashCode() : 0);
         result = 31 * result + (maxNbRecords != null ? maxNbRecords.hashCode() : 0);
+        result = 31 * result + (nextPageToken != null ? nextPageToken.hashCode() : 0);
         result = 31 * result + (delegateIterator != null ? delegateIterator.hashCode() : 0);
         return result;
     }
@@ -18,15 +18,20 @@
 
 package org.killbill.billing.util.entity.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.annotation.Nullable;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 
+import com.google.common.collect.Iterators;
+
 public class DefaultPaginationSqlDaoHelper {
 
     private final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
@@ -61,6 +66,54 @@ public class DefaultPaginationSqlDaoHelper {
         return new DefaultPagination<M>(offset, limit, count, totalCount, results);
     }
 
+    // Keyset pagination: seek past the record_id encoded in the page token instead of using an offset, so that
+    // deep pages cost the same as the first one. The page is bounded by limit and is read eagerly to compute the next token.
+    public <E extends Entity, M extends EntityModelDao<E>> PageTokenPagination<M> getPaginationFromPageToken(final Class<? extends EntitySqlDao<M, E>> sqlDaoClazz,
+                                                                                                             @Nullable final String pageToken,
+                                                                                                             final Long limit,
+                                                                                                             final boolean withCount,
+                                                                                                             final InternalTenantContext context) {
+        final Long fromRecordId = DefaultPagination.fromPageToken(pageToken);
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<PageTokenPagination<M>>() {
+            @Override
+            public PageTokenPagination<M> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final EntitySqlDao<M, E> sqlDao = entitySqlDaoWrapperFactory.become(sqlDaoClazz);
+                final List<M> results = sqlDao.getFromRecordId(fromRecordId, limit, context);
+
+                // The count query scans the whole (tenant) table: let callers opt out. Records aren't filtered, so the count is also the total count.
+                final Long count = withCount ? sqlDao.getCount(context) : null;
+
+                // A short page means we reached the end
+                final String nextPageToken = (limit > 0 && results.size() == limit) ? DefaultPagination.toPageToken(results.get(results.size() - 1).getRecordId()) : null;
+                return new DefaultPagination<M>(null, limit, count, count, nextPageToken, results.iterator());
+            }
+        });
+    }
+
+    // Search queries narrowed down by the search index: only the candidate rows are re-checked against the search query
+    public <E extends Entity, M extends EntityModelDao<E>> Pagination<M> getPaginationFromSearchCandidates(final Class<? extends EntitySqlDao<M, E>> sqlDaoClazz,
+                                                                                                           final Collection<Long> candidateRecordIds,
+                                                                                                           final String searchKey,
+                                                                                                           final Long offset,
+                                                                                                           final Long limit,
+                                                                                                           final InternalTenantContext context) {
+        final String likeSearchKey = String.format("%%%s%%", searchKey);
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Pagination<M>>() {
+            @Override
+            public Pagination<M> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final EntitySqlDao<M, E> sqlDao = entitySqlDaoWrapperFactory.become(sqlDaoClazz);
+                final Long totalCount = sqlDao.getCount(context);
+                if (candidateRecordIds.isEmpty()) {
+                    return new DefaultPagination<M>(offset, limit, 0L, totalCount, Iterators.<M>emptyIterator());
+                }
+
+                final Long count = sqlDao.getSearchCountByRecordIds(candidateRecordIds, searchKey, likeSearchKey, context);
+                final List<M> results = sqlDao.searchByRecordIds(candidateRecordIds, searchKey, likeSearchKey, offset, limit, context);
+                return new DefaultPagination<M>(offset, limit, count, totalCount, results.iterator());
+            }
+        });
+    }
+
     public abstract static class PaginationIteratorBuilder<M extends EntityModelDao<E>, E extends Entity, S extends EntitySqlDao<M, E>> {
 
         // Determine the totalNbRecords:
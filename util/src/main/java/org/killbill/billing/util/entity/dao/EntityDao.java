@@ -18,10 +18,13 @@ package org.killbill.billing.util.entity.dao;
 
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.killbill.billing.BillingExceptionBase;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 
 public interface EntityDao<M extends EntityModelDao<E>, E extends Entity, U extends BillingExceptionBase> {
@@ -38,6 +41,8 @@ public interface EntityDao<M extends EntityModelDao<E>, E extends Entity, U exte
 
     public Pagination<M> get(Long offset, Long limit, InternalTenantContext context);
 
+    public PageTokenPagination<M> getFromPageToken(@Nullable String pageToken, Long limit, boolean withCount, InternalTenantContext context);
+
     public Long getCount(InternalTenantContext context);
 
     public void test(InternalTenantContext context);
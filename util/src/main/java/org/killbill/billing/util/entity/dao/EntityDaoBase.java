@@ -19,12 +19,15 @@ package org.killbill.billing.util.entity.dao;
 import java.util.Iterator;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.killbill.billing.BillingExceptionBase;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
 
@@ -150,6 +153,11 @@ public abstract class EntityDaoBase<M extends EntityModelDao<E>, E extends Entit
                                               context);
     }
 
+    @Override
+    public PageTokenPagination<M> getFromPageToken(@Nullable final String pageToken, final Long limit, final boolean withCount, final InternalTenantContext context) {
+        return paginationHelper.getPaginationFromPageToken(realSqlDao, pageToken, limit, withCount, context);
+    }
+
     @Override
     public Long getCount(final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Long>() {
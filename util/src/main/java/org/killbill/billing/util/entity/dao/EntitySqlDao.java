@@ -18,6 +18,7 @@
 
 package org.killbill.billing.util.entity.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -31,9 +32,11 @@ import org.killbill.billing.util.cache.CachableKey;
 import org.killbill.billing.util.dao.AuditSqlDao;
 import org.killbill.billing.util.dao.HistorySqlDao;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.tag.dao.UUIDCollectionBinder;
 import org.killbill.commons.jdbi.statement.SmartFetchSize;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
@@ -48,10 +51,20 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
     public void create(@BindBean final M entity,
                        @BindBean final InternalCallContext context) throws EntityPersistenceException;
 
+    // History and audit rows for the whole batch are written with batch inserts as well (see EntitySqlDaoWrapperInvocationHandler)
+    @SqlBatch
+    @Audited(ChangeType.INSERT)
+    public void batchCreate(@BindBean final Iterable<M> entities,
+                            @BindBean final InternalCallContext context);
+
     @SqlQuery
     public M getById(@Bind("id") final String id,
                      @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public List<M> getByIds(@UUIDCollectionBinder final Collection<String> ids,
+                            @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public M getByRecordId(@Bind("recordId") final Long recordId,
                            @BindBean final InternalTenantContext context);
@@ -80,6 +93,20 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
                                @Bind("likeSearchKey") final String likeSearchKey,
                                @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public List<M> searchByRecordIds(@RecordIdCollectionBinder final Collection<Long> recordIds,
+                                     @Bind("searchKey") final String searchKey,
+                                     @Bind("likeSearchKey") final String likeSearchKey,
+                                     @Bind("offset") final Long offset,
+                                     @Bind("rowCount") final Long rowCount,
+                                     @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public Long getSearchCountByRecordIds(@RecordIdCollectionBinder final Collection<Long> recordIds,
+                                          @Bind("searchKey") final String searchKey,
+                                          @Bind("likeSearchKey") final String likeSearchKey,
+                                          @BindBean final InternalTenantContext context);
+
     @SqlQuery
     @SmartFetchSize(shouldStream = true)
     public Iterator<M> getAll(@BindBean final InternalTenantContext context);
@@ -91,6 +118,11 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
                            @Define("orderBy") final String orderBy,
                            @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public List<M> getFromRecordId(@Bind("fromRecordId") final Long fromRecordId,
+                                   @Bind("rowCount") final Long rowCount,
+                                   @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public Long getCount(@BindBean final InternalTenantContext context);
 
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.audit.ChangeType;
+import org.killbill.billing.util.cache.Cachable;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CachableKey;
+
+import com.google.common.base.Objects;
+
+/**
+ * Reflection metadata required by EntitySqlDaoWrapperInvocationHandler for a given (sqlDaoClass, method) pair.
+ * Plans are immutable, computed once and shared across all handlers (a new handler is created for each become call).
+ */
+final class EntitySqlDaoInvocationPlan {
+
+    private static final ConcurrentMap<Class<?>, SqlDaoInvocationPlans> PLANS_PER_SQL_DAO_CLASS = new ConcurrentHashMap<Class<?>, SqlDaoInvocationPlans>();
+
+    private final SqlDaoInvocationPlans sqlDaoInvocationPlans;
+    private final ChangeType auditedChangeType;
+    private final CacheType cacheType;
+    // Argument index for each @CachableKey position (-1 if there is no such position)
+    private final int[] cacheKeyArgumentIndexes;
+    // Index of the first InternalTenantContext argument, -1 if none
+    private final int contextArgumentIndex;
+    private final Annotation[][] parameterAnnotations;
+    private final boolean isGetById;
+    private final String profilingName;
+    private final String rawProfilingName;
+    private final String cachingRawProfilingName;
+    private final String auditRawProfilingName;
+    private final String historyAndAuditProfilingName;
+
+    private EntitySqlDaoInvocationPlan(final Class<?> sqlDaoClass, final SqlDaoInvocationPlans sqlDaoInvocationPlans, final Method method) {
+        this.sqlDaoInvocationPlans = sqlDaoInvocationPlans;
+
+        final Audited auditedAnnotation = method.getAnnotation(Audited.class);
+        this.auditedChangeType = auditedAnnotation != null ? auditedAnnotation.value() : null;
+        final Cachable cachableAnnotation = method.getAnnotation(Cachable.class);
+        this.cacheType = cachableAnnotation != null ? cachableAnnotation.value() : null;
+
+        this.parameterAnnotations = method.getParameterAnnotations();
+        this.cacheKeyArgumentIndexes = computeCacheKeyArgumentIndexes(parameterAnnotations);
+        this.contextArgumentIndex = computeContextArgumentIndex(method.getParameterTypes());
+        this.isGetById = "getById".equals(method.getName());
+
+        final String sqlDaoName = sqlDaoClass.getSimpleName();
+        this.profilingName = sqlDaoName + ":" + method.getName();
+        this.rawProfilingName = sqlDaoName + " (raw):" + method.getName();
+        this.cachingRawProfilingName = sqlDaoName + "(raw) :" + method.getName();
+        this.auditRawProfilingName = sqlDaoName + " (raw) :";
+        this.historyAndAuditProfilingName = sqlDaoName + " (history/audit) :";
+    }
+
+    static SqlDaoInvocationPlans forSqlDaoClass(final Class<?> sqlDaoClass) {
+        SqlDaoInvocationPlans plans = PLANS_PER_SQL_DAO_CLASS.get(sqlDaoClass);
+        if (plans == null) {
+            final SqlDaoInvocationPlans newPlans = new SqlDaoInvocationPlans(sqlDaoClass);
+            plans = Objects.firstNonNull(PLANS_PER_SQL_DAO_CLASS.putIfAbsent(sqlDaoClass, newPlans), newPlans);
+        }
+        return plans;
+    }
+
+    // Only needed for cached calls: computed on first use, so that SqlDaos without an ObjectType keep working
+    @Nullable
+    public ObjectType getObjectType() {
+        return sqlDaoInvocationPlans.getObjectType();
+    }
+
+    @Nullable
+    public ChangeType getAuditedChangeType() {
+        return auditedChangeType;
+    }
+
+    @Nullable
+    public CacheType getCacheType() {
+        return cacheType;
+    }
+
+    public Object[] getCacheKeyPieces(final Object[] args) {
+        final Object[] keyPieces = new Object[cacheKeyArgumentIndexes.length];
+        for (int i = 0; i < cacheKeyArgumentIndexes.length; i++) {
+            keyPieces[i] = cacheKeyArgumentIndexes[i] >= 0 ? args[cacheKeyArgumentIndexes[i]] : null;
+        }
+        return keyPieces;
+    }
+
+    @Nullable
+    public InternalTenantContext getContext(final Object[] args) {
+        if (contextArgumentIndex >= 0 && args[contextArgumentIndex] instanceof InternalTenantContext) {
+            return (InternalTenantContext) args[contextArgumentIndex];
+        }
+        return null;
+    }
+
+    public Annotation[][] getParameterAnnotations() {
+        return parameterAnnotations;
+    }
+
+    public boolean isGetById() {
+        return isGetById;
+    }
+
+    public String getProfilingName() {
+        return profilingName;
+    }
+
+    public String getRawProfilingName() {
+        return rawProfilingName;
+    }
+
+    public String getCachingRawProfilingName() {
+        return cachingRawProfilingName;
+    }
+
+    public String getAuditRawProfilingName() {
+        return auditRawProfilingName;
+    }
+
+    public String getHistoryAndAuditProfilingName() {
+        return historyAndAuditProfilingName;
+    }
+
+    private static int[] computeCacheKeyArgumentIndexes(final Annotation[][] parameterAnnotations) {
+        // Find all arguments marked with @CachableKey (position starts at 1)
+        final Map<Integer, Integer> argumentIndexPerPosition = new HashMap<Integer, Integer>();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (final Annotation annotation : parameterAnnotations[i]) {
+                if (CachableKey.class.equals(annotation.annotationType())) {
+                    argumentIndexPerPosition.put(((CachableKey) annotation).value() - 1, i);
+                    break;
+                }
+            }
+        }
+
+        final int[] cacheKeyArgumentIndexes = new int[argumentIndexPerPosition.size()];
+        Arrays.fill(cacheKeyArgumentIndexes, -1);
+        for (final Map.Entry<Integer, Integer> entry : argumentIndexPerPosition.entrySet()) {
+            if (entry.getKey() >= 0 && entry.getKey() < cacheKeyArgumentIndexes.length) {
+                cacheKeyArgumentIndexes[entry.getKey()] = entry.getValue();
+            }
+        }
+        return cacheKeyArgumentIndexes;
+    }
+
+    private static int computeContextArgumentIndex(final Class<?>[] parameterTypes) {
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (InternalTenantContext.class.isAssignableFrom(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Extract object from sqlDaoClass by looking at first parameter type (EntityModelDao) and
+     * constructing an empty object so we can call the getObjectType method on it.
+     *
+     * @return the objectType associated to that sqlDaoClass
+     */
+    private static ObjectType computeObjectType(final Class<?> sqlDaoClass) throws InstantiationException, IllegalAccessException, ClassNotFoundException {
+        int foundIndexForEntitySqlDao = -1;
+        // If the sqlDaoClass implements multiple interfaces, first figure out which one is the EntitySqlDao
+        for (int i = 0; i < sqlDaoClass.getGenericInterfaces().length; i++) {
+            final Type type = sqlDaoClass.getGenericInterfaces()[0];
+            if (!(type instanceof ParameterizedType)) {
+                // AuditSqlDao for example won't extend EntitySqlDao
+                return null;
+            }
+
+            if (EntitySqlDao.class.getName().equals(((Class) ((ParameterizedType) type).getRawType()).getName())) {
+                foundIndexForEntitySqlDao = i;
+                break;
+            }
+        }
+        // Find out from the parameters of the EntitySqlDao which one is the EntityModelDao, and extract his (sub)type to finally return the ObjectType
+        if (foundIndexForEntitySqlDao >= 0) {
+            final Type[] types = ((ParameterizedType) sqlDaoClass.getGenericInterfaces()[foundIndexForEntitySqlDao]).getActualTypeArguments();
+            int foundIndexForEntityModelDao = -1;
+            for (int i = 0; i < types.length; i++) {
+                final Class clz = ((Class) types[i]);
+                if (EntityModelDao.class.getName().equals(((Class) ((ParameterizedType) clz.getGenericInterfaces()[0]).getRawType()).getName())) {
+                    foundIndexForEntityModelDao = i;
+                    break;
+                }
+            }
+
+            if (foundIndexForEntityModelDao >= 0) {
+                final String modelClassName = ((Class) types[foundIndexForEntityModelDao]).getName();
+
+                final Class<? extends EntityModelDao<?>> clz = (Class<? extends EntityModelDao<?>>) Class.forName(modelClassName);
+
+                final EntityModelDao<?> modelDao = (EntityModelDao<?>) clz.newInstance();
+                return modelDao.getTableName().getObjectType();
+            }
+        }
+        return null;
+    }
+
+    static final class SqlDaoInvocationPlans {
+
+        private final Class<?> sqlDaoClass;
+        private final ConcurrentMap<Method, EntitySqlDaoInvocationPlan> plans = new ConcurrentHashMap<Method, EntitySqlDaoInvocationPlan>();
+
+        private volatile boolean objectTypeComputed;
+        private ObjectType objectType;
+
+        private SqlDaoInvocationPlans(final Class<?> sqlDaoClass) {
+            this.sqlDaoClass = sqlDaoClass;
+            for (final Method method : sqlDaoClass.getMethods()) {
+                plans.put(method, new EntitySqlDaoInvocationPlan(sqlDaoClass, this, method));
+            }
+        }
+
+        public ObjectType getObjectType() {
+            if (!objectTypeComputed) {
+                synchronized (this) {
+                    if (!objectTypeComputed) {
+                        try {
+                            objectType = computeObjectType(sqlDaoClass);
+                        } catch (final ReflectiveOperationException e) {
+                            // Not memoized, as before each cached call will fail
+                            throw new IllegalStateException("Unable to compute the ObjectType for " + sqlDaoClass, e);
+                        }
+                        objectTypeComputed = true;
+                    }
+                }
+            }
+            return objectType;
+        }
+
+        public EntitySqlDaoInvocationPlan getPlan(final Method method) {
+            EntitySqlDaoInvocationPlan plan = plans.get(method);
+            if (plan == null) {
+                // e.g. methods inherited from Object
+                final EntitySqlDaoInvocationPlan newPlan = new EntitySqlDaoInvocationPlan(sqlDaoClass, this, method);
+                plan = Objects.firstNonNull(plans.putIfAbsent(method, newPlan), newPlan);
+            }
+            return plan;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.util.dao.TableName;
+import org.skife.jdbi.v2.Handle;
+
+/**
+ * Invoked by EntitySqlDaoWrapperInvocationHandler in the transaction which creates or updates an entity, once its history
+ * and audit rows have been written
+ */
+public interface EntitySqlDaoTransactionHook {
+
+    public void onEntityWritten(Handle handle, TableName tableName, EntityModelDao<?> entity, InternalCallContext context);
+}
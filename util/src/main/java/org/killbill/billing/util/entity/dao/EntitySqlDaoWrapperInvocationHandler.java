@@ -21,25 +21,22 @@ package org.killbill.billing.util.entity.dao;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import javax.annotation.Nullable;
 
-import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.audit.ChangeType;
-import org.killbill.billing.util.cache.Cachable;
 import org.killbill.billing.util.cache.Cachable.CacheType;
-import org.killbill.billing.util.cache.CachableKey;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.cache.CacheLoaderArgument;
@@ -49,6 +46,7 @@ import org.killbill.billing.util.dao.EntityHistoryModelDao;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.dao.NonEntitySqlDao;
 import org.killbill.billing.util.dao.TableName;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoInvocationPlan.SqlDaoInvocationPlans;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.tag.dao.UUIDCollectionBinder;
 import org.killbill.clock.Clock;
@@ -66,10 +64,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Objects;
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 
 /**
@@ -81,6 +77,9 @@ import com.google.common.collect.Iterables;
  */
 public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>, M extends EntityModelDao<E>, E extends Entity> implements InvocationHandler {
 
+    // Keep IN (...) clauses within the limits of all supported databases
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(EntitySqlDaoWrapperInvocationHandler.class);
 
     private final Class<S> sqlDaoClass;
@@ -91,6 +90,8 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
     private final Clock clock;
     private final NonEntityDao nonEntityDao;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final EntitySqlDaoTransactionHook transactionHook;
+    private final SqlDaoInvocationPlans invocationPlans;
     private final Profiling prof;
 
     public EntitySqlDaoWrapperInvocationHandler(final Class<S> sqlDaoClass,
@@ -101,6 +102,18 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
                                                 @Nullable final CacheControllerDispatcher cacheControllerDispatcher,
                                                 @Nullable final NonEntityDao nonEntityDao,
                                                 final InternalCallContextFactory internalCallContextFactory) {
+        this(sqlDaoClass, sqlDao, handle, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, null);
+    }
+
+    public EntitySqlDaoWrapperInvocationHandler(final Class<S> sqlDaoClass,
+                                                final S sqlDao,
+                                                final Handle handle,
+                                                final Clock clock,
+                                                @Nullable final CacheControllerDispatcher cacheControllerDispatcher,
+                                                @Nullable final NonEntityDao nonEntityDao,
+                                                final InternalCallContextFactory internalCallContextFactory,
+                                                // Only the DAOs backing a search API feed the search index
+                                                @Nullable final EntitySqlDaoTransactionHook transactionHook) {
         this.sqlDaoClass = sqlDaoClass;
         this.sqlDao = sqlDao;
         this.handle = handle;
@@ -108,16 +121,19 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.nonEntityDao = nonEntityDao;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.transactionHook = transactionHook;
+        this.invocationPlans = EntitySqlDaoInvocationPlan.forSqlDaoClass(sqlDaoClass);
         this.prof = new Profiling<Object, Throwable>();
     }
 
     @Override
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final EntitySqlDaoInvocationPlan plan = invocationPlans.getPlan(method);
         try {
-            return prof.executeWithProfiling(ProfilingFeatureType.DAO, sqlDaoClass.getSimpleName() + ":" + method.getName(), new WithProfilingCallback() {
+            return prof.executeWithProfiling(ProfilingFeatureType.DAO, plan.getProfilingName(), new WithProfilingCallback() {
                 @Override
                 public Object execute() throws Throwable {
-                    return invokeSafely(proxy, method, args);
+                    return invokeSafely(plan, method, args);
                 }
             });
         } catch (Throwable t) {
@@ -185,23 +201,19 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         errorDuringTransaction(t, method, null);
     }
 
-    private Object invokeSafely(final Object proxy, final Method method, final Object[] args) throws Throwable {
-
-        final Audited auditedAnnotation = method.getAnnotation(Audited.class);
-        final Cachable cachableAnnotation = method.getAnnotation(Cachable.class);
-
+    private Object invokeSafely(final EntitySqlDaoInvocationPlan plan, final Method method, final Object[] args) throws Throwable {
         // This can't be AUDIT'ed and CACHABLE'd at the same time as we only cache 'get'
-        if (auditedAnnotation != null) {
-            return invokeWithAuditAndHistory(auditedAnnotation, method, args);
-        } else if (cachableAnnotation != null && cacheControllerDispatcher != null) {
-            return invokeWithCaching(cachableAnnotation, method, args);
+        if (plan.getAuditedChangeType() != null) {
+            return invokeWithAuditAndHistory(plan, method, args);
+        } else if (plan.getCacheType() != null && cacheControllerDispatcher != null) {
+            return invokeWithCaching(plan, method, args);
         } else {
-            return invokeRaw(method, args);
+            return invokeRaw(plan, method, args);
         }
     }
 
-    private Object invokeRaw(final Method method, final Object[] args) throws Throwable {
-        return prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, sqlDaoClass.getSimpleName() + " (raw):" + method.getName(), new WithProfilingCallback() {
+    private Object invokeRaw(final EntitySqlDaoInvocationPlan plan, final Method method, final Object[] args) throws Throwable {
+        return prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, plan.getRawProfilingName(), new WithProfilingCallback() {
             @Override
             public Object execute() throws Throwable {
                 Object result = method.invoke(sqlDao, args);
@@ -209,7 +221,7 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
                 // the object after it was created, which means this method is (by pattern) first called right after object creation and contains all the goodies we care
                 // about (record_id, account_record_id, object_id, tenant_record_id)
                 //
-                if (result != null && method.getName().equals("getById")) {
+                if (result != null && plan.isGetById()) {
                     populateCacheOnGetByIdInvocation((M) result);
                 }
                 return result;
@@ -217,131 +229,117 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         });
     }
 
-    private Object invokeWithCaching(final Cachable cachableAnnotation, final Method method, final Object[] args)
+    private Object invokeWithCaching(final EntitySqlDaoInvocationPlan plan, final Method method, final Object[] args)
             throws Throwable {
-        final ObjectType objectType = getObjectType();
-        final CacheType cacheType = cachableAnnotation.value();
-        final CacheController<Object, Object> cache = cacheControllerDispatcher.getCacheController(cacheType);
-        Object result = null;
+        final CacheController<Object, Object> cache = cacheControllerDispatcher.getCacheController(plan.getCacheType());
         if (cache != null) {
-            // Find all arguments marked with @CachableKey
-            final Map<Integer, Object> keyPieces = new LinkedHashMap<Integer, Object>();
-            final Annotation[][] annotations = method.getParameterAnnotations();
-            for (int i = 0; i < annotations.length; i++) {
-                for (int j = 0; j < annotations[i].length; j++) {
-                    final Annotation annotation = annotations[i][j];
-                    if (CachableKey.class.equals(annotation.annotationType())) {
-                        // CachableKey position starts at 1
-                        keyPieces.put(((CachableKey) annotation).value() - 1, args[i]);
-                        break;
-                    }
-                }
-            }
-
-            // Build the Cache key
-            final String cacheKey = buildCacheKey(keyPieces);
-
-            final InternalTenantContext internalTenantContext = (InternalTenantContext) Iterables.find(ImmutableList.copyOf(args), new Predicate<Object>() {
-                @Override
-                public boolean apply(final Object input) {
-                    return input instanceof InternalTenantContext;
-                }
-            }, null);
-            final CacheLoaderArgument cacheLoaderArgument = new CacheLoaderArgument(objectType, args, internalTenantContext, handle);
+            // Build the Cache key from the arguments marked with @CachableKey
+            final String cacheKey = buildCacheKey(plan.getCacheKeyPieces(args));
+            final CacheLoaderArgument cacheLoaderArgument = new CacheLoaderArgument(plan.getObjectType(), args, plan.getContext(args), handle);
             return cache.get(cacheKey, cacheLoaderArgument);
         }
-        if (result == null) {
-            result = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, sqlDaoClass.getSimpleName() + "(raw) :" + method.getName(), new WithProfilingCallback() {
-                @Override
-                public Object execute() throws Throwable {
-                    return method.invoke(sqlDao, args);
-                }
-            });
-        }
-        return result;
+        return prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, plan.getCachingRawProfilingName(), new WithProfilingCallback() {
+            @Override
+            public Object execute() throws Throwable {
+                return method.invoke(sqlDao, args);
+            }
+        });
     }
 
-    /**
-     * Extract object from sqlDaoClass by looking at first parameter type (EntityModelDao) and
-     * constructing an empty object so we can call the getObjectType method on it.
-     *
-     * @return the objectType associated to that handler
-     * @throws InstantiationException
-     * @throws IllegalAccessException
-     * @throws ClassNotFoundException
-     */
-    private ObjectType getObjectType() throws InstantiationException, IllegalAccessException, ClassNotFoundException {
-
-        int foundIndexForEntitySqlDao = -1;
-        // If the sqlDaoClass implements multiple interfaces, first figure out which one is the EntitySqlDao
-        for (int i = 0; i < sqlDaoClass.getGenericInterfaces().length; i++) {
-            final Type type = sqlDaoClass.getGenericInterfaces()[0];
-            if (!(type instanceof java.lang.reflect.ParameterizedType)) {
-                // AuditSqlDao for example won't extend EntitySqlDao
-                return null;
-            }
+    private Object invokeWithAuditAndHistory(final EntitySqlDaoInvocationPlan plan, final Method method, final Object[] args) throws Throwable {
+        final InternalCallContext context = retrieveContextFromArguments(plan, args);
+        final List<String> entityIds = retrieveEntityIdsFromArguments(plan, args);
+        if (entityIds.size() > 1) {
+            return invokeWithBatchedAuditAndHistory(plan, method, args, entityIds, context);
+        }
 
-            if (EntitySqlDao.class.getName().equals(((Class) ((java.lang.reflect.ParameterizedType) type).getRawType()).getName())) {
-                foundIndexForEntitySqlDao = i;
-                break;
-            }
+        final Map<String, M> entities = new HashMap<String, M>();
+        final Map<String, Long> entityRecordIds = new HashMap<String, Long>();
+        // There will be some work required after the statement is executed,
+        // get the id before in case the change is a delete
+        for (final String entityId : entityIds) {
+            entities.put(entityId, sqlDao.getById(entityId, context));
+            entityRecordIds.put(entityId, sqlDao.getRecordId(entityId, context));
         }
-        // Find out from the parameters of the EntitySqlDao which one is the EntityModelDao, and extract his (sub)type to finally return the ObjectType
-        if (foundIndexForEntitySqlDao >= 0) {
-            final Type[] types = ((java.lang.reflect.ParameterizedType) sqlDaoClass.getGenericInterfaces()[foundIndexForEntitySqlDao]).getActualTypeArguments();
-            int foundIndexForEntityModelDao = -1;
-            for (int i = 0; i < types.length; i++) {
-                final Class clz = ((Class) types[i]);
-                if (EntityModelDao.class.getName().equals(((Class) ((java.lang.reflect.ParameterizedType) clz.getGenericInterfaces()[0]).getRawType()).getName())) {
-                    foundIndexForEntityModelDao = i;
-                    break;
-                }
-            }
 
-            if (foundIndexForEntityModelDao >= 0) {
-                final String modelClassName = ((Class) types[foundIndexForEntityModelDao]).getName();
+        // Real jdbc call
+        final Object obj = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, plan.getAuditRawProfilingName(), new WithProfilingCallback() {
+            @Override
+            public Object execute() throws Throwable {
+                return method.invoke(sqlDao, args);
+            }
+        });
 
-                final Class<? extends EntityModelDao<?>> clz = (Class<? extends EntityModelDao<?>>) Class.forName(modelClassName);
+        final ChangeType changeType = plan.getAuditedChangeType();
 
-                final EntityModelDao<?> modelDao = (EntityModelDao<?>) clz.newInstance();
-                return modelDao.getTableName().getObjectType();
-            }
+        for (final String entityId : entityIds) {
+            updateHistoryAndAudit(plan, entityId, entities, entityRecordIds, changeType, context);
         }
-        return null;
+        return obj;
     }
 
-    private Object invokeWithAuditAndHistory(final Audited auditedAnnotation, final Method method, final Object[] args) throws Throwable {
-        InternalCallContext context = null;
-        List<String> entityIds = null;
-        final Map<String, M> entities = new HashMap<String, M>();
-        final Map<String, Long> entityRecordIds = new HashMap<String, Long>();
-        if (auditedAnnotation != null) {
-            // There will be some work required after the statement is executed,
-            // get the id before in case the change is a delete
-            context = retrieveContextFromArguments(args);
-            entityIds = retrieveEntityIdsFromArguments(method, args);
-            for (final String entityId : entityIds) {
-                entities.put(entityId, sqlDao.getById(entityId, context));
-                entityRecordIds.put(entityId, sqlDao.getRecordId(entityId, context));
-            }
-        }
+    // Same as invokeWithAuditAndHistory, but entities are re-hydrated with IN (...) queries and history and audit rows are written with batch inserts
+    private Object invokeWithBatchedAuditAndHistory(final EntitySqlDaoInvocationPlan plan, final Method method, final Object[] args,
+                                                    final List<String> entityIds, final InternalCallContext context) throws Throwable {
+        // Get the entities before in case the change is a delete
+        final Map<String, M> entities = getByIds(entityIds, context);
 
         // Real jdbc call
-        final Object obj = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, sqlDaoClass.getSimpleName() + " (raw) :", new WithProfilingCallback() {
+        final Object obj = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, plan.getAuditRawProfilingName(), new WithProfilingCallback() {
             @Override
             public Object execute() throws Throwable {
                 return method.invoke(sqlDao, args);
             }
         });
 
-        final ChangeType changeType = auditedAnnotation.value();
+        final ChangeType changeType = plan.getAuditedChangeType();
 
-        for (final String entityId : entityIds) {
-            updateHistoryAndAudit(entityId, entities, entityRecordIds, changeType, context);
-        }
+        prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, plan.getHistoryAndAuditProfilingName(), new WithProfilingCallback() {
+            @Override
+            public Object execute() {
+                // Make sure to re-hydrate the objects (especially needed for create calls)
+                final Map<String, M> reHydratedEntities = getByIds(entityIds, context);
+                final List<M> updatedEntities = new ArrayList<M>(entityIds.size());
+                for (final String entityId : entityIds) {
+                    updatedEntities.add(Objects.firstNonNull(reHydratedEntities.get(entityId), entities.get(entityId)));
+                }
+
+                final TableName tableName = updatedEntities.get(0).getTableName();
+
+                // Note: audit entries point to the history record id
+                final List<Long> historyRecordIds;
+                if (tableName.getHistoryTableName() != null) {
+                    historyRecordIds = insertHistories(tableName, updatedEntities, changeType, context);
+                } else {
+                    historyRecordIds = new ArrayList<Long>(updatedEntities.size());
+                    for (final M entity : updatedEntities) {
+                        historyRecordIds.add(entity.getRecordId());
+                    }
+                }
+
+                insertAudits(tableName, updatedEntities, historyRecordIds, changeType, context);
+
+                if (transactionHook != null) {
+                    for (final M entity : updatedEntities) {
+                        transactionHook.onEntityWritten(handle, tableName, entity, context);
+                    }
+                }
+                return null;
+            }
+        });
         return obj;
     }
 
+    private Map<String, M> getByIds(final List<String> entityIds, final InternalTenantContext context) {
+        final Map<String, M> entities = new HashMap<String, M>();
+        for (final List<String> entityIdsChunk : Iterables.partition(entityIds, MAX_IDS_PER_QUERY)) {
+            for (final M entity : sqlDao.getByIds(entityIdsChunk, context)) {
+                entities.put(entity.getId().toString(), entity);
+            }
+        }
+        return entities;
+    }
+
     private void populateCacheOnGetByIdInvocation(M model) {
 
         final CacheController<Object, Object> cacheRecordId = cacheControllerDispatcher.getCacheController(CacheType.RECORD_ID);
@@ -367,10 +365,10 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
                rawKey;
     }
 
-    private void updateHistoryAndAudit(final String entityId, final Map<String, M> entities, final Map<String, Long> entityRecordIds,
+    private void updateHistoryAndAudit(final EntitySqlDaoInvocationPlan plan, final String entityId, final Map<String, M> entities, final Map<String, Long> entityRecordIds,
                                        final ChangeType changeType, final InternalCallContext context) throws Throwable {
 
-        prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, sqlDaoClass.getSimpleName() + " (history/audit) :", new WithProfilingCallback() {
+        prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, plan.getHistoryAndAuditProfilingName(), new WithProfilingCallback() {
             @Override
             public Object execute() {
                 final M reHydratedEntity = sqlDao.getById(entityId, context);
@@ -389,13 +387,17 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
 
                 // Make sure to re-hydrate the object (especially needed for create calls)
                 insertAudits(tableName, entityRecordId, historyRecordId, changeType, context);
+
+                if (transactionHook != null) {
+                    transactionHook.onEntityWritten(handle, tableName, entity, context);
+                }
                 return null;
             }
         });
     }
 
-    private List<String> retrieveEntityIdsFromArguments(final Method method, final Object[] args) {
-        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+    private List<String> retrieveEntityIdsFromArguments(final EntitySqlDaoInvocationPlan plan, final Object[] args) {
+        final Annotation[][] parameterAnnotations = plan.getParameterAnnotations();
         int i = -1;
         for (final Object arg : args) {
             i++;
@@ -441,7 +443,12 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         return entityIds;
     }
 
-    private InternalCallContext retrieveContextFromArguments(final Object[] args) {
+    private InternalCallContext retrieveContextFromArguments(final EntitySqlDaoInvocationPlan plan, final Object[] args) {
+        final InternalTenantContext context = plan.getContext(args);
+        if (context instanceof InternalCallContext) {
+            return (InternalCallContext) context;
+        }
+
         for (final Object arg : args) {
             if (!(arg instanceof InternalCallContext)) {
                 continue;
@@ -462,6 +469,50 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         return nonEntityDao.retrieveLastHistoryRecordIdFromTransaction(entityRecordId, entityModelDao.getHistoryTableName(), transactional);
     }
 
+    private List<Long> insertHistories(final TableName tableName, final List<M> entityModelDaos, final ChangeType changeType, final InternalCallContext context) {
+        final List<EntityHistoryModelDao<M, E>> histories = new ArrayList<EntityHistoryModelDao<M, E>>(entityModelDaos.size());
+        final List<Long> entityRecordIds = new ArrayList<Long>(entityModelDaos.size());
+        for (final M entityModelDao : entityModelDaos) {
+            histories.add(new EntityHistoryModelDao<M, E>(entityModelDao, entityModelDao.getRecordId(), changeType, clock.getUTCNow()));
+            entityRecordIds.add(entityModelDao.getRecordId());
+        }
+
+        sqlDao.addHistoriesFromTransaction(histories, context);
+
+        final NonEntitySqlDao transactional = SqlObjectBuilder.attach(handle, NonEntitySqlDao.class);
+        final Map<UUID, Long> historyRecordIdsByHistoryId = new HashMap<UUID, Long>();
+        for (final List<Long> entityRecordIdsChunk : Iterables.partition(entityRecordIds, MAX_IDS_PER_QUERY)) {
+            historyRecordIdsByHistoryId.putAll(nonEntityDao.retrieveHistoryRecordIdsFromTransaction(entityRecordIdsChunk, tableName.getHistoryTableName(), transactional));
+        }
+
+        final List<Long> historyRecordIds = new ArrayList<Long>(histories.size());
+        for (final EntityHistoryModelDao<M, E> history : histories) {
+            historyRecordIds.add(historyRecordIdsByHistoryId.get(history.getId()));
+        }
+        return historyRecordIds;
+    }
+
+    private void insertAudits(final TableName tableName, final List<M> entityModelDaos, final List<Long> historyRecordIds, final ChangeType changeType, final InternalCallContext context) {
+        // The account record id needs to be populated per account (see below), so there is nothing to batch
+        if (TableName.ACCOUNT.equals(tableName) && ChangeType.INSERT.equals(changeType)) {
+            for (int i = 0; i < entityModelDaos.size(); i++) {
+                insertAudits(tableName, entityModelDaos.get(i).getRecordId(), historyRecordIds.get(i), changeType, context);
+            }
+            return;
+        }
+
+        final TableName destinationTableName = Objects.firstNonNull(tableName.getHistoryTableName(), tableName);
+        final List<EntityAudit> audits = new ArrayList<EntityAudit>(entityModelDaos.size());
+        for (final Long historyRecordId : historyRecordIds) {
+            audits.add(new EntityAudit(destinationTableName, historyRecordId, changeType, clock.getUTCNow()));
+        }
+        sqlDao.insertAuditsFromTransaction(audits, context);
+
+        for (final M entityModelDao : entityModelDaos) {
+            invalidateAuditLogCache(tableName, entityModelDao.getRecordId());
+        }
+    }
+
     private void insertAudits(final TableName tableName, final Long entityRecordId, final Long historyRecordId, final ChangeType changeType, final InternalCallContext contextMaybeWithoutAccountRecordId) {
         final TableName destinationTableName = Objects.firstNonNull(tableName.getHistoryTableName(), tableName);
         final EntityAudit audit = new EntityAudit(destinationTableName, historyRecordId, changeType, clock.getUTCNow());
@@ -475,32 +526,41 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         }
         sqlDao.insertAuditFromTransaction(audit, context);
 
+        invalidateAuditLogCache(tableName, entityRecordId);
+    }
+
+    private void invalidateAuditLogCache(final TableName tableName, final Long entityRecordId) {
+        // No caching (e.g. NoCachingTenantDao)
+        if (cacheControllerDispatcher == null) {
+            return;
+        }
+
         // We need to invalidate the caches. There is a small window of doom here where caches will be stale.
         // TODO Knowledge on how the key is constructed is also in AuditSqlDao
         if (tableName.getHistoryTableName() != null) {
             final CacheController<Object, Object> cacheController = cacheControllerDispatcher.getCacheController(CacheType.AUDIT_LOG_VIA_HISTORY);
             if (cacheController != null) {
-                final String key = buildCacheKey(ImmutableMap.<Integer, Object>of(0, tableName.getHistoryTableName(), 1, tableName.getHistoryTableName(), 2, entityRecordId));
+                final String key = buildCacheKey(tableName.getHistoryTableName(), tableName.getHistoryTableName(), entityRecordId);
                 cacheController.remove(key);
             }
         } else {
             final CacheController<Object, Object> cacheController = cacheControllerDispatcher.getCacheController(CacheType.AUDIT_LOG);
             if (cacheController != null) {
-                final String key = buildCacheKey(ImmutableMap.<Integer, Object>of(0, tableName, 1, entityRecordId));
+                final String key = buildCacheKey(tableName, entityRecordId);
                 cacheController.remove(key);
             }
         }
     }
 
-    private String buildCacheKey(final Map<Integer, Object> keyPieces) {
+    private String buildCacheKey(final Object... keyPieces) {
         final StringBuilder cacheKey = new StringBuilder();
-        for (int i = 0; i < keyPieces.size(); i++) {
+        for (int i = 0; i < keyPieces.length; i++) {
             // To normalize the arguments and avoid casing issues, we make all pieces of the key uppercase.
             // Since the database engine may be case insensitive and we use arguments of the SQL method call
             // to build the key, the key has to be case insensitive as well.
-            final String str = String.valueOf(keyPieces.get(i)).toUpperCase();
+            final String str = String.valueOf(keyPieces[i]).toUpperCase();
             cacheKey.append(str);
-            if (i < keyPieces.size() - 1) {
+            if (i < keyPieces.length - 1) {
                 cacheKey.append(CacheControllerDispatcher.CACHE_KEY_SEPARATOR);
             }
         }
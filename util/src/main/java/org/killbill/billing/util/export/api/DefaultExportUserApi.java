@@ -16,39 +16,86 @@
 
 package org.killbill.billing.util.export.api;
 
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Map.Entry;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
+import org.killbill.billing.tenant.api.TenantApiException;
+import org.killbill.billing.tenant.api.TenantUserApi;
 import org.killbill.billing.util.api.DatabaseExportOutputStream;
 import org.killbill.billing.util.api.ExportUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.ExportConfig;
+import org.killbill.billing.util.export.BinaryExportUserApi;
+import org.killbill.billing.util.export.dao.BinaryExportOutputStream;
 import org.killbill.billing.util.export.dao.CSVExportOutputStream;
 import org.killbill.billing.util.export.dao.DatabaseExportDao;
+import org.killbill.billing.util.export.dao.DatabaseImportDao;
 
-public class DefaultExportUserApi implements ExportUserApi {
+public class DefaultExportUserApi implements ExportUserApi, BinaryExportUserApi {
+
+    // See DefaultTenantInternalApi: these keys are maintained by Kill Bill itself (e.g. the catalog snapshot) and rebuilt on demand
+    private static final String RESERVED_TENANT_KEY_PREFIX = "__KILLBILL_";
 
     private final DatabaseExportDao exportDao;
+    private final DatabaseImportDao importDao;
+    private final TenantUserApi tenantUserApi;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final ExportConfig exportConfig;
 
     @Inject
     public DefaultExportUserApi(final DatabaseExportDao exportDao,
-                                final InternalCallContextFactory internalCallContextFactory) {
+                                final DatabaseImportDao importDao,
+                                final TenantUserApi tenantUserApi,
+                                final InternalCallContextFactory internalCallContextFactory,
+                                final ExportConfig exportConfig) {
         this.exportDao = exportDao;
+        this.importDao = importDao;
+        this.tenantUserApi = tenantUserApi;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.exportConfig = exportConfig;
     }
 
     @Override
     public void exportDataForAccount(final UUID accountId, final DatabaseExportOutputStream out, final CallContext context) {
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContext(accountId, context);
-        exportDao.exportDataForAccount(out, internalContext);
+        exportDao.exportDataForAccount(out, exportConfig.getExportParallelism(), internalContext);
     }
 
     @Override
     public void exportDataAsCSVForAccount(final UUID accountId, final OutputStream out, final CallContext context) {
         exportDataForAccount(accountId, new CSVExportOutputStream(out), context);
     }
+
+    @Override
+    public void exportBinaryDataForAccount(final UUID accountId, final OutputStream out, final CallContext context) {
+        exportDataForAccount(accountId, new BinaryExportOutputStream(out), context);
+    }
+
+    @Override
+    public void exportBinaryDataForTenant(final OutputStream out, final CallContext context) {
+        final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(context);
+        exportDao.exportDataForTenant(new BinaryExportOutputStream(out), exportConfig.getExportParallelism(), exportConfig.isTenantKVsExportEnabled(), internalContext);
+    }
+
+    @Override
+    public void importBinaryData(final InputStream in, final CallContext context) {
+        final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(context);
+        // Tenant key/values go through the tenant API, which invalidates the caches and broadcasts the change to the other nodes
+        for (final Entry<String, String> tenantKV : importDao.importData(in, internalContext).entries()) {
+            if (tenantKV.getKey().startsWith(RESERVED_TENANT_KEY_PREFIX)) {
+                continue;
+            }
+            try {
+                tenantUserApi.addTenantKeyValue(tenantKV.getKey(), tenantKV.getValue(), context);
+            } catch (final TenantApiException e) {
+                throw new IllegalStateException(String.format("Unable to import tenant key %s", tenantKV.getKey()), e);
+            }
+        }
+    }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.BOOLEAN_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.BYTES_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.DATE_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.DECIMAL_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.DOUBLE_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.FORMAT_VERSION;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.LONG_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.NULL_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.ROW_MARKER;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.STRING_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.TABLE_MARKER;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.TIMESTAMP_VALUE;
+import static org.killbill.billing.util.export.dao.BinaryExportOutputStream.UTF_8;
+
+/**
+ * Reads back a stream written by {@link BinaryExportOutputStream}.
+ * <p/>
+ * Usage: call next() until it returns false. When isNewTable() is true, the table name and columns of the
+ * following rows are available; otherwise getRow() returns the current row (values in column order).
+ */
+public class BinaryExportInputStream implements Closeable {
+
+    // Largest value of the schema (mediumtext / mediumblob): lengths are read from the stream, so bound them before allocating
+    private static final int MAX_VALUE_LENGTH = 16 * 1024 * 1024;
+
+    private final DataInputStream delegate;
+
+    private String currentTableName;
+    private List<String> currentColumnNames;
+    private List<String> currentDataTypes;
+    private Object[] currentRow;
+    private boolean isNewTable;
+
+    public BinaryExportInputStream(final InputStream delegate) {
+        this.delegate = new DataInputStream(delegate);
+    }
+
+    public boolean next() throws IOException {
+        final int marker = delegate.read();
+        if (marker == -1) {
+            return false;
+        }
+
+        if (marker == TABLE_MARKER) {
+            readHeader();
+            currentRow = null;
+            isNewTable = true;
+        } else if (marker == ROW_MARKER) {
+            if (currentTableName == null) {
+                throw new IOException("Invalid export stream: row found before any table header");
+            }
+            readRow();
+            isNewTable = false;
+        } else {
+            throw new IOException("Invalid export stream: unexpected marker " + marker);
+        }
+        return true;
+    }
+
+    public boolean isNewTable() {
+        return isNewTable;
+    }
+
+    public String getTableName() {
+        return currentTableName;
+    }
+
+    public List<String> getColumnNames() {
+        return currentColumnNames;
+    }
+
+    public List<String> getDataTypes() {
+        return currentDataTypes;
+    }
+
+    public Object[] getRow() {
+        return currentRow;
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private void readHeader() throws IOException {
+        final byte version = delegate.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported export format version " + version);
+        }
+
+        currentTableName = delegate.readUTF();
+        final int nbColumns = delegate.readUnsignedShort();
+        currentColumnNames = new ArrayList<String>(nbColumns);
+        currentDataTypes = new ArrayList<String>(nbColumns);
+        for (int i = 0; i < nbColumns; i++) {
+            currentColumnNames.add(delegate.readUTF());
+            currentDataTypes.add(delegate.readUTF());
+        }
+    }
+
+    private void readRow() throws IOException {
+        // Length prefix, not needed as we decode all values
+        delegate.readInt();
+
+        currentRow = new Object[currentColumnNames.size()];
+        for (int i = 0; i < currentRow.length; i++) {
+            currentRow[i] = readValue();
+        }
+    }
+
+    private Object readValue() throws IOException {
+        final byte valueType = delegate.readByte();
+        switch (valueType) {
+            case NULL_VALUE:
+                return null;
+            case LONG_VALUE:
+                return delegate.readLong();
+            case DECIMAL_VALUE:
+                return new BigDecimal(delegate.readUTF());
+            case STRING_VALUE:
+                return new String(readBytes(), UTF_8);
+            case TIMESTAMP_VALUE:
+                return new Timestamp(delegate.readLong());
+            case DATE_VALUE:
+                return Date.valueOf(delegate.readUTF());
+            case BYTES_VALUE:
+                return readBytes();
+            case BOOLEAN_VALUE:
+                return delegate.readBoolean();
+            case DOUBLE_VALUE:
+                return delegate.readDouble();
+            default:
+                throw new IOException("Invalid export stream: unexpected value type " + valueType);
+        }
+    }
+
+    private byte[] readBytes() throws IOException {
+        final int length = delegate.readInt();
+        if (length < 0 || length > MAX_VALUE_LENGTH) {
+            throw new IOException("Invalid export stream: value length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        delegate.readFully(bytes);
+        return bytes;
+    }
+}
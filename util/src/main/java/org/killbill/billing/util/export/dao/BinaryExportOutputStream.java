@@ -0,0 +1,202 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.ReadableInstant;
+import org.killbill.billing.util.api.ColumnInfo;
+
+/**
+ * Compact binary export format. Each table is written as a section:
+ * <pre>
+ *     'T' version tableName nbColumns (columnName dataType)*
+ *     ('R' rowLength (valueType value)*)*
+ * </pre>
+ * Strings in the section header are written with {@link DataOutputStream#writeUTF(String)}. Rows are length-prefixed
+ * so that readers can skip them, and each value is prefixed with its type (see the *_VALUE constants).
+ * <p/>
+ * Like for the CSV format, the section header is only written once the first row of the table is seen.
+ * See {@link BinaryExportInputStream} to read the stream back.
+ */
+public class BinaryExportOutputStream extends OutputStream implements TypedExportOutputStream {
+
+    static final byte FORMAT_VERSION = 1;
+
+    static final byte TABLE_MARKER = 'T';
+    static final byte ROW_MARKER = 'R';
+
+    static final byte NULL_VALUE = 0;
+    static final byte LONG_VALUE = 1;
+    static final byte DECIMAL_VALUE = 2;
+    static final byte STRING_VALUE = 3;
+    static final byte TIMESTAMP_VALUE = 4;
+    static final byte DATE_VALUE = 5;
+    static final byte BYTES_VALUE = 6;
+    static final byte BOOLEAN_VALUE = 7;
+    static final byte DOUBLE_VALUE = 8;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final DataOutputStream delegate;
+    // Rows are first serialized here, to be able to write the length prefix
+    private final ByteArrayOutputStream rowBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream rowOutput = new DataOutputStream(rowBuffer);
+
+    private String currentTableName;
+    private List<ColumnInfo> currentColumns;
+    private boolean shouldWriteHeader = false;
+
+    public BinaryExportOutputStream(final OutputStream delegate) {
+        this.delegate = new DataOutputStream(delegate);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        delegate.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        delegate.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void newTable(final String tableName, final List<ColumnInfo> columnsForTable) {
+        currentTableName = tableName;
+        currentColumns = columnsForTable;
+        shouldWriteHeader = true;
+    }
+
+    @Override
+    public void write(final Map<String, Object> row) throws IOException {
+        final Object[] values = new Object[currentColumns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.get(currentColumns.get(i).getColumnName());
+        }
+        write(values);
+    }
+
+    @Override
+    public void write(final Object[] row) throws IOException {
+        if (shouldWriteHeader) {
+            writeHeader();
+            shouldWriteHeader = false;
+        }
+
+        rowBuffer.reset();
+        for (final Object value : row) {
+            writeValue(value);
+        }
+
+        delegate.writeByte(ROW_MARKER);
+        delegate.writeInt(rowBuffer.size());
+        rowBuffer.writeTo(delegate);
+    }
+
+    private void writeHeader() throws IOException {
+        delegate.writeByte(TABLE_MARKER);
+        delegate.writeByte(FORMAT_VERSION);
+        delegate.writeUTF(currentTableName);
+        delegate.writeShort(currentColumns.size());
+        for (final ColumnInfo columnInfo : currentColumns) {
+            delegate.writeUTF(columnInfo.getColumnName());
+            delegate.writeUTF(columnInfo.getDataType() == null ? "" : columnInfo.getDataType());
+        }
+    }
+
+    private void writeValue(final Object value) throws IOException {
+        if (value == null) {
+            rowOutput.writeByte(NULL_VALUE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            rowOutput.writeByte(LONG_VALUE);
+            rowOutput.writeLong(((Number) value).longValue());
+        } else if (value instanceof BigInteger) {
+            // e.g. bigint unsigned columns in MySQL
+            rowOutput.writeByte(DECIMAL_VALUE);
+            rowOutput.writeUTF(value.toString());
+        } else if (value instanceof BigDecimal) {
+            rowOutput.writeByte(DECIMAL_VALUE);
+            rowOutput.writeUTF(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Double || value instanceof Float) {
+            rowOutput.writeByte(DOUBLE_VALUE);
+            rowOutput.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            rowOutput.writeByte(BOOLEAN_VALUE);
+            rowOutput.writeBoolean((Boolean) value);
+        } else if (value instanceof java.sql.Date) {
+            rowOutput.writeByte(DATE_VALUE);
+            rowOutput.writeUTF(value.toString());
+        } else if (value instanceof Date) {
+            rowOutput.writeByte(TIMESTAMP_VALUE);
+            rowOutput.writeLong(((Date) value).getTime());
+        } else if (value instanceof ReadableInstant) {
+            rowOutput.writeByte(TIMESTAMP_VALUE);
+            rowOutput.writeLong(((ReadableInstant) value).getMillis());
+        } else if (value instanceof byte[]) {
+            writeBytes((byte[]) value);
+        } else if (value instanceof Blob) {
+            final Blob blob = (Blob) value;
+            try {
+                writeBytes(blob.getBytes(1, (int) blob.length()));
+            } catch (final SQLException e) {
+                throw new IOException(e);
+            }
+        } else if (value instanceof Clob) {
+            final Clob clob = (Clob) value;
+            try {
+                writeString(clob.getSubString(1, (int) clob.length()));
+            } catch (final SQLException e) {
+                throw new IOException(e);
+            }
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(final String value) throws IOException {
+        // Not writeUTF, which is limited to 64KB
+        final byte[] bytes = value.getBytes(UTF_8);
+        rowOutput.writeByte(STRING_VALUE);
+        rowOutput.writeInt(bytes.length);
+        rowOutput.write(bytes);
+    }
+
+    private void writeBytes(final byte[] value) throws IOException {
+        rowOutput.writeByte(BYTES_VALUE);
+        rowOutput.writeInt(value.length);
+        rowOutput.write(value);
+    }
+}
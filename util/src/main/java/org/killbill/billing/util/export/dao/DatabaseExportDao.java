@@ -16,9 +16,20 @@
 
 package org.killbill.billing.util.export.dao;
 
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -29,14 +40,22 @@ import org.killbill.billing.util.api.DatabaseExportOutputStream;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.validation.DefaultColumnInfo;
 import org.killbill.billing.util.validation.dao.DatabaseSchemaDao;
+import org.killbill.commons.concurrent.Executors;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.Query;
 import org.skife.jdbi.v2.ResultIterator;
+import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.tweak.HandleCallback;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
 @Singleton
 public class DatabaseExportDao {
 
+    // In parallel mode, number of rows fetched ahead for each table (the producing thread blocks after that)
+    private static final int MAX_BUFFERED_ROWS_PER_TABLE = 1000;
+    private static final Object END_OF_TABLE = new Object();
+
     private final DatabaseSchemaDao databaseSchemaDao;
     private final IDBI dbi;
 
@@ -56,6 +75,8 @@ public class DatabaseExportDao {
         KB_PER_ACCOUNT("account_record_id", "tenant_record_id"),
         /* bus_events, notifications table */
         NOTIFICATION("search_key1", "search_key2"),
+        /* Per-tenant data table (only exported for tenant-wide exports) */
+        KB_PER_TENANT(null, "tenant_record_id"),
         /* To be discarded */
         OTHER(null, null);
 
@@ -77,44 +98,88 @@ public class DatabaseExportDao {
     }
 
     public void exportDataForAccount(final DatabaseExportOutputStream out, final InternalTenantContext context) {
+        exportDataForAccount(out, 1, context);
+    }
+
+    /**
+     * Export all data for the account of the context
+     *
+     * @param out         stream to write to (rows are passed as Object[] if it is a TypedExportOutputStream)
+     * @param parallelism number of tables exported concurrently, each on its own connection (1 to export tables one at a time)
+     * @param context     context with the account and tenant record ids
+     */
+    public void exportDataForAccount(final DatabaseExportOutputStream out, final int parallelism, final InternalTenantContext context) {
         if (context.getAccountRecordId() == null || context.getTenantRecordId() == null) {
             return;
         }
 
+        exportData(out, parallelism, true, context);
+    }
+
+    /**
+     * Export all data for the tenant of the context (e.g. for migrations or reporting).
+     * Bus and notification queues, and tenant broadcasts, aren't exported.
+     *
+     * @param out              stream to write to (rows are passed as Object[] if it is a TypedExportOutputStream)
+     * @param parallelism      number of tables exported concurrently, each on its own connection (1 to export tables one at a time)
+     * @param includeTenantKVs whether to export the tenant key/values, which contain plugin configurations and credentials
+     * @param context          context with the tenant record id
+     */
+    public void exportDataForTenant(final DatabaseExportOutputStream out, final int parallelism, final boolean includeTenantKVs, final InternalTenantContext context) {
+        if (context.getTenantRecordId() == null) {
+            return;
+        }
+
+        exportData(out, parallelism, false, includeTenantKVs, context);
+    }
+
+    private void exportData(final DatabaseExportOutputStream out, final int parallelism, final boolean forAccount, final InternalTenantContext context) {
+        exportData(out, parallelism, forAccount, false, context);
+    }
+
+    private void exportData(final DatabaseExportOutputStream out, final int parallelism, final boolean forAccount, final boolean includeTenantKVs, final InternalTenantContext context) {
+        final List<TableExport> tableExports = getTableExports(forAccount, includeTenantKVs);
+        final boolean typed = out instanceof TypedExportOutputStream;
+
+        if (parallelism <= 1 || tableExports.size() <= 1) {
+            for (final TableExport tableExport : tableExports) {
+                exportTable(out, tableExport, typed, context);
+            }
+        } else {
+            exportTablesInParallel(out, tableExports, Math.min(parallelism, tableExports.size()), typed, context);
+        }
+    }
+
+    private List<TableExport> getTableExports(final boolean forAccount, final boolean includeTenantKVs) {
+        final List<TableExport> tableExports = new ArrayList<TableExport>();
+
         final List<DefaultColumnInfo> columns = databaseSchemaDao.getColumnInfoList();
         if (columns.size() == 0) {
-            return;
+            return tableExports;
         }
 
-        final List<ColumnInfo> columnsForTable = new ArrayList<ColumnInfo>();
+        List<ColumnInfo> columnsForTable = new ArrayList<ColumnInfo>();
         // The list of columns is ordered by table name first
         String lastSeenTableName = columns.get(0).getTableName();
         for (final ColumnInfo column : columns) {
             if (!column.getTableName().equals(lastSeenTableName)) {
-                exportDataForAccountAndTable(out, columnsForTable, context);
+                addTableExport(tableExports, columnsForTable, forAccount, includeTenantKVs);
                 lastSeenTableName = column.getTableName();
-                columnsForTable.clear();
+                columnsForTable = new ArrayList<ColumnInfo>();
             }
             columnsForTable.add(column);
         }
-        exportDataForAccountAndTable(out, columnsForTable, context);
-    }
-
-
-    private void exportDataForAccountAndTable(final DatabaseExportOutputStream out, final List<ColumnInfo> columnsForTable, final InternalTenantContext context) {
+        addTableExport(tableExports, columnsForTable, forAccount, includeTenantKVs);
 
+        return tableExports;
+    }
 
-        TableType tableType = TableType.OTHER;
+    private void addTableExport(final List<TableExport> tableExports, final List<ColumnInfo> columnsForTable, final boolean forAccount, final boolean includeTenantKVs) {
         final String tableName = columnsForTable.get(0).getTableName();
 
-        if (TableName.ACCOUNT.getTableName().equals(tableName)) {
-            tableType = TableType.KB_ACCOUNT;
-        } else if (TableName.ACCOUNT_HISTORY.getTableName().equals(tableName)) {
-            tableType = TableType.KB_ACCOUNT_HISTORY;
-        }
-
-        boolean firstColumn = true;
         final StringBuilder queryBuilder = new StringBuilder("select ");
+        final Set<String> columnNames = new HashSet<String>();
+        boolean firstColumn = true;
         for (final ColumnInfo column : columnsForTable) {
             if (!firstColumn) {
                 queryBuilder.append(", ");
@@ -123,44 +188,126 @@ public class DatabaseExportDao {
             }
 
             queryBuilder.append(column.getColumnName());
-
-            if (tableType == TableType.OTHER) {
-                if (column.getColumnName().equals(TableType.KB_PER_ACCOUNT.getAccountRecordIdColumnName())) {
-                    tableType = TableType.KB_PER_ACCOUNT;
-                } else if (column.getColumnName().equals(TableType.NOTIFICATION.getAccountRecordIdColumnName())) {
-                    tableType = TableType.NOTIFICATION;
-                }
-            }
+            columnNames.add(column.getColumnName());
         }
 
-        // Don't export non-account specific tables
-        if (tableType == TableType.OTHER) {
+        final TableType tableType = getTableType(tableName, columnNames);
+        // Don't export non-account specific tables (or tables not belonging to a tenant)
+        if (tableType == TableType.OTHER || (forAccount && tableType.getAccountRecordIdColumnName() == null)) {
+            return;
+        }
+        // Tenant-wide exports are limited to the entity data
+        if (!forAccount && (tableType == TableType.NOTIFICATION ||
+                            TableName.TENANT_BROADCASTS.getTableName().equals(tableName) ||
+                            (!includeTenantKVs && TableName.TENANT_KVS.getTableName().equals(tableName)))) {
             return;
         }
 
         // Build the query - make sure to filter by account and tenant!
         queryBuilder.append(" from ")
                     .append(tableName)
-                    .append(" where ")
-                    .append(tableType.getAccountRecordIdColumnName())
-                    .append(" = :accountRecordId and ")
-                    .append(tableType.getTenantRecordIdColumnName())
+                    .append(" where ");
+        if (forAccount) {
+            queryBuilder.append(tableType.getAccountRecordIdColumnName())
+                        .append(" = :accountRecordId and ");
+        }
+        queryBuilder.append(tableType.getTenantRecordIdColumnName())
                     .append("  = :tenantRecordId");
 
+        tableExports.add(new TableExport(tableName, columnsForTable, queryBuilder.toString(), forAccount));
+    }
+
+    private TableType getTableType(final String tableName, final Set<String> columnNames) {
+        if (TableName.ACCOUNT.getTableName().equals(tableName)) {
+            return TableType.KB_ACCOUNT;
+        } else if (TableName.ACCOUNT_HISTORY.getTableName().equals(tableName)) {
+            return TableType.KB_ACCOUNT_HISTORY;
+        } else if (columnNames.contains(TableType.KB_PER_ACCOUNT.getAccountRecordIdColumnName())) {
+            return TableType.KB_PER_ACCOUNT;
+        } else if (columnNames.contains(TableType.NOTIFICATION.getAccountRecordIdColumnName())) {
+            return TableType.NOTIFICATION;
+        } else if (columnNames.contains(TableType.KB_PER_TENANT.getTenantRecordIdColumnName())) {
+            return TableType.KB_PER_TENANT;
+        } else {
+            return TableType.OTHER;
+        }
+    }
+
+    private void exportTable(final DatabaseExportOutputStream out, final TableExport tableExport, final boolean typed, final InternalTenantContext context) {
         // Notify the stream that we're about to write data for a different table
-        out.newTable(tableName, columnsForTable);
+        out.newTable(tableExport.getTableName(), tableExport.getColumns());
+
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                final ResultIterator<?> iterator = createQuery(handle, tableExport, typed, context).iterator();
+                try {
+                    while (iterator.hasNext()) {
+                        writeRow(out, iterator.next());
+                    }
+                } finally {
+                    iterator.close();
+                }
+                return null;
+            }
+        });
+    }
 
+    // Each table is read on its own connection by a producer thread, while the calling thread writes the tables, in order, to the stream
+    private void exportTablesInParallel(final DatabaseExportOutputStream out, final List<TableExport> tableExports, final int parallelism,
+                                        final boolean typed, final InternalTenantContext context) {
+        // Tasks are started in table order, so the table being written always has a running (or finished) producer
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism, "DatabaseExport");
+        try {
+            final List<BlockingQueue<Object>> rowQueues = new ArrayList<BlockingQueue<Object>>(tableExports.size());
+            final List<Future<Void>> producers = new ArrayList<Future<Void>>(tableExports.size());
+            for (final TableExport tableExport : tableExports) {
+                final BlockingQueue<Object> rowQueue = new ArrayBlockingQueue<Object>(MAX_BUFFERED_ROWS_PER_TABLE);
+                rowQueues.add(rowQueue);
+                producers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            produceRows(rowQueue, tableExport, typed, context);
+                        } finally {
+                            rowQueue.put(END_OF_TABLE);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < tableExports.size(); i++) {
+                out.newTable(tableExports.get(i).getTableName(), tableExports.get(i).getColumns());
+
+                Object row;
+                while ((row = rowQueues.get(i).take()) != END_OF_TABLE) {
+                    writeRow(out, row);
+                }
+                // Propagate any error from the producer
+                producers.get(i).get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            // Interrupt producers still running if the export failed
+            executor.shutdownNow();
+        }
+    }
+
+    private void produceRows(final BlockingQueue<Object> rowQueue, final TableExport tableExport, final boolean typed, final InternalTenantContext context) {
         dbi.withHandle(new HandleCallback<Void>() {
             @Override
             public Void withHandle(final Handle handle) throws Exception {
-                final ResultIterator<Map<String, Object>> iterator = handle.createQuery(queryBuilder.toString())
-                                                                           .bind("accountRecordId", context.getAccountRecordId())
-                                                                           .bind("tenantRecordId", context.getTenantRecordId())
-                                                                           .iterator();
+                final ResultIterator<?> iterator = createQuery(handle, tableExport, typed, context).iterator();
                 try {
                     while (iterator.hasNext()) {
-                        final Map<String, Object> row = iterator.next();
-                        out.write(row);
+                        rowQueue.put(iterator.next());
                     }
                 } finally {
                     iterator.close();
@@ -169,4 +316,68 @@ public class DatabaseExportDao {
             }
         });
     }
+
+    private Query<?> createQuery(final Handle handle, final TableExport tableExport, final boolean typed, final InternalTenantContext context) {
+        final Query<Map<String, Object>> query = handle.createQuery(tableExport.getQuery())
+                                                       .bind("tenantRecordId", context.getTenantRecordId());
+        if (tableExport.isForAccount()) {
+            query.bind("accountRecordId", context.getAccountRecordId());
+        }
+        return typed ? query.map(ObjectArrayMapper.INSTANCE) : query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeRow(final DatabaseExportOutputStream out, final Object row) throws IOException {
+        if (row instanceof Object[]) {
+            ((TypedExportOutputStream) out).write((Object[]) row);
+        } else {
+            out.write((Map<String, Object>) row);
+        }
+    }
+
+    private static final class TableExport {
+
+        private final String tableName;
+        private final List<ColumnInfo> columns;
+        private final String query;
+        private final boolean forAccount;
+
+        private TableExport(final String tableName, final List<ColumnInfo> columns, final String query, final boolean forAccount) {
+            this.tableName = tableName;
+            this.columns = columns;
+            this.query = query;
+            this.forAccount = forAccount;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public List<ColumnInfo> getColumns() {
+            return columns;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public boolean isForAccount() {
+            return forAccount;
+        }
+    }
+
+    // Rows as positional values, in the order of the select clause
+    private static final class ObjectArrayMapper implements ResultSetMapper<Object[]> {
+
+        private static final ObjectArrayMapper INSTANCE = new ObjectArrayMapper();
+
+        @Override
+        public Object[] map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            final Object[] row = new Object[r.getMetaData().getColumnCount()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = r.getObject(i + 1);
+            }
+            return row;
+        }
+    }
 }
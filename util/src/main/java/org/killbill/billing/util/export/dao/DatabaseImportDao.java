@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.dao.TableName;
+import org.killbill.billing.util.validation.DefaultColumnInfo;
+import org.killbill.billing.util.validation.dao.DatabaseSchemaDao;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.PreparedBatch;
+import org.skife.jdbi.v2.tweak.HandleCallback;
+
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Loads data exported with a {@link BinaryExportOutputStream} (see DatabaseExportDao).
+ * <p/>
+ * Rows of the entity tables are inserted as-is, including record ids, so the target schema is expected to be empty for the exported
+ * accounts or tenant (e.g. migration to a new database). On PostgreSQL, sequences need to be reset after the import.
+ * Every row must belong to the tenant of the context: the import is rejected otherwise.
+ * <p/>
+ * Rows are committed in batches, so a failed import leaves the batches already committed. Bus and notification queues, and tenant broadcasts,
+ * are skipped. Tenant key/values are returned instead of being inserted, so that they go through the tenant API (cache invalidation and broadcast).
+ */
+@Singleton
+public class DatabaseImportDao {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String TENANT_RECORD_ID_COLUMN_NAME = "tenant_record_id";
+    // See DatabaseExportDao.TableType
+    private static final String QUEUE_SEARCH_KEY_COLUMN_NAME = "search_key2";
+    private static final String TENANT_KEY_COLUMN_NAME = "tenant_key";
+    private static final String TENANT_VALUE_COLUMN_NAME = "tenant_value";
+    private static final String IS_ACTIVE_COLUMN_NAME = "is_active";
+
+    private final DatabaseSchemaDao databaseSchemaDao;
+    private final IDBI dbi;
+
+    @Inject
+    public DatabaseImportDao(final DatabaseSchemaDao databaseSchemaDao,
+                             final IDBI dbi) {
+        this.databaseSchemaDao = databaseSchemaDao;
+        this.dbi = dbi;
+    }
+
+    /**
+     * Import the entity tables of the stream.
+     *
+     * @param in      stream written by a BinaryExportOutputStream
+     * @param context context with the tenant record id of the rows
+     * @return the active tenant key/values found in the stream, in order, which haven't been imported
+     */
+    public ListMultimap<String, String> importData(final InputStream in, final InternalTenantContext context) {
+        // Table and column names come from the stream: only accept the ones which exist in the schema
+        final Map<String, Set<String>> columnsPerTable = new HashMap<String, Set<String>>();
+        for (final DefaultColumnInfo columnInfo : databaseSchemaDao.getColumnInfoList()) {
+            if (columnsPerTable.get(columnInfo.getTableName()) == null) {
+                columnsPerTable.put(columnInfo.getTableName(), new HashSet<String>());
+            }
+            columnsPerTable.get(columnInfo.getTableName()).add(columnInfo.getColumnName());
+        }
+
+        final ListMultimap<String, String> tenantKVs = LinkedListMultimap.<String, String>create();
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                final BinaryExportInputStream importStream = new BinaryExportInputStream(in);
+
+                handle.begin();
+                try {
+                    PreparedBatch batch = null;
+                    boolean skipTable = false;
+                    boolean isTenantKVsTable = false;
+                    int tenantRecordIdIndex = -1;
+                    while (importStream.next()) {
+                        if (importStream.isNewTable()) {
+                            executeBatch(batch, handle);
+                            batch = null;
+
+                            final String tableName = importStream.getTableName();
+                            final List<String> columnNames = importStream.getColumnNames();
+                            skipTable = TableName.TENANT_BROADCASTS.getTableName().equals(tableName) || columnNames.contains(QUEUE_SEARCH_KEY_COLUMN_NAME);
+                            isTenantKVsTable = TableName.TENANT_KVS.getTableName().equals(tableName);
+                            if (skipTable) {
+                                continue;
+                            }
+
+                            tenantRecordIdIndex = getColumnIndex(tableName, columnNames, TENANT_RECORD_ID_COLUMN_NAME);
+                            if (!isTenantKVsTable) {
+                                batch = handle.prepareBatch(buildInsertStatement(tableName, columnNames, columnsPerTable));
+                            }
+                        } else if (!skipTable) {
+                            final Object[] row = importStream.getRow();
+                            final Object tenantRecordId = row[tenantRecordIdIndex];
+                            if (!(tenantRecordId instanceof Number) || ((Number) tenantRecordId).longValue() != context.getTenantRecordId()) {
+                                throw new IllegalArgumentException(String.format("Unable to import data: row for table %s belongs to tenant_record_id %s", importStream.getTableName(), tenantRecordId));
+                            }
+
+                            if (isTenantKVsTable) {
+                                addTenantKV(tenantKVs, importStream.getTableName(), importStream.getColumnNames(), row);
+                                continue;
+                            }
+
+                            batch.add(row);
+                            if (batch.size() >= BATCH_SIZE) {
+                                executeBatch(batch, handle);
+                            }
+                        }
+                    }
+                    executeBatch(batch, handle);
+                    handle.commit();
+                } catch (final Exception e) {
+                    handle.rollback();
+                    throw e;
+                }
+
+                return null;
+            }
+        });
+        return tenantKVs;
+    }
+
+    // Each batch is committed on its own, so that the import doesn't run in a single, unbounded, transaction
+    private void executeBatch(@Nullable final PreparedBatch batch, final Handle handle) {
+        if (batch != null && batch.size() > 0) {
+            batch.execute();
+            handle.commit();
+            handle.begin();
+        }
+    }
+
+    private void addTenantKV(final ListMultimap<String, String> tenantKVs, final String tableName, final List<String> columnNames, final Object[] row) {
+        final Object isActive = row[getColumnIndex(tableName, columnNames, IS_ACTIVE_COLUMN_NAME)];
+        if (Boolean.FALSE.equals(isActive) || (isActive instanceof Number && ((Number) isActive).intValue() == 0)) {
+            return;
+        }
+        tenantKVs.put((String) row[getColumnIndex(tableName, columnNames, TENANT_KEY_COLUMN_NAME)],
+                      (String) row[getColumnIndex(tableName, columnNames, TENANT_VALUE_COLUMN_NAME)]);
+    }
+
+    private int getColumnIndex(final String tableName, final List<String> columnNames, final String columnName) {
+        final int index = columnNames.indexOf(columnName);
+        if (index == -1) {
+            throw new IllegalArgumentException(String.format("Unable to import data: no column %s for table %s", columnName, tableName));
+        }
+        return index;
+    }
+
+    private String buildInsertStatement(final String tableName, final List<String> columnNames, final Map<String, Set<String>> columnsPerTable) {
+        final Set<String> knownColumns = columnsPerTable.get(tableName);
+        if (knownColumns == null) {
+            throw new IllegalArgumentException(String.format("Unable to import data: unknown table %s", tableName));
+        }
+
+        final StringBuilder columnsBuilder = new StringBuilder();
+        final StringBuilder valuesBuilder = new StringBuilder();
+        for (final String columnName : columnNames) {
+            if (!knownColumns.contains(columnName)) {
+                throw new IllegalArgumentException(String.format("Unable to import data: unknown column %s for table %s", columnName, tableName));
+            }
+
+            if (columnsBuilder.length() > 0) {
+                columnsBuilder.append(", ");
+                valuesBuilder.append(", ");
+            }
+            columnsBuilder.append(columnName);
+            valuesBuilder.append("?");
+        }
+
+        return String.format("insert into %s (%s) values (%s)", tableName, columnsBuilder, valuesBuilder);
+    }
+}
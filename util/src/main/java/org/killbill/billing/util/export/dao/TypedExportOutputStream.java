@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.IOException;
+
+import org.killbill.billing.util.api.DatabaseExportOutputStream;
+
+/**
+ * DatabaseExportOutputStream which can consume rows as positional values (in the order of the columns given to newTable),
+ * avoiding the per-row Map built for the generic write(Map) path.
+ */
+public interface TypedExportOutputStream extends DatabaseExportOutputStream {
+
+    /**
+     * Write one row of data
+     *
+     * @param row column values, in the order of the columns of the current table
+     * @throws IOException generic IOException
+     */
+    public void write(Object[] row) throws IOException;
+}
@@ -20,7 +20,10 @@ package org.killbill.billing.util.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.api.ExportUserApi;
+import org.killbill.billing.util.config.definition.ExportConfig;
+import org.killbill.billing.util.export.BinaryExportUserApi;
 import org.killbill.billing.util.export.api.DefaultExportUserApi;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class ExportModule extends KillBillModule {
 
@@ -29,11 +32,16 @@ public class ExportModule extends KillBillModule {
     }
 
     protected void installUserApi() {
+        bind(DefaultExportUserApi.class).asEagerSingleton();
         bind(ExportUserApi.class).to(DefaultExportUserApi.class).asEagerSingleton();
+        bind(BinaryExportUserApi.class).to(DefaultExportUserApi.class).asEagerSingleton();
     }
 
     @Override
     protected void configure() {
+        final ExportConfig exportConfig = new ConfigurationObjectFactory(skifeConfigSource).build(ExportConfig.class);
+        bind(ExportConfig.class).toInstance(exportConfig);
+
         installUserApi();
     }
 }
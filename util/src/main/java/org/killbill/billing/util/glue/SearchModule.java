@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.glue;
+
+import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.definition.SearchConfig;
+import org.killbill.billing.util.search.AdminSearchIndexApi;
+import org.killbill.billing.util.search.DefaultSearchIndex;
+import org.killbill.billing.util.search.DefaultSearchIndexService;
+import org.killbill.billing.util.search.SearchIndex;
+import org.killbill.billing.util.search.SearchIndexService;
+import org.killbill.billing.util.search.api.DefaultAdminSearchIndexApi;
+import org.skife.config.ConfigurationObjectFactory;
+
+public class SearchModule extends KillBillModule {
+
+    public SearchModule(final KillbillConfigSource configSource) {
+        super(configSource);
+    }
+
+    @Override
+    protected void configure() {
+        final SearchConfig searchConfig = new ConfigurationObjectFactory(skifeConfigSource).build(SearchConfig.class);
+        bind(SearchConfig.class).toInstance(searchConfig);
+        bind(SearchIndex.class).to(DefaultSearchIndex.class).asEagerSingleton();
+        bind(SearchIndexService.class).to(DefaultSearchIndexService.class).asEagerSingleton();
+        bind(AdminSearchIndexApi.class).to(DefaultAdminSearchIndexApi.class).asEagerSingleton();
+    }
+}
@@ -23,6 +23,7 @@ import org.killbill.billing.security.api.SecurityApi;
 import org.killbill.billing.util.config.definition.SecurityConfig;
 import org.killbill.billing.util.security.api.DefaultSecurityApi;
 import org.killbill.billing.util.security.api.DefaultSecurityService;
+import org.killbill.billing.util.security.api.SecurityCacheInvalidationListener;
 import org.killbill.billing.util.security.api.SecurityService;
 import org.killbill.billing.util.security.shiro.dao.DefaultUserDao;
 import org.killbill.billing.util.security.shiro.dao.UserDao;
@@ -56,5 +57,6 @@ public class SecurityModule extends KillBillModule {
 
     protected void installSecurityService() {
         bind(SecurityService.class).to(DefaultSecurityService.class).asEagerSingleton();
+        bind(SecurityCacheInvalidationListener.class).asEagerSingleton();
     }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.definition.SearchConfig;
+import org.killbill.billing.util.dao.TableName;
+import org.killbill.billing.util.entity.dao.EntityModelDao;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionHook;
+import org.killbill.clock.Clock;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+import org.skife.jdbi.v2.sqlobject.SqlObjectBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+/**
+ * Trigram index stored in the search_index_grams table: each searchable value is split into its (lower-cased) 3-character
+ * substrings and the candidates of a search key are the rows having all of its trigrams. The grams of a row are maintained
+ * in the transaction which writes the row, so every node sees the same index. A partition (object type and tenant) is only
+ * queried once it has been fully built (see rebuild): until then, searches fall back to the database scan.
+ * <p/>
+ * The grams are maintained even when the index is disabled: the flag only controls whether searches and rebuilds use it, so
+ * that a partition built before the index was turned off doesn't miss the rows written in the meantime once turned back on.
+ */
+public class DefaultSearchIndex implements SearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultSearchIndex.class);
+
+    private static final int GRAM_LENGTH = 3;
+    // The candidates are re-checked by the database anyway: a few trigrams of the key are selective enough
+    private static final int MAX_GRAMS_PER_SEARCH = 8;
+    private static final int REBUILD_BATCH_SIZE = 100;
+
+    private static final String PARTITION_BUILDING = "BUILDING";
+    private static final String PARTITION_READY = "READY";
+
+    private final IDBI dbi;
+    private final SearchConfig searchConfig;
+    private final Clock clock;
+    private final Map<ObjectType, SearchIndexSource> sources = new ConcurrentHashMap<ObjectType, SearchIndexSource>();
+
+    private final EntitySqlDaoTransactionHook entitySqlDaoTransactionHook = new EntitySqlDaoTransactionHook() {
+        @Override
+        public void onEntityWritten(final Handle handle, final TableName tableName, final EntityModelDao<?> entity, final InternalCallContext context) {
+            if (entity instanceof SearchIndexable) {
+                index(handle, tableName.getObjectType(), (SearchIndexable) entity, context);
+            }
+        }
+    };
+
+    @Inject
+    public DefaultSearchIndex(final IDBI dbi, final SearchConfig searchConfig, final Clock clock) {
+        this.dbi = dbi;
+        this.searchConfig = searchConfig;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return searchConfig.isSearchIndexEnabled();
+    }
+
+    @Override
+    public void registerSource(final ObjectType objectType, final SearchIndexSource source) {
+        sources.put(objectType, source);
+    }
+
+    @Override
+    public Set<ObjectType> getIndexedObjectTypes() {
+        return ImmutableSet.<ObjectType>copyOf(sources.keySet());
+    }
+
+    @Override
+    public EntitySqlDaoTransactionHook getEntitySqlDaoTransactionHook() {
+        return entitySqlDaoTransactionHook;
+    }
+
+    // Visible for testing
+    void index(final Handle handle, final ObjectType objectType, final SearchIndexable entity, final InternalTenantContext context) {
+        if (entity.getRecordId() == null) {
+            return;
+        }
+
+        // Maintained whether or not the index is enabled and the partition has been built, so that a rebuild never races with
+        // in-flight transactions and a READY partition never misses a row
+        final SearchIndexSqlDao sqlDao = SqlObjectBuilder.attach(handle, SearchIndexSqlDao.class);
+        final Set<String> existingGrams = ImmutableSet.<String>copyOf(sqlDao.getGrams(objectType.name(), entity.getRecordId(), context));
+        final Set<String> grams = getGrams(entity);
+
+        final List<String> staleGrams = ImmutableList.<String>copyOf(Sets.difference(existingGrams, grams));
+        if (!staleGrams.isEmpty()) {
+            sqlDao.deleteGrams(objectType.name(), staleGrams, entity.getRecordId(), context);
+        }
+        addMissingGrams(sqlDao, objectType, entity.getRecordId(), grams, existingGrams, context);
+    }
+
+    @Override
+    public SortedSet<Long> search(final ObjectType objectType, final String searchKey, final InternalTenantContext context) {
+        if (!isEnabled() || searchKey == null) {
+            return null;
+        }
+
+        final String normalizedKey = normalize(searchKey);
+        // LIKE wildcards in the key cannot be matched by substrings
+        if (normalizedKey.length() < GRAM_LENGTH || normalizedKey.indexOf('%') >= 0 || normalizedKey.indexOf('_') >= 0) {
+            return null;
+        }
+
+        final List<String> keyGrams = getSearchGrams(normalizedKey);
+        final int maxCandidates = searchConfig.getSearchIndexMaxCandidates();
+        return dbi.inTransaction(new TransactionCallback<SortedSet<Long>>() {
+            @Override
+            public SortedSet<Long> inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final SearchIndexSqlDao sqlDao = handle.attach(SearchIndexSqlDao.class);
+                // Rows written before the index was enabled may be missing until the partition has been built
+                if (!PARTITION_READY.equals(sqlDao.getPartitionState(objectType.name(), context))) {
+                    return null;
+                }
+
+                final List<Long> candidates = sqlDao.searchCandidates(objectType.name(), keyGrams, keyGrams.size(), maxCandidates + 1, context);
+                return candidates.size() > maxCandidates ? null : new TreeSet<Long>(candidates);
+            }
+        });
+    }
+
+    @Override
+    public void rebuild(final ObjectType objectType, final InternalTenantContext context) {
+        final SearchIndexSource source = sources.get(objectType);
+        if (!isEnabled() || source == null) {
+            return;
+        }
+
+        // Searches fall back to the database while the partition is being (re-)built
+        setPartitionState(objectType, PARTITION_BUILDING, context);
+
+        // Only add the missing grams: rows written concurrently are maintained by their own transaction, and grams of a
+        // previous value which would be re-added here are merely extra candidates
+        long nbEntries = 0;
+        final List<SearchIndexable> batch = new ArrayList<SearchIndexable>(REBUILD_BATCH_SIZE);
+        final Iterator<? extends SearchIndexable> iterator = source.getAll(context);
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            nbEntries++;
+            if (batch.size() == REBUILD_BATCH_SIZE || !iterator.hasNext()) {
+                addMissingGrams(objectType, batch, context);
+                batch.clear();
+            }
+        }
+
+        setPartitionState(objectType, PARTITION_READY, context);
+
+        logger.info("Rebuilt search index for objectType='{}', tenantRecordId='{}': {} entries", objectType, context.getTenantRecordId(), nbEntries);
+    }
+
+    private void addMissingGrams(final ObjectType objectType, final Iterable<SearchIndexable> entities, final InternalTenantContext context) {
+        dbi.inTransaction(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final SearchIndexSqlDao sqlDao = handle.attach(SearchIndexSqlDao.class);
+                for (final SearchIndexable entity : entities) {
+                    if (entity.getRecordId() != null) {
+                        final Set<String> existingGrams = ImmutableSet.<String>copyOf(sqlDao.getGrams(objectType.name(), entity.getRecordId(), context));
+                        addMissingGrams(sqlDao, objectType, entity.getRecordId(), getGrams(entity), existingGrams, context);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private void addMissingGrams(final SearchIndexSqlDao sqlDao, final ObjectType objectType, final Long recordId,
+                                 final Set<String> grams, final Set<String> existingGrams, final InternalTenantContext context) {
+        final List<String> missingGrams = ImmutableList.<String>copyOf(Sets.difference(grams, existingGrams));
+        if (!missingGrams.isEmpty()) {
+            sqlDao.addGrams(objectType.name(), missingGrams, recordId, context);
+        }
+    }
+
+    private void setPartitionState(final ObjectType objectType, final String state, final InternalTenantContext context) {
+        dbi.inTransaction(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final SearchIndexSqlDao sqlDao = handle.attach(SearchIndexSqlDao.class);
+                if (sqlDao.getPartitionState(objectType.name(), context) == null) {
+                    sqlDao.createPartition(objectType.name(), state, clock.getUTCNow().toDate(), context);
+                } else {
+                    sqlDao.updatePartitionState(objectType.name(), state, clock.getUTCNow().toDate(), context);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static Set<String> getGrams(final SearchIndexable entity) {
+        final Set<String> grams = new LinkedHashSet<String>();
+        for (final String value : entity.getSearchableValues()) {
+            if (value != null) {
+                grams.addAll(getGrams(normalize(value)));
+            }
+        }
+        return grams;
+    }
+
+    private static Set<String> getGrams(final String normalizedValue) {
+        final Set<String> grams = new LinkedHashSet<String>();
+        for (int i = 0; i + GRAM_LENGTH <= normalizedValue.length(); i++) {
+            grams.add(normalizedValue.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    // Any subset of the trigrams of the key yields a superset of the matching rows: spread the ones we keep over the key
+    private static List<String> getSearchGrams(final String normalizedKey) {
+        final List<String> grams = ImmutableList.<String>copyOf(getGrams(normalizedKey));
+        if (grams.size() <= MAX_GRAMS_PER_SEARCH) {
+            return grams;
+        }
+
+        final Set<String> searchGrams = new LinkedHashSet<String>();
+        for (int i = 0; i < MAX_GRAMS_PER_SEARCH; i++) {
+            searchGrams.add(grams.get(i * (grams.size() - 1) / (MAX_GRAMS_PER_SEARCH - 1)));
+        }
+        return ImmutableList.<String>copyOf(searchGrams);
+    }
+
+    private static String normalize(final String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.platform.api.LifecycleHandlerType;
+import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.clock.Clock;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+public class DefaultSearchIndexService implements SearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultSearchIndexService.class);
+
+    public static final String SEARCH_INDEX_SERVICE_NAME = "search-index-service";
+    public static final String REBUILD_QUEUE_NAME = "search-index-rebuild-queue";
+
+    private final SearchIndex searchIndex;
+    private final NotificationQueueService notificationQueueService;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final Clock clock;
+
+    private NotificationQueue rebuildQueue;
+
+    @Inject
+    public DefaultSearchIndexService(final SearchIndex searchIndex,
+                                     final NotificationQueueService notificationQueueService,
+                                     final InternalCallContextFactory internalCallContextFactory,
+                                     final Clock clock) {
+        this.searchIndex = searchIndex;
+        this.notificationQueueService = notificationQueueService;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getName() {
+        return SEARCH_INDEX_SERVICE_NAME;
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.INIT_SERVICE)
+    public void initialize() throws NotificationQueueAlreadyExists {
+        rebuildQueue = notificationQueueService.createNotificationQueue(SEARCH_INDEX_SERVICE_NAME,
+                                                                        REBUILD_QUEUE_NAME,
+                                                                        new NotificationQueueHandler() {
+                                                                            @Override
+                                                                            public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+                                                                                if (!(notificationKey instanceof SearchIndexRebuildNotificationKey)) {
+                                                                                    logger.error("Search index service received an unexpected event className='{}'", notificationKey.getClass());
+                                                                                    return;
+                                                                                }
+
+                                                                                final ObjectType objectType = ((SearchIndexRebuildNotificationKey) notificationKey).getObjectType();
+                                                                                final InternalTenantContext context = internalCallContextFactory.createInternalTenantContext(tenantRecordId, null);
+                                                                                rebuild(objectType, context);
+                                                                            }
+                                                                        });
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
+    public void start() {
+        rebuildQueue.startQueue();
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
+    public void stop() throws NoSuchNotificationQueue {
+        if (rebuildQueue != null) {
+            rebuildQueue.stopQueue();
+            notificationQueueService.deleteNotificationQueue(rebuildQueue.getServiceName(), rebuildQueue.getQueueName());
+        }
+    }
+
+    @Override
+    public void scheduleRebuild(@Nullable final ObjectType objectType, final InternalCallContext context) {
+        try {
+            // Tenant-wide notification: there is no account record id
+            rebuildQueue.recordFutureNotification(clock.getUTCNow(), new SearchIndexRebuildNotificationKey(objectType), context.getUserToken(), 0L, context.getTenantRecordId());
+        } catch (final IOException e) {
+            throw new IllegalStateException(String.format("Unable to schedule the search index rebuild for objectType='%s'", objectType), e);
+        }
+    }
+
+    private void rebuild(@Nullable final ObjectType objectType, final InternalTenantContext context) {
+        final Iterable<ObjectType> objectTypes = objectType != null ? ImmutableSet.<ObjectType>of(objectType) : searchIndex.getIndexedObjectTypes();
+        for (final ObjectType cur : objectTypes) {
+            searchIndex.rebuild(cur, context);
+        }
+    }
+}
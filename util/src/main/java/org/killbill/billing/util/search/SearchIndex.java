@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search;
+
+import java.util.Set;
+import java.util.SortedSet;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionHook;
+
+/**
+ * Substring index over the searchable columns of a table, partitioned by tenant.
+ * <p/>
+ * The index only narrows down the set of candidate rows: it may return record ids which don't (or no longer) match,
+ * hence callers must re-apply the search query on the candidates. It must never miss a matching row though, which is why
+ * a partition can only answer queries once it has been built via {@link #rebuild(ObjectType, InternalTenantContext)}.
+ */
+public interface SearchIndex {
+
+    public boolean isEnabled();
+
+    public void registerSource(ObjectType objectType, SearchIndexSource source);
+
+    public Set<ObjectType> getIndexedObjectTypes();
+
+    // To be passed to the EntitySqlDaoTransactionalJdbiWrapper of the DAOs of the indexed entities, so that the index is maintained in their transactions
+    public EntitySqlDaoTransactionHook getEntitySqlDaoTransactionHook();
+
+    /**
+     * @return the record ids of the candidate rows, ordered, or null if the index cannot answer that query
+     * (index disabled, partition not built, search key too short or too broad)
+     */
+    @Nullable
+    public SortedSet<Long> search(ObjectType objectType, String searchKey, InternalTenantContext context);
+
+    public void rebuild(ObjectType objectType, InternalTenantContext context);
+}
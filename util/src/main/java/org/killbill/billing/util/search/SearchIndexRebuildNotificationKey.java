@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.notificationq.api.NotificationEvent;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class SearchIndexRebuildNotificationKey implements NotificationEvent {
+
+    private final ObjectType objectType;
+
+    @JsonCreator
+    public SearchIndexRebuildNotificationKey(@JsonProperty("objectType") @Nullable final ObjectType objectType) {
+        this.objectType = objectType;
+    }
+
+    // Null for all indexed object types
+    @Nullable
+    public ObjectType getObjectType() {
+        return objectType;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SearchIndexRebuildNotificationKey{");
+        sb.append("objectType=").append(objectType);
+        sb.append('}');
+        return sb.toString();
+    }
+}
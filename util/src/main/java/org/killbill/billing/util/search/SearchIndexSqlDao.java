@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.callcontext.InternalTenantContextBinder;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
+
+@EntitySqlDaoStringTemplate
+public interface SearchIndexSqlDao extends Transactional<SearchIndexSqlDao> {
+
+    @SqlQuery
+    public String getPartitionState(@Bind("objectType") final String objectType,
+                                    @InternalTenantContextBinder final InternalTenantContext context);
+
+    @SqlUpdate
+    public void createPartition(@Bind("objectType") final String objectType,
+                                @Bind("state") final String state,
+                                @Bind("updatedDate") final Date updatedDate,
+                                @InternalTenantContextBinder final InternalTenantContext context);
+
+    @SqlUpdate
+    public void updatePartitionState(@Bind("objectType") final String objectType,
+                                     @Bind("state") final String state,
+                                     @Bind("updatedDate") final Date updatedDate,
+                                     @InternalTenantContextBinder final InternalTenantContext context);
+
+    @SqlQuery
+    public List<String> getGrams(@Bind("objectType") final String objectType,
+                                 @Bind("targetRecordId") final Long targetRecordId,
+                                 @InternalTenantContextBinder final InternalTenantContext context);
+
+    @SqlBatch
+    public void addGrams(@Bind("objectType") final String objectType,
+                         @Bind("gram") final Iterable<String> grams,
+                         @Bind("targetRecordId") final Long targetRecordId,
+                         @InternalTenantContextBinder final InternalTenantContext context);
+
+    @SqlBatch
+    public void deleteGrams(@Bind("objectType") final String objectType,
+                            @Bind("gram") final Iterable<String> grams,
+                            @Bind("targetRecordId") final Long targetRecordId,
+                            @InternalTenantContextBinder final InternalTenantContext context);
+
+    // Record ids of the rows having all the grams, ordered
+    @SqlQuery
+    public List<Long> searchCandidates(@Bind("objectType") final String objectType,
+                                       @GramCollectionBinder final Collection<String> grams,
+                                       @Bind("nbGrams") final int nbGrams,
+                                       @Bind("maxNbCandidates") final int maxNbCandidates,
+                                       @InternalTenantContextBinder final InternalTenantContext context);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search.api;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.search.AdminSearchIndexApi;
+import org.killbill.billing.util.search.SearchIndex;
+import org.killbill.billing.util.search.SearchIndexService;
+
+public class DefaultAdminSearchIndexApi implements AdminSearchIndexApi {
+
+    private final SearchIndex searchIndex;
+    private final SearchIndexService searchIndexService;
+    private final InternalCallContextFactory internalCallContextFactory;
+
+    @Inject
+    public DefaultAdminSearchIndexApi(final SearchIndex searchIndex,
+                                      final SearchIndexService searchIndexService,
+                                      final InternalCallContextFactory internalCallContextFactory) {
+        this.searchIndex = searchIndex;
+        this.searchIndexService = searchIndexService;
+        this.internalCallContextFactory = internalCallContextFactory;
+    }
+
+    @Override
+    public boolean rebuildSearchIndex(@Nullable final ObjectType objectType, final CallContext context) {
+        if (!searchIndex.isEnabled()) {
+            return false;
+        }
+
+        searchIndexService.scheduleRebuild(objectType, internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(context));
+        return true;
+    }
+}
@@ -33,11 +33,9 @@ import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authz.AuthorizationException;
-import org.apache.shiro.mgt.DefaultSecurityManager;
-import org.apache.shiro.realm.Realm;
-import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.broadcast.BroadcastApi;
 import org.killbill.billing.security.Logical;
 import org.killbill.billing.security.Permission;
 import org.killbill.billing.security.SecurityApiException;
@@ -47,11 +45,12 @@ import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.security.shiro.dao.RolesPermissionsModelDao;
 import org.killbill.billing.util.security.shiro.dao.UserDao;
 import org.killbill.billing.util.security.shiro.dao.UserRolesModelDao;
-import org.killbill.billing.util.security.shiro.realm.KillBillJdbcRealm;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
-import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Strings;
 import com.google.common.collect.Collections2;
@@ -61,13 +60,19 @@ import com.google.common.collect.Lists;
 
 public class DefaultSecurityApi implements SecurityApi {
 
+    private static final Logger logger = LoggerFactory.getLogger(DefaultSecurityApi.class);
+
     private static final String[] allPermissions = new String[Permission.values().length];
 
     private final UserDao userDao;
+    private final BroadcastApi broadcastApi;
+    private final Clock clock;
 
     @Inject
-    public DefaultSecurityApi(final UserDao userDao) {
+    public DefaultSecurityApi(final UserDao userDao, final BroadcastApi broadcastApi, final Clock clock) {
         this.userDao = userDao;
+        this.broadcastApi = broadcastApi;
+        this.clock = clock;
     }
 
     @Override
@@ -169,22 +174,25 @@ public class DefaultSecurityApi implements SecurityApi {
     @Override
     public void addUserRoles(final String username, final String password, final List<String> roles, final CallContext callContext) throws SecurityApiException {
         userDao.insertUser(username, password, roles, callContext.getUserName());
+        invalidateJDBCCache(SecurityCacheInvalidationListener.USER_CACHE_INVALIDATION, username, callContext);
     }
 
     @Override
     public void updateUserPassword(final String username, final String password, final CallContext callContext) throws SecurityApiException {
         userDao.updateUserPassword(username, password, callContext.getUserName());
+        invalidateJDBCCache(SecurityCacheInvalidationListener.USER_CACHE_INVALIDATION, username, callContext);
     }
 
     @Override
     public void updateUserRoles(final String username, final List<String> roles, final CallContext callContext) throws SecurityApiException {
         userDao.updateUserRoles(username, roles, callContext.getUserName());
-        invalidateJDBCAuthorizationCache(username);
+        invalidateJDBCCache(SecurityCacheInvalidationListener.USER_CACHE_INVALIDATION, username, callContext);
     }
 
     @Override
     public void invalidateUser(final String username, final CallContext callContext) throws SecurityApiException {
         userDao.invalidateUser(username, callContext.getUserName());
+        invalidateJDBCCache(SecurityCacheInvalidationListener.USER_CACHE_INVALIDATION, username, callContext);
     }
 
     @Override
@@ -203,6 +211,7 @@ public class DefaultSecurityApi implements SecurityApi {
     public void addRoleDefinition(final String role, final List<String> permissions, final CallContext callContext) throws SecurityApiException {
         final List<String> sanitizedPermissions = sanitizeAndValidatePermissions(permissions);
         userDao.addRoleDefinition(role, sanitizedPermissions, callContext.getUserName());
+        invalidateJDBCCache(SecurityCacheInvalidationListener.ROLE_CACHE_INVALIDATION, role, callContext);
     }
 
     @Override
@@ -295,19 +304,14 @@ public class DefaultSecurityApi implements SecurityApi {
         return allPermissions;
     }
 
-    private void invalidateJDBCAuthorizationCache(final String username) {
-        final Collection<Realm> realms = ((DefaultSecurityManager) SecurityUtils.getSecurityManager()).getRealms();
-        final KillBillJdbcRealm killBillJdbcRealm = (KillBillJdbcRealm) Iterables.tryFind(realms, new Predicate<Realm>() {
-            @Override
-            public boolean apply(@Nullable final Realm input) {
-                return (input instanceof KillBillJdbcRealm);
-            }
-        }).orNull();
-
-        if (killBillJdbcRealm != null) {
-            final SimplePrincipalCollection principals = new SimplePrincipalCollection();
-            principals.add(username, killBillJdbcRealm.getName());
-            killBillJdbcRealm.clearCachedAuthorizationInfo(principals);
+    private void invalidateJDBCCache(final String type, final String event, final CallContext callContext) {
+        // Invalidate our own cache right away, other nodes will pick up the broadcast
+        SecurityCacheInvalidationListener.invalidateLocalCache(type, event);
+        try {
+            broadcastApi.broadcast(DefaultSecurityService.SECURITY_SERVICE_NAME, type, event, clock.getUTCNow(), callContext.getUserName(), false);
+        } catch (final RuntimeException e) {
+            // Other nodes will eventually reload it (see org.killbill.security.jdbcRealm.cacheTTL)
+            logger.warn("Failed to broadcast security cache invalidation {} for {}", type, event, e);
         }
     }
 }
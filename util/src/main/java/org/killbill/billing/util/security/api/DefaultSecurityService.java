@@ -18,22 +18,31 @@
 
 package org.killbill.billing.util.security.api;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.mgt.SessionsSecurityManager;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
+import org.killbill.billing.util.security.shiro.dao.JDBCSessionDao;
+import org.killbill.bus.api.PersistentBus;
 
 public class DefaultSecurityService implements SecurityService {
 
     public static final String SECURITY_SERVICE_NAME = "security-service";
 
     private final SecurityManager securityManager;
+    private final PersistentBus eventBus;
+    private final SecurityCacheInvalidationListener securityCacheInvalidationListener;
 
     @Inject
-    public DefaultSecurityService(final SecurityManager securityManager) {
+    public DefaultSecurityService(final SecurityManager securityManager, final PersistentBus eventBus, final SecurityCacheInvalidationListener securityCacheInvalidationListener) {
         this.securityManager = securityManager;
+        this.eventBus = eventBus;
+        this.securityCacheInvalidationListener = securityCacheInvalidationListener;
     }
 
     @Override
@@ -44,10 +53,45 @@ public class DefaultSecurityService implements SecurityService {
     @LifecycleHandlerType(LifecycleHandlerType.LifecycleLevel.INIT_SERVICE)
     public void initialize() {
         SecurityUtils.setSecurityManager(securityManager);
+        try {
+            eventBus.register(securityCacheInvalidationListener);
+        } catch (final PersistentBus.EventBusException e) {
+            throw new RuntimeException("Failed to register bus handlers", e);
+        }
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
+    public void start() {
+        final JDBCSessionDao jdbcSessionDao = getJDBCSessionDao();
+        if (jdbcSessionDao != null) {
+            jdbcSessionDao.start();
+        }
     }
 
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
     public void stop() {
+        final JDBCSessionDao jdbcSessionDao = getJDBCSessionDao();
+        if (jdbcSessionDao != null) {
+            jdbcSessionDao.stop();
+        }
+        try {
+            eventBus.unregister(securityCacheInvalidationListener);
+        } catch (final PersistentBus.EventBusException e) {
+            throw new RuntimeException("Failed to unregister bus handlers", e);
+        }
         SecurityUtils.setSecurityManager(null);
     }
+
+    // See JDBCSessionDaoProvider
+    @Nullable
+    private JDBCSessionDao getJDBCSessionDao() {
+        if (securityManager instanceof SessionsSecurityManager &&
+            ((SessionsSecurityManager) securityManager).getSessionManager() instanceof DefaultSessionManager) {
+            final DefaultSessionManager sessionManager = (DefaultSessionManager) ((SessionsSecurityManager) securityManager).getSessionManager();
+            if (sessionManager.getSessionDAO() instanceof JDBCSessionDao) {
+                return (JDBCSessionDao) sessionManager.getSessionDAO();
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.util.security.api;
+
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.UnavailableSecurityManagerException;
+import org.apache.shiro.mgt.RealmSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.Realm;
+import org.killbill.billing.events.BroadcastInternalEvent;
+import org.killbill.billing.util.security.shiro.realm.KillBillJdbcRealm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+//
+// Applies the KillBillJdbcRealm cache invalidations broadcast by DefaultSecurityApi (on all nodes, including the one which
+// made the change, which already invalidated its cache synchronously)
+//
+public class SecurityCacheInvalidationListener {
+
+    public static final String USER_CACHE_INVALIDATION = "USER_CACHE_INVALIDATION";
+    public static final String ROLE_CACHE_INVALIDATION = "ROLE_CACHE_INVALIDATION";
+
+    private static final Logger logger = LoggerFactory.getLogger(SecurityCacheInvalidationListener.class);
+
+    @AllowConcurrentEvents
+    @Subscribe
+    public void handleBroadcastEvent(final BroadcastInternalEvent event) {
+        if (!DefaultSecurityService.SECURITY_SERVICE_NAME.equals(event.getServiceName())) {
+            return;
+        }
+
+        invalidateLocalCache(event.getType(), event.getJsonEvent());
+    }
+
+    // The event is the username for USER_CACHE_INVALIDATION and the role name for ROLE_CACHE_INVALIDATION
+    static void invalidateLocalCache(final String type, final String event) {
+        final SecurityManager securityManager;
+        try {
+            securityManager = SecurityUtils.getSecurityManager();
+        } catch (final UnavailableSecurityManagerException e) {
+            // Nothing has been cached
+            return;
+        }
+
+        final KillBillJdbcRealm killBillJdbcRealm = getKillBillJdbcRealm(securityManager);
+        if (killBillJdbcRealm == null) {
+            return;
+        }
+
+        if (USER_CACHE_INVALIDATION.equals(type)) {
+            killBillJdbcRealm.invalidateUser(event);
+        } else if (ROLE_CACHE_INVALIDATION.equals(type)) {
+            killBillJdbcRealm.invalidateAll();
+        } else {
+            logger.warn("Unexpected security cache invalidation type {}", type);
+        }
+    }
+
+    private static KillBillJdbcRealm getKillBillJdbcRealm(final SecurityManager securityManager) {
+        if (!(securityManager instanceof RealmSecurityManager)) {
+            return null;
+        }
+
+        final Collection<Realm> realms = ((RealmSecurityManager) securityManager).getRealms();
+        if (realms == null) {
+            return null;
+        }
+
+        return (KillBillJdbcRealm) Iterables.tryFind(realms, new Predicate<Realm>() {
+            @Override
+            public boolean apply(@Nullable final Realm input) {
+                return (input instanceof KillBillJdbcRealm);
+            }
+        }).orNull();
+    }
+}
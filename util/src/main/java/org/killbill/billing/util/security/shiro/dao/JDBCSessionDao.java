@@ -20,36 +20,117 @@ package org.killbill.billing.util.security.shiro.dao;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
 import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
 import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.joda.time.DateTime;
 import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.config.definition.RbacConfig;
+import org.killbill.commons.concurrent.Executors;
 import org.skife.jdbi.v2.IDBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+//
+// Shiro updates the session on every access, mostly to bump its last access time. Such updates are kept in memory
+// and flushed in batch every sessionLastAccessTimeFlushInterval by a background thread (started and stopped with the
+// security service, which flushes one last time on stop), so the last access time seen by other nodes is never older
+// than that interval. Any other change (attributes, timeout, ...) is written through.
+//
 public class JDBCSessionDao extends CachingSessionDAO {
 
     private static final Logger log = LoggerFactory.getLogger(JDBCSessionDao.class);
 
+    private static final int TERMINATION_TIMEOUT_SEC = 5;
+
     private final JDBCSessionSqlDao jdbcSessionSqlDao;
+    private final long flushIntervalMillis;
+    // Last state written (or read) for each session
+    private final ConcurrentMap<String, SessionModelDao> persistedSessions = new ConcurrentHashMap<String, SessionModelDao>();
+    private final ConcurrentMap<String, DateTime> pendingLastAccessTimes = new ConcurrentHashMap<String, DateTime>();
+
+    private ScheduledExecutorService flushExecutor;
 
     @Inject
-    public JDBCSessionDao(final IDBI dbi) {
+    public JDBCSessionDao(final IDBI dbi, final RbacConfig rbacConfig) {
         this.jdbcSessionSqlDao = dbi.onDemand(JDBCSessionSqlDao.class);
+        this.flushIntervalMillis = rbacConfig.getSessionLastAccessTimeFlushInterval().getMillis();
+    }
+
+    public synchronized void start() {
+        if (flushIntervalMillis <= 0 || flushExecutor != null) {
+            return;
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor("SessionLastAccessTimeFlusher");
+        flushExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flushLastAccessTimes(System.currentTimeMillis());
+                } catch (final RuntimeException e) {
+                    // Don't cancel the next runs
+                    log.warn("Failed to flush session last access times", e);
+                }
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            try {
+                if (!flushExecutor.awaitTermination(TERMINATION_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                    log.warn("SessionLastAccessTimeFlusher failed to complete termination within {} sec", TERMINATION_TIMEOUT_SEC);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("SessionLastAccessTimeFlusher stop sequence got interrupted");
+            }
+            flushExecutor = null;
+        }
+
+        if (flushIntervalMillis > 0) {
+            // Don't lose the last access times recorded since the last run
+            flushLastAccessTimes(System.currentTimeMillis());
+        }
     }
 
     @Override
     protected void doUpdate(final Session session) {
-        jdbcSessionSqlDao.update(new SessionModelDao(session));
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        if (flushIntervalMillis <= 0) {
+            jdbcSessionSqlDao.update(sessionModelDao);
+            return;
+        }
+
+        final String sessionId = sessionModelDao.getId();
+        if (sessionModelDao.isSameStateAs(persistedSessions.get(sessionId))) {
+            pendingLastAccessTimes.put(sessionId, sessionModelDao.getLastAccessTime());
+        } else {
+            // The full row is written, including the latest last access time
+            pendingLastAccessTimes.remove(sessionId);
+            jdbcSessionSqlDao.update(sessionModelDao);
+            persistedSessions.put(sessionId, sessionModelDao);
+        }
     }
 
     @Override
     protected void doDelete(final Session session) {
-        jdbcSessionSqlDao.delete(new SessionModelDao(session));
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        pendingLastAccessTimes.remove(sessionModelDao.getId());
+        persistedSessions.remove(sessionModelDao.getId());
+        jdbcSessionSqlDao.delete(sessionModelDao);
     }
 
     @Override
@@ -57,7 +138,11 @@ public class JDBCSessionDao extends CachingSessionDAO {
         final UUID sessionId = UUIDs.randomUUID();
         // See SessionModelDao#toSimpleSession for why we use toString()
         assignSessionId(session, sessionId.toString());
-        jdbcSessionSqlDao.create(new SessionModelDao(session));
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        jdbcSessionSqlDao.create(sessionModelDao);
+        if (flushIntervalMillis > 0) {
+            persistedSessions.put(sessionModelDao.getId(), sessionModelDao);
+        }
         return sessionId;
     }
 
@@ -75,11 +160,63 @@ public class JDBCSessionDao extends CachingSessionDAO {
             return null;
         }
 
+        final Session session;
         try {
-            return sessionModelDao.toSimpleSession();
+            session = sessionModelDao.toSimpleSession();
         } catch (final IOException e) {
             log.warn("Corrupted cookie", e);
             return null;
         }
+
+        if (flushIntervalMillis > 0) {
+            // The database may lag behind our own pending last access time
+            final DateTime pendingLastAccessTime = pendingLastAccessTimes.get(sessionIdString);
+            if (pendingLastAccessTime != null && pendingLastAccessTime.isAfter(sessionModelDao.getLastAccessTime())) {
+                ((SimpleSession) session).setLastAccessTime(pendingLastAccessTime.toDate());
+            }
+            // Built from the session to compare apples to apples with the next update (e.g. if the database truncates timestamps)
+            persistedSessions.put(sessionIdString, new SessionModelDao(session));
+        }
+
+        return session;
+    }
+
+    // Visible for testing
+    void flushLastAccessTimes(final long now) {
+        // Flushed row -> previously persisted row
+        final Map<SessionModelDao, SessionModelDao> toFlush = new HashMap<SessionModelDao, SessionModelDao>();
+        for (final Map.Entry<String, DateTime> entry : pendingLastAccessTimes.entrySet()) {
+            final SessionModelDao persisted = persistedSessions.get(entry.getKey());
+            if (persisted != null) {
+                toFlush.put(persisted.withLastAccessTime(entry.getValue()), persisted);
+            }
+        }
+
+        if (!toFlush.isEmpty()) {
+            try {
+                jdbcSessionSqlDao.updateLastAccessTime(toFlush.keySet());
+            } catch (final RuntimeException e) {
+                // Keep them pending, we'll retry on the next flush
+                log.warn("Failed to flush last access time for {} sessions", toFlush.size(), e);
+                return;
+            }
+
+            for (final Map.Entry<SessionModelDao, SessionModelDao> entry : toFlush.entrySet()) {
+                final SessionModelDao flushed = entry.getKey();
+                // Don't drop a more recent access (or state) which happened during the flush
+                pendingLastAccessTimes.remove(flushed.getId(), flushed.getLastAccessTime());
+                persistedSessions.replace(flushed.getId(), entry.getValue(), flushed);
+            }
+        }
+
+        // Forget about sessions which have expired (they may have been deleted by another node)
+        for (final SessionModelDao persisted : persistedSessions.values()) {
+            final DateTime pendingLastAccessTime = pendingLastAccessTimes.get(persisted.getId());
+            final DateTime lastAccessTime = pendingLastAccessTime != null ? pendingLastAccessTime : persisted.getLastAccessTime();
+            if (persisted.getTimeout() >= 0 && lastAccessTime.getMillis() + persisted.getTimeout() < now) {
+                persistedSessions.remove(persisted.getId(), persisted);
+                pendingLastAccessTimes.remove(persisted.getId());
+            }
+        }
     }
 }
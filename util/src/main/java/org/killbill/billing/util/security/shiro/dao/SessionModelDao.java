@@ -55,6 +55,28 @@ public class SessionModelDao {
         }
     }
 
+    SessionModelDao withLastAccessTime(final DateTime newLastAccessTime) {
+        final SessionModelDao sessionModelDao = new SessionModelDao();
+        sessionModelDao.recordId = recordId;
+        sessionModelDao.id = id;
+        sessionModelDao.startTimestamp = startTimestamp;
+        sessionModelDao.lastAccessTime = newLastAccessTime;
+        sessionModelDao.timeout = timeout;
+        sessionModelDao.host = host;
+        sessionModelDao.sessionData = sessionData;
+        return sessionModelDao;
+    }
+
+    // True if both rows only differ by their last access time (and record id)
+    boolean isSameStateAs(final SessionModelDao that) {
+        return that != null &&
+               timeout == that.timeout &&
+               (id != null ? id.equals(that.id) : that.id == null) &&
+               (startTimestamp != null ? startTimestamp.equals(that.startTimestamp) : that.startTimestamp == null) &&
+               (host != null ? host.equals(that.host) : that.host == null) &&
+               Arrays.equals(sessionData, that.sessionData);
+    }
+
     public Session toSimpleSession() throws IOException {
         final SimpleSession simpleSession = new SimpleSession();
         if (id != null) {
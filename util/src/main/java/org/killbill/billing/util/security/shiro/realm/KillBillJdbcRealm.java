@@ -17,16 +17,35 @@
 
 package org.killbill.billing.util.security.shiro.realm;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.sql.DataSource;
 
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.realm.jdbc.JdbcRealm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.killbill.billing.platform.glue.KillBillPlatformModuleBase;
 import org.killbill.billing.util.config.definition.SecurityConfig;
 import org.killbill.billing.util.security.shiro.KillbillCredentialsMatcher;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 public class KillBillJdbcRealm extends JdbcRealm {
 
     protected static final String KILLBILL_SALTED_AUTHENTICATION_QUERY = "select password, password_salt from users where username = ? and is_active";
@@ -36,15 +55,34 @@ public class KillBillJdbcRealm extends JdbcRealm {
     private final DataSource dataSource;
     private final SecurityConfig securityConfig;
 
+    // Keyed by username. Entries are invalidated by DefaultSecurityApi (locally and on other nodes through the broadcast service)
+    // and expire after the configured TTL regardless, to bound staleness if a broadcast is missed.
+    private final Cache<String, CachedAuthenticationInfo> authenticationInfoCache;
+    private final Cache<String, AuthorizationInfo> authorizationInfoCache;
+    // Random per-process salt used to remember, in memory only, which submitted credentials already passed the (expensive) hashed check
+    private final byte[] verifiedCredentialsSalt;
+
     @Inject
     public KillBillJdbcRealm(@Named(KillBillPlatformModuleBase.SHIRO_DATA_SOURCE_ID_NAMED) final DataSource dataSource, final SecurityConfig securityConfig) {
         super();
         this.dataSource = dataSource;
         this.securityConfig = securityConfig;
 
-        // TODO Enable when we add support for cache invalidation
-        // See JavaDoc warning: https://shiro.apache.org/static/1.2.3/apidocs/org/apache/shiro/realm/AuthenticatingRealm.html
-        //setAuthenticationCachingEnabled(true);
+        final long cacheTTLMillis = securityConfig.getJdbcRealmCacheTTL().getMillis();
+        this.authenticationInfoCache = CacheBuilder.newBuilder()
+                                                   .maximumSize(securityConfig.getJdbcRealmCacheMaxSize())
+                                                   .expireAfterWrite(cacheTTLMillis, TimeUnit.MILLISECONDS)
+                                                   .build();
+        this.authorizationInfoCache = CacheBuilder.newBuilder()
+                                                  .maximumSize(securityConfig.getJdbcRealmCacheMaxSize())
+                                                  .expireAfterWrite(cacheTTLMillis, TimeUnit.MILLISECONDS)
+                                                  .build();
+        this.verifiedCredentialsSalt = new byte[32];
+        new SecureRandom().nextBytes(verifiedCredentialsSalt);
+
+        // We manage our own caches (see above): the Shiro ones wouldn't be invalidated across nodes
+        setAuthenticationCachingEnabled(false);
+        setAuthorizationCachingEnabled(false);
 
         // Tweak JdbcRealm defaults
         setPermissionsLookupEnabled(true);
@@ -57,8 +95,101 @@ public class KillBillJdbcRealm extends JdbcRealm {
     }
 
     @Override
-    public void clearCachedAuthorizationInfo(PrincipalCollection principals) {
+    public void clearCachedAuthorizationInfo(final PrincipalCollection principals) {
         super.clearCachedAuthorizationInfo(principals);
+        if (principals != null) {
+            authorizationInfoCache.invalidate(getAvailablePrincipal(principals));
+        }
+    }
+
+    public void invalidateUser(final String username) {
+        authenticationInfoCache.invalidate(username);
+        authorizationInfoCache.invalidate(username);
+    }
+
+    // Role definitions changed: we don't know which users are impacted
+    public void invalidateAll() {
+        authenticationInfoCache.invalidateAll();
+        authorizationInfoCache.invalidateAll();
+    }
+
+    @Override
+    protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) throws AuthenticationException {
+        final String username = ((UsernamePasswordToken) token).getUsername();
+        if (username == null) {
+            // Let JdbcRealm throw the right exception
+            return super.doGetAuthenticationInfo(token);
+        }
+
+        return getOrLoad(authenticationInfoCache, username, new Callable<CachedAuthenticationInfo>() {
+            @Override
+            public CachedAuthenticationInfo call() throws Exception {
+                return new CachedAuthenticationInfo((SimpleAuthenticationInfo) KillBillJdbcRealm.super.doGetAuthenticationInfo(token));
+            }
+        });
+    }
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(final PrincipalCollection principals) {
+        if (principals == null) {
+            // Let JdbcRealm throw the right exception
+            return super.doGetAuthorizationInfo(principals);
+        }
+
+        final String username = (String) getAvailablePrincipal(principals);
+        return getOrLoad(authorizationInfoCache, username, new Callable<AuthorizationInfo>() {
+            @Override
+            public AuthorizationInfo call() throws Exception {
+                return KillBillJdbcRealm.super.doGetAuthorizationInfo(principals);
+            }
+        });
+    }
+
+    @Override
+    protected void assertCredentialsMatch(final AuthenticationToken token, final AuthenticationInfo info) throws AuthenticationException {
+        if (!(info instanceof CachedAuthenticationInfo)) {
+            super.assertCredentialsMatch(token, info);
+            return;
+        }
+
+        final CachedAuthenticationInfo cachedAuthenticationInfo = (CachedAuthenticationInfo) info;
+        final byte[] submittedCredentialsDigest = digestCredentials(token.getCredentials());
+        if (cachedAuthenticationInfo.isVerified(submittedCredentialsDigest)) {
+            return;
+        }
+
+        // Throws if the credentials don't match
+        super.assertCredentialsMatch(token, info);
+        cachedAuthenticationInfo.setVerifiedCredentialsDigest(submittedCredentialsDigest);
+    }
+
+    private <V> V getOrLoad(final Cache<String, V> cache, final String username, final Callable<V> loader) {
+        try {
+            return cache.get(username, loader);
+        } catch (final ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (final UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private byte[] digestCredentials(final Object credentials) {
+        final String credentialsString;
+        if (credentials instanceof char[]) {
+            credentialsString = new String((char[]) credentials);
+        } else if (credentials instanceof String) {
+            credentialsString = (String) credentials;
+        } else {
+            return null;
+        }
+
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(verifiedCredentialsSalt);
+            return messageDigest.digest(credentialsString.getBytes(Charsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private void configureSecurity() {
@@ -69,4 +200,22 @@ public class KillBillJdbcRealm extends JdbcRealm {
     private void configureDataSource() {
         setDataSource(dataSource);
     }
+
+    private static final class CachedAuthenticationInfo extends SimpleAuthenticationInfo {
+
+        private volatile byte[] verifiedCredentialsDigest;
+
+        private CachedAuthenticationInfo(final SimpleAuthenticationInfo info) {
+            super(info.getPrincipals(), info.getCredentials(), info.getCredentialsSalt());
+        }
+
+        private boolean isVerified(final byte[] credentialsDigest) {
+            final byte[] verified = verifiedCredentialsDigest;
+            return credentialsDigest != null && verified != null && MessageDigest.isEqual(verified, credentialsDigest);
+        }
+
+        private void setVerifiedCredentialsDigest(final byte[] credentialsDigest) {
+            this.verifiedCredentialsDigest = credentialsDigest;
+        }
+    }
 }
@@ -34,7 +34,11 @@ public class DefaultControlTag extends DescriptiveTag implements ControlTag {
 
     // use to hydrate objects when loaded from the persistence layer
     public DefaultControlTag(final UUID id, final ControlTagType controlTagType, final ObjectType objectType, final UUID objectId, final DateTime createdDate) {
-        super(id, controlTagType.getId(), objectType, objectId, createdDate);
+        this(id, controlTagType, objectType, objectId, createdDate, createdDate);
+    }
+
+    public DefaultControlTag(final UUID id, final ControlTagType controlTagType, final ObjectType objectType, final UUID objectId, final DateTime createdDate, final DateTime updatedDate) {
+        super(id, controlTagType.getId(), objectType, objectId, createdDate, updatedDate);
         this.controlTagType = controlTagType;
     }
 
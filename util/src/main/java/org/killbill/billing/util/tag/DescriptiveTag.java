@@ -32,7 +32,12 @@ public class DescriptiveTag extends EntityBase implements Tag {
 
     // use to hydrate objects from the persistence layer
     public DescriptiveTag(final UUID id, final UUID tagDefinitionId, final ObjectType objectType, final UUID objectId, final DateTime createdDate) {
-        super(id, createdDate, createdDate);
+        this(id, tagDefinitionId, objectType, objectId, createdDate, createdDate);
+    }
+
+    // use to hydrate objects from the persistence layer (the updated date of a deleted tag is its deletion date)
+    public DescriptiveTag(final UUID id, final UUID tagDefinitionId, final ObjectType objectType, final UUID objectId, final DateTime createdDate, final DateTime updatedDate) {
+        super(id, createdDate, updatedDate);
         this.tagDefinitionId = tagDefinitionId;
         this.objectType = objectType;
         this.objectId = objectId;
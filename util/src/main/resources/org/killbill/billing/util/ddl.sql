@@ -315,3 +315,27 @@ CREATE TABLE service_broadcasts (
     created_by varchar(50) NOT NULL,
     PRIMARY KEY(record_id)
 ) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+
+DROP TABLE IF EXISTS search_index_partitions;
+CREATE TABLE search_index_partitions (
+    record_id serial unique,
+    object_type varchar(30) NOT NULL,
+    state varchar(20) NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX search_index_partitions_tenant_object_type ON search_index_partitions(tenant_record_id, object_type);
+
+DROP TABLE IF EXISTS search_index_grams;
+CREATE TABLE search_index_grams (
+    record_id serial unique,
+    object_type varchar(30) NOT NULL,
+    gram varchar(3) NOT NULL,
+    target_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE INDEX search_index_grams_gram ON search_index_grams(tenant_record_id, object_type, gram, target_record_id);
+CREATE INDEX search_index_grams_target ON search_index_grams(tenant_record_id, object_type, target_record_id);
@@ -29,6 +29,7 @@ import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.UserType;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.killbill.billing.util.glue.SearchModule;
 import org.killbill.clock.Clock;
 import org.killbill.clock.ClockMock;
 
@@ -65,5 +66,7 @@ public class GuicyKillbillTestModule extends KillBillModule {
         bind(InternalCallContext.class).toInstance(internalCallContext);
         bind(MutableInternalCallContext.class).toInstance(internalCallContext);
         bind(CallContext.class).toInstance(callContext);
+
+        install(new SearchModule(configSource));
     }
 }
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.dao;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -32,6 +33,8 @@ import org.killbill.billing.util.dao.NonEntitySqlDao;
 import org.killbill.billing.util.dao.TableName;
 import org.skife.jdbi.v2.Handle;
 
+import com.google.common.collect.ImmutableMap;
+
 public class MockNonEntityDao implements NonEntityDao {
 
     private final Map<UUID, Long> tenantRecordIdMappings = new HashMap<UUID, Long>();
@@ -65,6 +68,17 @@ public class MockNonEntityDao implements NonEntityDao {
         return null;
     }
 
+    @Override
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, final Long tenantRecordId) {
+        final Map<UUID, Long> result = new HashMap<UUID, Long>();
+        for (final UUID objectId : objectIds) {
+            if (accountRecordIdMappings.containsKey(objectId) && tenantRecordId.equals(tenantRecordIdMappings.get(objectId))) {
+                result.put(objectId, accountRecordIdMappings.get(objectId));
+            }
+        }
+        return result;
+    }
+
     @Override
     public Long retrieveTenantRecordIdFromObject(final UUID objectId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
         return tenantRecordIdMappings.get(objectId);
@@ -90,6 +104,11 @@ public class MockNonEntityDao implements NonEntityDao {
         return null;
     }
 
+    @Override
+    public Map<UUID, Long> retrieveHistoryRecordIdsFromTransaction(final Collection<Long> targetRecordIds, final TableName tableName, final NonEntitySqlDao transactional) {
+        return ImmutableMap.<UUID, Long>of();
+    }
+
     @Override
     public Long retrieveHistoryTargetRecordId(final Long recordId, final TableName tableName) {
         return null;
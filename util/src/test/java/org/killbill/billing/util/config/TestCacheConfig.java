@@ -18,11 +18,17 @@
 package org.killbill.billing.util.config;
 
 import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.config.definition.KillbillConfig;
+import org.killbill.billing.util.config.tenant.CacheConfig;
+import org.killbill.billing.util.config.tenant.MultiTenantConfigBase;
 import org.killbill.billing.util.config.tenant.PerTenantConfig;
 import org.killbill.billing.util.jackson.ObjectMapper;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Optional;
+
 public class TestCacheConfig extends UtilTestSuiteNoDB {
 
     @Test(groups = "fast")
@@ -41,4 +47,37 @@ public class TestCacheConfig extends UtilTestSuiteNoDB {
         final PerTenantConfig result = objectMapper.readValue(inputString, PerTenantConfig.class);
         Assert.assertEquals(result.size(), 4);
     }
+
+    @Test(groups = "fast")
+    public void testValidatePerTenantConfig() throws Exception {
+        final CacheConfig cacheConfig = new CacheConfig(cacheControllerDispatcher);
+        // Registers itself against the CacheConfig
+        new MultiTenantConfigBase<Optional<Integer>>(cacheConfig) {
+            @Override
+            protected Optional<Integer> compile(final PerTenantConfig perTenantConfig) {
+                return Optional.<Integer>fromNullable(getIntegerOverride(perTenantConfig, "getNumberOfMonthsInFuture"));
+            }
+
+            @Override
+            protected Class<? extends KillbillConfig> getConfigClass() {
+                return InvoiceConfig.class;
+            }
+        };
+
+        cacheConfig.validatePerTenantConfig("{\"org.killbill.invoice.maxNumberOfMonthsInFuture\":\"12\"}");
+        cacheConfig.validatePerTenantConfig("{\"org.killbill.unknown\":\"foo\"}");
+
+        try {
+            cacheConfig.validatePerTenantConfig("{\"org.killbill.invoice.maxNumberOfMonthsInFuture\":\"twelve\"}");
+            Assert.fail("Invalid integer should have been rejected");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("org.killbill.invoice.maxNumberOfMonthsInFuture"));
+        }
+
+        try {
+            cacheConfig.validatePerTenantConfig("not json");
+            Assert.fail("Invalid json should have been rejected");
+        } catch (final IllegalArgumentException ignored) {
+        }
+    }
 }
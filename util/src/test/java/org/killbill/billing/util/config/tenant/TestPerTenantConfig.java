@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config.tenant;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.config.definition.KillbillConfig;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+
+public class TestPerTenantConfig extends UtilTestSuiteNoDB {
+
+    private static final String MONTHS_IN_FUTURE = "org.killbill.invoice.maxNumberOfMonthsInFuture";
+    private static final String DRY_RUN_SCHEDULE = "org.killbill.invoice.dryRunNotificationSchedule";
+
+    private MultiTenantConfigBase<Overrides> multiTenantConfig;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        multiTenantConfig = new MultiTenantConfigBase<Overrides>(new CacheConfig(cacheControllerDispatcher)) {
+            @Override
+            protected Overrides compile(final PerTenantConfig perTenantConfig) {
+                return new Overrides(getIntegerOverride(perTenantConfig, "getNumberOfMonthsInFuture"),
+                                     getStringOverride(perTenantConfig, "getDryRunNotificationSchedule"));
+            }
+
+            @Override
+            protected Class<? extends KillbillConfig> getConfigClass() {
+                return InvoiceConfig.class;
+            }
+        };
+    }
+
+    @Test(groups = "fast")
+    public void testInvalidStoredValueOnlyAffectsItsProperty() throws Exception {
+        final PerTenantConfig perTenantConfig = new PerTenantConfig();
+        perTenantConfig.put(MONTHS_IN_FUTURE, "twelve");
+        perTenantConfig.put(DRY_RUN_SCHEDULE, "1d");
+
+        // Values already stored for the tenant are compiled leniently: the invalid one falls back to the default
+        final Overrides overrides = perTenantConfig.getCompiledConfig(multiTenantConfig);
+        Assert.assertFalse(overrides.monthsInFuture.isPresent());
+        Assert.assertEquals(overrides.dryRunSchedule.get(), "1d");
+
+        // ...whereas it is rejected on upload
+        perTenantConfig.setStrict(true);
+        try {
+            multiTenantConfig.compile(perTenantConfig);
+            Assert.fail("Invalid integer should have been rejected");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains(MONTHS_IN_FUTURE));
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testCompiledConfigAfterJavaSerialization() throws Exception {
+        final PerTenantConfig input = new PerTenantConfig();
+        input.put(MONTHS_IN_FUTURE, "12");
+        input.compile(multiTenantConfig);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ObjectOutputStream objectOutputStream = new ObjectOutputStream(out);
+        objectOutputStream.writeObject(input);
+        objectOutputStream.close();
+
+        final PerTenantConfig result = (PerTenantConfig) new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())).readObject();
+        Assert.assertEquals(result, input);
+        Assert.assertEquals(result.getCompiledConfig(multiTenantConfig).monthsInFuture.get(), (Integer) 12);
+    }
+
+    private static final class Overrides {
+
+        private final Optional<Integer> monthsInFuture;
+        private final Optional<String> dryRunSchedule;
+
+        private Overrides(final Integer monthsInFuture, final String dryRunSchedule) {
+            this.monthsInFuture = Optional.fromNullable(monthsInFuture);
+            this.dryRunSchedule = Optional.fromNullable(dryRunSchedule);
+        }
+    }
+}
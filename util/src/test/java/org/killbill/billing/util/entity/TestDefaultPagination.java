@@ -46,6 +46,27 @@ public class TestDefaultPagination extends UtilTestSuiteNoDB {
         Assert.assertEquals(DefaultPagination.<Integer>build(5L, 3L, ImmutableList.<Integer>of(1, 2, 3, 4, 5)), expectedOf(5L, 0L, 5L, ImmutableList.<Integer>of()));
     }
 
+    @Test(groups = "fast", description = "Test Util: keyset pagination tokens")
+    public void testPageTokens() throws Exception {
+        Assert.assertEquals(DefaultPagination.fromPageToken(null), (Long) 0L);
+        Assert.assertEquals(DefaultPagination.fromPageToken(""), (Long) 0L);
+        Assert.assertEquals(DefaultPagination.fromPageToken(DefaultPagination.toPageToken(1L)), (Long) 1L);
+        Assert.assertEquals(DefaultPagination.fromPageToken(DefaultPagination.toPageToken(40000000L)), (Long) 40000000L);
+
+        for (final String invalidToken : ImmutableList.<String>of("12", "not a token!", DefaultPagination.toPageToken(12L).substring(1))) {
+            try {
+                DefaultPagination.fromPageToken(invalidToken);
+                Assert.fail("Token should be invalid: " + invalidToken);
+            } catch (final IllegalArgumentException e) {
+                // Expected
+            }
+        }
+
+        final DefaultPagination<Integer> page = new DefaultPagination<Integer>(null, 2L, null, null, DefaultPagination.toPageToken(2L), ImmutableList.<Integer>of(1, 2).iterator());
+        Assert.assertNull(page.getNextOffset());
+        Assert.assertEquals(new DefaultPagination<Integer>(page, 2L, ImmutableList.<Integer>of(1, 2).iterator()).getNextPageToken(), page.getNextPageToken());
+    }
+
     private Pagination<Integer> expectedOf(final Long currentOffset, final Long totalNbRecords,
                                            final Long maxNbRecords, final List<Integer> delegate) {
         return new DefaultPagination<Integer>(currentOffset, Long.MAX_VALUE, totalNbRecords, maxNbRecords, delegate.iterator());
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -28,10 +30,12 @@ import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.PageTokenPagination;
 import org.killbill.billing.util.entity.Pagination;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 
 public class MockEntityDaoBase<M extends EntityModelDao<E>, E extends Entity, U extends BillingExceptionBase> implements EntityDao<M, E, U> {
 
@@ -78,6 +82,18 @@ public class MockEntityDaoBase<M extends EntityModelDao<E>, E extends Entity, U
         return DefaultPagination.<M>build(offset, limit, ImmutableList.<M>copyOf(getAll(context)));
     }
 
+    @Override
+    public PageTokenPagination<M> getFromPageToken(final String pageToken, final Long limit, final boolean withCount, final InternalTenantContext context) {
+        final Long fromRecordId = DefaultPagination.fromPageToken(pageToken);
+        final SortedMap<Long, M> byRecordId = new TreeMap<Long, M>();
+        for (final Map<Long, M> cur : entities.values()) {
+            byRecordId.putAll(cur);
+        }
+        final List<M> result = ImmutableList.<M>copyOf(Iterables.<M>limit(byRecordId.tailMap(fromRecordId + 1).values(), limit.intValue()));
+        final Long count = withCount ? getCount(context) : null;
+        return new DefaultPagination<M>(null, limit, count, count, null, result.iterator());
+    }
+
     @Override
     public Long getCount(final InternalTenantContext context) {
         return (long) entities.keySet().size();
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.audit.ChangeType;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoInvocationPlan.SqlDaoInvocationPlans;
+import org.killbill.billing.util.tag.dao.TagSqlDao;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestEntitySqlDaoInvocationPlan extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast", description = "Test Util: invocation plans are computed once per SqlDao method")
+    public void testInvocationPlans() throws Exception {
+        final SqlDaoInvocationPlans plans = EntitySqlDaoInvocationPlan.forSqlDaoClass(TagSqlDao.class);
+        Assert.assertSame(EntitySqlDaoInvocationPlan.forSqlDaoClass(TagSqlDao.class), plans);
+
+        final Method getRecordId = TagSqlDao.class.getMethod("getRecordId", String.class, InternalTenantContext.class);
+        final EntitySqlDaoInvocationPlan getRecordIdPlan = plans.getPlan(getRecordId);
+        Assert.assertSame(plans.getPlan(getRecordId), getRecordIdPlan);
+        Assert.assertEquals(getRecordIdPlan.getObjectType(), ObjectType.TAG);
+        Assert.assertEquals(getRecordIdPlan.getCacheType(), CacheType.RECORD_ID);
+        Assert.assertNull(getRecordIdPlan.getAuditedChangeType());
+        Assert.assertFalse(getRecordIdPlan.isGetById());
+
+        final String id = UUID.randomUUID().toString();
+        final Object[] getRecordIdArgs = {id, internalCallContext};
+        Assert.assertEquals(getRecordIdPlan.getCacheKeyPieces(getRecordIdArgs), new Object[]{id});
+        Assert.assertSame(getRecordIdPlan.getContext(getRecordIdArgs), internalCallContext);
+        Assert.assertEquals(getRecordIdPlan.getProfilingName(), "TagSqlDao:getRecordId");
+
+        final EntitySqlDaoInvocationPlan createPlan = plans.getPlan(TagSqlDao.class.getMethod("create", EntityModelDao.class, InternalCallContext.class));
+        Assert.assertEquals(createPlan.getAuditedChangeType(), ChangeType.INSERT);
+        Assert.assertNull(createPlan.getCacheType());
+        Assert.assertEquals(createPlan.getCacheKeyPieces(new Object[]{null, internalCallContext}).length, 0);
+        Assert.assertSame(createPlan.getContext(new Object[]{null, internalCallContext}), internalCallContext);
+
+        Assert.assertTrue(plans.getPlan(TagSqlDao.class.getMethod("getById", String.class, InternalTenantContext.class)).isGetById());
+    }
+
+    @Test(groups = "fast", description = "Test Util: a SqlDao whose ObjectType can't be computed only fails cached calls")
+    public void testObjectTypeIsComputedLazily() throws Exception {
+        final SqlDaoInvocationPlans plans = EntitySqlDaoInvocationPlan.forSqlDaoClass(UninstantiableModelSqlDao.class);
+
+        final EntitySqlDaoInvocationPlan createPlan = plans.getPlan(UninstantiableModelSqlDao.class.getMethod("create", EntityModelDao.class, InternalCallContext.class));
+        Assert.assertEquals(createPlan.getAuditedChangeType(), ChangeType.INSERT);
+        Assert.assertEquals(createPlan.getProfilingName(), "UninstantiableModelSqlDao:create");
+
+        final EntitySqlDaoInvocationPlan getRecordIdPlan = plans.getPlan(UninstantiableModelSqlDao.class.getMethod("getRecordId", String.class, InternalTenantContext.class));
+        try {
+            getRecordIdPlan.getObjectType();
+            Assert.fail();
+        } catch (final IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof ReflectiveOperationException);
+        }
+    }
+
+    private interface UninstantiableModelSqlDao extends EntitySqlDao<UninstantiableModelDao, Entity> {}
+
+    private abstract static class UninstantiableModelDao implements EntityModelDao<Entity> {}
+}
@@ -16,22 +16,30 @@
 
 package org.killbill.billing.util.export.dao;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.UUID;
 
+import javax.inject.Inject;
+
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.tweak.HandleCallback;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
 import org.killbill.billing.util.api.DatabaseExportOutputStream;
 import org.killbill.billing.util.validation.dao.DatabaseSchemaDao;
 
 public class TestDatabaseExportDao extends UtilTestSuiteWithEmbeddedDB {
 
+    @Inject
+    private DatabaseImportDao importDao;
+
     @Test(groups = "slow")
     public void testExportSimpleData() throws Exception {
         // Empty database
@@ -90,6 +98,105 @@ public class TestDatabaseExportDao extends UtilTestSuiteWithEmbeddedDB {
 
     }
 
+    @Test(groups = "slow")
+    public void testExportAndImportBinaryData() throws Exception {
+        final String tableNameC = "test_database_export_dao_c";
+        final String tableNameD = "test_database_export_dao_d";
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                // Test tables aren't cleaned up between tests
+                handle.execute("drop table if exists test_database_export_dao_a");
+                handle.execute("drop table if exists test_database_export_dao_b");
+                handle.execute("drop table if exists " + tableNameC);
+                handle.execute("create table " + tableNameC + "(record_id serial unique," +
+                               "c_column varchar(255) default null," +
+                               "amount numeric(15,9) default null," +
+                               "created_date datetime default null," +
+                               "account_record_id bigint /*! unsigned */ not null," +
+                               "tenant_record_id bigint /*! unsigned */ not null default 0," +
+                               "primary key(record_id));");
+                handle.execute("drop table if exists " + tableNameD);
+                handle.execute("create table " + tableNameD + "(record_id serial unique," +
+                               "d_column char default 'd'," +
+                               "tenant_record_id bigint /*! unsigned */ not null default 0," +
+                               "primary key(record_id));");
+                for (int i = 0; i < 10; i++) {
+                    handle.execute("insert into " + tableNameC + " (c_column, amount, created_date, account_record_id, tenant_record_id) values (?, ?, ?, ?, ?)",
+                                   i % 2 == 0 ? "row-" + i : null, new BigDecimal("12.5").add(BigDecimal.valueOf(i)), new Date(12421982000L),
+                                   internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+                }
+                handle.execute("insert into " + tableNameD + " (tenant_record_id) values (?)", internalCallContext.getTenantRecordId());
+                return null;
+            }
+        });
+
+        // Parallel and sequential exports should be identical
+        final String csvDump = getDump();
+        final CSVExportOutputStream parallelCsvOut = new CSVExportOutputStream(new ByteArrayOutputStream());
+        dao.exportDataForAccount(parallelCsvOut, 4, internalCallContext);
+        Assert.assertEquals(parallelCsvOut.toString(), csvDump);
+
+        final ByteArrayOutputStream binaryDump = new ByteArrayOutputStream();
+        dao.exportDataForAccount(new BinaryExportOutputStream(binaryDump), 4, internalCallContext);
+
+        final BinaryExportInputStream in = new BinaryExportInputStream(new ByteArrayInputStream(binaryDump.toByteArray()));
+        int nbRows = 0;
+        while (in.next()) {
+            if (in.isNewTable()) {
+                // Per-tenant tables are only part of tenant-wide exports
+                Assert.assertNotEquals(in.getTableName(), tableNameD);
+            } else if (tableNameC.equals(in.getTableName())) {
+                final Object[] row = in.getRow();
+                Assert.assertEquals(row.length, 6);
+                Assert.assertEquals(((BigDecimal) row[2]).compareTo(new BigDecimal("12.5").add(BigDecimal.valueOf(nbRows))), 0);
+                Assert.assertEquals(((Date) row[3]).getTime(), 12421982000L);
+                Assert.assertEquals(row[1], nbRows % 2 == 0 ? "row-" + nbRows : null);
+                nbRows++;
+            }
+        }
+        Assert.assertEquals(nbRows, 10);
+
+        // The tenant-wide export includes per-tenant tables
+        final ByteArrayOutputStream tenantDump = new ByteArrayOutputStream();
+        dao.exportDataForTenant(new CSVExportOutputStream(tenantDump), 2, false, internalCallContext);
+        Assert.assertTrue(tenantDump.toString().contains("-- " + tableNameD + " record_id,d_column,tenant_record_id\n"));
+        // ...but neither the queues nor, by default, the tenant key/values
+        Assert.assertFalse(tenantDump.toString().contains("-- notifications "));
+        Assert.assertFalse(tenantDump.toString().contains("-- bus_events "));
+        Assert.assertFalse(tenantDump.toString().contains("-- tenant_kvs "));
+
+        // Re-import the binary dump into empty tables
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute("delete from " + tableNameC);
+                return null;
+            }
+        });
+        Assert.assertEquals(getDump(), "");
+
+        // Rows of another tenant are rejected
+        try {
+            importDao.importData(new ByteArrayInputStream(binaryDump.toByteArray()), new InternalTenantContext(internalCallContext.getTenantRecordId() + 1));
+            Assert.fail("Import into another tenant should have been rejected");
+        } catch (final RuntimeException e) {
+            Assert.assertEquals(getDump(), "");
+        }
+
+        importDao.importData(new ByteArrayInputStream(binaryDump.toByteArray()), internalCallContext);
+        Assert.assertEquals(getDump(), csvDump);
+
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute("drop table " + tableNameC);
+                handle.execute("drop table " + tableNameD);
+                return null;
+            }
+        });
+    }
+
     private String getDump() {
         final DatabaseExportOutputStream out = new CSVExportOutputStream(new ByteArrayOutputStream());
         dao.exportDataForAccount(out, internalCallContext);
@@ -19,6 +19,7 @@
 package org.killbill.billing.util.glue;
 
 import org.killbill.billing.GuicyKillbillTestNoDBModule;
+import org.killbill.billing.broadcast.BroadcastApi;
 import org.killbill.billing.mock.glue.MockGlobalLockerModule;
 import org.killbill.billing.mock.glue.MockNonEntityDaoModule;
 import org.killbill.billing.platform.api.KillbillConfigSource;
@@ -26,6 +27,7 @@ import org.killbill.billing.util.api.AuditUserApi;
 import org.killbill.billing.util.audit.api.DefaultAuditUserApi;
 import org.killbill.billing.util.audit.dao.AuditDao;
 import org.killbill.billing.util.audit.dao.MockAuditDao;
+import org.mockito.Mockito;
 
 public class TestUtilModuleNoDB extends TestUtilModule {
 
@@ -51,6 +53,7 @@ public class TestUtilModuleNoDB extends TestUtilModule {
         install(new ShiroModuleNoDB(configSource));
         install(new KillBillShiroAopModule());
         install(new SecurityModule(configSource));
+        bind(BroadcastApi.class).toInstance(Mockito.mock(BroadcastApi.class));
     }
 
     public static class ShiroModuleNoDB extends KillBillShiroModule {
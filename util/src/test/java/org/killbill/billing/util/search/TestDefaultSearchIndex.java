@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014-2017 Groupon, Inc
+ * Copyright 2014-2017 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.search;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.config.definition.SearchConfig;
+import org.mockito.Mockito;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class TestDefaultSearchIndex extends UtilTestSuiteWithEmbeddedDB {
+
+    private SearchConfig searchConfig;
+    private DefaultSearchIndex searchIndex;
+    private List<SearchIndexable> rows;
+
+    @BeforeMethod(groups = "slow")
+    public void beforeMethod() throws Exception {
+        super.beforeMethod();
+
+        searchConfig = Mockito.mock(SearchConfig.class);
+        Mockito.when(searchConfig.isSearchIndexEnabled()).thenReturn(true);
+        Mockito.when(searchConfig.getSearchIndexMaxCandidates()).thenReturn(2);
+
+        rows = ImmutableList.<SearchIndexable>of(new TestRow(1L, "John Doe", "john@example.com"),
+                                                 new TestRow(2L, "Jane Doe", "jane@acme.org"),
+                                                 new TestRow(3L, "Bob", null));
+        searchIndex = new DefaultSearchIndex(dbi, searchConfig, clock);
+        searchIndex.registerSource(ObjectType.ACCOUNT, new SearchIndexSource() {
+            @Override
+            public Iterator<? extends SearchIndexable> getAll(final InternalTenantContext context) {
+                return rows.iterator();
+            }
+        });
+    }
+
+    @Test(groups = "slow", description = "Test Util: search index lookups")
+    public void testSearch() throws Exception {
+        // Rows written once the index is enabled are indexed right away, but the partition hasn't been built yet
+        index(new TestRow(1L, "John Doe", "john@example.com"));
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "Doe", internalCallContext));
+
+        searchIndex.rebuild(ObjectType.ACCOUNT, internalCallContext);
+        Assert.assertEquals(searchIndex.getIndexedObjectTypes(), ImmutableSet.<ObjectType>of(ObjectType.ACCOUNT));
+
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "doe", internalCallContext), ImmutableSet.<Long>of(1L, 2L));
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "N DO", internalCallContext), ImmutableSet.<Long>of(1L));
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "acme", internalCallContext), ImmutableSet.<Long>of(2L));
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "nobody", internalCallContext), ImmutableSet.<Long>of());
+        // Only some of the trigrams of long keys are looked up
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "john@example.com", internalCallContext), ImmutableSet.<Long>of(1L));
+
+        // Keys the index cannot answer
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "jo", internalCallContext));
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "jo%", internalCallContext));
+        Assert.assertNull(searchIndex.search(ObjectType.PAYMENT, "john", internalCallContext));
+        // Too many candidates
+        index(new TestRow(4L, "Jim Doe"));
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "doe", internalCallContext));
+
+        // Updates replace the previous trigrams
+        index(new TestRow(3L, "Robert", null));
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "robert", internalCallContext), ImmutableSet.<Long>of(3L));
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "bob", internalCallContext), ImmutableSet.<Long>of());
+
+        // The index is shared: another instance (node) sees the same partition
+        final SearchIndex otherSearchIndex = new DefaultSearchIndex(dbi, searchConfig, clock);
+        Assert.assertEquals(otherSearchIndex.search(ObjectType.ACCOUNT, "robert", internalCallContext), ImmutableSet.<Long>of(3L));
+    }
+
+    @Test(groups = "slow", description = "Test Util: disabled search index")
+    public void testDisabled() throws Exception {
+        Mockito.when(searchConfig.isSearchIndexEnabled()).thenReturn(false);
+
+        searchIndex.rebuild(ObjectType.ACCOUNT, internalCallContext);
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "doe", internalCallContext));
+
+        // Turning it on isn't enough, the partition needs to be built first
+        Mockito.when(searchConfig.isSearchIndexEnabled()).thenReturn(true);
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "doe", internalCallContext));
+
+        searchIndex.rebuild(ObjectType.ACCOUNT, internalCallContext);
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "robert", internalCallContext), ImmutableSet.<Long>of());
+
+        // Rows written while the index is disabled are still indexed, so the partition remains complete once it is turned back on
+        Mockito.when(searchConfig.isSearchIndexEnabled()).thenReturn(false);
+        index(new TestRow(5L, "Robert"));
+        Assert.assertNull(searchIndex.search(ObjectType.ACCOUNT, "robert", internalCallContext));
+
+        Mockito.when(searchConfig.isSearchIndexEnabled()).thenReturn(true);
+        Assert.assertEquals(searchIndex.search(ObjectType.ACCOUNT, "robert", internalCallContext), ImmutableSet.<Long>of(5L));
+    }
+
+    private void index(final SearchIndexable row) {
+        dbi.inTransaction(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                searchIndex.index(handle, ObjectType.ACCOUNT, row, internalCallContext);
+                return null;
+            }
+        });
+    }
+
+    private static final class TestRow implements SearchIndexable {
+
+        private final Long recordId;
+        private final List<String> values;
+
+        private TestRow(final Long recordId, final String... values) {
+            this.recordId = recordId;
+            this.values = Arrays.asList(values);
+        }
+
+        @Override
+        public Long getRecordId() {
+            return recordId;
+        }
+
+        @Override
+        public Iterable<String> getSearchableValues() {
+            return values;
+        }
+    }
+}
@@ -27,12 +27,16 @@ import org.skife.jdbi.v2.IDBI;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import org.killbill.billing.broadcast.BroadcastApi;
 import org.killbill.billing.security.Permission;
 import org.killbill.billing.security.RequiresPermissions;
 import org.killbill.billing.util.UtilTestSuiteNoDB;
 import org.killbill.billing.util.glue.KillBillShiroAopModule;
 import org.killbill.billing.util.glue.KillBillShiroModule;
 import org.killbill.billing.util.glue.SecurityModule;
+import org.killbill.bus.api.PersistentBus;
+import org.killbill.clock.Clock;
+import org.killbill.clock.ClockMock;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -83,6 +87,9 @@ public class TestPermissionAnnotationMethodInterceptor extends UtilTestSuiteNoDB
                                                            @Override
                                                            protected void configure() {
                                                                bind(IDBI.class).toInstance(Mockito.mock(IDBI.class));
+                                                               bind(BroadcastApi.class).toInstance(Mockito.mock(BroadcastApi.class));
+                                                               bind(PersistentBus.class).toInstance(Mockito.mock(PersistentBus.class));
+                                                               bind(Clock.class).to(ClockMock.class);
                                                            }
                                                        });
         final AopTester aopedTester = injector.getInstance(AopTester.class);
@@ -111,6 +118,9 @@ public class TestPermissionAnnotationMethodInterceptor extends UtilTestSuiteNoDB
                                                            @Override
                                                            public void configure() {
                                                                bind(IDBI.class).toInstance(Mockito.mock(IDBI.class));
+                                                               bind(BroadcastApi.class).toInstance(Mockito.mock(BroadcastApi.class));
+                                                               bind(PersistentBus.class).toInstance(Mockito.mock(PersistentBus.class));
+                                                               bind(Clock.class).to(ClockMock.class);
                                                                bind(IAopTester.class).to(AopTesterImpl.class).asEagerSingleton();
                                                            }
                                                        });
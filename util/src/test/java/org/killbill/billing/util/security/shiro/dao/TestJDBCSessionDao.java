@@ -23,14 +23,28 @@ import java.util.UUID;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.mgt.SimpleSession;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.config.definition.RbacConfig;
+import org.mockito.Mockito;
+import org.skife.config.ConfigurationObjectFactory;
+import org.skife.config.TimeSpan;
 import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 public class TestJDBCSessionDao extends UtilTestSuiteWithEmbeddedDB {
 
+    private RbacConfig rbacConfig;
+
+    @Override
+    @BeforeClass(groups = "slow")
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+        rbacConfig = new ConfigurationObjectFactory(skifeConfigSource).build(RbacConfig.class);
+    }
+
     @Test(groups = "slow")
     public void testH2AndInvalidSessionId() {
-        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi);
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi, rbacConfig);
 
         // We need to create some data to force H2 to build the query
         // (otherwise, the read path is optimized and the bug is not triggered)
@@ -44,7 +58,7 @@ public class TestJDBCSessionDao extends UtilTestSuiteWithEmbeddedDB {
     @Test(groups = "slow")
     public void testCRUD() throws Exception {
         // Note! We are testing the do* methods here to bypass the caching layer
-        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi);
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi, rbacConfig);
 
         // Retrieve
         final SimpleSession session = createSession();
@@ -67,6 +81,66 @@ public class TestJDBCSessionDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertNull(jdbcSessionDao.doReadSession(session.getId()));
     }
 
+    @Test(groups = "slow")
+    public void testLastAccessTimeUpdatesAreCoalesced() throws Exception {
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi, rbacConfig);
+
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.doCreate(session);
+        final Date initialLastAccessTime = jdbcSessionDao.doReadSession(sessionId).getLastAccessTime();
+
+        // Only the last access time changes: nothing is written until the next flush
+        session.setLastAccessTime(new Date(initialLastAccessTime.getTime() + 1000));
+        jdbcSessionDao.doUpdate(session);
+        session.setLastAccessTime(new Date(initialLastAccessTime.getTime() + 2000));
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertEquals(new SessionModelDao(jdbcSessionDao.doReadSession(sessionId)).getLastAccessTime().getMillis(), initialLastAccessTime.getTime() + 2000);
+        Assert.assertEquals(dbi.onDemand(JDBCSessionSqlDao.class).read(sessionId.toString()).getLastAccessTime().getMillis(), initialLastAccessTime.getTime());
+
+        jdbcSessionDao.flushLastAccessTimes(System.currentTimeMillis());
+        Assert.assertEquals(dbi.onDemand(JDBCSessionSqlDao.class).read(sessionId.toString()).getLastAccessTime().getMillis(), initialLastAccessTime.getTime() + 2000);
+
+        // Attribute changes are written through
+        final String attributeKey = UUID.randomUUID().toString();
+        session.setAttribute(attributeKey, "value");
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertEquals(dbi.onDemand(JDBCSessionSqlDao.class).read(sessionId.toString()).toSimpleSession().getAttribute(attributeKey), "value");
+    }
+
+    @Test(groups = "slow")
+    public void testLastAccessTimesAreFlushedWhileIdleAndOnStop() throws Exception {
+        final RbacConfig rbacConfigWithShortFlushInterval = Mockito.mock(RbacConfig.class);
+        Mockito.when(rbacConfigWithShortFlushInterval.getSessionLastAccessTimeFlushInterval()).thenReturn(new TimeSpan("100ms"));
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi, rbacConfigWithShortFlushInterval);
+        final JDBCSessionSqlDao jdbcSessionSqlDao = dbi.onDemand(JDBCSessionSqlDao.class);
+
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.doCreate(session);
+        final Date initialLastAccessTime = jdbcSessionDao.doReadSession(sessionId).getLastAccessTime();
+
+        jdbcSessionDao.start();
+        try {
+            // No other access after this one: the background flush still persists it
+            session.setLastAccessTime(new Date(initialLastAccessTime.getTime() + 1000));
+            jdbcSessionDao.doUpdate(session);
+
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (jdbcSessionSqlDao.read(sessionId.toString()).getLastAccessTime().getMillis() != initialLastAccessTime.getTime() + 1000 &&
+                   System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(jdbcSessionSqlDao.read(sessionId.toString()).getLastAccessTime().getMillis(), initialLastAccessTime.getTime() + 1000);
+
+            session.setLastAccessTime(new Date(initialLastAccessTime.getTime() + 2000));
+            jdbcSessionDao.doUpdate(session);
+        } finally {
+            jdbcSessionDao.stop();
+        }
+
+        // Pending last access times are flushed on stop
+        Assert.assertEquals(jdbcSessionSqlDao.read(sessionId.toString()).getLastAccessTime().getMillis(), initialLastAccessTime.getTime() + 2000);
+    }
+
     private SimpleSession createSession() {
         final SimpleSession simpleSession = new SimpleSession();
         simpleSession.setStartTimestamp(new Date(System.currentTimeMillis() - 5000));
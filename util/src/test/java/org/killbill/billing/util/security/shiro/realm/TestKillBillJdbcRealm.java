@@ -19,6 +19,8 @@ package org.killbill.billing.util.security.shiro.realm;
 
 import java.util.List;
 
+import javax.inject.Inject;
+
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -33,6 +35,10 @@ import org.killbill.billing.ErrorCode;
 import org.killbill.billing.security.Permission;
 import org.killbill.billing.security.SecurityApiException;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.broadcast.DefaultBroadcastInternalEvent;
+import org.killbill.billing.util.security.api.DefaultSecurityService;
+import org.killbill.billing.util.security.api.SecurityCacheInvalidationListener;
+import org.killbill.billing.util.security.shiro.dao.UserDao;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -44,6 +50,9 @@ import com.google.common.collect.Iterables;
 
 public class TestKillBillJdbcRealm extends UtilTestSuiteWithEmbeddedDB {
 
+    @Inject
+    private UserDao userDao;
+
     private SecurityManager securityManager;
 
     @Override
@@ -113,6 +122,34 @@ public class TestKillBillJdbcRealm extends UtilTestSuiteWithEmbeddedDB {
 
     }
 
+    @Test(groups = "slow")
+    public void testCachedAuthenticationIsInvalidatedThroughBroadcast() throws SecurityApiException {
+        final String username = "cached";
+        final String password = "s0meth1ng";
+
+        securityApi.addRoleDefinition("cachedRoot", ImmutableList.of("*"), callContext);
+        securityApi.addUserRoles(username, password, ImmutableList.of("cachedRoot"), callContext);
+
+        final AuthenticationToken goodToken = new UsernamePasswordToken(username, password);
+        securityManager.login(null, goodToken).logout();
+
+        // Simulate a password change on another node: the local cache still has the previous credentials
+        final String newPassword = "s0meth1ngElse";
+        userDao.updateUserPassword(username, newPassword, "other-node");
+        securityManager.login(null, goodToken).logout();
+
+        // Until the broadcast is received
+        new SecurityCacheInvalidationListener().handleBroadcastEvent(new DefaultBroadcastInternalEvent(DefaultSecurityService.SECURITY_SERVICE_NAME,
+                                                                                                       SecurityCacheInvalidationListener.USER_CACHE_INVALIDATION,
+                                                                                                       username));
+        try {
+            securityManager.login(null, goodToken);
+            Assert.fail("Should not succeed to login with an incorrect password");
+        } catch (final AuthenticationException e) {
+        }
+        securityManager.login(null, new UsernamePasswordToken(username, newPassword)).logout();
+    }
+
     @Test(groups = "slow")
     public void testEmptyPermissions() throws SecurityApiException {
         securityApi.addRoleDefinition("sanity1", null, callContext);
@@ -41,6 +41,8 @@ public class MockTagDao extends MockEntityDaoBase<TagModelDao, Tag, TagApiExcept
 
     @Override
     public void create(final TagModelDao tag, final InternalCallContext context) throws TagApiException {
+        tag.setAccountRecordId(context.getAccountRecordId());
+        tag.setTenantRecordId(context.getTenantRecordId());
         if (tagStore.get(tag.getObjectId()) == null) {
             tagStore.put(tag.getObjectId(), new ArrayList<TagModelDao>());
         }
@@ -88,7 +90,17 @@ public class MockTagDao extends MockEntityDaoBase<TagModelDao, Tag, TagApiExcept
 
     @Override
     public List<TagModelDao> getTagsForAccountType(final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
-        throw new UnsupportedOperationException();
+        final List<TagModelDao> result = new ArrayList<TagModelDao>();
+        for (final List<TagModelDao> tags : tagStore.values()) {
+            for (final TagModelDao tag : tags) {
+                if (objectType.equals(tag.getObjectType()) &&
+                    internalTenantContext.getAccountRecordId().equals(tag.getAccountRecordId()) &&
+                    internalTenantContext.getTenantRecordId().equals(tag.getTenantRecordId())) {
+                    result.add(tag);
+                }
+            }
+        }
+        return result;
     }
 
     @Override
@@ -145,6 +145,8 @@ public class TestDefaultTagDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(foundTagsForAccount.get(0).getTagDefinitionId(), createdTagDefinition.getId());
 
         // Delete the tag
+        clock.addDays(1);
+        internalCallContext.setUpdatedDate(clock.getUTCNow());
         eventsListener.pushExpectedEvent(NextEvent.TAG);
         tagDao.deleteTag(objectId, objectType, createdTagDefinition.getId(), internalCallContext);
         assertListenerStatus();
@@ -153,7 +155,11 @@ public class TestDefaultTagDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(tagDao.getTagsForObject(objectId, objectType, false, internalCallContext).size(), 0);
         Assert.assertEquals(tagDao.getTagsForAccount(false, internalCallContext).size(), 0);
         Assert.assertEquals(tagDao.getTagsForObject(objectId, objectType, true, internalCallContext).size(), 1);
-        Assert.assertEquals(tagDao.getTagsForAccount(true, internalCallContext).size(), 1);
+        final List<TagModelDao> deletedTags = tagDao.getTagsForAccount(true, internalCallContext);
+        Assert.assertEquals(deletedTags.size(), 1);
+        // The updated date records the deletion date
+        Assert.assertEquals(deletedTags.get(0).getUpdatedDate().toLocalDate(), clock.getUTCToday());
+        Assert.assertTrue(deletedTags.get(0).getUpdatedDate().compareTo(deletedTags.get(0).getCreatedDate()) > 0);
     }
 
     @Test(groups = "slow")